@@ -4,9 +4,12 @@ import android.app.Application
 import android.media.AudioAttributes
 import android.media.SoundPool
 import android.util.Log
+import com.socam.bcms.uhf.InventoryTuning
 import com.socam.bcms.uhf.UHFManagerWrapper
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.service.DatabaseMaintenanceJobService
 import com.socam.bcms.utils.LocaleHelper
+import com.socam.bcms.utils.MainThreadWatchdog
 import com.tencent.mmkv.MMKV
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -45,6 +48,9 @@ class BCMSApp : Application() {
         var currentInvtDataType = -1         // 目前清單資料類型 / Current inventory data type
         var protocolType = 1                 // 協議類型 (1:ISO, 2:GB) / Protocol type
         var powerSize = 5                    // 功率大小 / Power size
+        var writePowerSize = 20              // 寫入功率 / Write power (PowerProfile.WRITE)
+        var nearFieldPowerSize = 10          // 近場功率 / Near-field power (PowerProfile.NEAR_FIELD)
+        var inventoryAutoTune = true         // 自動調整清單掃描 / Adaptive inventory tuning (Settings override)
         var maxPower = 33                    // 最大功率 / Maximum power
         var isASCII = false                  // 是否以 ASCII 顯示 / Display as ASCII
     }
@@ -83,6 +89,9 @@ class BCMSApp : Application() {
         
         Log.d(TAG, "BCMS 應用程式啟動 / BCMS Application starting")
         
+        // Main-thread stall detection (stacks go to the AppLog diagnostic ring)
+        MainThreadWatchdog.start()
+        
         // 初始化 MMKV 儲存 / Initialize MMKV storage
         initializeMMKV()
         
@@ -122,6 +131,9 @@ class BCMSApp : Application() {
     private fun initializeDatabase() {
         // Don't initialize database during app startup - do it lazily when needed
         Log.d(TAG, "資料庫將在需要時初始化 / Database will be initialized when needed")
+        
+        // Purge / ANALYZE / vacuum run later, while the device is idle and charging
+        DatabaseMaintenanceJobService.schedule(this)
     }
     
     /**
@@ -135,7 +147,7 @@ class BCMSApp : Application() {
                 
                 // Apply saved language using LocaleHelper
                 val savedLanguage = try {
-                    databaseManager.database.appSettingsQueries
+                    databaseManager.appDatabase.appSettingsQueries
                         .selectSettingByKey("app_language")
                         .executeAsOneOrNull()
                         ?.setting_value ?: "en"
@@ -156,7 +168,7 @@ class BCMSApp : Application() {
                 
                 // Load saved UHF power level
                 val savedPowerLevel = try {
-                    databaseManager.database.appSettingsQueries
+                    databaseManager.appDatabase.appSettingsQueries
                         .selectSettingByKey("uhf_power_level")
                         .executeAsOneOrNull()
                         ?.setting_value?.toIntOrNull() ?: 30
@@ -168,6 +180,17 @@ class BCMSApp : Application() {
                 Log.d(TAG, "Setting global power level: $savedPowerLevel")
                 powerSize = savedPowerLevel
                 
+                // Load adaptive inventory tuning switch (on unless turned off in Settings)
+                inventoryAutoTune = try {
+                    databaseManager.appDatabase.appSettingsQueries
+                        .selectSettingByKey("inventory_auto_tune")
+                        .executeAsOneOrNull()
+                        ?.setting_value?.toBooleanStrictOrNull() ?: true
+                } catch (e: Exception) {
+                    Log.w(TAG, "Failed to load inventory auto-tune setting: ${e.message}")
+                    true
+                }
+                
                 Log.d(TAG, "✅ Global settings initialized successfully")
                 
             } catch (e: Exception) {
@@ -211,8 +234,9 @@ class BCMSApp : Application() {
     private fun initializeUHFHardware() {
         Log.d(TAG, "開始初始化 UHF 硬體 / Starting UHF hardware initialization")
         
-        // 在背景執行緒中進行初始化 (跟隨供應商模式) / Initialize in background thread (following vendor pattern)
-        Thread {
+        // 在 UHF 執行緒中進行初始化 (跟隨供應商模式) / Initialize on the UHF thread (following vendor pattern)
+        // Screens' UHF calls queue behind the power-on settle time instead of racing it
+        uhfManager.post {
             try {
                 // 步驟 1: 初始化 UHF 管理器 / Step 1: Initialize UHF manager
                 val initResult = uhfManager.initialize(com.uhf.base.UHFModuleType.SLR_MODULE)
@@ -242,7 +266,7 @@ class BCMSApp : Application() {
             } catch (e: Exception) {
                 Log.e(TAG, "UHF 硬體初始化發生例外 / UHF hardware initialization exception", e)
             }
-        }.start()
+        }
     }
 
     /**
@@ -251,8 +275,9 @@ class BCMSApp : Application() {
      */
     private fun configureOptimalSettings() {
         try {
-            // 設定庫存模式為 3 (最佳效能) / Set inventory mode to 3 (best performance)
-            val inventoryResult = uhfManager.setSlrInventoryMode(3)
+            // 設定庫存模式為 3 (最佳效能)、S0、目標 A / Set inventory mode 3 (best performance), session S0, target A
+            // Screens re-apply their own (auto-tuned) settings before each inventory
+            val inventoryResult = uhfManager.applyInventoryTuning(InventoryTuning.BASELINE)
             Log.d(TAG, "設定庫存模式結果 / Set inventory mode result: $inventoryResult")
             
             // 設定讀取標籤模式 / Set read tag mode
@@ -263,6 +288,10 @@ class BCMSApp : Application() {
             val powerResult = uhfManager.setPower(powerSize)
             Log.d(TAG, "設定功率結果 (${powerSize} dBm) / Set power result (${powerSize} dBm): $powerResult")
             
+            // 檢測讀寫功率支援 (一次) / Probe separate read/write power support (once)
+            val readWritePowerResult = uhfManager.probeReadWritePower()
+            Log.d(TAG, "讀寫功率支援 / Read/write power supported: $readWritePowerResult")
+            
             // 設定頻率模式 (美國頻率) / Set frequency mode (US frequency)
             val frequencyResult = uhfManager.setFrequencyModeSet(3)
             Log.d(TAG, "設定頻率模式結果 / Set frequency mode result: $frequencyResult")
@@ -18,20 +18,26 @@ object EnvironmentConfig {
     //val BUILD_ENVIRONMENT = Environment.PRODUCTION // ← COMMENT HERE TO SWITCH
     val BUILD_ENVIRONMENT = Environment.DEVELOPMENT // ← COMMENT HERE TO SWITCH
 
+    /**
+     * compressRequests: gzip large sync upload bodies (server must accept Content-Encoding: gzip)
+     */
     enum class Environment(
         val environmentName: String,
         val baseUrl: String,
-        val displayName: String
+        val displayName: String,
+        val compressRequests: Boolean
     ) {
         DEVELOPMENT(
             environmentName = "development",
             baseUrl = "https://dev.socam.com/iot/api",
-            displayName = "Development"
+            displayName = "Development",
+            compressRequests = false
         ),
         PRODUCTION(
             environmentName = "production", 
             baseUrl = "https://micservice.shuion.com.hk/api",
-            displayName = "Production"
+            displayName = "Production",
+            compressRequests = false
         )
     }
     
@@ -4,10 +4,15 @@ import android.content.Context
 import com.socam.bcms.config.EnvironmentConfig
 import com.socam.bcms.data.database.DatabaseManager
 import com.socam.bcms.data.api.SyncApiService
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.socam.bcms.data.dto.SyncDtoAdapterFactory
+import okhttp3.Cache
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
 import java.security.SecureRandom
 import java.security.cert.X509Certificate
 import java.util.concurrent.TimeUnit
@@ -22,10 +27,25 @@ class ApiClient private constructor(private val context: Context) {
     private val databaseManager = DatabaseManager.getInstance(context)
     private var retrofit: Retrofit? = null
     
+    // Disk cache for GET responses (master data), shared across client recreation
+    private val httpCache = Cache(File(context.cacheDir, HTTP_CACHE_DIR), HTTP_CACHE_SIZE)
+    
     companion object {
         @Volatile
         private var INSTANCE: ApiClient? = null
         
+        private const val HTTP_CACHE_DIR = "http_cache"
+        private const val HTTP_CACHE_SIZE = 20L * 1024 * 1024 // 20 MB
+        
+        /**
+         * Shared Gson with the hand-written sync DTO adapters (Retrofit converter and outbox payloads)
+         */
+        val gson: Gson by lazy {
+            GsonBuilder()
+                .registerTypeAdapterFactory(SyncDtoAdapterFactory())
+                .create()
+        }
+        
         fun getInstance(context: Context): ApiClient {
             return INSTANCE ?: synchronized(this) {
                 INSTANCE ?: ApiClient(context.applicationContext).also { INSTANCE = it }
@@ -72,8 +92,12 @@ class ApiClient private constructor(private val context: Context) {
         }
         
         val okHttpClient = OkHttpClient.Builder()
+            .cache(httpCache)
             .addInterceptor(loggingInterceptor)
             .addInterceptor(AuthInterceptor(context))
+            .addInterceptor(GzipRequestInterceptor(enabled = envConfig.compressRequests))
+            .addInterceptor(ResponseDecodingInterceptor())
+            .addNetworkInterceptor(TrafficStatsInterceptor())
             .connectTimeout(envConfig.timeoutSeconds.toLong(), TimeUnit.SECONDS)
             .readTimeout(envConfig.timeoutSeconds.toLong(), TimeUnit.SECONDS)
             .writeTimeout(envConfig.timeoutSeconds.toLong(), TimeUnit.SECONDS)
@@ -109,14 +133,14 @@ class ApiClient private constructor(private val context: Context) {
         return Retrofit.Builder()
             .baseUrl(ensureBaseUrlEndsWithSlash(envConfig.baseUrl))
             .client(client)
-            .addConverterFactory(GsonConverterFactory.create())
+            .addConverterFactory(GsonConverterFactory.create(gson))
             .build()
     }
     
     private fun getActiveEnvironmentConfig(): EnvironmentConfig {
         // First try to get from database
         val config = try {
-            databaseManager.database.environmentConfigQueries
+            databaseManager.appDatabase.environmentConfigQueries
                 .selectActiveEnvironment()
                 .executeAsOneOrNull()
         } catch (e: Exception) {
@@ -131,7 +155,8 @@ class ApiClient private constructor(private val context: Context) {
                 baseUrl = config.base_url,
                 apiKey = config.api_key,
                 timeoutSeconds = config.timeout_seconds.toInt(),
-                retryCount = config.retry_count.toInt()
+                retryCount = config.retry_count.toInt(),
+                compressRequests = config.compress_requests == 1L
             )
         } else {
             // Fallback to centralized environment configuration
@@ -142,7 +167,8 @@ class ApiClient private constructor(private val context: Context) {
                 baseUrl = centralizedEnv.baseUrl,
                 apiKey = null,
                 timeoutSeconds = 30,
-                retryCount = 3
+                retryCount = 3,
+                compressRequests = centralizedEnv.compressRequests
             )
         }
     }
@@ -156,6 +182,7 @@ class ApiClient private constructor(private val context: Context) {
         val baseUrl: String,
         val apiKey: String?,
         val timeoutSeconds: Int,
-        val retryCount: Int
+        val retryCount: Int,
+        val compressRequests: Boolean
     )
 }
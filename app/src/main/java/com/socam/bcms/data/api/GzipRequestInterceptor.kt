@@ -0,0 +1,73 @@
+package com.socam.bcms.data.api
+
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.Response
+import okio.Buffer
+import okio.GzipSink
+import okio.buffer
+import java.io.IOException
+
+/**
+ * OkHttp interceptor for gzip-compressing request bodies (opt-in)
+ *
+ * - Only requests marked with [COMPRESS_HEADER] (see SyncApiService) are considered
+ * - Only when the active environment enables it (EnvironmentConfig.compress_requests)
+ * - Bodies smaller than [MIN_COMPRESS_BYTES] are sent as-is
+ * - The uncompressed size is attached as a [RawBodySize] tag for TrafficStatsInterceptor
+ */
+class GzipRequestInterceptor(private val enabled: Boolean) : Interceptor {
+
+    companion object {
+        /**
+         * Marker header: endpoint body may be gzip-compressed (removed before sending)
+         */
+        const val COMPRESS_HEADER = "X-Compress-Body"
+        const val COMPRESS_MARKER = "$COMPRESS_HEADER: gzip"
+
+        private const val MIN_COMPRESS_BYTES = 1024L
+    }
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val originalRequest = chain.request()
+        val body = originalRequest.body
+        val marked = originalRequest.header(COMPRESS_HEADER) != null
+
+        if (!marked || body == null || originalRequest.header("Content-Encoding") != null) {
+            return chain.proceed(originalRequest)
+        }
+
+        val request = originalRequest.newBuilder().removeHeader(COMPRESS_HEADER)
+        val rawLength = body.contentLength()
+        if (!enabled || (rawLength in 0 until MIN_COMPRESS_BYTES)) {
+            return chain.proceed(request.build())
+        }
+
+        val compressedBody = gzip(body)
+        return chain.proceed(
+            request
+                .header("Content-Encoding", "gzip")
+                .method(originalRequest.method, compressedBody)
+                .tag(RawBodySize::class.java, RawBodySize(rawLength))
+                .build()
+        )
+    }
+
+    /**
+     * Compress into memory so Content-Length is known (no chunked upload)
+     */
+    private fun gzip(body: RequestBody): RequestBody {
+        val buffer = Buffer()
+        GzipSink(buffer).buffer().use { sink -> body.writeTo(sink) }
+        val contentType: MediaType? = body.contentType()
+        return buffer.readByteString().toRequestBody(contentType)
+    }
+}
+
+/**
+ * Request body size before compression
+ */
+data class RawBodySize(val bytes: Long)
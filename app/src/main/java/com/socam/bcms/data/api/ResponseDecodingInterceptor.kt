@@ -0,0 +1,64 @@
+package com.socam.bcms.data.api
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okio.BufferedSource
+import okio.GzipSource
+import okio.InflaterSource
+import okio.buffer
+import java.io.IOException
+import java.util.zip.Inflater
+
+/**
+ * OkHttp interceptor that asks for and decodes gzip/deflate responses
+ *
+ * OkHttp only decodes gzip on its own, and only when it sets Accept-Encoding itself.
+ * This interceptor advertises both encodings and decodes either one, so Gson always
+ * receives plain JSON regardless of what the server (or a mock server) chooses.
+ */
+class ResponseDecodingInterceptor : Interceptor {
+
+    companion object {
+        private const val ACCEPT_ENCODING = "gzip, deflate"
+    }
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val originalRequest = chain.request()
+        val request = if (originalRequest.header("Accept-Encoding") == null) {
+            originalRequest.newBuilder().header("Accept-Encoding", ACCEPT_ENCODING).build()
+        } else {
+            originalRequest
+        }
+
+        val response = chain.proceed(request)
+        val body = response.body ?: return response
+        if (body.contentLength() == 0L) return response
+        val encoding = response.header("Content-Encoding")?.trim()?.lowercase() ?: return response
+
+        val decoded: BufferedSource = when (encoding) {
+            "gzip" -> GzipSource(body.source()).buffer()
+            "deflate" -> inflate(body.source())
+            else -> return response
+        }
+
+        return response.newBuilder()
+            .removeHeader("Content-Encoding")
+            .removeHeader("Content-Length")
+            .body(decoded.asResponseBody(body.contentType(), -1L))
+            .build()
+    }
+
+    /**
+     * HTTP "deflate" should be zlib-wrapped, but some servers send raw deflate - detect by header byte
+     */
+    private fun inflate(source: BufferedSource): BufferedSource {
+        val zlibWrapped = source.request(2) && isZlibHeader(source.buffer[0L].toInt() and 0xFF, source.buffer[1L].toInt() and 0xFF)
+        return InflaterSource(source, Inflater(!zlibWrapped)).buffer()
+    }
+
+    private fun isZlibHeader(cmf: Int, flg: Int): Boolean {
+        return (cmf and 0x0F) == 8 && ((cmf shl 8) or flg) % 31 == 0
+    }
+}
@@ -2,12 +2,16 @@ package com.socam.bcms.data.api
 
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.data.dto.*
+import okhttp3.RequestBody
+import okhttp3.ResponseBody
 import retrofit2.Response
 import retrofit2.http.Body
 import retrofit2.http.GET
+import retrofit2.http.Headers
 import retrofit2.http.POST
 import retrofit2.http.Path
 import retrofit2.http.Query
+import retrofit2.http.Streaming
 
 /**
  * API Service for synchronization endpoints
@@ -21,57 +25,87 @@ interface SyncApiService {
         // Use centralized project ID from BuildConfig
         @Deprecated("Use BuildConfig.PROJECT_ID directly instead", ReplaceWith("BuildConfig.PROJECT_ID", "com.socam.bcms.BuildConfig"))
         const val PROJECT_ID = BuildConfig.PROJECT_ID
+        
+        // Master data: always revalidate the disk-cached copy (If-None-Match / If-Modified-Since → 304)
+        const val REVALIDATE = "Cache-Control: max-age=0"
     }
     
-    // RfidModule Data Endpoints (MIC/ALW/TID)
+    // RfidModule Data Endpoints (MIC/ALW/TID) - bodies may be gzip-compressed (GzipRequestInterceptor)
+    @Headers(GzipRequestInterceptor.COMPRESS_MARKER)
     @POST("Rfids/{projId}/List")
     suspend fun getRfidModules(
         @Path("projId") projId: String,
         @Body request: RfidModuleRequest
     ): Response<List<RfidModuleDto>>
     
+    // Same endpoint, body left unparsed so the download can stream it record by record
+    @Streaming
+    @Headers(GzipRequestInterceptor.COMPRESS_MARKER)
+    @POST("Rfids/{projId}/List")
+    suspend fun streamRfidModules(
+        @Path("projId") projId: String,
+        @Body request: RfidModuleRequest
+    ): Response<ResponseBody>
+    
     // Batch modification endpoint for pending changes
+    @Headers(GzipRequestInterceptor.COMPRESS_MARKER)
     @POST("Rfids/ModificationAppv2/Multi")
     suspend fun batchModifyRfidModules(
         @Body request: List<RfidModificationDto>
     ): Response<BatchModificationResponse>
     
-    // Master Data Endpoints
+    // Same endpoint with field-level entries (identity + version + changed fields only)
+    // Pre-serialised JSON (ModuleOutboxRepository.toRequestBody) so cleared fields go out as nulls
+    @Headers(GzipRequestInterceptor.COMPRESS_MARKER)
+    @POST("Rfids/ModificationAppv2/Multi")
+    suspend fun batchModifyRfidModulesPartial(
+        @Body request: RequestBody
+    ): Response<BatchModificationResponse>
+    
+    // Master Data Endpoints - served through the OkHttp disk cache with conditional revalidation
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/Locations/Regions")
     suspend fun getMasterRegions(
         @Path("projId") projId: String
     ): Response<List<MasterRegionDto>>
     
+    // Not part of the master data sync (floors come from Locations/List), so not revalidated
     @GET("Masters/{projId}/Locations/Floors")
     suspend fun getMasterFloors(
         @Path("projId") projId: String
     ): Response<List<MasterFloorDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/Concretes/Grades")
     suspend fun getMasterConcreteGrades(
         @Path("projId") projId: String
     ): Response<List<MasterConcreteGradeDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/Locations/List")
     suspend fun getMasterLocations(
         @Path("projId") projId: String
     ): Response<List<MasterLocationDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/Bcs/Categories")
     suspend fun getMasterCategories(
         @Path("projId") projId: String
     ): Response<List<MasterCategoryDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/Companies/List")
     suspend fun getMasterCompanies(
         @Path("projId") projId: String
     ): Response<List<MasterCompanyDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/{projId}/WorkFlows/Steps/FullList")
     suspend fun getMasterWorkflowSteps(
         @Path("projId") projId: String
     ): Response<List<MasterWorkflowStepDto>>
     
+    @Headers(REVALIDATE)
     @GET("Masters/Contracts/List")
     suspend fun getMasterContracts(
         @Query("projid") projId: String
@@ -0,0 +1,132 @@
+package com.socam.bcms.data.api
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okio.Buffer
+import okio.ForwardingSource
+import okio.buffer
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * OkHttp network interceptor counting bytes on the wire per request
+ *
+ * Registered with addNetworkInterceptor, so it sees compressed bodies:
+ * - sent = request body as transmitted (raw size from [RawBodySize] when gzip was applied)
+ * - received = response body as transmitted, counted while it is read, reported on close
+ */
+class TrafficStatsInterceptor : Interceptor {
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val sentBytes = request.body?.contentLength()?.coerceAtLeast(0L) ?: 0L
+        val rawSentBytes = request.tag(RawBodySize::class.java)?.bytes ?: sentBytes
+        val path = request.url.encodedPath
+        val startedAt = System.currentTimeMillis()
+
+        val response = chain.proceed(request)
+        val body = response.body ?: run {
+            NetworkTrafficStats.record(RequestTraffic(request.method, path, response.code, sentBytes, rawSentBytes, 0L, System.currentTimeMillis() - startedAt))
+            return response
+        }
+
+        val counted = CountingSource(body) { receivedBytes ->
+            NetworkTrafficStats.record(
+                RequestTraffic(
+                    method = request.method,
+                    path = path,
+                    code = response.code,
+                    sentBytes = sentBytes,
+                    rawSentBytes = rawSentBytes,
+                    receivedBytes = receivedBytes,
+                    durationMs = System.currentTimeMillis() - startedAt
+                )
+            )
+        }
+        return response.newBuilder()
+            .body(counted.buffer().asResponseBody(body.contentType(), body.contentLength()))
+            .build()
+    }
+
+    /**
+     * Counts bytes read from the body, reports once when the body is closed
+     */
+    private class CountingSource(
+        private val body: ResponseBody,
+        private val onClosed: (Long) -> Unit
+    ) : ForwardingSource(body.source()) {
+
+        private var bytesRead = 0L
+        private var reported = false
+
+        override fun read(sink: Buffer, byteCount: Long): Long {
+            val read = super.read(sink, byteCount)
+            if (read > 0) bytesRead += read
+            return read
+        }
+
+        override fun close() {
+            super.close()
+            if (!reported) {
+                reported = true
+                onClosed(bytesRead)
+            }
+        }
+    }
+}
+
+/**
+ * Traffic of one HTTP request (bytes as transmitted)
+ */
+data class RequestTraffic(
+    val method: String,
+    val path: String,
+    val code: Int,
+    val sentBytes: Long,
+    val rawSentBytes: Long,
+    val receivedBytes: Long,
+    val durationMs: Long
+)
+
+/**
+ * Process-wide byte counters for API traffic
+ */
+object NetworkTrafficStats {
+
+    private val totalSent = AtomicLong(0)
+    private val totalReceived = AtomicLong(0)
+    private val totalSaved = AtomicLong(0)
+
+    @Volatile
+    var lastRequest: RequestTraffic? = null
+        private set
+
+    fun record(traffic: RequestTraffic): Unit {
+        totalSent.addAndGet(traffic.sentBytes)
+        totalReceived.addAndGet(traffic.receivedBytes)
+        totalSaved.addAndGet(traffic.rawSentBytes - traffic.sentBytes)
+        lastRequest = traffic
+
+        val compressed = if (traffic.rawSentBytes != traffic.sentBytes) " (raw ${traffic.rawSentBytes})" else ""
+        println("NetworkTrafficStats: ${traffic.method} ${traffic.path} → ${traffic.code}, sent ${traffic.sentBytes}$compressed, received ${traffic.receivedBytes} bytes in ${traffic.durationMs}ms")
+    }
+
+    fun totalSentBytes(): Long = totalSent.get()
+
+    fun totalReceivedBytes(): Long = totalReceived.get()
+
+    /**
+     * Upload bytes saved by request compression
+     */
+    fun totalSavedBytes(): Long = totalSaved.get()
+
+    fun reset(): Unit {
+        totalSent.set(0)
+        totalReceived.set(0)
+        totalSaved.set(0)
+        lastRequest = null
+    }
+}
@@ -0,0 +1,126 @@
+package com.socam.bcms.data.database
+
+import com.socam.bcms.database.Database
+import com.squareup.sqldelight.db.SqlDriver
+
+/**
+ * Housekeeping for one SQLite file (app file or a project file)
+ *
+ * - Retention: synced Tag rows, finished SyncLog runs and stale SyncStatus rows are purged
+ * - ANALYZE: refreshes planner statistics after bulk loads (sync deletes and reinserts RfidModule)
+ * - Incremental auto-vacuum: switched on once (needs a full VACUUM), then free pages are
+ *   returned to the file system in small steps instead of the file only ever growing
+ * - Stats: page count / size / free pages for the Settings screen
+ *
+ * Runs on the caller's thread; the heavy parts are meant for DatabaseMaintenanceJobService
+ */
+class DatabaseMaintenance internal constructor(
+    private val driver: SqlDriver,
+    private val database: Database
+) {
+
+    companion object {
+        private const val DAY_SECONDS = 24L * 60 * 60
+
+        const val TAG_RETENTION_DAYS = 30
+        const val SYNC_LOG_RETENTION_DAYS = 90
+        const val FAILED_SYNC_RETENTION_DAYS = 30
+
+        private const val AUTO_VACUUM_INCREMENTAL = 2L
+
+        // Free pages kept for reuse by the next sync before any are given back
+        private const val MIN_FREE_PAGES = 256L
+
+        /**
+         * Tables rewritten in bulk by sync (statistics go stale after every download)
+         */
+        val BULK_LOADED_TABLES = listOf("RfidModule", "RfidModuleStepProgress", "RfidModuleDirtyField")
+    }
+
+    /**
+     * Delete rows past their retention period, returns deleted row counts per table
+     */
+    fun purgeExpired(nowSeconds: Long = System.currentTimeMillis() / 1000): Map<String, Long> {
+        val deleted = LinkedHashMap<String, Long>()
+        database.transaction {
+            database.tagQueries.purgeSyncedTagsScannedBefore(nowSeconds - TAG_RETENTION_DAYS * DAY_SECONDS)
+            deleted["Tag"] = changes()
+            database.syncLogQueries.purgeSyncLogsStartedBefore(nowSeconds - SYNC_LOG_RETENTION_DAYS * DAY_SECONDS)
+            deleted["SyncLog"] = changes()
+            database.syncStatusQueries.cleanupCompletedSyncs()
+            var syncStatusDeleted = changes()
+            database.syncStatusQueries.purgeFailedSyncsUpdatedBefore(nowSeconds - FAILED_SYNC_RETENTION_DAYS * DAY_SECONDS)
+            syncStatusDeleted += changes()
+            deleted["SyncStatus"] = syncStatusDeleted
+        }
+        return deleted
+    }
+
+    /**
+     * Refresh planner statistics of the given tables
+     */
+    fun analyze(tables: List<String> = BULK_LOADED_TABLES): Unit {
+        tables.forEach { table ->
+            driver.execute(identifier = null, sql = "ANALYZE $table", parameters = 0, binders = null)
+        }
+    }
+
+    /**
+     * Switch the file to incremental auto-vacuum; returns true when the one-off VACUUM ran
+     * VACUUM rewrites the whole file - only call when the device is idle
+     */
+    fun ensureIncrementalAutoVacuum(): Boolean {
+        if (pragmaLong("PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL) return false
+        driver.execute(identifier = null, sql = "PRAGMA auto_vacuum = INCREMENTAL", parameters = 0, binders = null)
+        driver.execute(identifier = null, sql = "VACUUM", parameters = 0, binders = null)
+        return true
+    }
+
+    /**
+     * Give free pages above [MIN_FREE_PAGES] back to the file system, returns pages released
+     */
+    fun incrementalVacuum(): Long {
+        if (pragmaLong("PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) return 0L
+        val freeBefore = pragmaLong("PRAGMA freelist_count")
+        val pages = freeBefore - MIN_FREE_PAGES
+        if (pages <= 0) return 0L
+        // The pragma frees one page per step, so the cursor must be drained (execute would step once)
+        driver.executeQuery(identifier = null, sql = "PRAGMA incremental_vacuum($pages)", parameters = 0).use { cursor ->
+            while (cursor.next()) {
+                // Drain
+            }
+        }
+        return freeBefore - pragmaLong("PRAGMA freelist_count")
+    }
+
+    fun stats(): DatabaseStats = DatabaseStats(
+        pageCount = pragmaLong("PRAGMA page_count"),
+        pageSize = pragmaLong("PRAGMA page_size"),
+        freePages = pragmaLong("PRAGMA freelist_count"),
+        incrementalVacuum = pragmaLong("PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL
+    )
+
+    private fun changes(): Long = pragmaLong("SELECT changes()")
+
+    private fun pragmaLong(sql: String): Long {
+        return driver.executeQuery(identifier = null, sql = sql, parameters = 0).use { cursor ->
+            if (cursor.next()) cursor.getLong(0) ?: 0L else 0L
+        }
+    }
+}
+
+/**
+ * Size of one database file
+ */
+data class DatabaseStats(
+    val pageCount: Long,
+    val pageSize: Long,
+    val freePages: Long,
+    val incrementalVacuum: Boolean
+) {
+    val sizeBytes: Long
+        get() = pageCount * pageSize
+
+    val freeBytes: Long
+        get() = freePages * pageSize
+}
@@ -4,6 +4,7 @@ import android.content.Context
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.database.Database
 import com.socam.bcms.config.EnvironmentConfig
+import com.socam.bcms.model.BcTypeCodes
 import com.squareup.sqldelight.android.AndroidSqliteDriver
 import com.squareup.sqldelight.db.SqlDriver
 import java.security.SecureRandom
@@ -15,21 +16,221 @@ import java.security.SecureRandom
  * - Plain text passwords (no PBKDF2 hashing)
  * - Minimal initialization
  * - No heavy cryptographic operations
+ *
+ * One SQLite file per project:
+ * - [appDatabase] (bcms_database.db): users, projects, roles, settings, environments, serial numbers
+ * - [database]: the active project's file (modules, master data, sync state); the default project
+ *   (BuildConfig.PROJECT_ID) lives in bcms_database.db itself, other projects in bcms_project_<id>.db
+ * - [switchProject] swaps the active file and resets the project caches, without touching other projects
  */
 class DatabaseManager private constructor(context: Context) {
     
-    private val driver: SqlDriver = AndroidSqliteDriver(
-        schema = Database.Schema,
-        context = context,
-        name = "bcms_database.db"
-    )
+    private val appContext: Context = context
     
-    val database: Database = Database(driver)
+    // Every statement is timed into QueryMetrics (Settings > long-press Database Size)
+    private val appDriver: SqlDriver = QueryTimingDriver(
+        AndroidSqliteDriver(
+            schema = Database.Schema,
+            context = context,
+            name = APP_DATABASE_NAME
+        ),
+        APP_DATABASE_NAME
+    )
     
+    /**
+     * App-wide tables (User, UserProjects, MasterProject, MasterRoles, AppSettings, EnvironmentConfig,
+     * BCTypeSerialNumbers, BCTypeMapping) - shared by all projects
+     */
+    val appDatabase: Database = Database(appDriver)
+
+    /**
+     * Open project file with the writer bound to its driver
+     */
+    private inner class ProjectDatabase(val projectId: String, val driver: SqlDriver) {
+        val database: Database = if (driver === appDriver) appDatabase else Database(driver)
+        val moduleFieldWriter: RfidModuleFieldWriter = RfidModuleFieldWriter(driver, database)
+        val maintenance: DatabaseMaintenance = DatabaseMaintenance(driver, database)
+    }
+
+    // Opened project files stay open, so switching back is instant
+    private val openProjects = HashMap<String, ProjectDatabase>()
+
+    @Volatile
+    private var activeProject: ProjectDatabase = ProjectDatabase(BuildConfig.PROJECT_ID, appDriver).also {
+        openProjects[it.projectId] = it
+    }
+
+    private val driver: SqlDriver
+        get() = activeProject.driver
+
+    /**
+     * Project-scoped tables of the active project
+     */
+    val database: Database
+        get() = activeProject.database
+
+    val activeProjectId: String
+        get() = activeProject.projectId
+
+    /**
+     * In-memory master data cache for step form dropdowns (invalidated per table by sync)
+     */
+    val masterDataCache: MasterDataCache = MasterDataCache(this)
+
+    /**
+     * Partial (changed columns only) RfidModule updates with changed-field tracking
+     */
+    val moduleFieldWriter: RfidModuleFieldWriter
+        get() = activeProject.moduleFieldWriter
+
     companion object {
         @Volatile
         private var INSTANCE: DatabaseManager? = null
         
+        private const val APP_DATABASE_NAME = "bcms_database.db"
+        private const val PROJECT_DATABASE_PREFIX = "bcms_project_"
+        private const val PROJECT_DATABASE_SUFFIX = ".db"
+        
+        /**
+         * File of a non-default project (project IDs are GUIDs, anything else is stripped)
+         */
+        fun projectDatabaseName(projectId: String): String {
+            val safeId = projectId.lowercase().filter { it.isLetterOrDigit() || it == '-' }
+            return "$PROJECT_DATABASE_PREFIX$safeId$PROJECT_DATABASE_SUFFIX"
+        }
+        
+        /**
+         * Same statements as RfidModuleSearch.sq, for databases created before the search index existed
+         */
+        private val MODULE_SEARCH_SCHEMA = listOf(
+            """
+                CREATE VIRTUAL TABLE IF NOT EXISTS RfidModuleFts USING fts4(
+                    SerialNo, RFIDTagNo, ASN, ProductNo, BatchNo, LicensePlateNo
+                )
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_fts_before_insert
+                BEFORE INSERT ON RfidModule
+                BEGIN
+                    DELETE FROM RfidModuleFts WHERE docid IN (SELECT rowid FROM RfidModule WHERE Id = NEW.Id);
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_fts_after_insert
+                AFTER INSERT ON RfidModule
+                BEGIN
+                    INSERT INTO RfidModuleFts (docid, SerialNo, RFIDTagNo, ASN, ProductNo, BatchNo, LicensePlateNo)
+                    VALUES (NEW.rowid, NEW.SerialNo, NEW.RFIDTagNo, NEW.ASN, NEW.ProductNo, NEW.BatchNo, NEW.LicensePlateNo);
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_fts_after_update
+                AFTER UPDATE OF SerialNo, RFIDTagNo, ASN, ProductNo, BatchNo, LicensePlateNo ON RfidModule
+                BEGIN
+                    DELETE FROM RfidModuleFts WHERE docid = OLD.rowid;
+                    INSERT INTO RfidModuleFts (docid, SerialNo, RFIDTagNo, ASN, ProductNo, BatchNo, LicensePlateNo)
+                    VALUES (NEW.rowid, NEW.SerialNo, NEW.RFIDTagNo, NEW.ASN, NEW.ProductNo, NEW.BatchNo, NEW.LicensePlateNo);
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_fts_after_delete
+                AFTER DELETE ON RfidModule
+                BEGIN
+                    DELETE FROM RfidModuleFts WHERE docid = OLD.rowid;
+                END
+            """
+        )
+
+        /**
+         * Same statements as RfidModuleStepProgress.sq, for databases created before step progress was normalized
+         */
+        private val STEP_PROGRESS_SCHEMA = listOf(
+            """
+                CREATE TABLE IF NOT EXISTS RfidModuleStepProgress (
+                    module_id TEXT NOT NULL,
+                    portion INTEGER NOT NULL,
+                    is_completed INTEGER NOT NULL DEFAULT 0,
+                    remark TEXT,
+                    updated_date INTEGER NOT NULL DEFAULT (strftime('%s', 'now')),
+                    PRIMARY KEY (module_id, portion)
+                )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_step_progress_portion ON RfidModuleStepProgress(portion, is_completed, module_id)",
+            """
+                CREATE TRIGGER IF NOT EXISTS step_progress_after_insert
+                AFTER INSERT ON RfidModuleStepProgress
+                BEGIN
+                    UPDATE RfidModule SET CompletedMask = (
+                        SELECT COALESCE(SUM(1 << (portion / 5)), 0) FROM RfidModuleStepProgress
+                        WHERE module_id = NEW.module_id AND is_completed = 1 AND portion BETWEEN 0 AND 314
+                    ) WHERE Id = NEW.module_id;
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS step_progress_after_update
+                AFTER UPDATE OF is_completed ON RfidModuleStepProgress
+                BEGIN
+                    UPDATE RfidModule SET CompletedMask = (
+                        SELECT COALESCE(SUM(1 << (portion / 5)), 0) FROM RfidModuleStepProgress
+                        WHERE module_id = NEW.module_id AND is_completed = 1 AND portion BETWEEN 0 AND 314
+                    ) WHERE Id = NEW.module_id;
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS step_progress_after_delete
+                AFTER DELETE ON RfidModuleStepProgress
+                BEGIN
+                    UPDATE RfidModule SET CompletedMask = (
+                        SELECT COALESCE(SUM(1 << (portion / 5)), 0) FROM RfidModuleStepProgress
+                        WHERE module_id = OLD.module_id AND is_completed = 1 AND portion BETWEEN 0 AND 314
+                    ) WHERE Id = OLD.module_id;
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_step_mask_after_insert
+                AFTER INSERT ON RfidModule
+                WHEN EXISTS (SELECT 1 FROM RfidModuleStepProgress WHERE module_id = NEW.Id)
+                BEGIN
+                    UPDATE RfidModule SET CompletedMask = (
+                        SELECT COALESCE(SUM(1 << (portion / 5)), 0) FROM RfidModuleStepProgress
+                        WHERE module_id = NEW.Id AND is_completed = 1 AND portion BETWEEN 0 AND 314
+                    ) WHERE Id = NEW.Id;
+                END
+            """,
+            """
+                CREATE TRIGGER IF NOT EXISTS rfid_module_step_progress_after_delete
+                AFTER DELETE ON RfidModule
+                BEGIN
+                    DELETE FROM RfidModuleStepProgress WHERE module_id = OLD.Id;
+                END
+            """,
+            """
+                CREATE VIEW IF NOT EXISTS RfidModuleStepColumns AS
+                SELECT
+                    module_id,
+                    COALESCE(MAX(CASE WHEN portion = 10 THEN is_completed END), 0) AS IsCompleted10,
+                    MAX(CASE WHEN portion = 10 THEN remark END) AS Remark10,
+                    COALESCE(MAX(CASE WHEN portion = 20 THEN is_completed END), 0) AS IsCompleted20,
+                    MAX(CASE WHEN portion = 20 THEN remark END) AS Remark20,
+                    COALESCE(MAX(CASE WHEN portion = 30 THEN is_completed END), 0) AS IsCompleted30,
+                    MAX(CASE WHEN portion = 30 THEN remark END) AS Remark30,
+                    COALESCE(MAX(CASE WHEN portion = 40 THEN is_completed END), 0) AS IsCompleted40,
+                    MAX(CASE WHEN portion = 40 THEN remark END) AS Remark40,
+                    COALESCE(MAX(CASE WHEN portion = 50 THEN is_completed END), 0) AS IsCompleted50,
+                    MAX(CASE WHEN portion = 50 THEN remark END) AS Remark50,
+                    COALESCE(MAX(CASE WHEN portion = 55 THEN is_completed END), 0) AS IsCompleted55,
+                    MAX(CASE WHEN portion = 55 THEN remark END) AS Remark55,
+                    COALESCE(MAX(CASE WHEN portion = 60 THEN is_completed END), 0) AS IsCompleted60,
+                    MAX(CASE WHEN portion = 60 THEN remark END) AS Remark60,
+                    COALESCE(MAX(CASE WHEN portion = 70 THEN is_completed END), 0) AS IsCompleted70,
+                    MAX(CASE WHEN portion = 70 THEN remark END) AS Remark70,
+                    COALESCE(MAX(CASE WHEN portion = 80 THEN is_completed END), 0) AS IsCompleted80,
+                    MAX(CASE WHEN portion = 80 THEN remark END) AS Remark80
+                FROM RfidModuleStepProgress
+                GROUP BY module_id
+            """
+        )
+        
         fun getInstance(context: Context): DatabaseManager {
             return INSTANCE ?: synchronized(this) {
                 INSTANCE ?: DatabaseManager(context.applicationContext).also { INSTANCE = it }
@@ -38,10 +239,122 @@ class DatabaseManager private constructor(context: Context) {
     }
     
     /**
-     * Close database connection
+     * Close database connections (app file and every opened project file)
      */
+    @Synchronized
     fun close(): Unit {
-        driver.close()
+        openProjects.values.forEach { project ->
+            if (project.driver !== appDriver) project.driver.close()
+        }
+        appDriver.close()
+    }
+    
+    /**
+     * Make [projectId] the active project
+     * - Opens (or reuses) that project's file, other projects' data is never read
+     * - Brings an existing file up to the current schema and seeds its static config
+     * - First open in this process: moves the project's rows left in bcms_database.db by
+     *   earlier versions into its file (see [ProjectFileMigration])
+     * - Master data cache becomes stale; callers re-query through [database]
+     */
+    @Synchronized
+    fun switchProject(projectId: String): Unit {
+        if (projectId.isBlank() || projectId == activeProject.projectId) return
+        val start = System.currentTimeMillis()
+        var opened = false
+        val project = openProjects.getOrPut(projectId) {
+            opened = true
+            val projectDriver = if (projectId == BuildConfig.PROJECT_ID) {
+                appDriver
+            } else {
+                val name = projectDatabaseName(projectId)
+                QueryTimingDriver(AndroidSqliteDriver(schema = Database.Schema, context = appContext, name = name), name)
+            }
+            ProjectDatabase(projectId, projectDriver)
+        }
+        activeProject = project
+        
+        if (project.driver !== appDriver) {
+            migrateProjectTables()
+            seedWorkflowStepFields()
+            if (opened) moveProjectRowsFromAppFile(project)
+        }
+        masterDataCache.switchProject(projectId)
+        println("DatabaseManager: Switched to project $projectId in ${System.currentTimeMillis() - start}ms")
+    }
+    
+    /**
+     * Copy a project's modules (with step progress and changed fields) out of the app file;
+     * on failure nothing is deleted and the move is retried on the next first open
+     */
+    private fun moveProjectRowsFromAppFile(project: ProjectDatabase): Unit {
+        try {
+            ProjectFileMigration(appDriver, appDatabase, project.driver, project.database)
+                .moveProjectRows(project.projectId)
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to move project ${project.projectId} rows out of the app file: ${e.message}")
+        }
+    }
+    
+    /**
+     * Remove a project's local data: a file delete for non-default projects
+     * - The active project cannot be removed
+     * - Refused while the project has PENDING modules (local edits not uploaded yet)
+     * - The default project shares bcms_database.db, so its modules are deleted row-wise
+     */
+    @Synchronized
+    fun removeProject(projectId: String): Boolean {
+        val name = projectDatabaseName(projectId)
+        if (name == projectDatabaseName(activeProject.projectId)) {
+            println("DatabaseManager: Cannot remove active project $projectId")
+            return false
+        }
+        if (name == projectDatabaseName(BuildConfig.PROJECT_ID)) {
+            if (appDatabase.rfidModuleQueries.countModulesForSync().executeAsOne() > 0) {
+                println("DatabaseManager: Project $projectId has pending modules, not removed")
+                return false
+            }
+            appDatabase.rfidModuleQueries.deleteModulesByProjectId(projectId)
+            return true
+        }
+        
+        val openKey = openProjects.keys.firstOrNull { projectDatabaseName(it) == name }
+        if (appContext.getDatabasePath(name).exists()) {
+            val open = openKey?.let { openProjects[it] }
+            val projectDriver = open?.driver
+                ?: AndroidSqliteDriver(schema = Database.Schema, context = appContext, name = name)
+            val pending = try {
+                (open?.database ?: Database(projectDriver)).rfidModuleQueries.countModulesForSync().executeAsOne()
+            } finally {
+                if (open == null) projectDriver.close()
+            }
+            if (pending > 0) {
+                println("DatabaseManager: Project $projectId has $pending pending modules, not removed")
+                return false
+            }
+        }
+        
+        openKey?.let { openProjects.remove(it)?.driver?.close() }
+        // deleteDatabase also removes the -wal, -shm and -journal files
+        val deleted = appContext.deleteDatabase(name)
+        println("DatabaseManager: Removed project $projectId database (deleted=$deleted)")
+        return deleted
+    }
+    
+    /**
+     * Remove the files of projects no user on this device belongs to any more (logout)
+     * Returns the number of files removed; files with pending uploads are kept
+     */
+    @Synchronized
+    fun removeUnusedProjects(): Int {
+        val used = HashSet<String>()
+        used += projectDatabaseName(activeProject.projectId)
+        appDatabase.userQueries.selectAll().executeAsList().forEach { used += projectDatabaseName(it.project_id) }
+        appDatabase.userProjectsQueries.selectAllUserProjects().executeAsList().forEach { used += projectDatabaseName(it.project_id) }
+        
+        return appContext.databaseList()
+            .filter { it.startsWith(PROJECT_DATABASE_PREFIX) && it.endsWith(PROJECT_DATABASE_SUFFIX) && it !in used }
+            .count { removeProject(it.removePrefix(PROJECT_DATABASE_PREFIX).removeSuffix(PROJECT_DATABASE_SUFFIX)) }
     }
     
     @Volatile
@@ -83,7 +396,7 @@ class DatabaseManager private constructor(context: Context) {
             
             // Simple schema validation - if User table query fails, recreate it
             val needsUserTableRecreation = try {
-                database.userQueries.selectAll().executeAsList()
+                appDatabase.userQueries.selectAll().executeAsList()
                 false // Schema is correct
             } catch (e: Exception) {
                 if (e.message?.contains("column") == true || e is NullPointerException) {
@@ -96,7 +409,7 @@ class DatabaseManager private constructor(context: Context) {
             
             // Check if MasterProject table exists
             val needsMasterProjectTable = try {
-                database.masterProjectQueries.selectAllProjects().executeAsList()
+                appDatabase.masterProjectQueries.selectAllProjects().executeAsList()
                 false // Table exists
             } catch (e: Exception) {
                 if (e.message?.contains("no such table: MasterProject") == true) {
@@ -109,7 +422,7 @@ class DatabaseManager private constructor(context: Context) {
             
             // CRITICAL: Check if BCTypeSerialNumbers table exists
             val needsBCTypeSerialNumbersTable = try {
-                database.bCTypeSerialNumbersQueries.selectAll().executeAsList()
+                appDatabase.bCTypeSerialNumbersQueries.selectAll().executeAsList()
                 false // Table exists
             } catch (e: Exception) {
                 if (e.message?.contains("no such table: BCTypeSerialNumbers") == true) {
@@ -125,6 +438,12 @@ class DatabaseManager private constructor(context: Context) {
                 createBCTypeSerialNumbersTable()
             }
             
+            // Per-environment request compression switch
+            ensureEnvironmentCompressionColumn()
+            
+            // Project-scoped tables of the active project file
+            migrateProjectTables()
+            
             if (needsUserTableRecreation || needsMasterProjectTable) {
                 if (needsMasterProjectTable) {
                     println("DatabaseManager: New table detected, forcing database recreation")
@@ -140,6 +459,29 @@ class DatabaseManager private constructor(context: Context) {
         }
     }
     
+    /**
+     * Bring the active project file up to the current schema (every step is idempotent)
+     */
+    private fun migrateProjectTables(): Unit {
+        // Full-text search index over RfidModule (create if missing, rebuild if out of step)
+        ensureModuleSearchIndex()
+        
+        // Keyset index for the component browser
+        createRfidModuleBrowseIndex()
+        
+        // Changed-field set for partial module updates
+        createRfidModuleDirtyFieldTable()
+        
+        // Normalized step progress + completion bitmask (replaces IsCompletedNN/RemarkNN)
+        ensureStepProgressTable()
+        
+        // Applied master data versions for HTTP revalidation
+        createMasterDataVersionTable()
+        createSyncErrorLogTable()
+        createSyncScopeFilterTable()
+        createRfidModuleDownloadTable()
+    }
+    
     /**
      * Create BCTypeSerialNumbers table (migration)
      */
@@ -148,7 +490,7 @@ class DatabaseManager private constructor(context: Context) {
             println("DatabaseManager: Creating BCTypeSerialNumbers table...")
             
             // Execute the CREATE TABLE SQL directly
-            driver.execute(
+            appDriver.execute(
                 identifier = null,
                 sql = """
                     CREATE TABLE IF NOT EXISTS BCTypeSerialNumbers (
@@ -170,6 +512,328 @@ class DatabaseManager private constructor(context: Context) {
         }
     }
     
+    /**
+     * Create RfidModuleFts table and sync triggers (migration), rebuild index if row counts differ
+     */
+    private fun ensureModuleSearchIndex(): Unit {
+        try {
+            val hasSearchIndex = try {
+                database.rfidModuleSearchQueries.countSearchIndex().executeAsOne()
+                true
+            } catch (e: Exception) {
+                if (e.message?.contains("no such table: RfidModuleFts") == true) {
+                    println("DatabaseManager: RfidModuleFts table not found, will create it")
+                    false
+                } else {
+                    throw e
+                }
+            }
+            
+            if (!hasSearchIndex) {
+                MODULE_SEARCH_SCHEMA.forEach { sql ->
+                    driver.execute(identifier = null, sql = sql.trimIndent(), parameters = 0, binders = null)
+                }
+                println("DatabaseManager: RfidModuleFts table and triggers created")
+            }
+            
+            val moduleCount = database.rfidModuleQueries.countAllModules().executeAsOne()
+            val indexCount = database.rfidModuleSearchQueries.countSearchIndex().executeAsOne()
+            if (moduleCount != indexCount) {
+                rebuildModuleSearchIndex()
+            }
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to set up RfidModule search index: ${e.message}")
+            e.printStackTrace()
+        }
+    }
+    
+    /**
+     * Create (CreatedDate, Id) index used by keyset-paged browsing (migration)
+     */
+    private fun createRfidModuleBrowseIndex(): Unit {
+        try {
+            driver.execute(
+                identifier = null,
+                sql = "CREATE INDEX IF NOT EXISTS idx_rfid_module_created_id ON RfidModule(CreatedDate, Id)",
+                parameters = 0,
+                binders = null
+            )
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create RfidModule browse index: ${e.message}")
+        }
+    }
+    
+    /**
+     * Create RfidModuleDirtyField table (migration)
+     */
+    private fun createRfidModuleDirtyFieldTable(): Unit {
+        try {
+            driver.execute(
+                identifier = null,
+                sql = """
+                    CREATE TABLE IF NOT EXISTS RfidModuleDirtyField (
+                        module_id TEXT NOT NULL,
+                        field_name TEXT NOT NULL,
+                        changed_date INTEGER NOT NULL DEFAULT (strftime('%s', 'now')),
+                        PRIMARY KEY (module_id, field_name)
+                    )
+                """.trimIndent(),
+                parameters = 0,
+                binders = null
+            )
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create RfidModuleDirtyField table: ${e.message}")
+        }
+    }
+    
+    /**
+     * Add RfidModule.CompletedMask and the RfidModuleStepProgress table (migration)
+     * Existing step values are copied over once from the superseded RfidModule columns
+     */
+    private fun ensureStepProgressTable(): Unit {
+        try {
+            val hasCompletedMask = try {
+                database.rfidModuleQueries.countCompletedModules().executeAsOne()
+                true
+            } catch (e: Exception) {
+                if (e.message?.contains("no such column: CompletedMask") == true) {
+                    println("DatabaseManager: RfidModule.CompletedMask not found, will add it")
+                    false
+                } else {
+                    throw e
+                }
+            }
+            
+            if (!hasCompletedMask) {
+                driver.execute(
+                    identifier = null,
+                    sql = "ALTER TABLE RfidModule ADD COLUMN CompletedMask INTEGER NOT NULL DEFAULT 0",
+                    parameters = 0,
+                    binders = null
+                )
+            }
+            
+            val hasProgressTable = try {
+                database.rfidModuleStepProgressQueries.countAllProgress().executeAsOne()
+                true
+            } catch (e: Exception) {
+                if (e.message?.contains("no such table: RfidModuleStepProgress") == true) {
+                    println("DatabaseManager: RfidModuleStepProgress table not found, will create it")
+                    false
+                } else {
+                    throw e
+                }
+            }
+            
+            if (!hasProgressTable) {
+                val start = System.currentTimeMillis()
+                database.transaction {
+                    STEP_PROGRESS_SCHEMA.forEach { sql ->
+                        driver.execute(identifier = null, sql = sql.trimIndent(), parameters = 0, binders = null)
+                    }
+                    // Insert triggers fill CompletedMask for every copied row
+                    database.rfidModuleStepProgressQueries.backfillFromModuleColumns()
+                }
+                val copied = database.rfidModuleStepProgressQueries.countAllProgress().executeAsOne()
+                println("DatabaseManager: RfidModuleStepProgress created, $copied step rows copied in ${System.currentTimeMillis() - start}ms")
+            }
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to set up RfidModuleStepProgress: ${e.message}")
+            e.printStackTrace()
+        }
+    }
+    
+    /**
+     * Add EnvironmentConfig.compress_requests (migration), initialized from the centralized config
+     */
+    private fun ensureEnvironmentCompressionColumn(): Unit {
+        try {
+            val hasColumn = try {
+                appDatabase.environmentConfigQueries.selectAllEnvironments().executeAsList()
+                true
+            } catch (e: Exception) {
+                if (e.message?.contains("no such column") == true) {
+                    println("DatabaseManager: EnvironmentConfig.compress_requests not found, will add it")
+                    false
+                } else {
+                    throw e
+                }
+            }
+            
+            if (!hasColumn) {
+                appDriver.execute(
+                    identifier = null,
+                    sql = "ALTER TABLE EnvironmentConfig ADD COLUMN compress_requests INTEGER NOT NULL DEFAULT 0",
+                    parameters = 0,
+                    binders = null
+                )
+                EnvironmentConfig.Environment.values().forEach { env ->
+                    appDatabase.environmentConfigQueries.updateCompressRequests(
+                        if (env.compressRequests) 1L else 0L,
+                        env.environmentName
+                    )
+                }
+            }
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to add EnvironmentConfig.compress_requests: ${e.message}")
+        }
+    }
+    
+    /**
+     * Create MasterDataVersion table (migration)
+     */
+    private fun createMasterDataVersionTable(): Unit {
+        try {
+            driver.execute(
+                identifier = null,
+                sql = """
+                    CREATE TABLE IF NOT EXISTS MasterDataVersion (
+                        endpoint TEXT PRIMARY KEY NOT NULL,
+                        validator TEXT NOT NULL,
+                        applied_at INTEGER NOT NULL DEFAULT (strftime('%s', 'now'))
+                    )
+                """.trimIndent(),
+                parameters = 0,
+                binders = null
+            )
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create MasterDataVersion table: ${e.message}")
+        }
+    }
+    
+    /**
+     * Create SyncErrorLog table and its indexes (migration)
+     */
+    private fun createSyncErrorLogTable(): Unit {
+        val statements = listOf(
+            """
+                CREATE TABLE IF NOT EXISTS SyncErrorLog (
+                    record_id TEXT PRIMARY KEY NOT NULL,
+                    bc_type TEXT NOT NULL,
+                    error_message TEXT NOT NULL,
+                    attempt_count INTEGER NOT NULL DEFAULT 0,
+                    first_failed_at INTEGER NOT NULL,
+                    last_failed_at INTEGER NOT NULL,
+                    next_retry_at INTEGER NOT NULL
+                )
+            """.trimIndent(),
+            "CREATE INDEX IF NOT EXISTS idx_sync_error_recent ON SyncErrorLog(last_failed_at DESC, record_id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_sync_error_retry ON SyncErrorLog(bc_type, next_retry_at)"
+        )
+        try {
+            statements.forEach { sql ->
+                driver.execute(identifier = null, sql = sql, parameters = 0, binders = null)
+            }
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create SyncErrorLog table: ${e.message}")
+        }
+    }
+    
+    /**
+     * Create SyncScopeFilter table (migration), no rows = whole project as before
+     */
+    private fun createSyncScopeFilterTable(): Unit {
+        try {
+            driver.execute(
+                identifier = null,
+                sql = """
+                    CREATE TABLE IF NOT EXISTS SyncScopeFilter (
+                        kind TEXT NOT NULL,
+                        filter_value TEXT NOT NULL,
+                        PRIMARY KEY (kind, filter_value)
+                    )
+                """.trimIndent(),
+                parameters = 0,
+                binders = null
+            )
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create SyncScopeFilter table: ${e.message}")
+        }
+    }
+    
+    /**
+     * Create RfidModuleDownload table (migration), staging IDs of a chunked component download
+     */
+    private fun createRfidModuleDownloadTable(): Unit {
+        try {
+            driver.execute(
+                identifier = null,
+                sql = """
+                    CREATE TABLE IF NOT EXISTS RfidModuleDownload (
+                        Id TEXT NOT NULL PRIMARY KEY
+                    )
+                """.trimIndent(),
+                parameters = 0,
+                binders = null
+            )
+        } catch (e: Exception) {
+            println("DatabaseManager: Failed to create RfidModuleDownload table: ${e.message}")
+        }
+    }
+    
+    /**
+     * Rebuild RfidModuleFts from RfidModule in one transaction
+     */
+    fun rebuildModuleSearchIndex(): Unit {
+        val start = System.currentTimeMillis()
+        database.transaction {
+            database.rfidModuleSearchQueries.clearSearchIndex()
+            database.rfidModuleSearchQueries.rebuildSearchIndex()
+        }
+        println("DatabaseManager: RfidModule search index rebuilt in ${System.currentTimeMillis() - start}ms")
+    }
+    
+    /**
+     * Periodic housekeeping of the app file and every open project file
+     * - Retention purge, ANALYZE, incremental auto-vacuum (one-off VACUUM on first run)
+     * - Meant for an idle, charging device (DatabaseMaintenanceJobService)
+     */
+    @Synchronized
+    fun runMaintenance(): Unit {
+        val start = System.currentTimeMillis()
+        val files = LinkedHashMap<String, DatabaseMaintenance>()
+        files[APP_DATABASE_NAME] = openProjects[BuildConfig.PROJECT_ID]?.maintenance
+            ?: DatabaseMaintenance(appDriver, appDatabase)
+        openProjects.values
+            .filter { it.driver !== appDriver }
+            .forEach { files[projectDatabaseName(it.projectId)] = it.maintenance }
+
+        files.forEach { (name, maintenance) ->
+            try {
+                val deleted = maintenance.purgeExpired()
+                maintenance.analyze()
+                val vacuumed = maintenance.ensureIncrementalAutoVacuum()
+                val released = maintenance.incrementalVacuum()
+                println("DatabaseManager: Maintenance $name - purged $deleted, full vacuum=$vacuumed, released $released pages")
+            } catch (e: Exception) {
+                println("DatabaseManager: Maintenance of $name failed: ${e.message}")
+            }
+        }
+        println("DatabaseManager: Maintenance finished in ${System.currentTimeMillis() - start}ms")
+    }
+    
+    /**
+     * Refresh planner statistics of the active project after a bulk download
+     */
+    fun analyzeAfterBulkLoad(): Unit {
+        try {
+            val start = System.currentTimeMillis()
+            activeProject.maintenance.analyze()
+            println("DatabaseManager: ANALYZE after bulk load in ${System.currentTimeMillis() - start}ms")
+        } catch (e: Exception) {
+            println("DatabaseManager: ANALYZE failed: ${e.message}")
+        }
+    }
+    
+    /**
+     * Size of the app file and the active project file (the same file for the default project)
+     */
+    fun storageStats(): List<DatabaseStats> {
+        val project = activeProject
+        val app = DatabaseMaintenance(appDriver, appDatabase).stats()
+        return if (project.driver === appDriver) listOf(app) else listOf(app, project.maintenance.stats())
+    }
+    
     /**
      * Recreate User table with new schema (simplified approach for development)
      */
@@ -200,7 +864,7 @@ class DatabaseManager private constructor(context: Context) {
     private fun seedInitialUsers(): Unit {
         try {
             val demoUser = try {
-                database.userQueries.selectByUsername("demo").executeAsOneOrNull()
+                appDatabase.userQueries.selectByUsername("demo").executeAsOneOrNull()
             } catch (e: Exception) {
                 null
             }
@@ -295,7 +959,7 @@ class DatabaseManager private constructor(context: Context) {
         try {
             println("DatabaseManager: Updating existing users with tag_contract_no = '210573'...")
             
-            database.userQueries.updateAllUsersTagContractNo("210573")
+            appDatabase.userQueries.updateAllUsersTagContractNo("210573")
             
             println("DatabaseManager: All existing users updated with tag_contract_no successfully")
         } catch (e: Exception) {
@@ -325,7 +989,7 @@ class DatabaseManager private constructor(context: Context) {
         println("DatabaseManager: Creating user '$username' with ${projectRoles.size} project(s)")
         
         // Create user in User table with primary project/role
-        database.userQueries.insertUser(
+        appDatabase.userQueries.insertUser(
             username = username,
             password_hash = password,  // Store password as plain text
             salt = "",                // No salt needed
@@ -340,11 +1004,11 @@ class DatabaseManager private constructor(context: Context) {
         )
         
         // Get the user ID that was just created
-        val createdUser = database.userQueries.selectByUsername(username).executeAsOneOrNull()
+        val createdUser = appDatabase.userQueries.selectByUsername(username).executeAsOneOrNull()
         if (createdUser != null) {
             // Create UserProjects entries for all project-role combinations
             projectRoles.forEach { (projectId, roleName) ->
-                database.userProjectsQueries.insertUserProject(
+                appDatabase.userProjectsQueries.insertUserProject(
                     user_id = createdUser.id,
                     project_id = projectId,
                     role_name = roleName
@@ -362,8 +1026,8 @@ class DatabaseManager private constructor(context: Context) {
     fun recreateUsers(): Unit {
         try {
             println("DatabaseManager: Force recreating all users with plain text passwords...")
-            database.userQueries.deleteAllUsers()
-            database.userProjectsQueries.deleteAllUserProjects()
+            appDatabase.userQueries.deleteAllUsers()
+            appDatabase.userProjectsQueries.deleteAllUserProjects()
             
             createInitialUserWithProjects("demo", "password", "Demo User", "demo@socam.com", "Operations",
                 listOf(BuildConfig.PROJECT_ID to "Client"))
@@ -385,7 +1049,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun getUserRoleForProject(userId: Long, projectId: String): String? {
         return try {
-            database.userProjectsQueries
+            appDatabase.userProjectsQueries
                 .selectRoleByUserAndProject(userId, projectId)
                 .executeAsOneOrNull()
         } catch (e: Exception) {
@@ -406,7 +1070,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun userHasProjectAccess(userId: Long, projectId: String): Boolean {
         return try {
-            val userProject = database.userProjectsQueries
+            val userProject = appDatabase.userProjectsQueries
                 .selectUserProjectByUserAndProject(userId, projectId)
                 .executeAsOneOrNull()
             userProject != null
@@ -453,7 +1117,7 @@ class DatabaseManager private constructor(context: Context) {
     private fun seedAppSettings(): Unit {
         try {
             val settingsCount = try {
-                database.appSettingsQueries.selectAllSettings().executeAsList().size
+                appDatabase.appSettingsQueries.selectAllSettings().executeAsList().size
             } catch (e: Exception) {
                 0
             }
@@ -472,7 +1136,7 @@ class DatabaseManager private constructor(context: Context) {
                 )
                 
                 defaultSettings.forEach { (key, value, type) ->
-                    database.appSettingsQueries.insertSetting(
+                    appDatabase.appSettingsQueries.insertSetting(
                         setting_key = key,
                         setting_value = value,
                         setting_type = type,
@@ -494,7 +1158,7 @@ class DatabaseManager private constructor(context: Context) {
     private fun seedEnvironmentConfig(): Unit {
         try {
             val envCount = try {
-                database.environmentConfigQueries.selectAllEnvironments().executeAsList().size
+                appDatabase.environmentConfigQueries.selectAllEnvironments().executeAsList().size
             } catch (e: Exception) {
                 0
             }
@@ -506,7 +1170,7 @@ class DatabaseManager private constructor(context: Context) {
                 val currentEnv = EnvironmentConfig.getCurrentEnvironment()
                 
                 // Insert development environment
-                database.environmentConfigQueries.insertEnvironment(
+                appDatabase.environmentConfigQueries.insertEnvironment(
                     environment_name = EnvironmentConfig.Environment.DEVELOPMENT.environmentName,
                     base_url = EnvironmentConfig.Environment.DEVELOPMENT.baseUrl,
                     timeout_seconds = 30,
@@ -515,7 +1179,7 @@ class DatabaseManager private constructor(context: Context) {
                 )
                 
                 // Insert production environment
-                database.environmentConfigQueries.insertEnvironment(
+                appDatabase.environmentConfigQueries.insertEnvironment(
                     environment_name = EnvironmentConfig.Environment.PRODUCTION.environmentName,
                     base_url = EnvironmentConfig.Environment.PRODUCTION.baseUrl,
                     timeout_seconds = 30,
@@ -523,6 +1187,14 @@ class DatabaseManager private constructor(context: Context) {
                     is_active = if (currentEnv == EnvironmentConfig.Environment.PRODUCTION) 1 else 0
                 )
                 
+                // Request compression per environment
+                EnvironmentConfig.Environment.values().forEach { env ->
+                    appDatabase.environmentConfigQueries.updateCompressRequests(
+                        if (env.compressRequests) 1L else 0L,
+                        env.environmentName
+                    )
+                }
+                
                 println("DatabaseManager: Environment configurations created - Active: ${currentEnv.displayName}")
             }
         } catch (e: Exception) {
@@ -536,7 +1208,7 @@ class DatabaseManager private constructor(context: Context) {
     private fun seedMasterProjects(): Unit {
         try {
             val projectCount = try {
-                database.masterProjectQueries.selectAllProjects().executeAsList().size
+                appDatabase.masterProjectQueries.selectAllProjects().executeAsList().size
             } catch (e: Exception) {
                 0
             }
@@ -579,7 +1251,7 @@ class DatabaseManager private constructor(context: Context) {
                 )
                 
                 projects.forEach { project ->
-                    database.masterProjectQueries.insertProject(
+                    appDatabase.masterProjectQueries.insertProject(
                         proj_id = project["proj_id"] as String,
                         proj_code = project["proj_code"] as String,
                         proj_name = project["proj_name"] as String,
@@ -608,7 +1280,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     private fun seedMasterRoles(): Unit {
         try {
-            val roleCount = database.masterRolesQueries.countRoleSteps().executeAsOne()
+            val roleCount = appDatabase.masterRolesQueries.countRoleSteps().executeAsOne()
             
             if (roleCount == 0L) {
                 println("DatabaseManager: Creating master role-step mappings...")
@@ -648,7 +1320,7 @@ class DatabaseManager private constructor(context: Context) {
                         val bcType = stepCode.substring(0, 3) // Extract MIC, ALW, TID
                         val portion = andersonRoadStepPortions[stepCode] ?: 0
                         
-                        database.masterRolesQueries.insertRoleStep(
+                        appDatabase.masterRolesQueries.insertRoleStep(
                             role_name = roleName,
                             step_code = stepCode,
                             bc_type = bcType,
@@ -689,7 +1361,7 @@ class DatabaseManager private constructor(context: Context) {
                         val bcType = stepCode.substring(0, 3) // Extract MIC, STA
                         val portion = wpmqStepPortions[stepCode] ?: 0
                         
-                        database.masterRolesQueries.insertRoleStep(
+                        appDatabase.masterRolesQueries.insertRoleStep(
                             role_name = roleName,
                             step_code = stepCode,
                             bc_type = bcType,
@@ -699,7 +1371,7 @@ class DatabaseManager private constructor(context: Context) {
                     }
                 }
                 
-                val totalRoleMappings = database.masterRolesQueries.countRoleSteps().executeAsOne()
+                val totalRoleMappings = appDatabase.masterRolesQueries.countRoleSteps().executeAsOne()
                 println("DatabaseManager: Master role-step mappings created successfully! Total: $totalRoleMappings")
             } else {
                 println("DatabaseManager: Master roles already exist, skipping creation")
@@ -942,13 +1614,13 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun initializeSerialNumber() {
         try {
-            val existingSerialNumber = database.appSettingsQueries
+            val existingSerialNumber = appDatabase.appSettingsQueries
                 .getSerialNumber()
                 .executeAsOneOrNull()
             
             if (existingSerialNumber == null) {
                 // Initialize with "0000" - this signals need to fetch from server
-                database.appSettingsQueries.insertOrReplaceSerialNumber("0000")
+                appDatabase.appSettingsQueries.insertOrReplaceSerialNumber("0000")
                 println("DatabaseManager: Serial number initialized to 0000 (needs server fetch)")
             } else {
                 println("DatabaseManager: Serial number already exists: $existingSerialNumber")
@@ -964,7 +1636,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun getSerialNumber(): String? {
         return try {
-            database.appSettingsQueries
+            appDatabase.appSettingsQueries
                 .getSerialNumber()
                 .executeAsOneOrNull()
         } catch (e: Exception) {
@@ -981,7 +1653,7 @@ class DatabaseManager private constructor(context: Context) {
         try {
             // Ensure it's 4 digits
             val formattedSerialNumber = serialNumber.padStart(4, '0').take(4)
-            database.appSettingsQueries.updateSerialNumber(formattedSerialNumber)
+            appDatabase.appSettingsQueries.updateSerialNumber(formattedSerialNumber)
             println("DatabaseManager: Serial number updated to: $formattedSerialNumber")
         } catch (e: Exception) {
             println("DatabaseManager: Error updating serial number: ${e.message}")
@@ -994,8 +1666,8 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun incrementSerialNumber(): String? {
         return try {
-            database.appSettingsQueries.incrementSerialNumber()
-            val newSerialNumber = database.appSettingsQueries.getSerialNumber().executeAsOneOrNull()
+            appDatabase.appSettingsQueries.incrementSerialNumber()
+            val newSerialNumber = appDatabase.appSettingsQueries.getSerialNumber().executeAsOneOrNull()
             println("DatabaseManager: Serial number incremented to: $newSerialNumber")
             newSerialNumber
         } catch (e: Exception) {
@@ -1015,7 +1687,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun getSerialNumberByBcType(bcType: String): String? {
         return try {
-            database.bCTypeSerialNumbersQueries
+            appDatabase.bCTypeSerialNumbersQueries
                 .selectSerialNumberByBcType(bcType)
                 .executeAsOneOrNull()
         } catch (e: Exception) {
@@ -1035,7 +1707,7 @@ class DatabaseManager private constructor(context: Context) {
             val formattedSerialNumber = serialNumber.padStart(4, '0').take(4)
             val currentTime = System.currentTimeMillis() / 1000
             
-            database.bCTypeSerialNumbersQueries.insertOrReplace(
+            appDatabase.bCTypeSerialNumbersQueries.insertOrReplace(
                 bc_type = bcType,
                 bc_type_code = bcTypeCode,
                 serial_number = formattedSerialNumber,
@@ -1056,9 +1728,9 @@ class DatabaseManager private constructor(context: Context) {
     fun incrementBcTypeSerialNumber(bcType: String): String? {
         return try {
             val currentTime = System.currentTimeMillis() / 1000
-            database.bCTypeSerialNumbersQueries.incrementSerialNumber(currentTime, bcType)
+            appDatabase.bCTypeSerialNumbersQueries.incrementSerialNumber(currentTime, bcType)
             
-            val newSerialNumber = database.bCTypeSerialNumbersQueries
+            val newSerialNumber = appDatabase.bCTypeSerialNumbersQueries
                 .selectSerialNumberByBcType(bcType)
                 .executeAsOneOrNull()
             
@@ -1076,7 +1748,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun getAllBcTypeSerialNumbers(): List<com.socam.bcms.database.BCTypeSerialNumbers> {
         return try {
-            database.bCTypeSerialNumbersQueries.selectAll().executeAsList()
+            appDatabase.bCTypeSerialNumbersQueries.selectAll().executeAsList()
         } catch (e: Exception) {
             println("DatabaseManager: Error getting all BC type serial numbers: ${e.message}")
             emptyList()
@@ -1090,7 +1762,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun bcTypeSerialNumberExists(bcType: String): Boolean {
         return try {
-            database.bCTypeSerialNumbersQueries.exists(bcType).executeAsOne()
+            appDatabase.bCTypeSerialNumbersQueries.exists(bcType).executeAsOne()
         } catch (e: Exception) {
             println("DatabaseManager: Error checking BC type $bcType existence: ${e.message}")
             false
@@ -1111,12 +1783,12 @@ class DatabaseManager private constructor(context: Context) {
             distinctBcTypes.forEach { bcType ->
                 if (!bcTypeSerialNumberExists(bcType)) {
                     // Get BC type code from mapping table
-                    val bcTypeCode = database.bCTypeMappingQueries
+                    val bcTypeCode = appDatabase.bCTypeMappingQueries
                         .selectNumericCodeByBcTypeAndProject(bcType, BuildConfig.PROJECT_ID)
                         .executeAsOneOrNull() ?: "404"
                     
                     // Initialize with "0000" - signals need to fetch from server
-                    database.bCTypeSerialNumbersQueries.insertOrReplace(
+                    appDatabase.bCTypeSerialNumbersQueries.insertOrReplace(
                         bc_type = bcType,
                         bc_type_code = bcTypeCode,
                         serial_number = "0000",
@@ -1138,7 +1810,7 @@ class DatabaseManager private constructor(context: Context) {
      */
     fun getNumericCodeByBcType(bcType: String): String? {
         return try {
-            database.bCTypeMappingQueries
+            appDatabase.bCTypeMappingQueries
                 .selectNumericCodeByBcTypeAndProject(bcType, BuildConfig.PROJECT_ID)
                 .executeAsOneOrNull()
         } catch (e: Exception) {
@@ -1146,4 +1818,20 @@ class DatabaseManager private constructor(context: Context) {
             null
         }
     }
+
+    /**
+     * BC type code reverse mapping for the current project (decode BC type from an EPC without a lookup)
+     */
+    fun getBcTypeCodes(): BcTypeCodes {
+        return try {
+            val mappings = appDatabase.bCTypeMappingQueries
+                .selectAllMappingsByProject(BuildConfig.PROJECT_ID)
+                .executeAsList()
+                .associate { it.bc_type to it.numeric_code }
+            BcTypeCodes(mappings)
+        } catch (e: Exception) {
+            println("DatabaseManager: Error loading BC type codes: ${e.message}")
+            BcTypeCodes.EMPTY
+        }
+    }
 }
\ No newline at end of file
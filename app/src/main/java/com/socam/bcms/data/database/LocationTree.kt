@@ -0,0 +1,239 @@
+package com.socam.bcms.data.database
+
+import com.socam.bcms.database.MasterLocations
+
+/**
+ * Immutable region → floor → room tree built once from MasterLocations
+ *
+ * - Ordered by region_floor_sort, area_location_sort, room_sort (nulls last)
+ * - Cascading Block/Floor/Unit selection is a map lookup, no SQL
+ * - Typeahead search over room, area_group and floor:
+ *   - queries shorter than 3 characters use a sorted token array (prefix match)
+ *   - longer queries use a trigram index (substring match)
+ */
+class LocationTree private constructor(
+    val regions: List<RegionNode>,
+    private val rooms: Array<RoomNode>,
+    private val searchText: Array<String>,
+    private val roomTokens: Array<List<String>>,
+    private val sortedTokens: Array<String>,
+    private val tokenRooms: IntArray,
+    private val trigramIndex: Map<String, IntArray>
+) {
+
+    /**
+     * Block/Region node
+     */
+    class RegionNode(
+        val name: String,
+        val floors: List<FloorNode>
+    )
+
+    /**
+     * Floor node within a region
+     */
+    class FloorNode(
+        val region: String,
+        val name: String,
+        val rooms: List<RoomNode>
+    )
+
+    /**
+     * Room/Unit leaf - wraps the original MasterLocations row
+     */
+    class RoomNode(
+        val location: MasterLocations,
+        internal val index: Int
+    ) {
+        val roomId: String get() = location.room_id
+        val label: String get() = location.room ?: location.room_id
+        val region: String? get() = location.region
+        val floor: String? get() = location.floor
+        val areaGroup: String? get() = location.area_group
+    }
+
+    private val regionByName: Map<String, RegionNode> = regions.associateBy { it.name }
+    private val roomById: Map<String, RoomNode> = rooms.associateBy { it.roomId }
+
+    /** All MasterLocations rows in tree order */
+    val all: List<MasterLocations> = rooms.map { it.location }
+
+    /** Distinct region names in tree order */
+    val regionNames: List<String> = regions.map { it.name }
+
+    /** Distinct floor names across all regions in tree order */
+    val floorNames: List<String> = regions.flatMap { region -> region.floors.map { it.name } }.distinct()
+
+    val size: Int get() = rooms.size
+
+    fun findRoom(roomId: String): RoomNode? = roomById[roomId]
+
+    fun floorsOf(region: String): List<String> = regionByName[region]?.floors?.map { it.name } ?: emptyList()
+
+    fun roomsOf(region: String, floor: String): List<RoomNode> {
+        return regionByName[region]?.floors?.firstOrNull { it.name == floor }?.rooms ?: emptyList()
+    }
+
+    /**
+     * Typeahead search across room, area_group and floor
+     * Every word of the query must match; results are ranked by
+     * room-name prefix, then token prefix, then substring, then tree order
+     */
+    fun search(query: String, limit: Int = DEFAULT_SEARCH_LIMIT): List<RoomNode> {
+        val words = tokenize(query)
+        if (words.isEmpty() || limit <= 0) return emptyList()
+
+        var candidates: IntArray? = null
+        for (word in words) {
+            val matches = if (word.length < TRIGRAM_SIZE) prefixMatches(word) else substringMatches(word)
+            candidates = if (candidates == null) matches else intersect(candidates, matches)
+            if (candidates.isEmpty()) return emptyList()
+        }
+
+        // Rank once per candidate, then sort by (rank, tree order)
+        val firstWord = words[0]
+        val ranked = candidates!!
+        val ranks = IntArray(ranked.size) { rank(ranked[it], firstWord) }
+        return ranked.indices
+            .sortedWith(compareBy({ ranks[it] }, { ranked[it] }))
+            .take(limit)
+            .map { rooms[ranked[it]] }
+    }
+
+    private fun rank(roomIndex: Int, word: String): Int {
+        val room = rooms[roomIndex].location.room?.lowercase() ?: ""
+        return when {
+            room.startsWith(word) -> 0
+            roomTokens[roomIndex].any { it.startsWith(word) } -> 1
+            else -> 2
+        }
+    }
+
+    /**
+     * Rooms having any token starting with [prefix] (sorted, distinct)
+     */
+    private fun prefixMatches(prefix: String): IntArray {
+        var low = 0
+        var high = sortedTokens.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (sortedTokens[mid] < prefix) low = mid + 1 else high = mid
+        }
+
+        val result = java.util.TreeSet<Int>()
+        var i = low
+        while (i < sortedTokens.size && sortedTokens[i].startsWith(prefix)) {
+            result.add(tokenRooms[i])
+            i++
+        }
+        return result.toIntArray()
+    }
+
+    /**
+     * Rooms whose search text contains [word] (trigram candidates verified by contains)
+     */
+    private fun substringMatches(word: String): IntArray {
+        var candidates: IntArray? = null
+        for (start in 0..word.length - TRIGRAM_SIZE) {
+            val postings = trigramIndex[word.substring(start, start + TRIGRAM_SIZE)] ?: return IntArray(0)
+            candidates = if (candidates == null) postings else intersect(candidates, postings)
+            if (candidates.isEmpty()) return candidates
+        }
+        return candidates!!.filter { searchText[it].contains(word) }.toIntArray()
+    }
+
+    companion object {
+        const val DEFAULT_SEARCH_LIMIT = 50
+        private const val TRIGRAM_SIZE = 3
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Build the tree and search indexes from MasterLocations rows
+         */
+        fun build(locations: List<MasterLocations>): LocationTree {
+            val sorted = locations.sortedWith(
+                compareBy<MasterLocations>(
+                    { it.region_floor_sort ?: Long.MAX_VALUE },
+                    { it.area_location_sort ?: Long.MAX_VALUE },
+                    { it.room_sort ?: Long.MAX_VALUE }
+                )
+            )
+            val rooms = Array(sorted.size) { RoomNode(sorted[it], it) }
+
+            // Tree (insertion order keeps the sort order)
+            val tree = LinkedHashMap<String, LinkedHashMap<String, MutableList<RoomNode>>>()
+            rooms.forEach { room ->
+                val region = room.region
+                val floor = room.floor
+                if (!region.isNullOrEmpty() && floor != null) {
+                    tree.getOrPut(region) { LinkedHashMap() }
+                        .getOrPut(floor) { mutableListOf() }
+                        .add(room)
+                }
+            }
+            val regions = tree.map { (region, floors) ->
+                RegionNode(region, floors.map { (floor, floorRooms) -> FloorNode(region, floor, floorRooms.toList()) })
+            }
+
+            // Search text and indexes
+            val searchText = Array(rooms.size) { index ->
+                val location = rooms[index].location
+                listOfNotNull(location.room, location.area_group, location.floor)
+                    .joinToString(" ")
+                    .lowercase()
+            }
+
+            val roomTokens = Array(rooms.size) { tokenize(searchText[it]).distinct() }
+
+            val tokenPairs = ArrayList<Pair<String, Int>>()
+            val trigrams = HashMap<String, MutableList<Int>>()
+            searchText.forEachIndexed { index, text ->
+                roomTokens[index].forEach { tokenPairs.add(it to index) }
+                val seen = HashSet<String>()
+                for (start in 0..text.length - TRIGRAM_SIZE) {
+                    val gram = text.substring(start, start + TRIGRAM_SIZE)
+                    if (seen.add(gram)) {
+                        trigrams.getOrPut(gram) { mutableListOf() }.add(index)
+                    }
+                }
+            }
+            tokenPairs.sortWith(compareBy({ it.first }, { it.second }))
+
+            return LocationTree(
+                regions = regions,
+                rooms = rooms,
+                searchText = searchText,
+                roomTokens = roomTokens,
+                sortedTokens = Array(tokenPairs.size) { tokenPairs[it].first },
+                tokenRooms = IntArray(tokenPairs.size) { tokenPairs[it].second },
+                trigramIndex = trigrams.mapValues { (_, postings) -> postings.toIntArray() }
+            )
+        }
+
+        private fun tokenize(text: String): List<String> {
+            return text.lowercase().split(TOKEN_SEPARATOR).filter { it.isNotEmpty() }
+        }
+
+        /**
+         * Intersect two ascending int arrays
+         */
+        private fun intersect(a: IntArray, b: IntArray): IntArray {
+            val result = IntArray(minOf(a.size, b.size))
+            var i = 0
+            var j = 0
+            var count = 0
+            while (i < a.size && j < b.size) {
+                when {
+                    a[i] < b[j] -> i++
+                    a[i] > b[j] -> j++
+                    else -> {
+                        result[count++] = a[i]
+                        i++
+                        j++
+                    }
+                }
+            }
+            return result.copyOf(count)
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.socam.bcms.data.database
+
+import com.socam.bcms.BuildConfig
+import com.socam.bcms.database.MasterCategories
+import com.socam.bcms.database.MasterCompanies
+import com.socam.bcms.database.MasterConcreteGrades
+import com.socam.bcms.database.MasterContracts
+import com.socam.bcms.database.MasterFloors
+import com.socam.bcms.database.MasterRegions
+import com.socam.bcms.database.MasterWorkflowSteps
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * In-memory, project-scoped cache of master data for step form dropdowns
+ *
+ * - Every master table has its own version counter
+ * - A sync that rewrites a table calls [invalidate], which bumps that table's version
+ * - Reads compare the snapshot version with the current version and only reload stale tables
+ * - Snapshots are immutable and pre-grouped, so opening a step dialog does not run any SQL
+ * - [warmUp] loads every table eagerly (called after master data sync)
+ */
+class MasterDataCache internal constructor(
+    private val databaseManager: DatabaseManager
+) {
+
+    /**
+     * Master tables tracked by the cache (one version counter each)
+     */
+    enum class Table {
+        REGIONS,
+        FLOORS,
+        CONCRETE_GRADES,
+        LOCATIONS,
+        CATEGORIES,
+        COMPANIES,
+        WORKFLOW_STEPS,
+        CONTRACTS
+    }
+
+    private class Snapshot(
+        val projectId: String,
+        val version: Long,
+        val data: Any
+    )
+
+    private val tableCount = Table.values().size
+    private val versions = AtomicLongArray(tableCount)
+    private val snapshots = AtomicReferenceArray<Snapshot?>(tableCount)
+    private val locks = Array(tableCount) { Any() }
+
+    @Volatile
+    private var activeProjectId: String = BuildConfig.PROJECT_ID
+
+    /**
+     * Project the cached data belongs to
+     */
+    val projectId: String
+        get() = activeProjectId
+
+    /**
+     * Switch the cache to another project - all tables become stale
+     */
+    fun switchProject(projectId: String): Unit {
+        if (projectId == activeProjectId) return
+        activeProjectId = projectId
+        invalidateAll()
+        println("MasterDataCache: Switched to project $projectId, all tables invalidated")
+    }
+
+    /**
+     * Bump version of a table after a sync rewrote it
+     */
+    fun invalidate(table: Table): Unit {
+        val newVersion = versions.incrementAndGet(table.ordinal)
+        println("MasterDataCache: ${table.name} invalidated (version $newVersion)")
+    }
+
+    /**
+     * Bump versions of all tables
+     */
+    fun invalidateAll(): Unit {
+        Table.values().forEach { versions.incrementAndGet(it.ordinal) }
+    }
+
+    /**
+     * Current version of a table (changes every time the table is rewritten)
+     */
+    fun versionOf(table: Table): Long = versions.get(table.ordinal)
+
+    /**
+     * Eagerly load every master table for the given project
+     * Call from a background thread (runs SQL for stale tables only)
+     */
+    fun warmUp(projectId: String = activeProjectId): Unit {
+        switchProject(projectId)
+        val start = System.currentTimeMillis()
+        try {
+            regions()
+            floors()
+            concreteGrades()
+            locations()
+            categories()
+            companies()
+            workflowSteps()
+            contracts()
+            println("MasterDataCache: Warm-up completed in ${System.currentTimeMillis() - start}ms")
+        } catch (e: Exception) {
+            println("MasterDataCache: Warm-up failed: ${e.message}")
+        }
+    }
+
+    // ========================================
+    // Table snapshots
+    // ========================================
+
+    fun regions(): List<MasterRegions> = snapshot(Table.REGIONS) {
+        databaseManager.database.masterRegionsQueries.selectAllRegions().executeAsList()
+    }
+
+    fun floors(): List<MasterFloors> = snapshot(Table.FLOORS) {
+        databaseManager.database.masterFloorsQueries.selectAllFloors().executeAsList()
+    }
+
+    fun concreteGrades(): List<MasterConcreteGrades> = snapshot(Table.CONCRETE_GRADES) {
+        databaseManager.database.masterConcreteGradesQueries.selectAllConcreteGrades().executeAsList()
+    }
+
+    fun contracts(): List<MasterContracts> = snapshot(Table.CONTRACTS) {
+        databaseManager.database.masterContractsQueries.selectAllContracts().executeAsList()
+    }
+
+    /**
+     * Region → floor → room tree with typeahead search index
+     */
+    fun locations(): LocationTree = snapshot(Table.LOCATIONS) {
+        LocationTree.build(databaseManager.database.masterLocationsQueries.selectAllLocations().executeAsList())
+    }
+
+    fun categories(): CategorySnapshot = snapshot(Table.CATEGORIES) {
+        CategorySnapshot(databaseManager.database.masterCategoriesQueries.selectAllCategories().executeAsList())
+    }
+
+    fun companies(): CompanySnapshot = snapshot(Table.COMPANIES) {
+        CompanySnapshot(databaseManager.database.masterCompaniesQueries.selectAllCompanies().executeAsList())
+    }
+
+    fun workflowSteps(): WorkflowStepSnapshot = snapshot(Table.WORKFLOW_STEPS) {
+        WorkflowStepSnapshot(databaseManager.database.masterWorkflowStepsQueries.selectAllWorkflowSteps().executeAsList())
+    }
+
+    /**
+     * Get step portion for a step code and BC type (null if step is not in workflow)
+     */
+    fun getStepPortion(stepCode: String, bcType: String): Int? {
+        return workflowSteps().find(stepCode, bcType)?.portion?.toInt()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun <T : Any> snapshot(table: Table, loader: () -> T): T {
+        val index = table.ordinal
+        val current = snapshots.get(index)
+        if (current != null && current.version == versions.get(index) && current.projectId == activeProjectId) {
+            return current.data as T
+        }
+
+        synchronized(locks[index]) {
+            val version = versions.get(index)
+            val projectId = activeProjectId
+            val existing = snapshots.get(index)
+            if (existing != null && existing.version == version && existing.projectId == projectId) {
+                return existing.data as T
+            }
+
+            val data = loader()
+            snapshots.set(index, Snapshot(projectId, version, data))
+            println("MasterDataCache: Loaded ${table.name} (version $version)")
+            return data
+        }
+    }
+
+    // ========================================
+    // Pre-grouped snapshots
+    // ========================================
+
+    /**
+     * MasterCategories grouped by BC type and subcategory flag
+     */
+    class CategorySnapshot(val all: List<MasterCategories>) {
+
+        val bcTypes: List<String> = all.map { it.bc_type }.distinct()
+
+        private val byBcType: Map<String, List<MasterCategories>> = all
+            .groupBy { it.bc_type }
+            .mapValues { (_, categories) -> categories.sortedWith(compareBy({ it.is_subcategory }, { it.category })) }
+
+        fun byBcType(bcType: String): List<MasterCategories> = byBcType[bcType] ?: emptyList()
+
+        fun byBcType(bcType: String, isSubcategory: Boolean): List<MasterCategories> {
+            val flag = if (isSubcategory) 1L else 0L
+            return byBcType(bcType).filter { it.is_subcategory == flag }
+        }
+    }
+
+    /**
+     * MasterCompanies grouped by company type, with BC type wildcard ('*') support
+     */
+    class CompanySnapshot(val all: List<MasterCompanies>) {
+
+        private val byType: Map<String, List<MasterCompanies>> = all
+            .groupBy { it.type }
+            .mapValues { (_, companies) -> companies.sortedBy { it.name_en } }
+
+        private val byTypeAndBcType = ConcurrentHashMap<Pair<String, String>, List<MasterCompanies>>()
+
+        fun findById(id: String): MasterCompanies? = all.firstOrNull { it.id == id }
+
+        fun byType(type: String): List<MasterCompanies> = byType[type] ?: emptyList()
+
+        /**
+         * Companies of a type for a BC type, including wildcard entries (bc_type = '*')
+         */
+        fun byTypeAndBcType(type: String, bcType: String): List<MasterCompanies> {
+            return byTypeAndBcType.getOrPut(type to bcType) {
+                byType(type).filter { it.bc_type == bcType || it.bc_type == "*" }
+            }
+        }
+    }
+
+    /**
+     * MasterWorkflowSteps indexed by (step, bc_type)
+     */
+    class WorkflowStepSnapshot(val all: List<MasterWorkflowSteps>) {
+
+        private val byKey: Map<Pair<String, String>, MasterWorkflowSteps> = all.associateBy { it.step to it.bc_type }
+
+        private val byBcType: Map<String, List<MasterWorkflowSteps>> = all
+            .groupBy { it.bc_type }
+            .mapValues { (_, steps) -> steps.sortedWith(compareBy({ it.portion }, { it.step })) }
+
+        fun find(stepCode: String, bcType: String): MasterWorkflowSteps? = byKey[stepCode to bcType]
+
+        fun byBcType(bcType: String): List<MasterWorkflowSteps> = byBcType[bcType] ?: emptyList()
+    }
+}
@@ -0,0 +1,127 @@
+package com.socam.bcms.data.database
+
+import com.socam.bcms.database.Database
+import com.squareup.sqldelight.db.SqlCursor
+import com.squareup.sqldelight.db.SqlDriver
+import com.squareup.sqldelight.db.SqlPreparedStatement
+
+/**
+ * Moves a project's module rows out of the app file into the project's own file
+ *
+ * Before per-project files every project lived in bcms_database.db. The first time a
+ * non-default project is opened, its RfidModule rows and their step progress and changed-field
+ * entries (so PENDING edits still upload) are copied to the project file, then deleted from the
+ * app file. Once moved there is nothing left to copy, so later switches only run one COUNT.
+ *
+ * - Columns are matched by name (the two files may be at different schema versions)
+ * - The copy is one project-file transaction, the delete one app-file transaction after it;
+ *   a crash in between only repeats the copy (INSERT OR REPLACE) on the next switch
+ */
+internal class ProjectFileMigration(
+    private val appDriver: SqlDriver,
+    private val appDatabase: Database,
+    private val projectDriver: SqlDriver,
+    private val projectDatabase: Database
+) {
+
+    companion object {
+        private const val PROJECT_MODULES = "SELECT Id FROM RfidModule WHERE ProjId = ? COLLATE NOCASE"
+
+        /**
+         * Copied in this order: progress and changed fields after their module (triggers update RfidModule)
+         */
+        private val MODULE_TABLES = linkedMapOf(
+            "RfidModule" to "ProjId = ? COLLATE NOCASE",
+            "RfidModuleStepProgress" to "module_id IN ($PROJECT_MODULES)",
+            "RfidModuleDirtyField" to "module_id IN ($PROJECT_MODULES)"
+        )
+    }
+
+    /**
+     * Move [projectId]'s rows, returns the number of modules moved
+     */
+    fun moveProjectRows(projectId: String): Long {
+        val modules = appDriver.executeQuery(
+            identifier = null,
+            sql = "SELECT COUNT(*) FROM RfidModule WHERE ProjId = ? COLLATE NOCASE",
+            parameters = 1
+        ) { bindString(1, projectId) }.use { cursor -> if (cursor.next()) cursor.getLong(0) ?: 0L else 0L }
+        if (modules == 0L) return 0L
+
+        projectDatabase.transaction {
+            MODULE_TABLES.forEach { (table, where) ->
+                val copied = copyRows(table, where, projectId)
+                println("ProjectFileMigration: Copied $copied $table rows of project $projectId")
+            }
+        }
+
+        appDatabase.transaction {
+            if (columnTypes(appDriver, "RfidModuleDirtyField").isNotEmpty()) {
+                appDriver.execute(
+                    identifier = null,
+                    sql = "DELETE FROM RfidModuleDirtyField WHERE module_id IN ($PROJECT_MODULES)",
+                    parameters = 1
+                ) { bindString(1, projectId) }
+            }
+            // Step progress goes with its module (rfid_module_step_progress_after_delete)
+            appDriver.execute(
+                identifier = null,
+                sql = "DELETE FROM RfidModule WHERE ProjId = ? COLLATE NOCASE",
+                parameters = 1
+            ) { bindString(1, projectId) }
+        }
+        println("ProjectFileMigration: Moved $modules modules of project $projectId out of the app file")
+        return modules
+    }
+
+    private fun copyRows(table: String, where: String, projectId: String): Long {
+        val targetColumns = columnTypes(projectDriver, table)
+        val columns = columnTypes(appDriver, table).filterKeys { it in targetColumns }
+        if (columns.isEmpty()) return 0L
+
+        val names = columns.keys.toList()
+        val columnList = names.joinToString { "\"$it\"" }
+        val insertSql = "INSERT OR REPLACE INTO $table ($columnList) VALUES (${names.joinToString { "?" }})"
+        val parameters = where.count { it == '?' }
+
+        var copied = 0L
+        appDriver.executeQuery(
+            identifier = null,
+            sql = "SELECT $columnList FROM $table WHERE $where",
+            parameters = parameters
+        ) { for (index in 1..parameters) bindString(index, projectId) }.use { cursor ->
+            while (cursor.next()) {
+                projectDriver.execute(identifier = null, sql = insertSql, parameters = names.size) {
+                    names.forEachIndexed { index, name -> bindColumn(index, columns.getValue(name), cursor) }
+                }
+                copied++
+            }
+        }
+        return copied
+    }
+
+    /**
+     * Bind column [index] of [cursor] by its declared type (SQLite type affinity rules)
+     */
+    private fun SqlPreparedStatement.bindColumn(index: Int, type: String, cursor: SqlCursor): Unit {
+        when {
+            "INT" in type -> bindLong(index + 1, cursor.getLong(index))
+            "REAL" in type || "FLOA" in type || "DOUB" in type -> bindDouble(index + 1, cursor.getDouble(index))
+            "BLOB" in type -> bindBytes(index + 1, cursor.getBytes(index))
+            else -> bindString(index + 1, cursor.getString(index))
+        }
+    }
+
+    /**
+     * Column name -> declared type (upper case); empty when the table does not exist
+     */
+    private fun columnTypes(driver: SqlDriver, table: String): Map<String, String> {
+        val columns = LinkedHashMap<String, String>()
+        driver.executeQuery(identifier = null, sql = "PRAGMA table_info($table)", parameters = 0).use { cursor ->
+            while (cursor.next()) {
+                columns[cursor.getString(1) ?: continue] = cursor.getString(2).orEmpty().uppercase()
+            }
+        }
+        return columns
+    }
+}
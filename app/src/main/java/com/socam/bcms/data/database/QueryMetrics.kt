@@ -0,0 +1,220 @@
+package com.socam.bcms.data.database
+
+import android.os.Looper
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * In-memory SQL timing statistics fed by QueryTimingDriver
+ *
+ * - One entry per query identifier (raw SQL without identifier is keyed by its text)
+ * - Latency histogram with power-of-two buckets, rows returned, max latency
+ * - Outermost transaction durations in a separate histogram
+ * - Ring buffer of the latest slow statements with their bound-argument shapes (never values)
+ *
+ * Recording is lock-free (atomics only) so it can stay on in production builds
+ */
+object QueryMetrics {
+
+    const val SLOW_QUERY_MS = 50L
+    const val SLOW_TRANSACTION_MS = 500L
+    private const val SLOW_LOG_SIZE = 64
+
+    // Bucket upper bounds in microseconds: 250us, 500us, 1ms ... 512ms, then overflow
+    private val BUCKET_BOUNDS_US = LongArray(12) { 250L shl it }
+
+    private val byIdentifier = ConcurrentHashMap<Int, QueryStat>()
+    private val bySql = ConcurrentHashMap<String, QueryStat>()
+    @Volatile
+    private var transactions = QueryStat("TRANSACTION", "(outermost transactions)")
+
+    private val slowLog = AtomicReferenceArray<SlowStatement?>(SLOW_LOG_SIZE)
+    private val slowSequence = AtomicLong()
+
+    private val startedAt = AtomicLong(System.currentTimeMillis())
+
+    /**
+     * Statistics of one statement (or of all transactions)
+     */
+    class QueryStat(val database: String, val sql: String) {
+        val label: String = sql.replace(Regex("\\s+"), " ").trim().take(120)
+        internal val count = AtomicLong()
+        internal val totalNanos = AtomicLong()
+        internal val maxNanos = AtomicLong()
+        internal val rows = AtomicLong()
+        internal val buckets = AtomicLongArray(BUCKET_BOUNDS_US.size + 1)
+
+        internal fun record(nanos: Long, rowCount: Long): Unit {
+            count.incrementAndGet()
+            totalNanos.addAndGet(nanos)
+            rows.addAndGet(rowCount)
+            buckets.incrementAndGet(bucketOf(nanos))
+            var max = maxNanos.get()
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get()
+            }
+        }
+
+        fun snapshot(): QueryStatSnapshot {
+            val counts = LongArray(buckets.length()) { buckets.get(it) }
+            val total = count.get()
+            return QueryStatSnapshot(
+                database = database,
+                label = label,
+                count = total,
+                totalMs = totalNanos.get() / 1_000_000.0,
+                maxMs = maxNanos.get() / 1_000_000.0,
+                p50Ms = percentileMs(counts, total, 0.50),
+                p95Ms = percentileMs(counts, total, 0.95),
+                rows = rows.get()
+            )
+        }
+    }
+
+    /**
+     * Entry of the slow statement ring buffer
+     */
+    data class SlowStatement(
+        val timestamp: Long,
+        val database: String,
+        val label: String,
+        val durationMs: Double,
+        val rows: Long,
+        val argumentShape: String,
+        val threadName: String,
+        val onMainThread: Boolean
+    )
+
+    data class QueryStatSnapshot(
+        val database: String,
+        val label: String,
+        val count: Long,
+        val totalMs: Double,
+        val maxMs: Double,
+        val p50Ms: Double,
+        val p95Ms: Double,
+        val rows: Long
+    ) {
+        val averageMs: Double
+            get() = if (count == 0L) 0.0 else totalMs / count
+    }
+
+    internal fun statFor(database: String, identifier: Int?, sql: String): QueryStat {
+        if (identifier == null) {
+            return bySql[sql] ?: bySql.putIfAbsent(sql, QueryStat(database, sql)) ?: bySql.getValue(sql)
+        }
+        return byIdentifier[identifier]
+            ?: byIdentifier.putIfAbsent(identifier, QueryStat(database, sql))
+            ?: byIdentifier.getValue(identifier)
+    }
+
+    internal fun recordTransaction(database: String, nanos: Long, successful: Boolean): Unit {
+        transactions.record(nanos, 0)
+        if (nanos >= SLOW_TRANSACTION_MS * 1_000_000) {
+            recordSlow(database, if (successful) "TRANSACTION (commit)" else "TRANSACTION (rollback)", nanos, 0, "")
+        }
+    }
+
+    internal fun recordSlow(database: String, label: String, nanos: Long, rows: Long, argumentShape: String): Unit {
+        val thread = Thread.currentThread()
+        val entry = SlowStatement(
+            timestamp = System.currentTimeMillis(),
+            database = database,
+            label = label,
+            durationMs = nanos / 1_000_000.0,
+            rows = rows,
+            argumentShape = argumentShape,
+            threadName = thread.name,
+            onMainThread = thread === Looper.getMainLooper()?.thread
+        )
+        val slot = (slowSequence.getAndIncrement() % SLOW_LOG_SIZE).toInt()
+        slowLog.set(slot, entry)
+    }
+
+    /**
+     * Statements ordered by total time spent (hottest first)
+     */
+    fun snapshot(): List<QueryStatSnapshot> {
+        return (byIdentifier.values + bySql.values)
+            .map { it.snapshot() }
+            .sortedByDescending { it.totalMs }
+    }
+
+    fun transactionSnapshot(): QueryStatSnapshot = transactions.snapshot()
+
+    /**
+     * Slow statements, newest first
+     */
+    fun slowStatements(): List<SlowStatement> {
+        val entries = ArrayList<SlowStatement>(SLOW_LOG_SIZE)
+        for (i in 0 until SLOW_LOG_SIZE) {
+            slowLog.get(i)?.let { entries.add(it) }
+        }
+        return entries.sortedByDescending { it.timestamp }
+    }
+
+    fun reset(): Unit {
+        byIdentifier.clear()
+        bySql.clear()
+        transactions = QueryStat("TRANSACTION", "(outermost transactions)")
+        for (i in 0 until SLOW_LOG_SIZE) slowLog.set(i, null)
+        startedAt.set(System.currentTimeMillis())
+    }
+
+    /**
+     * Plain-text report for the debug dialog and the export file
+     */
+    fun exportText(limit: Int = Int.MAX_VALUE): String {
+        val dateFormat = SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US)
+        val builder = StringBuilder()
+        builder.append("Query statistics since ").append(dateFormat.format(Date(startedAt.get()))).append('\n')
+
+        val tx = transactionSnapshot()
+        builder.append(String.format(Locale.US, "Transactions: %d, avg %.1fms, p95 %.1fms, max %.1fms\n\n",
+            tx.count, tx.averageMs, tx.p95Ms, tx.maxMs))
+
+        builder.append("count | total ms | avg | p50 | p95 | max | rows | db | sql\n")
+        snapshot().take(limit).forEach { stat ->
+            builder.append(String.format(Locale.US, "%d | %.1f | %.2f | %.2f | %.2f | %.1f | %d | %s | %s\n",
+                stat.count, stat.totalMs, stat.averageMs, stat.p50Ms, stat.p95Ms, stat.maxMs, stat.rows,
+                stat.database, stat.label))
+        }
+
+        builder.append("\nSlow statements (>= ${SLOW_QUERY_MS}ms, transactions >= ${SLOW_TRANSACTION_MS}ms)\n")
+        slowStatements().forEach { slow ->
+            builder.append(String.format(Locale.US, "%s | %.1fms | rows %d | %s%s | %s | args [%s] | %s\n",
+                dateFormat.format(Date(slow.timestamp)), slow.durationMs, slow.rows, slow.threadName,
+                if (slow.onMainThread) " (MAIN)" else "", slow.database, slow.argumentShape, slow.label))
+        }
+        return builder.toString()
+    }
+
+    private fun bucketOf(nanos: Long): Int {
+        val micros = nanos / 1000
+        BUCKET_BOUNDS_US.forEachIndexed { index, bound ->
+            if (micros < bound) return index
+        }
+        return BUCKET_BOUNDS_US.size
+    }
+
+    /**
+     * Upper bound of the bucket holding the percentile (overflow bucket reports the last bound)
+     */
+    private fun percentileMs(counts: LongArray, total: Long, percentile: Double): Double {
+        if (total == 0L) return 0.0
+        val target = Math.ceil(total * percentile).toLong()
+        var seen = 0L
+        counts.forEachIndexed { index, count ->
+            seen += count
+            if (seen >= target) {
+                return BUCKET_BOUNDS_US[minOf(index, BUCKET_BOUNDS_US.size - 1)] / 1000.0
+            }
+        }
+        return BUCKET_BOUNDS_US.last() / 1000.0
+    }
+}
@@ -0,0 +1,143 @@
+package com.socam.bcms.data.database
+
+import com.squareup.sqldelight.Transacter
+import com.squareup.sqldelight.db.SqlCursor
+import com.squareup.sqldelight.db.SqlDriver
+import com.squareup.sqldelight.db.SqlPreparedStatement
+
+/**
+ * SqlDriver decorator that times every statement into QueryMetrics
+ *
+ * - Queries are timed from executeQuery until the cursor is closed (SQLite does the work in next())
+ * - Outermost transactions are timed through their commit / rollback callbacks
+ * - Argument shapes of slow statements are captured by replaying the binders into a recorder,
+ *   so the fast path costs two nanoTime calls and a cursor wrapper
+ */
+class QueryTimingDriver(
+    private val delegate: SqlDriver,
+    private val databaseName: String
+) : SqlDriver {
+
+    companion object {
+        private const val SLOW_QUERY_NANOS = QueryMetrics.SLOW_QUERY_MS * 1_000_000
+    }
+
+    override fun executeQuery(
+        identifier: Int?,
+        sql: String,
+        parameters: Int,
+        binders: (SqlPreparedStatement.() -> Unit)?
+    ): SqlCursor {
+        val start = System.nanoTime()
+        val cursor = delegate.executeQuery(identifier, sql, parameters, binders)
+        return TimedCursor(cursor, start, identifier, sql, parameters, binders)
+    }
+
+    override fun execute(
+        identifier: Int?,
+        sql: String,
+        parameters: Int,
+        binders: (SqlPreparedStatement.() -> Unit)?
+    ): Unit {
+        val start = System.nanoTime()
+        try {
+            delegate.execute(identifier, sql, parameters, binders)
+        } finally {
+            record(identifier, sql, parameters, binders, System.nanoTime() - start, 0)
+        }
+    }
+
+    override fun newTransaction(): Transacter.Transaction {
+        val outermost = delegate.currentTransaction() == null
+        val transaction = delegate.newTransaction()
+        if (outermost) {
+            val start = System.nanoTime()
+            transaction.afterCommit { QueryMetrics.recordTransaction(databaseName, System.nanoTime() - start, true) }
+            transaction.afterRollback { QueryMetrics.recordTransaction(databaseName, System.nanoTime() - start, false) }
+        }
+        return transaction
+    }
+
+    override fun currentTransaction(): Transacter.Transaction? = delegate.currentTransaction()
+
+    override fun close(): Unit = delegate.close()
+
+    private fun record(
+        identifier: Int?,
+        sql: String,
+        parameters: Int,
+        binders: (SqlPreparedStatement.() -> Unit)?,
+        nanos: Long,
+        rows: Long
+    ): Unit {
+        val stat = QueryMetrics.statFor(databaseName, identifier, sql)
+        stat.record(nanos, rows)
+        if (nanos >= SLOW_QUERY_NANOS) {
+            QueryMetrics.recordSlow(databaseName, stat.label, nanos, rows, argumentShape(parameters, binders))
+        }
+    }
+
+    /**
+     * Types (and text / blob lengths) of the bound arguments, never the values
+     */
+    private fun argumentShape(parameters: Int, binders: (SqlPreparedStatement.() -> Unit)?): String {
+        if (binders == null || parameters == 0) return ""
+        return try {
+            val recorder = ShapeRecorder(parameters)
+            recorder.binders()
+            recorder.shapes.joinToString(", ")
+        } catch (e: Exception) {
+            "?"
+        }
+    }
+
+    private class ShapeRecorder(parameters: Int) : SqlPreparedStatement {
+        val shapes = Array(parameters) { "unbound" }
+
+        override fun bindBytes(index: Int, bytes: ByteArray?): Unit {
+            set(index, if (bytes == null) "NULL" else "BLOB(${bytes.size})")
+        }
+
+        override fun bindDouble(index: Int, double: Double?): Unit {
+            set(index, if (double == null) "NULL" else "REAL")
+        }
+
+        override fun bindLong(index: Int, long: Long?): Unit {
+            set(index, if (long == null) "NULL" else "INTEGER")
+        }
+
+        override fun bindString(index: Int, string: String?): Unit {
+            set(index, if (string == null) "NULL" else "TEXT(${string.length})")
+        }
+
+        // SQLDelight binds 1-based indexes
+        private fun set(index: Int, shape: String): Unit {
+            if (index in 1..shapes.size) shapes[index - 1] = shape
+        }
+    }
+
+    private inner class TimedCursor(
+        private val cursor: SqlCursor,
+        private val start: Long,
+        private val identifier: Int?,
+        private val sql: String,
+        private val parameters: Int,
+        private val binders: (SqlPreparedStatement.() -> Unit)?
+    ) : SqlCursor by cursor {
+        private var rows = 0L
+        private var closed = false
+
+        override fun next(): Boolean {
+            val hasRow = cursor.next()
+            if (hasRow) rows++
+            return hasRow
+        }
+
+        override fun close(): Unit {
+            cursor.close()
+            if (closed) return
+            closed = true
+            record(identifier, sql, parameters, binders, System.nanoTime() - start, rows)
+        }
+    }
+}
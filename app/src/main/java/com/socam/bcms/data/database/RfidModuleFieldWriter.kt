@@ -0,0 +1,148 @@
+package com.socam.bcms.data.database
+
+import com.socam.bcms.database.Database
+import com.squareup.sqldelight.db.SqlDriver
+
+/**
+ * Partial updates of RfidModule rows
+ *
+ * - Builds one UPDATE statement containing only the changed columns (plus UpdatedDate/sync_status)
+ * - Step fields ("IsCompleted60", "Remark60") are written to RfidModuleStepProgress for that portion
+ * - Records the changed fields in RfidModuleDirtyField in the same transaction
+ * - Column names are checked against [UPDATABLE_COLUMNS], values are always bound
+ */
+class RfidModuleFieldWriter internal constructor(
+    private val driver: SqlDriver,
+    private val database: Database
+) {
+
+    companion object {
+        /**
+         * Dirty marker for a row that was already PENDING from a full-row write (upload all fields)
+         */
+        const val ALL_FIELDS = "*"
+
+        /**
+         * RfidModule columns that may be changed from the app, with their SQLite type
+         */
+        val UPDATABLE_COLUMNS: Map<String, ColumnType> = mapOf(
+            "Category" to ColumnType.TEXT,
+            "Subcategory" to ColumnType.TEXT,
+            "SerialNo" to ColumnType.TEXT,
+            "SupplierId" to ColumnType.TEXT,
+            "ManufacturerId" to ColumnType.TEXT,
+            "ManufacturingDate" to ColumnType.INTEGER,
+            "ConcreteGrade" to ColumnType.TEXT,
+            "ProductNo" to ColumnType.TEXT,
+            "RSCompanyId" to ColumnType.TEXT,
+            "RSInspectionDate" to ColumnType.INTEGER,
+            "CastingDate" to ColumnType.INTEGER,
+            "FirstCastingDate" to ColumnType.INTEGER,
+            "SecondCastingDate" to ColumnType.INTEGER,
+            "InternalFinishDate" to ColumnType.INTEGER,
+            "DeliveryDate" to ColumnType.INTEGER,
+            "BatchNo" to ColumnType.TEXT,
+            "ASN" to ColumnType.TEXT,
+            "LicensePlateNo" to ColumnType.TEXT,
+            "SiteArrivalDate" to ColumnType.INTEGER,
+            "SiteInstallationDate" to ColumnType.INTEGER,
+            "Region" to ColumnType.TEXT,
+            "Floor" to ColumnType.TEXT,
+            "RoomId" to ColumnType.TEXT,
+            "ChipFailureSA" to ColumnType.INTEGER,
+            "ChipFailureSI" to ColumnType.INTEGER,
+            "Dispose" to ColumnType.INTEGER
+        )
+
+        /**
+         * Step field names (same as the sync DTO keys): IsCompleted<portion> / Remark<portion>
+         */
+        private val STEP_FIELD = Regex("^(IsCompleted|Remark)(\\d+)$")
+
+        /**
+         * RfidModuleStepProgress slot of a MasterWorkflowSteps portion
+         * MIC35 is stored in the 55 slot (the step-column view and the sync DTO have no step 35 fields)
+         */
+        fun progressPortion(stepPortion: Int): Int = if (stepPortion == 35) 55 else stepPortion
+
+        fun isCompletedField(stepPortion: Int): String = "IsCompleted${progressPortion(stepPortion)}"
+
+        fun remarkField(stepPortion: Int): String = "Remark${progressPortion(stepPortion)}"
+    }
+
+    enum class ColumnType { TEXT, INTEGER }
+
+    /**
+     * Write only [changes] (column name → value) to the module row and record them as dirty
+     * No-op for an empty change set
+     */
+    fun updateFields(moduleId: String, changes: Map<String, Any?>): Unit {
+        if (changes.isEmpty()) return
+
+        val stepFields = changes.keys.filter { STEP_FIELD.matches(it) }
+        val columns = changes.keys.filterNot { STEP_FIELD.matches(it) }
+        columns.forEach { column ->
+            require(UPDATABLE_COLUMNS.containsKey(column)) { "Column $column cannot be updated" }
+        }
+
+        val sql = buildString {
+            append("UPDATE RfidModule SET ")
+            columns.forEach { column -> append(column).append(" = ?, ") }
+            append("UpdatedDate = strftime('%s', 'now'), sync_status = 'PENDING' WHERE Id = ?")
+        }
+
+        database.transaction {
+            // Row already pending without a field set - earlier changes are unknown, keep it a full upload
+            val wasPending = database.rfidModuleQueries.selectModuleById(moduleId).executeAsOneOrNull()?.sync_status == "PENDING"
+            if (wasPending && database.rfidModuleDirtyFieldQueries.countDirtyFieldsByModule(moduleId).executeAsOne() == 0L) {
+                database.rfidModuleDirtyFieldQueries.markFieldDirty(moduleId, ALL_FIELDS)
+            }
+
+            driver.execute(identifier = null, sql = sql, parameters = columns.size + 1) {
+                columns.forEachIndexed { index, column ->
+                    val value = changes[column]
+                    when (UPDATABLE_COLUMNS.getValue(column)) {
+                        ColumnType.TEXT -> bindString(index + 1, value?.toString())
+                        ColumnType.INTEGER -> bindLong(index + 1, (value as Number?)?.toLong())
+                    }
+                }
+                bindString(columns.size + 1, moduleId)
+            }
+
+            stepFields.forEach { field ->
+                writeStepField(moduleId, field, changes[field])
+            }
+
+            changes.keys.forEach { field ->
+                database.rfidModuleDirtyFieldQueries.markFieldDirty(moduleId, field)
+            }
+        }
+
+        println("RfidModuleFieldWriter: Updated ${changes.size} field(s) of $moduleId: ${changes.keys}")
+    }
+
+    /**
+     * Write one step field into the (module, portion) progress row, creating it when missing
+     */
+    private fun writeStepField(moduleId: String, field: String, value: Any?): Unit {
+        val match = STEP_FIELD.matchEntire(field) ?: return
+        val portion = match.groupValues[2].toLong()
+        val queries = database.rfidModuleStepProgressQueries
+        queries.ensureProgress(moduleId, portion)
+        when (match.groupValues[1]) {
+            "IsCompleted" -> queries.updateCompleted(
+                isCompleted = (value as Number?)?.toLong() ?: 0L,
+                moduleId = moduleId,
+                portion = portion
+            )
+            "Remark" -> queries.updateRemark(remark = value?.toString(), moduleId = moduleId, portion = portion)
+        }
+    }
+
+    /**
+     * Fields changed locally and not yet uploaded
+     */
+    fun dirtyFields(moduleId: String): Set<String> {
+        return database.rfidModuleDirtyFieldQueries.selectDirtyFieldsByModule(moduleId).executeAsList().toSet()
+    }
+}
@@ -152,12 +152,14 @@ data class BatchModificationResponse(
 )
 
 /**
- * Error tracking for failed sync attempts (for future notification module)
+ * Error tracking for failed sync attempts (row of SyncErrorLog, see SyncErrorRepository)
+ * timestamp: last failure, nextRetryAt: end of backoff (both in milliseconds)
  */
 data class SyncError(
     val recordId: String,
     val bcType: String,
     val errorMessage: String,
     val timestamp: Long,
-    val retryCount: Int
+    val retryCount: Int,
+    val nextRetryAt: Long
 )
@@ -135,8 +135,15 @@ data class RfidModuleDto(
 /**
  * Request body for RfidModule API
  * Keep ComponentTagRequest name as it matches the API endpoint structure
+ * Scope filters (SyncScope) are optional; null fields are not sent
  */
 data class RfidModuleRequest(
     @SerializedName("Bctype")
-    val bctype: List<String>
+    val bctype: List<String>,
+    @SerializedName("ContractNo")
+    val contractNo: List<String>? = null,
+    @SerializedName("Region")
+    val region: List<String>? = null,
+    @SerializedName("Floor")
+    val floor: List<String>? = null
 )
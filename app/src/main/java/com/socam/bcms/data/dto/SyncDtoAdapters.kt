@@ -0,0 +1,1088 @@
+package com.socam.bcms.data.dto
+
+import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import com.google.gson.TypeAdapterFactory
+import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+
+/**
+ * Hand-written Gson adapters for the sync DTOs (no reflection on the hot path)
+ *
+ * - Field names match the @SerializedName annotations on the DTOs, which stay as documentation
+ * - Unknown fields are skipped; missing non-null fields fall back to "" / 0 / empty list
+ * - Numbers sent as strings (and vice versa) are tolerated, as the API is not strict about it
+ * - Any DTO not listed here keeps Gson's reflective adapter
+ */
+class SyncDtoAdapterFactory : TypeAdapterFactory {
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : Any?> create(gson: Gson, type: TypeToken<T>): TypeAdapter<T>? {
+        val adapter: TypeAdapter<*> = when (type.rawType) {
+            RfidModuleDto::class.java -> RfidModuleDtoAdapter
+            RfidModificationDto::class.java -> RfidModificationDtoAdapter
+            BatchModificationResponse::class.java -> BatchModificationResponseAdapter
+            MasterRegionDto::class.java -> MasterRegionDtoAdapter
+            MasterFloorDto::class.java -> MasterFloorDtoAdapter
+            MasterConcreteGradeDto::class.java -> MasterConcreteGradeDtoAdapter
+            MasterLocationDto::class.java -> MasterLocationDtoAdapter
+            MasterCategoryDto::class.java -> MasterCategoryDtoAdapter
+            MasterCompanyDto::class.java -> MasterCompanyDtoAdapter
+            MasterWorkflowStepDto::class.java -> MasterWorkflowStepDtoAdapter
+            MasterContractDto::class.java -> MasterContractDtoAdapter
+            else -> return null
+        }
+        return adapter as TypeAdapter<T>
+    }
+
+    private object RfidModuleDtoAdapter : TypeAdapter<RfidModuleDto>() {
+        override fun read(reader: JsonReader): RfidModuleDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var id = ""
+            var projId: String? = null
+            var contractNo: String? = null
+            var manufacturerId: String? = null
+            var tagId: String? = null
+            var isActivated = 0
+            var activatedDate: String? = null
+            var bcType = ""
+            var rfidTagNo: String? = null
+            var stepCode: String? = null
+            var category: String? = null
+            var subcategory: String? = null
+            var supplierId: String? = null
+            var concreteGrade: String? = null
+            var asn: String? = null
+            var serialNo: String? = null
+            var workingNo: Int? = null
+            var manufacturingDate: String? = null
+            var productNo: String? = null
+            var rsCompanyId: String? = null
+            var rsInspectionDate: String? = null
+            var castingDate: String? = null
+            var firstCastingDate: String? = null
+            var secondCastingDate: String? = null
+            var waterproofingInstallationDate: String? = null
+            var internalFinishDate: String? = null
+            var deliveryDate: String? = null
+            var batchNo: String? = null
+            var licensePlateNo: String? = null
+            var gpsDeviceId: String? = null
+            var siteArrivalDate: String? = null
+            var siteInstallationDate: String? = null
+            var roomId: String? = null
+            var roomInput: String? = null
+            var floor: String? = null
+            var region: String? = null
+            var chipFailureSa = 0
+            var chipFailureSi = 0
+            var dispose = 0
+            var createdDate = ""
+            var createdBy: String? = null
+            var updatedDate: String? = null
+            var updatedBy: String? = null
+            var isCompleted10 = 0
+            var remark10: String? = null
+            var isCompleted20 = 0
+            var remark20: String? = null
+            var isCompleted30 = 0
+            var remark30: String? = null
+            var isCompleted40 = 0
+            var remark40: String? = null
+            var isCompleted50 = 0
+            var remark50: String? = null
+            var isCompleted55 = 0
+            var remark55: String? = null
+            var isCompleted60 = 0
+            var remark60: String? = null
+            var isCompleted70 = 0
+            var remark70: String? = null
+            var isCompleted80 = 0
+            var remark80: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Id" -> id = reader.nextStringOrNull() ?: ""
+                    "ProjId" -> projId = reader.nextStringOrNull()
+                    "ContractNo" -> contractNo = reader.nextStringOrNull()
+                    "ManufacturerId" -> manufacturerId = reader.nextStringOrNull()
+                    "TagId" -> tagId = reader.nextStringOrNull()
+                    "IsActivated" -> isActivated = reader.nextIntOr(0)
+                    "ActivatedDate" -> activatedDate = reader.nextStringOrNull()
+                    "Bctype" -> bcType = reader.nextStringOrNull() ?: ""
+                    "RfidtagNo" -> rfidTagNo = reader.nextStringOrNull()
+                    "StepCode" -> stepCode = reader.nextStringOrNull()
+                    "Category" -> category = reader.nextStringOrNull()
+                    "Subcategory" -> subcategory = reader.nextStringOrNull()
+                    "SupplierId" -> supplierId = reader.nextStringOrNull()
+                    "ConcreteGrade" -> concreteGrade = reader.nextStringOrNull()
+                    "ASN" -> asn = reader.nextStringOrNull()
+                    "SerialNo" -> serialNo = reader.nextStringOrNull()
+                    "WorkingNo" -> workingNo = reader.nextIntOrNull()
+                    "ManufacturingDate" -> manufacturingDate = reader.nextStringOrNull()
+                    "ProductNo" -> productNo = reader.nextStringOrNull()
+                    "RscompanyId" -> rsCompanyId = reader.nextStringOrNull()
+                    "RsinspectionDate" -> rsInspectionDate = reader.nextStringOrNull()
+                    "CastingDate" -> castingDate = reader.nextStringOrNull()
+                    "FirstCastingDate" -> firstCastingDate = reader.nextStringOrNull()
+                    "SecondCastingDate" -> secondCastingDate = reader.nextStringOrNull()
+                    "WaterproofingInstallationDate" -> waterproofingInstallationDate = reader.nextStringOrNull()
+                    "InternalFinishDate" -> internalFinishDate = reader.nextStringOrNull()
+                    "DeliveryDate" -> deliveryDate = reader.nextStringOrNull()
+                    "BatchNo" -> batchNo = reader.nextStringOrNull()
+                    "LicensePlateNo" -> licensePlateNo = reader.nextStringOrNull()
+                    "GpsDeviceId" -> gpsDeviceId = reader.nextStringOrNull()
+                    "SiteArrivalDate" -> siteArrivalDate = reader.nextStringOrNull()
+                    "SiteInstallationDate" -> siteInstallationDate = reader.nextStringOrNull()
+                    "RoomId" -> roomId = reader.nextStringOrNull()
+                    "RoomInput" -> roomInput = reader.nextStringOrNull()
+                    "Floor" -> floor = reader.nextStringOrNull()
+                    "Region" -> region = reader.nextStringOrNull()
+                    "ChipFailureSa" -> chipFailureSa = reader.nextIntOr(0)
+                    "ChipFailureSi" -> chipFailureSi = reader.nextIntOr(0)
+                    "Dispose" -> dispose = reader.nextIntOr(0)
+                    "CreatedDate" -> createdDate = reader.nextStringOrNull() ?: ""
+                    "CreatedBy" -> createdBy = reader.nextStringOrNull()
+                    "UpdatedDate" -> updatedDate = reader.nextStringOrNull()
+                    "UpdatedBy" -> updatedBy = reader.nextStringOrNull()
+                    "IsCompleted10" -> isCompleted10 = reader.nextIntOr(0)
+                    "Remark10" -> remark10 = reader.nextStringOrNull()
+                    "IsCompleted20" -> isCompleted20 = reader.nextIntOr(0)
+                    "Remark20" -> remark20 = reader.nextStringOrNull()
+                    "IsCompleted30" -> isCompleted30 = reader.nextIntOr(0)
+                    "Remark30" -> remark30 = reader.nextStringOrNull()
+                    "IsCompleted40" -> isCompleted40 = reader.nextIntOr(0)
+                    "Remark40" -> remark40 = reader.nextStringOrNull()
+                    "IsCompleted50" -> isCompleted50 = reader.nextIntOr(0)
+                    "Remark50" -> remark50 = reader.nextStringOrNull()
+                    "IsCompleted55" -> isCompleted55 = reader.nextIntOr(0)
+                    "Remark55" -> remark55 = reader.nextStringOrNull()
+                    "IsCompleted60" -> isCompleted60 = reader.nextIntOr(0)
+                    "Remark60" -> remark60 = reader.nextStringOrNull()
+                    "IsCompleted70" -> isCompleted70 = reader.nextIntOr(0)
+                    "Remark70" -> remark70 = reader.nextStringOrNull()
+                    "IsCompleted80" -> isCompleted80 = reader.nextIntOr(0)
+                    "Remark80" -> remark80 = reader.nextStringOrNull()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return RfidModuleDto(
+                id = id,
+                projId = projId,
+                contractNo = contractNo,
+                manufacturerId = manufacturerId,
+                tagId = tagId,
+                isActivated = isActivated,
+                activatedDate = activatedDate,
+                bcType = bcType,
+                rfidTagNo = rfidTagNo,
+                stepCode = stepCode,
+                category = category,
+                subcategory = subcategory,
+                supplierId = supplierId,
+                concreteGrade = concreteGrade,
+                asn = asn,
+                serialNo = serialNo,
+                workingNo = workingNo,
+                manufacturingDate = manufacturingDate,
+                productNo = productNo,
+                rsCompanyId = rsCompanyId,
+                rsInspectionDate = rsInspectionDate,
+                castingDate = castingDate,
+                firstCastingDate = firstCastingDate,
+                secondCastingDate = secondCastingDate,
+                waterproofingInstallationDate = waterproofingInstallationDate,
+                internalFinishDate = internalFinishDate,
+                deliveryDate = deliveryDate,
+                batchNo = batchNo,
+                licensePlateNo = licensePlateNo,
+                gpsDeviceId = gpsDeviceId,
+                siteArrivalDate = siteArrivalDate,
+                siteInstallationDate = siteInstallationDate,
+                roomId = roomId,
+                roomInput = roomInput,
+                floor = floor,
+                region = region,
+                chipFailureSa = chipFailureSa,
+                chipFailureSi = chipFailureSi,
+                dispose = dispose,
+                createdDate = createdDate,
+                createdBy = createdBy,
+                updatedDate = updatedDate,
+                updatedBy = updatedBy,
+                isCompleted10 = isCompleted10,
+                remark10 = remark10,
+                isCompleted20 = isCompleted20,
+                remark20 = remark20,
+                isCompleted30 = isCompleted30,
+                remark30 = remark30,
+                isCompleted40 = isCompleted40,
+                remark40 = remark40,
+                isCompleted50 = isCompleted50,
+                remark50 = remark50,
+                isCompleted55 = isCompleted55,
+                remark55 = remark55,
+                isCompleted60 = isCompleted60,
+                remark60 = remark60,
+                isCompleted70 = isCompleted70,
+                remark70 = remark70,
+                isCompleted80 = isCompleted80,
+                remark80 = remark80
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: RfidModuleDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Id").value(value.id)
+            writer.name("ProjId").value(value.projId)
+            writer.name("ContractNo").value(value.contractNo)
+            writer.name("ManufacturerId").value(value.manufacturerId)
+            writer.name("TagId").value(value.tagId)
+            writer.name("IsActivated").value(value.isActivated)
+            writer.name("ActivatedDate").value(value.activatedDate)
+            writer.name("Bctype").value(value.bcType)
+            writer.name("RfidtagNo").value(value.rfidTagNo)
+            writer.name("StepCode").value(value.stepCode)
+            writer.name("Category").value(value.category)
+            writer.name("Subcategory").value(value.subcategory)
+            writer.name("SupplierId").value(value.supplierId)
+            writer.name("ConcreteGrade").value(value.concreteGrade)
+            writer.name("ASN").value(value.asn)
+            writer.name("SerialNo").value(value.serialNo)
+            writer.name("WorkingNo").value(value.workingNo)
+            writer.name("ManufacturingDate").value(value.manufacturingDate)
+            writer.name("ProductNo").value(value.productNo)
+            writer.name("RscompanyId").value(value.rsCompanyId)
+            writer.name("RsinspectionDate").value(value.rsInspectionDate)
+            writer.name("CastingDate").value(value.castingDate)
+            writer.name("FirstCastingDate").value(value.firstCastingDate)
+            writer.name("SecondCastingDate").value(value.secondCastingDate)
+            writer.name("WaterproofingInstallationDate").value(value.waterproofingInstallationDate)
+            writer.name("InternalFinishDate").value(value.internalFinishDate)
+            writer.name("DeliveryDate").value(value.deliveryDate)
+            writer.name("BatchNo").value(value.batchNo)
+            writer.name("LicensePlateNo").value(value.licensePlateNo)
+            writer.name("GpsDeviceId").value(value.gpsDeviceId)
+            writer.name("SiteArrivalDate").value(value.siteArrivalDate)
+            writer.name("SiteInstallationDate").value(value.siteInstallationDate)
+            writer.name("RoomId").value(value.roomId)
+            writer.name("RoomInput").value(value.roomInput)
+            writer.name("Floor").value(value.floor)
+            writer.name("Region").value(value.region)
+            writer.name("ChipFailureSa").value(value.chipFailureSa)
+            writer.name("ChipFailureSi").value(value.chipFailureSi)
+            writer.name("Dispose").value(value.dispose)
+            writer.name("CreatedDate").value(value.createdDate)
+            writer.name("CreatedBy").value(value.createdBy)
+            writer.name("UpdatedDate").value(value.updatedDate)
+            writer.name("UpdatedBy").value(value.updatedBy)
+            writer.name("IsCompleted10").value(value.isCompleted10)
+            writer.name("Remark10").value(value.remark10)
+            writer.name("IsCompleted20").value(value.isCompleted20)
+            writer.name("Remark20").value(value.remark20)
+            writer.name("IsCompleted30").value(value.isCompleted30)
+            writer.name("Remark30").value(value.remark30)
+            writer.name("IsCompleted40").value(value.isCompleted40)
+            writer.name("Remark40").value(value.remark40)
+            writer.name("IsCompleted50").value(value.isCompleted50)
+            writer.name("Remark50").value(value.remark50)
+            writer.name("IsCompleted55").value(value.isCompleted55)
+            writer.name("Remark55").value(value.remark55)
+            writer.name("IsCompleted60").value(value.isCompleted60)
+            writer.name("Remark60").value(value.remark60)
+            writer.name("IsCompleted70").value(value.isCompleted70)
+            writer.name("Remark70").value(value.remark70)
+            writer.name("IsCompleted80").value(value.isCompleted80)
+            writer.name("Remark80").value(value.remark80)
+            writer.endObject()
+        }
+    }
+
+    private object RfidModificationDtoAdapter : TypeAdapter<RfidModificationDto>() {
+        override fun read(reader: JsonReader): RfidModificationDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var id = ""
+            var projId: String? = null
+            var contractNo: String? = null
+            var manufacturerId: String? = null
+            var tagId: String? = null
+            var isActivated = 0
+            var activatedDate: String? = null
+            var bcType: String? = null
+            var rfidTagNo: String? = null
+            var stepCode: String? = null
+            var category: String? = null
+            var subcategory: String? = null
+            var supplierId: String? = null
+            var concreteGrade: String? = null
+            var asn: String? = null
+            var serialNo: String? = null
+            var workingNo: Int? = null
+            var manufacturingDate: String? = null
+            var productNo: String? = null
+            var rsCompanyId: String? = null
+            var rsInspectionDate: String? = null
+            var castingDate: String? = null
+            var firstCastingDate: String? = null
+            var secondCastingDate: String? = null
+            var waterproofingInstallationDate: String? = null
+            var internalFinishDate: String? = null
+            var deliveryDate: String? = null
+            var batchNo: String? = null
+            var licensePlateNo: String? = null
+            var gpsDeviceId: String? = null
+            var siteArrivalDate: String? = null
+            var siteInstallationDate: String? = null
+            var roomCode: String? = null
+            var roomId: String? = null
+            var roomNo: String? = null
+            var roomInput: String? = null
+            var locationType: String? = null
+            var areaGroup: String? = null
+            var floor: String? = null
+            var region: String? = null
+            var chipFailureSa = 0
+            var chipFailureSi = 0
+            var isCompleted10 = 0
+            var remark10: String? = null
+            var isCompleted20 = 0
+            var remark20: String? = null
+            var isCompleted30 = 0
+            var remark30: String? = null
+            var isCompleted40 = 0
+            var remark40: String? = null
+            var isCompleted50 = 0
+            var remark50: String? = null
+            var isCompleted55 = 0
+            var remark55: String? = null
+            var isCompleted60 = 0
+            var remark60: String? = null
+            var isCompleted70 = 0
+            var remark70: String? = null
+            var isCompleted80 = 0
+            var remark80: String? = null
+            var dispose = 0
+            var createdDate: String? = null
+            var createdBy: String? = null
+            var updatedDate: String? = null
+            var updatedBy: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Id" -> id = reader.nextStringOrNull() ?: ""
+                    "ProjId" -> projId = reader.nextStringOrNull()
+                    "ContractNo" -> contractNo = reader.nextStringOrNull()
+                    "ManufacturerId" -> manufacturerId = reader.nextStringOrNull()
+                    "TagId" -> tagId = reader.nextStringOrNull()
+                    "IsActivated" -> isActivated = reader.nextIntOr(0)
+                    "ActivatedDate" -> activatedDate = reader.nextStringOrNull()
+                    "Bctype" -> bcType = reader.nextStringOrNull()
+                    "RfidtagNo" -> rfidTagNo = reader.nextStringOrNull()
+                    "StepCode" -> stepCode = reader.nextStringOrNull()
+                    "Category" -> category = reader.nextStringOrNull()
+                    "Subcategory" -> subcategory = reader.nextStringOrNull()
+                    "SupplierId" -> supplierId = reader.nextStringOrNull()
+                    "ConcreteGrade" -> concreteGrade = reader.nextStringOrNull()
+                    "ASN" -> asn = reader.nextStringOrNull()
+                    "SerialNo" -> serialNo = reader.nextStringOrNull()
+                    "WorkingNo" -> workingNo = reader.nextIntOrNull()
+                    "ManufacturingDate" -> manufacturingDate = reader.nextStringOrNull()
+                    "ProductNo" -> productNo = reader.nextStringOrNull()
+                    "RscompanyId" -> rsCompanyId = reader.nextStringOrNull()
+                    "RsinspectionDate" -> rsInspectionDate = reader.nextStringOrNull()
+                    "CastingDate" -> castingDate = reader.nextStringOrNull()
+                    "FirstCastingDate" -> firstCastingDate = reader.nextStringOrNull()
+                    "SecondCastingDate" -> secondCastingDate = reader.nextStringOrNull()
+                    "WaterproofingInstallationDate" -> waterproofingInstallationDate = reader.nextStringOrNull()
+                    "InternalFinishDate" -> internalFinishDate = reader.nextStringOrNull()
+                    "DeliveryDate" -> deliveryDate = reader.nextStringOrNull()
+                    "BatchNo" -> batchNo = reader.nextStringOrNull()
+                    "LicensePlateNo" -> licensePlateNo = reader.nextStringOrNull()
+                    "GpsDeviceId" -> gpsDeviceId = reader.nextStringOrNull()
+                    "SiteArrivalDate" -> siteArrivalDate = reader.nextStringOrNull()
+                    "SiteInstallationDate" -> siteInstallationDate = reader.nextStringOrNull()
+                    "RoomCode" -> roomCode = reader.nextStringOrNull()
+                    "RoomId" -> roomId = reader.nextStringOrNull()
+                    "RoomNo" -> roomNo = reader.nextStringOrNull()
+                    "RoomInput" -> roomInput = reader.nextStringOrNull()
+                    "LocationType" -> locationType = reader.nextStringOrNull()
+                    "AreaGroup" -> areaGroup = reader.nextStringOrNull()
+                    "Floor" -> floor = reader.nextStringOrNull()
+                    "Region" -> region = reader.nextStringOrNull()
+                    "ChipFailureSa" -> chipFailureSa = reader.nextIntOr(0)
+                    "ChipFailureSi" -> chipFailureSi = reader.nextIntOr(0)
+                    "IsCompleted10" -> isCompleted10 = reader.nextIntOr(0)
+                    "Remark10" -> remark10 = reader.nextStringOrNull()
+                    "IsCompleted20" -> isCompleted20 = reader.nextIntOr(0)
+                    "Remark20" -> remark20 = reader.nextStringOrNull()
+                    "IsCompleted30" -> isCompleted30 = reader.nextIntOr(0)
+                    "Remark30" -> remark30 = reader.nextStringOrNull()
+                    "IsCompleted40" -> isCompleted40 = reader.nextIntOr(0)
+                    "Remark40" -> remark40 = reader.nextStringOrNull()
+                    "IsCompleted50" -> isCompleted50 = reader.nextIntOr(0)
+                    "Remark50" -> remark50 = reader.nextStringOrNull()
+                    "IsCompleted55" -> isCompleted55 = reader.nextIntOr(0)
+                    "Remark55" -> remark55 = reader.nextStringOrNull()
+                    "IsCompleted60" -> isCompleted60 = reader.nextIntOr(0)
+                    "Remark60" -> remark60 = reader.nextStringOrNull()
+                    "IsCompleted70" -> isCompleted70 = reader.nextIntOr(0)
+                    "Remark70" -> remark70 = reader.nextStringOrNull()
+                    "IsCompleted80" -> isCompleted80 = reader.nextIntOr(0)
+                    "Remark80" -> remark80 = reader.nextStringOrNull()
+                    "Dispose" -> dispose = reader.nextIntOr(0)
+                    "CreatedDate" -> createdDate = reader.nextStringOrNull()
+                    "CreatedBy" -> createdBy = reader.nextStringOrNull()
+                    "UpdatedDate" -> updatedDate = reader.nextStringOrNull()
+                    "UpdatedBy" -> updatedBy = reader.nextStringOrNull()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return RfidModificationDto(
+                id = id,
+                projId = projId,
+                contractNo = contractNo,
+                manufacturerId = manufacturerId,
+                tagId = tagId,
+                isActivated = isActivated,
+                activatedDate = activatedDate,
+                bcType = bcType,
+                rfidTagNo = rfidTagNo,
+                stepCode = stepCode,
+                category = category,
+                subcategory = subcategory,
+                supplierId = supplierId,
+                concreteGrade = concreteGrade,
+                asn = asn,
+                serialNo = serialNo,
+                workingNo = workingNo,
+                manufacturingDate = manufacturingDate,
+                productNo = productNo,
+                rsCompanyId = rsCompanyId,
+                rsInspectionDate = rsInspectionDate,
+                castingDate = castingDate,
+                firstCastingDate = firstCastingDate,
+                secondCastingDate = secondCastingDate,
+                waterproofingInstallationDate = waterproofingInstallationDate,
+                internalFinishDate = internalFinishDate,
+                deliveryDate = deliveryDate,
+                batchNo = batchNo,
+                licensePlateNo = licensePlateNo,
+                gpsDeviceId = gpsDeviceId,
+                siteArrivalDate = siteArrivalDate,
+                siteInstallationDate = siteInstallationDate,
+                roomCode = roomCode,
+                roomId = roomId,
+                roomNo = roomNo,
+                roomInput = roomInput,
+                locationType = locationType,
+                areaGroup = areaGroup,
+                floor = floor,
+                region = region,
+                chipFailureSa = chipFailureSa,
+                chipFailureSi = chipFailureSi,
+                isCompleted10 = isCompleted10,
+                remark10 = remark10,
+                isCompleted20 = isCompleted20,
+                remark20 = remark20,
+                isCompleted30 = isCompleted30,
+                remark30 = remark30,
+                isCompleted40 = isCompleted40,
+                remark40 = remark40,
+                isCompleted50 = isCompleted50,
+                remark50 = remark50,
+                isCompleted55 = isCompleted55,
+                remark55 = remark55,
+                isCompleted60 = isCompleted60,
+                remark60 = remark60,
+                isCompleted70 = isCompleted70,
+                remark70 = remark70,
+                isCompleted80 = isCompleted80,
+                remark80 = remark80,
+                dispose = dispose,
+                createdDate = createdDate,
+                createdBy = createdBy,
+                updatedDate = updatedDate,
+                updatedBy = updatedBy
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: RfidModificationDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Id").value(value.id)
+            writer.name("ProjId").value(value.projId)
+            writer.name("ContractNo").value(value.contractNo)
+            writer.name("ManufacturerId").value(value.manufacturerId)
+            writer.name("TagId").value(value.tagId)
+            writer.name("IsActivated").value(value.isActivated)
+            writer.name("ActivatedDate").value(value.activatedDate)
+            writer.name("Bctype").value(value.bcType)
+            writer.name("RfidtagNo").value(value.rfidTagNo)
+            writer.name("StepCode").value(value.stepCode)
+            writer.name("Category").value(value.category)
+            writer.name("Subcategory").value(value.subcategory)
+            writer.name("SupplierId").value(value.supplierId)
+            writer.name("ConcreteGrade").value(value.concreteGrade)
+            writer.name("ASN").value(value.asn)
+            writer.name("SerialNo").value(value.serialNo)
+            writer.name("WorkingNo").value(value.workingNo)
+            writer.name("ManufacturingDate").value(value.manufacturingDate)
+            writer.name("ProductNo").value(value.productNo)
+            writer.name("RscompanyId").value(value.rsCompanyId)
+            writer.name("RsinspectionDate").value(value.rsInspectionDate)
+            writer.name("CastingDate").value(value.castingDate)
+            writer.name("FirstCastingDate").value(value.firstCastingDate)
+            writer.name("SecondCastingDate").value(value.secondCastingDate)
+            writer.name("WaterproofingInstallationDate").value(value.waterproofingInstallationDate)
+            writer.name("InternalFinishDate").value(value.internalFinishDate)
+            writer.name("DeliveryDate").value(value.deliveryDate)
+            writer.name("BatchNo").value(value.batchNo)
+            writer.name("LicensePlateNo").value(value.licensePlateNo)
+            writer.name("GpsDeviceId").value(value.gpsDeviceId)
+            writer.name("SiteArrivalDate").value(value.siteArrivalDate)
+            writer.name("SiteInstallationDate").value(value.siteInstallationDate)
+            writer.name("RoomCode").value(value.roomCode)
+            writer.name("RoomId").value(value.roomId)
+            writer.name("RoomNo").value(value.roomNo)
+            writer.name("RoomInput").value(value.roomInput)
+            writer.name("LocationType").value(value.locationType)
+            writer.name("AreaGroup").value(value.areaGroup)
+            writer.name("Floor").value(value.floor)
+            writer.name("Region").value(value.region)
+            writer.name("ChipFailureSa").value(value.chipFailureSa)
+            writer.name("ChipFailureSi").value(value.chipFailureSi)
+            writer.name("IsCompleted10").value(value.isCompleted10)
+            writer.name("Remark10").value(value.remark10)
+            writer.name("IsCompleted20").value(value.isCompleted20)
+            writer.name("Remark20").value(value.remark20)
+            writer.name("IsCompleted30").value(value.isCompleted30)
+            writer.name("Remark30").value(value.remark30)
+            writer.name("IsCompleted40").value(value.isCompleted40)
+            writer.name("Remark40").value(value.remark40)
+            writer.name("IsCompleted50").value(value.isCompleted50)
+            writer.name("Remark50").value(value.remark50)
+            writer.name("IsCompleted55").value(value.isCompleted55)
+            writer.name("Remark55").value(value.remark55)
+            writer.name("IsCompleted60").value(value.isCompleted60)
+            writer.name("Remark60").value(value.remark60)
+            writer.name("IsCompleted70").value(value.isCompleted70)
+            writer.name("Remark70").value(value.remark70)
+            writer.name("IsCompleted80").value(value.isCompleted80)
+            writer.name("Remark80").value(value.remark80)
+            writer.name("Dispose").value(value.dispose)
+            writer.name("CreatedDate").value(value.createdDate)
+            writer.name("CreatedBy").value(value.createdBy)
+            writer.name("UpdatedDate").value(value.updatedDate)
+            writer.name("UpdatedBy").value(value.updatedBy)
+            writer.endObject()
+        }
+    }
+
+    private object BatchModificationResponseAdapter : TypeAdapter<BatchModificationResponse>() {
+        override fun read(reader: JsonReader): BatchModificationResponse? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var status = 0
+            var message = ""
+            var data: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Status" -> status = reader.nextIntOr(0)
+                    "Message" -> message = reader.nextStringOrNull() ?: ""
+                    "Data" -> data = reader.nextStringOrNull()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return BatchModificationResponse(
+                status = status,
+                message = message,
+                data = data
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: BatchModificationResponse?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Status").value(value.status)
+            writer.name("Message").value(value.message)
+            writer.name("Data").value(value.data)
+            writer.endObject()
+        }
+    }
+
+    private object MasterRegionDtoAdapter : TypeAdapter<MasterRegionDto>() {
+        override fun read(reader: JsonReader): MasterRegionDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var key = ""
+            var value = ""
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Key" -> key = reader.nextStringOrNull() ?: ""
+                    "Value" -> value = reader.nextStringOrNull() ?: ""
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterRegionDto(
+                key = key,
+                value = value
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterRegionDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Key").value(value.key)
+            writer.name("Value").value(value.value)
+            writer.endObject()
+        }
+    }
+
+    private object MasterFloorDtoAdapter : TypeAdapter<MasterFloorDto>() {
+        override fun read(reader: JsonReader): MasterFloorDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var key = ""
+            var value = ""
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Key" -> key = reader.nextStringOrNull() ?: ""
+                    "Value" -> value = reader.nextStringOrNull() ?: ""
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterFloorDto(
+                key = key,
+                value = value
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterFloorDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Key").value(value.key)
+            writer.name("Value").value(value.value)
+            writer.endObject()
+        }
+    }
+
+    private object MasterConcreteGradeDtoAdapter : TypeAdapter<MasterConcreteGradeDto>() {
+        override fun read(reader: JsonReader): MasterConcreteGradeDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var id = 0
+            var grade = ""
+            var isDefault = 0
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Id" -> id = reader.nextIntOr(0)
+                    "Grade" -> grade = reader.nextStringOrNull() ?: ""
+                    "IsDefault" -> isDefault = reader.nextIntOr(0)
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterConcreteGradeDto(
+                id = id,
+                grade = grade,
+                isDefault = isDefault
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterConcreteGradeDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Id").value(value.id)
+            writer.name("Grade").value(value.grade)
+            writer.name("IsDefault").value(value.isDefault)
+            writer.endObject()
+        }
+    }
+
+    private object MasterLocationDtoAdapter : TypeAdapter<MasterLocationDto>() {
+        override fun read(reader: JsonReader): MasterLocationDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var roomId = ""
+            var projId = ""
+            var regionFloorCode: String? = null
+            var region: String? = null
+            var floor: String? = null
+            var regionFloorSort: Int? = null
+            var areaLocationCode: String? = null
+            var areaGroup: String? = null
+            var locationType: String? = null
+            var areaLocationSort: Int? = null
+            var room: String? = null
+            var remarks: String? = null
+            var roomSort: Int? = null
+            var roomRfid = 0
+            var floorPlanFileGuid: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "RoomId" -> roomId = reader.nextStringOrNull() ?: ""
+                    "ProjId" -> projId = reader.nextStringOrNull() ?: ""
+                    "RegionFloorCode" -> regionFloorCode = reader.nextStringOrNull()
+                    "Region" -> region = reader.nextStringOrNull()
+                    "Floor" -> floor = reader.nextStringOrNull()
+                    "RegionFloorSort" -> regionFloorSort = reader.nextIntOrNull()
+                    "AreaLocationCode" -> areaLocationCode = reader.nextStringOrNull()
+                    "AreaGroup" -> areaGroup = reader.nextStringOrNull()
+                    "LocationType" -> locationType = reader.nextStringOrNull()
+                    "AreaLocationSort" -> areaLocationSort = reader.nextIntOrNull()
+                    "Room" -> room = reader.nextStringOrNull()
+                    "Remarks" -> remarks = reader.nextStringOrNull()
+                    "RoomSort" -> roomSort = reader.nextIntOrNull()
+                    "RoomRfid" -> roomRfid = reader.nextIntOr(0)
+                    "FloorPlanFileGuid" -> floorPlanFileGuid = reader.nextStringOrNull()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterLocationDto(
+                roomId = roomId,
+                projId = projId,
+                regionFloorCode = regionFloorCode,
+                region = region,
+                floor = floor,
+                regionFloorSort = regionFloorSort,
+                areaLocationCode = areaLocationCode,
+                areaGroup = areaGroup,
+                locationType = locationType,
+                areaLocationSort = areaLocationSort,
+                room = room,
+                remarks = remarks,
+                roomSort = roomSort,
+                roomRfid = roomRfid,
+                floorPlanFileGuid = floorPlanFileGuid
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterLocationDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("RoomId").value(value.roomId)
+            writer.name("ProjId").value(value.projId)
+            writer.name("RegionFloorCode").value(value.regionFloorCode)
+            writer.name("Region").value(value.region)
+            writer.name("Floor").value(value.floor)
+            writer.name("RegionFloorSort").value(value.regionFloorSort)
+            writer.name("AreaLocationCode").value(value.areaLocationCode)
+            writer.name("AreaGroup").value(value.areaGroup)
+            writer.name("LocationType").value(value.locationType)
+            writer.name("AreaLocationSort").value(value.areaLocationSort)
+            writer.name("Room").value(value.room)
+            writer.name("Remarks").value(value.remarks)
+            writer.name("RoomSort").value(value.roomSort)
+            writer.name("RoomRfid").value(value.roomRfid)
+            writer.name("FloorPlanFileGuid").value(value.floorPlanFileGuid)
+            writer.endObject()
+        }
+    }
+
+    private object MasterCategoryDtoAdapter : TypeAdapter<MasterCategoryDto>() {
+        override fun read(reader: JsonReader): MasterCategoryDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var bctype = ""
+            var isSubcategory = 0
+            var category = ""
+            var descEN: String? = null
+            var descTC: String? = null
+            var descSC: String? = null
+            var isDefault = 0
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Bctype" -> bctype = reader.nextStringOrNull() ?: ""
+                    "IsSubcategory" -> isSubcategory = reader.nextIntOr(0)
+                    "Category" -> category = reader.nextStringOrNull() ?: ""
+                    "DescEN" -> descEN = reader.nextStringOrNull()
+                    "DescTC" -> descTC = reader.nextStringOrNull()
+                    "DescSC" -> descSC = reader.nextStringOrNull()
+                    "IsDefault" -> isDefault = reader.nextIntOr(0)
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterCategoryDto(
+                bctype = bctype,
+                isSubcategory = isSubcategory,
+                category = category,
+                descEN = descEN,
+                descTC = descTC,
+                descSC = descSC,
+                isDefault = isDefault
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterCategoryDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Bctype").value(value.bctype)
+            writer.name("IsSubcategory").value(value.isSubcategory)
+            writer.name("Category").value(value.category)
+            writer.name("DescEN").value(value.descEN)
+            writer.name("DescTC").value(value.descTC)
+            writer.name("DescSC").value(value.descSC)
+            writer.name("IsDefault").value(value.isDefault)
+            writer.endObject()
+        }
+    }
+
+    private object MasterCompanyDtoAdapter : TypeAdapter<MasterCompanyDto>() {
+        override fun read(reader: JsonReader): MasterCompanyDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var id = ""
+            var type = ""
+            var bcType: String? = null
+            var refCode: String? = null
+            var nameEN: String? = null
+            var nameTC: String? = null
+            var nameSC: String? = null
+            var addressEN: String? = null
+            var addressTC: String? = null
+            var addressSC: String? = null
+            var gpsLat: Double? = null
+            var gpsLong: Double? = null
+            var isDefault = 0
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Id" -> id = reader.nextStringOrNull() ?: ""
+                    "Type" -> type = reader.nextStringOrNull() ?: ""
+                    "BCType" -> bcType = reader.nextStringOrNull()
+                    "RefCode" -> refCode = reader.nextStringOrNull()
+                    "NameEN" -> nameEN = reader.nextStringOrNull()
+                    "NameTC" -> nameTC = reader.nextStringOrNull()
+                    "NameSC" -> nameSC = reader.nextStringOrNull()
+                    "AddressEN" -> addressEN = reader.nextStringOrNull()
+                    "AddressTC" -> addressTC = reader.nextStringOrNull()
+                    "AddressSC" -> addressSC = reader.nextStringOrNull()
+                    "GpsLat" -> gpsLat = reader.nextDoubleOrNull()
+                    "GpsLong" -> gpsLong = reader.nextDoubleOrNull()
+                    "IsDefault" -> isDefault = reader.nextIntOr(0)
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterCompanyDto(
+                id = id,
+                type = type,
+                bcType = bcType,
+                refCode = refCode,
+                nameEN = nameEN,
+                nameTC = nameTC,
+                nameSC = nameSC,
+                addressEN = addressEN,
+                addressTC = addressTC,
+                addressSC = addressSC,
+                gpsLat = gpsLat,
+                gpsLong = gpsLong,
+                isDefault = isDefault
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterCompanyDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Id").value(value.id)
+            writer.name("Type").value(value.type)
+            writer.name("BCType").value(value.bcType)
+            writer.name("RefCode").value(value.refCode)
+            writer.name("NameEN").value(value.nameEN)
+            writer.name("NameTC").value(value.nameTC)
+            writer.name("NameSC").value(value.nameSC)
+            writer.name("AddressEN").value(value.addressEN)
+            writer.name("AddressTC").value(value.addressTC)
+            writer.name("AddressSC").value(value.addressSC)
+            writer.name("GpsLat").value(value.gpsLat)
+            writer.name("GpsLong").value(value.gpsLong)
+            writer.name("IsDefault").value(value.isDefault)
+            writer.endObject()
+        }
+    }
+
+    private object MasterWorkflowStepDtoAdapter : TypeAdapter<MasterWorkflowStepDto>() {
+        override fun read(reader: JsonReader): MasterWorkflowStepDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var step = ""
+            var portion = 0
+            var bctype = ""
+            var canUpdate = 0
+            var typeEN: String? = null
+            var typeTC: String? = null
+            var typeSC: String? = null
+            var stepDescEN: String? = null
+            var stepDescTC: String? = null
+            var stepDescSC: String? = null
+            var allowField: List<String> = emptyList()
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "Step" -> step = reader.nextStringOrNull() ?: ""
+                    "Portion" -> portion = reader.nextIntOr(0)
+                    "Bctype" -> bctype = reader.nextStringOrNull() ?: ""
+                    "CanUpdate" -> canUpdate = reader.nextIntOr(0)
+                    "TypeEN" -> typeEN = reader.nextStringOrNull()
+                    "TypeTC" -> typeTC = reader.nextStringOrNull()
+                    "TypeSC" -> typeSC = reader.nextStringOrNull()
+                    "StepDescEN" -> stepDescEN = reader.nextStringOrNull()
+                    "StepDescTC" -> stepDescTC = reader.nextStringOrNull()
+                    "StepDescSC" -> stepDescSC = reader.nextStringOrNull()
+                    "AllowField" -> allowField = reader.nextStringList()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterWorkflowStepDto(
+                step = step,
+                portion = portion,
+                bctype = bctype,
+                canUpdate = canUpdate,
+                typeEN = typeEN,
+                typeTC = typeTC,
+                typeSC = typeSC,
+                stepDescEN = stepDescEN,
+                stepDescTC = stepDescTC,
+                stepDescSC = stepDescSC,
+                allowField = allowField
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterWorkflowStepDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("Step").value(value.step)
+            writer.name("Portion").value(value.portion)
+            writer.name("Bctype").value(value.bctype)
+            writer.name("CanUpdate").value(value.canUpdate)
+            writer.name("TypeEN").value(value.typeEN)
+            writer.name("TypeTC").value(value.typeTC)
+            writer.name("TypeSC").value(value.typeSC)
+            writer.name("StepDescEN").value(value.stepDescEN)
+            writer.name("StepDescTC").value(value.stepDescTC)
+            writer.name("StepDescSC").value(value.stepDescSC)
+            writer.name("AllowField").stringList(value.allowField)
+            writer.endObject()
+        }
+    }
+
+    private object MasterContractDtoAdapter : TypeAdapter<MasterContractDto>() {
+        override fun read(reader: JsonReader): MasterContractDto? {
+            if (reader.peek() == JsonToken.NULL) { reader.nextNull(); return null }
+            var projId = ""
+            var contractNo = ""
+            var contractorNameEN: String? = null
+            var contractorNameTC: String? = null
+            var contractorNameSC: String? = null
+            var contractDescEN: String? = null
+            var contractDescTC: String? = null
+            var contractDescSC: String? = null
+            var contractStartDate: String? = null
+            var contractEndDate: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "ProjId" -> projId = reader.nextStringOrNull() ?: ""
+                    "ContractNo" -> contractNo = reader.nextStringOrNull() ?: ""
+                    "ContractorNameEN" -> contractorNameEN = reader.nextStringOrNull()
+                    "ContractorNameTC" -> contractorNameTC = reader.nextStringOrNull()
+                    "ContractorNameSC" -> contractorNameSC = reader.nextStringOrNull()
+                    "ContractDescEN" -> contractDescEN = reader.nextStringOrNull()
+                    "ContractDescTC" -> contractDescTC = reader.nextStringOrNull()
+                    "ContractDescSC" -> contractDescSC = reader.nextStringOrNull()
+                    "ContractStartDate" -> contractStartDate = reader.nextStringOrNull()
+                    "ContractEndDate" -> contractEndDate = reader.nextStringOrNull()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            return MasterContractDto(
+                projId = projId,
+                contractNo = contractNo,
+                contractorNameEN = contractorNameEN,
+                contractorNameTC = contractorNameTC,
+                contractorNameSC = contractorNameSC,
+                contractDescEN = contractDescEN,
+                contractDescTC = contractDescTC,
+                contractDescSC = contractDescSC,
+                contractStartDate = contractStartDate,
+                contractEndDate = contractEndDate
+            )
+        }
+
+        override fun write(writer: JsonWriter, value: MasterContractDto?) {
+            if (value == null) { writer.nullValue(); return }
+            writer.beginObject()
+            writer.name("ProjId").value(value.projId)
+            writer.name("ContractNo").value(value.contractNo)
+            writer.name("ContractorNameEN").value(value.contractorNameEN)
+            writer.name("ContractorNameTC").value(value.contractorNameTC)
+            writer.name("ContractorNameSC").value(value.contractorNameSC)
+            writer.name("ContractDescEN").value(value.contractDescEN)
+            writer.name("ContractDescTC").value(value.contractDescTC)
+            writer.name("ContractDescSC").value(value.contractDescSC)
+            writer.name("ContractStartDate").value(value.contractStartDate)
+            writer.name("ContractEndDate").value(value.contractEndDate)
+            writer.endObject()
+        }
+    }
+}
+
+private fun JsonReader.nextStringOrNull(): String? {
+    return when (peek()) {
+        JsonToken.NULL -> { nextNull(); null }
+        JsonToken.BOOLEAN -> nextBoolean().toString()
+        JsonToken.STRING, JsonToken.NUMBER -> nextString()
+        else -> { skipValue(); null }
+    }
+}
+
+private fun JsonReader.nextIntOrNull(): Int? {
+    return when (peek()) {
+        JsonToken.NULL -> { nextNull(); null }
+        JsonToken.BOOLEAN -> if (nextBoolean()) 1 else 0
+        JsonToken.NUMBER -> nextDouble().toInt()
+        JsonToken.STRING -> nextString().trim().toDoubleOrNull()?.toInt()
+        else -> { skipValue(); null }
+    }
+}
+
+private fun JsonReader.nextIntOr(default: Int): Int = nextIntOrNull() ?: default
+
+private fun JsonReader.nextDoubleOrNull(): Double? {
+    return when (peek()) {
+        JsonToken.NULL -> { nextNull(); null }
+        JsonToken.NUMBER -> nextDouble()
+        JsonToken.STRING -> nextString().trim().toDoubleOrNull()
+        else -> { skipValue(); null }
+    }
+}
+
+private fun JsonReader.nextStringList(): List<String> {
+    if (peek() != JsonToken.BEGIN_ARRAY) {
+        skipValue()
+        return emptyList()
+    }
+    val values = ArrayList<String>()
+    beginArray()
+    while (hasNext()) {
+        nextStringOrNull()?.let { values.add(it) }
+    }
+    endArray()
+    return values
+}
+
+private fun JsonWriter.stringList(values: List<String>): JsonWriter {
+    beginArray()
+    values.forEach { value(it) }
+    return endArray()
+}
@@ -23,18 +23,7 @@ class BatchRepository(private val context: Context) {
      * Get all batches
      */
     fun getAllBatches(): Flow<List<TagBatch>> = flow {
-        val batches = databaseManager.database.tagBatchQueries.selectAllBatches().executeAsList()
-        emit(batches.map { batch ->
-            TagBatch(
-                id = batch.id,
-                batch_name = batch.batch_name,
-                description = batch.description,
-                status = batch.status,
-                created_by = batch.created_by,
-                created_at = batch.created_at,
-                updated_at = batch.updated_at
-            )
-        })
+        emit(databaseManager.database.tagBatchQueries.selectAllBatches().executeAsList())
     }
     
     /**
@@ -0,0 +1,151 @@
+package com.socam.bcms.data.repository
+
+import com.socam.bcms.data.database.DatabaseManager
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Repository for browsing RfidModule page by page
+ *
+ * Features:
+ * - Keyset pagination on (CreatedDate DESC, Id DESC) - every page is an index seek, no OFFSET scans
+ * - Narrow rows (list columns only) instead of full-width RfidModule rows
+ * - Composable filters: BC type, region, floor, step completion, sync status, dispose
+ */
+class ComponentBrowseRepository(
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 50
+    }
+
+    /**
+     * Load the page after [after] (first page when null)
+     * nextKey is null when there are no more rows
+     */
+    suspend fun loadPage(
+        filter: ComponentFilter,
+        after: ComponentPageKey? = null,
+        pageSize: Int = DEFAULT_PAGE_SIZE
+    ): ComponentPage = withContext(Dispatchers.IO) {
+        try {
+            val queries = databaseManager.database.rfidModuleQueries
+            val stepPortion = filter.stepPortionParam()
+            val stepCompleted = filter.stepCompletedParam()
+            val dispose = filter.disposeParam()
+            // Fetch one extra row to know whether another page exists
+            val limit = (pageSize + 1).toLong()
+
+            val rows = if (after == null) {
+                queries.browseModulesFirstPage(
+                    bcType = filter.bcType,
+                    region = filter.region,
+                    floor = filter.floor,
+                    syncStatus = filter.syncStatus,
+                    dispose = dispose,
+                    stepPortion = stepPortion,
+                    stepCompleted = stepCompleted,
+                    limit = limit,
+                    mapper = ::ComponentListItem
+                ).executeAsList()
+            } else {
+                queries.browseModulesAfter(
+                    afterCreatedDate = after.createdDate,
+                    afterId = after.id,
+                    bcType = filter.bcType,
+                    region = filter.region,
+                    floor = filter.floor,
+                    syncStatus = filter.syncStatus,
+                    dispose = dispose,
+                    stepPortion = stepPortion,
+                    stepCompleted = stepCompleted,
+                    limit = limit,
+                    mapper = ::ComponentListItem
+                ).executeAsList()
+            }
+
+            val items = rows.take(pageSize)
+            val nextKey = if (rows.size > pageSize) {
+                items.last().let { ComponentPageKey(it.createdDate, it.id) }
+            } else {
+                null
+            }
+            ComponentPage(items, nextKey)
+        } catch (e: Exception) {
+            println("ComponentBrowseRepository: Error loading page: ${e.message}")
+            ComponentPage(emptyList(), null)
+        }
+    }
+
+    /**
+     * Count rows matching the filter (for the header, not needed for paging)
+     */
+    suspend fun count(filter: ComponentFilter): Long = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.rfidModuleQueries.countBrowseModules(
+                bcType = filter.bcType,
+                region = filter.region,
+                floor = filter.floor,
+                syncStatus = filter.syncStatus,
+                dispose = filter.disposeParam(),
+                stepPortion = filter.stepPortionParam(),
+                stepCompleted = filter.stepCompletedParam()
+            ).executeAsOne()
+        } catch (e: Exception) {
+            println("ComponentBrowseRepository: Error counting modules: ${e.message}")
+            0L
+        }
+    }
+}
+
+/**
+ * Component browser filters - null means "any"
+ * stepPortion and stepCompleted only apply together
+ */
+data class ComponentFilter(
+    val bcType: String? = null,
+    val region: String? = null,
+    val floor: String? = null,
+    val stepPortion: Int? = null,
+    val stepCompleted: Boolean? = null,
+    val syncStatus: String? = null,
+    val disposed: Boolean? = false
+) {
+    // Step filter needs both portion and completion state
+    internal fun stepPortionParam(): Long? = if (stepCompleted != null) stepPortion?.toLong() else null
+
+    internal fun stepCompletedParam(): Long? = if (stepPortion != null) stepCompleted?.let { if (it) 1L else 0L } else null
+
+    internal fun disposeParam(): Long? = disposed?.let { if (it) 1L else 0L }
+}
+
+/**
+ * Keyset position: last row of the previous page
+ */
+data class ComponentPageKey(
+    val createdDate: Long,
+    val id: String
+)
+
+/**
+ * Narrow RfidModule row for list display
+ */
+data class ComponentListItem(
+    val id: String,
+    val bcType: String?,
+    val serialNo: String?,
+    val rfidTagNo: String?,
+    val region: String?,
+    val floor: String?,
+    val roomId: String?,
+    val stepCode: String?,
+    val syncStatus: String,
+    val dispose: Long,
+    val createdDate: Long
+)
+
+data class ComponentPage(
+    val items: List<ComponentListItem>,
+    val nextKey: ComponentPageKey?
+)
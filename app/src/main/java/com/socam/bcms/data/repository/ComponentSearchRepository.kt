@@ -0,0 +1,109 @@
+package com.socam.bcms.data.repository
+
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.database.RfidModule
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Repository for component lookup over the RfidModuleFts full-text index
+ *
+ * Features:
+ * - Partial (word prefix) match on serial no, tag no, ASN, product no, batch no and license plate
+ *   (prefix only - "001" does not find "MIC001")
+ * - Every word of the query must match (e.g. "A12 LP" → serial A12... with plate LP...)
+ * - Ranked: exact serial/tag number first, then exact other column, then prefix matches
+ * - Paged with LIMIT/OFFSET, total count only computed for the first page
+ */
+class ComponentSearchRepository(
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 30
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+    }
+
+    /**
+     * Search one page of components
+     * Returns an empty page for blank queries or on error
+     */
+    suspend fun search(
+        query: String,
+        page: Int = 0,
+        pageSize: Int = DEFAULT_PAGE_SIZE
+    ): ComponentSearchPage = withContext(Dispatchers.IO) {
+        val tokens = tokenize(query)
+        val matchQuery = buildMatchQuery(tokens)
+        if (matchQuery == null || page < 0 || pageSize <= 0) {
+            return@withContext ComponentSearchPage(query, page, emptyList(), totalCount = 0L, hasMore = false)
+        }
+
+        try {
+            val start = System.currentTimeMillis()
+            val queries = databaseManager.database.rfidModuleSearchQueries
+
+            // Fetch one extra row to know whether another page exists
+            val rows = queries.searchModules(
+                match = matchQuery,
+                exact = query.trim().lowercase(),
+                term = escapeLike(tokens[0]),
+                limit = (pageSize + 1).toLong(),
+                offset = page.toLong() * pageSize
+            ).executeAsList()
+
+            val totalCount = if (page == 0) {
+                queries.countSearchModules(matchQuery).executeAsOne()
+            } else {
+                null
+            }
+
+            println("ComponentSearchRepository: '$matchQuery' page $page → ${rows.size.coerceAtMost(pageSize)} rows in ${System.currentTimeMillis() - start}ms")
+
+            ComponentSearchPage(
+                query = query,
+                page = page,
+                items = rows.take(pageSize),
+                totalCount = totalCount,
+                hasMore = rows.size > pageSize
+            )
+        } catch (e: Exception) {
+            println("ComponentSearchRepository: Search failed for '$query': ${e.message}")
+            ComponentSearchPage(query, page, emptyList(), totalCount = 0L, hasMore = false)
+        }
+    }
+
+    /**
+     * Convert free text into an FTS prefix query: "mic-00 12" → "mic* 00* 12*"
+     * Only letters and digits are kept, so user input cannot inject FTS operators
+     */
+    private fun buildMatchQuery(tokens: List<String>): String? {
+        if (tokens.isEmpty()) return null
+        return tokens.joinToString(" ") { "$it*" }
+    }
+
+    private fun tokenize(query: String): List<String> {
+        return query.lowercase()
+            .split(TOKEN_SEPARATOR)
+            .filter { it.isNotEmpty() }
+    }
+
+    /**
+     * Escape LIKE wildcards for `LIKE :term || '%' ESCAPE '\'`
+     */
+    private fun escapeLike(term: String): String {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+    }
+}
+
+/**
+ * One page of component search results
+ * totalCount is only set for the first page (null afterwards)
+ */
+data class ComponentSearchPage(
+    val query: String,
+    val page: Int,
+    val items: List<RfidModule>,
+    val totalCount: Long?,
+    val hasMore: Boolean
+)
@@ -0,0 +1,73 @@
+package com.socam.bcms.data.repository
+
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.database.MasterDataVersionQueries
+import retrofit2.Response
+import java.net.HttpURLConnection
+
+/**
+ * Tracks which master data response version was written to the local tables
+ *
+ * Master endpoints are requested with "Cache-Control: max-age=0", so the OkHttp disk cache
+ * always revalidates with If-None-Match / If-Modified-Since. When the server answers 304
+ * and the cached validator is the one already applied, the DB rewrite can be skipped.
+ *
+ * [queries] is resolved on every call, so a project switch is picked up
+ */
+class MasterDataVersionRepository(
+    private val queries: () -> MasterDataVersionQueries
+) {
+
+    constructor(databaseManager: DatabaseManager) : this({ databaseManager.database.masterDataVersionQueries })
+
+    /**
+     * True when [response] came from the HTTP cache (304 or still fresh)
+     * and the local table was last written from this exact version
+     */
+    fun isUnchanged(response: Response<*>): Boolean {
+        return try {
+            val raw = response.raw()
+            val networkResponse = raw.networkResponse
+            val servedFromCache = raw.cacheResponse != null &&
+                (networkResponse == null || networkResponse.code == HttpURLConnection.HTTP_NOT_MODIFIED)
+            if (!servedFromCache) return false
+
+            val validator = validatorOf(response) ?: return false
+            val applied = queries()
+                .selectValidator(endpointOf(response))
+                .executeAsOneOrNull()
+            applied == validator
+        } catch (e: Exception) {
+            println("MasterDataVersionRepository: Error checking version: ${e.message}")
+            false
+        }
+    }
+
+    /**
+     * Remember the version of [response] after its data was written to the local table
+     * Responses without a validator clear the entry (no fast path possible)
+     */
+    fun markApplied(response: Response<*>): Unit {
+        try {
+            val endpoint = endpointOf(response)
+            val validator = validatorOf(response)
+            if (validator != null) {
+                queries().upsertValidator(endpoint, validator)
+            } else {
+                queries().deleteValidator(endpoint)
+            }
+        } catch (e: Exception) {
+            println("MasterDataVersionRepository: Error saving version: ${e.message}")
+        }
+    }
+
+    private fun endpointOf(response: Response<*>): String {
+        val url = response.raw().request.url
+        return url.encodedPath + (url.encodedQuery?.let { "?$it" } ?: "")
+    }
+
+    private fun validatorOf(response: Response<*>): String? {
+        val headers = response.headers()
+        return headers["ETag"] ?: headers["Last-Modified"]?.let { "lm:$it" }
+    }
+}
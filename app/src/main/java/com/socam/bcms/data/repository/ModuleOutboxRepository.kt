@@ -0,0 +1,138 @@
+package com.socam.bcms.data.repository
+
+import com.google.gson.JsonArray
+import com.google.gson.JsonNull
+import com.google.gson.JsonObject
+import com.socam.bcms.data.api.ApiClient
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.database.RfidModuleFieldWriter
+import com.socam.bcms.data.dto.RfidModificationDto
+import com.socam.bcms.database.RfidModule
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.toRequestBody
+
+/**
+ * Field-level outbox for RfidModule uploads
+ *
+ * - The outbox is RfidModuleDirtyField: one row per (module, column), so repeated edits coalesce
+ * - Values are read from the module row at upload time (latest value wins)
+ * - Payload per module: identity + version (UpdatedDate) + changed fields only
+ * - Changed fields cleared locally are sent as explicit JSON nulls
+ * - Modules changed by full-row writes are sent in full: no recorded fields, the '*' marker,
+ *   or UpdatedDate later than the newest recorded field (another writer touched the row)
+ * - Acknowledge removes only fields changed before the upload started (uploadStartedAt in seconds)
+ */
+class ModuleOutboxRepository(
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        /**
+         * Keys always sent so the server can identify the record and detect stale versions
+         */
+        private val IDENTITY_KEYS = setOf(
+            "Id", "ProjId", "ContractNo", "TagId", "Bctype", "RfidtagNo", "StepCode", "UpdatedDate", "UpdatedBy"
+        )
+
+        /**
+         * RfidModule column → RfidModificationDto JSON key(s) where they differ
+         */
+        private val COLUMN_KEYS: Map<String, List<String>> = mapOf(
+            "BCType" to listOf("Bctype"),
+            "RFIDTagNo" to listOf("RfidtagNo"),
+            "RSCompanyId" to listOf("RscompanyId"),
+            "RSInspectionDate" to listOf("RsinspectionDate"),
+            "ChipFailureSA" to listOf("ChipFailureSa"),
+            "ChipFailureSI" to listOf("ChipFailureSi"),
+            "RoomId" to listOf("RoomId", "RoomCode") // RoomCode maps to RoomId in our schema
+        )
+
+        fun jsonKeysFor(column: String): List<String> = COLUMN_KEYS[column] ?: listOf(column)
+
+        private val JSON_MEDIA_TYPE = "application/json; charset=UTF-8".toMediaType()
+    }
+
+    private val gson = ApiClient.gson
+
+    // The shared Gson drops nulls, which would hide cleared fields from the server
+    private val payloadGson by lazy { gson.newBuilder().serializeNulls().create() }
+
+    /**
+     * Pending modules of a BC type with their changed columns (null = upload full record)
+     */
+    suspend fun pendingEntries(bcType: String): List<OutboxEntry> = withContext(Dispatchers.IO) {
+        val records = databaseManager.database.rfidModuleQueries.selectPendingByBCType(bcType).executeAsList()
+        val dirtyByModule = databaseManager.database.rfidModuleDirtyFieldQueries
+            .selectPendingDirtyFieldsByBCType(bcType)
+            .executeAsList()
+            .groupBy { it.module_id }
+
+        records.map { record ->
+            val dirty = dirtyByModule[record.Id]
+            val fieldLevel = dirty != null &&
+                dirty.none { it.field_name == RfidModuleFieldWriter.ALL_FIELDS } &&
+                record.UpdatedDate <= dirty.maxOf { it.changed_date }
+            OutboxEntry(record, if (fieldLevel) dirty!!.map { it.field_name }.toSet() else null)
+        }
+    }
+
+    /**
+     * Build the upload body: sparse objects for field-level entries, full objects otherwise
+     */
+    fun buildPayload(entries: List<OutboxEntry>, toDto: (RfidModule) -> RfidModificationDto): JsonArray {
+        val payload = JsonArray()
+        entries.forEach { entry ->
+            val full = gson.toJsonTree(toDto(entry.record)).asJsonObject
+            val changedFields = entry.changedFields
+            if (changedFields == null) {
+                payload.add(full)
+            } else {
+                val changedKeys = changedFields.flatMap { jsonKeysFor(it) }
+                val keys = IDENTITY_KEYS + changedKeys
+                val sparse = JsonObject()
+                full.entrySet().forEach { (key, value) ->
+                    if (key in keys) sparse.add(key, value)
+                }
+                // Null values are left out of the tree, so cleared fields are added back explicitly
+                changedKeys.forEach { key ->
+                    if (!sparse.has(key)) sparse.add(key, JsonNull.INSTANCE)
+                }
+                payload.add(sparse)
+            }
+        }
+        return payload
+    }
+
+    /**
+     * Request body for [buildPayload] output, keeping explicit nulls
+     */
+    fun toRequestBody(payload: JsonArray): RequestBody {
+        return payloadGson.toJson(payload).toRequestBody(JSON_MEDIA_TYPE)
+    }
+
+    /**
+     * Clear uploaded fields and mark modules SYNCED unless they were edited again meanwhile
+     */
+    suspend fun acknowledge(entries: List<OutboxEntry>, uploadStartedAt: Long): Unit = withContext(Dispatchers.IO) {
+        val database = databaseManager.database
+        database.transaction {
+            entries.forEach { entry ->
+                database.rfidModuleDirtyFieldQueries.deleteUploadedDirtyFields(entry.record.Id, uploadStartedAt)
+                database.rfidModuleQueries.updateSyncedIfNoDirtyFields(entry.record.Id)
+            }
+            database.rfidModuleDirtyFieldQueries.purgeStaleDirtyFields()
+        }
+    }
+}
+
+/**
+ * One pending module in the outbox
+ * changedFields: RfidModule columns changed locally, null when only a full upload is possible
+ */
+data class OutboxEntry(
+    val record: RfidModule,
+    val changedFields: Set<String>?
+)
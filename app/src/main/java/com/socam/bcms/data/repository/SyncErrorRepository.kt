@@ -0,0 +1,225 @@
+package com.socam.bcms.data.repository
+
+import com.google.gson.JsonElement
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.dto.SyncError
+import com.socam.bcms.database.SyncErrorLog
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Persistent store for RfidModule upload failures (SyncErrorLog table)
+ *
+ * - One row per failing record: latest message, attempt count, exponential backoff
+ * - Per-record messages come from BatchModificationResponse.data when the server lists them
+ * - Keyset pagination on (last_failed_at DESC, record_id DESC) for the notification screen
+ * - Rows disappear once the record is no longer PENDING (uploaded or replaced by a download)
+ */
+class SyncErrorRepository(
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 50
+
+        private const val MAX_IDS_PER_STATEMENT = 500
+
+        private val ID_KEYS = listOf("Id", "id", "RecordId", "recordId", "RfidModuleId")
+        private val MESSAGE_KEYS = listOf("Message", "message", "Error", "error", "ErrorMessage", "errorMessage")
+
+        /**
+         * Per-record errors from a batch response's Data field, limited to [uploadedIds]
+         *
+         * Accepted shapes: [{"Id": "...", "Message": "..."}], {"<id>": "<message>"}, ["<id>", ...]
+         * Empty when Data carries no per-record detail (caller falls back to the batch message)
+         */
+        fun parseRecordErrors(data: String?, fallbackMessage: String, uploadedIds: Set<String>): Map<String, String> {
+            if (data.isNullOrBlank()) return emptyMap()
+            val root = try {
+                JsonParser().parse(data)
+            } catch (e: Exception) {
+                return emptyMap()
+            }
+
+            val errors = LinkedHashMap<String, String>()
+            when {
+                root.isJsonArray -> root.asJsonArray.forEach { element ->
+                    when {
+                        element.isJsonObject -> {
+                            val item = element.asJsonObject
+                            val id = item.firstString(ID_KEYS)
+                            if (id != null) errors[id] = item.firstString(MESSAGE_KEYS) ?: fallbackMessage
+                        }
+                        element.isJsonPrimitive -> errors[element.asString] = fallbackMessage
+                    }
+                }
+                root.isJsonObject -> root.asJsonObject.entrySet().forEach { (id, value) ->
+                    errors[id] = value.asMessage() ?: fallbackMessage
+                }
+            }
+            return errors.filterKeys { it in uploadedIds }
+        }
+
+        private fun JsonObject.firstString(keys: List<String>): String? {
+            keys.forEach { key ->
+                val value = get(key)
+                if (value != null && value.isJsonPrimitive) return value.asString
+            }
+            return null
+        }
+
+        private fun JsonElement.asMessage(): String? = when {
+            isJsonPrimitive -> asString
+            isJsonObject -> asJsonObject.firstString(MESSAGE_KEYS)
+            else -> null
+        }
+    }
+
+    /**
+     * Record one failed attempt for each record (message per record ID)
+     */
+    suspend fun recordFailures(bcType: String, failures: Map<String, String>): Unit = withContext(Dispatchers.IO) {
+        if (failures.isEmpty()) return@withContext
+        val now = System.currentTimeMillis()
+        val queries = databaseManager.database.syncErrorLogQueries
+        databaseManager.database.transaction {
+            failures.forEach { (recordId, message) ->
+                queries.insertErrorIfAbsent(recordId, bcType, message, now)
+                queries.recordFailure(bcType, message, now, recordId)
+            }
+        }
+        println("SyncErrorRepository: Recorded ${failures.size} $bcType upload failures")
+    }
+
+    /**
+     * Remove errors of records that are no longer pending
+     */
+    suspend fun purgeResolved(): Unit = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.syncErrorLogQueries.purgeResolvedErrors()
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error purging resolved errors: ${e.message}")
+        }
+    }
+
+    /**
+     * All failed record IDs of a BC type (manual retry ignores the backoff)
+     */
+    suspend fun failedIds(bcType: String): Set<String> = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.syncErrorLogQueries.selectErrorIdsByBCType(bcType).executeAsList().toSet()
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error loading failed IDs: ${e.message}")
+            emptySet()
+        }
+    }
+
+    /**
+     * BC types that have failed records
+     */
+    suspend fun failedBcTypes(): List<String> = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.syncErrorLogQueries.selectErrorBCTypes().executeAsList()
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error loading failed BC types: ${e.message}")
+            emptyList()
+        }
+    }
+
+    /**
+     * Failed record IDs of a BC type whose backoff has not elapsed yet
+     */
+    suspend fun backedOffIds(bcType: String): Set<String> = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.syncErrorLogQueries
+                .selectBackedOffIdsByBCType(bcType, System.currentTimeMillis())
+                .executeAsList()
+                .toSet()
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error loading backed-off IDs: ${e.message}")
+            emptySet()
+        }
+    }
+
+    /**
+     * Load the page after [after] (first page when null), newest failures first
+     */
+    suspend fun loadPage(
+        after: SyncErrorPageKey? = null,
+        pageSize: Int = DEFAULT_PAGE_SIZE
+    ): SyncErrorPage = withContext(Dispatchers.IO) {
+        try {
+            val queries = databaseManager.database.syncErrorLogQueries
+            // Fetch one extra row to know whether another page exists
+            val limit = (pageSize + 1).toLong()
+            val rows = if (after == null) {
+                queries.selectErrorsFirstPage(limit).executeAsList()
+            } else {
+                queries.selectErrorsAfter(after.lastFailedAt, after.recordId, limit).executeAsList()
+            }
+
+            val items = rows.take(pageSize)
+            val nextKey = if (rows.size > pageSize) {
+                items.last().let { SyncErrorPageKey(it.last_failed_at, it.record_id) }
+            } else {
+                null
+            }
+            SyncErrorPage(items.map { it.toSyncError() }, nextKey)
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error loading page: ${e.message}")
+            SyncErrorPage(emptyList(), null)
+        }
+    }
+
+    suspend fun countErrors(): Int = withContext(Dispatchers.IO) {
+        try {
+            databaseManager.database.syncErrorLogQueries.countErrors().executeAsOne().toInt()
+        } catch (e: Exception) {
+            println("SyncErrorRepository: Error counting errors: ${e.message}")
+            0
+        }
+    }
+
+    suspend fun clearError(recordId: String): Unit = withContext(Dispatchers.IO) {
+        databaseManager.database.syncErrorLogQueries.deleteError(recordId)
+    }
+
+    suspend fun clearErrors(recordIds: Collection<String>): Unit = withContext(Dispatchers.IO) {
+        if (recordIds.isEmpty()) return@withContext
+        val queries = databaseManager.database.syncErrorLogQueries
+        databaseManager.database.transaction {
+            recordIds.chunked(MAX_IDS_PER_STATEMENT).forEach { chunk -> queries.deleteErrors(chunk) }
+        }
+    }
+
+    suspend fun clearAll(): Unit = withContext(Dispatchers.IO) {
+        databaseManager.database.syncErrorLogQueries.deleteAllErrors()
+    }
+
+    private fun SyncErrorLog.toSyncError(): SyncError = SyncError(
+        recordId = record_id,
+        bcType = bc_type,
+        errorMessage = error_message,
+        timestamp = last_failed_at,
+        retryCount = attempt_count.toInt(),
+        nextRetryAt = next_retry_at
+    )
+}
+
+/**
+ * Position after the last row of a page
+ */
+data class SyncErrorPageKey(
+    val lastFailedAt: Long,
+    val recordId: String
+)
+
+/**
+ * One page of sync errors; nextKey is null on the last page
+ */
+data class SyncErrorPage(
+    val items: List<SyncError>,
+    val nextKey: SyncErrorPageKey?
+)
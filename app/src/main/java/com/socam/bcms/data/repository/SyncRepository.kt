@@ -132,12 +132,12 @@ class SyncRepository(private val context: Context) {
      */
     suspend fun updateSyncSettings(autoSyncEnabled: Boolean, intervalMinutes: Int): Result<Unit> = withContext(Dispatchers.IO) {
         try {
-            databaseManager.database.appSettingsQueries.updateSetting(
+            databaseManager.appDatabase.appSettingsQueries.updateSetting(
                 setting_value = autoSyncEnabled.toString(),
                 setting_key = "auto_sync_enabled"
             )
             
-            databaseManager.database.appSettingsQueries.updateSetting(
+            databaseManager.appDatabase.appSettingsQueries.updateSetting(
                 setting_value = intervalMinutes.toString(),
                 setting_key = "sync_interval_minutes"
             )
@@ -212,14 +212,14 @@ class SyncRepository(private val context: Context) {
     
     private suspend fun updateLastSyncTimestamp() {
         val currentTimestamp = System.currentTimeMillis() / 1000
-        databaseManager.database.appSettingsQueries.updateSetting(
+        databaseManager.appDatabase.appSettingsQueries.updateSetting(
             setting_value = currentTimestamp.toString(),
             setting_key = "last_sync_timestamp"
         )
     }
     
     private suspend fun getSetting(key: String) = 
-        databaseManager.database.appSettingsQueries.selectSettingByKey(key).executeAsOneOrNull()
+        databaseManager.appDatabase.appSettingsQueries.selectSettingByKey(key).executeAsOneOrNull()
     
     data class SyncResult(
         val successCount: Int,
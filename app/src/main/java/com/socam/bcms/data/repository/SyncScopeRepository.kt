@@ -0,0 +1,138 @@
+package com.socam.bcms.data.repository
+
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.dto.RfidModuleDto
+import com.socam.bcms.data.dto.RfidModuleRequest
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Repository for the device sync scope (SyncScopeFilter table)
+ *
+ * - The scope limits which RfidModule rows are downloaded and kept: contracts, regions, floors, step range
+ * - Filters go to the server in RfidModuleRequest; the download also filters client-side,
+ *   so the result is the same whether or not the server honours them
+ * - Changing the scope evicts rows outside it (local PENDING changes stay until uploaded)
+ */
+class SyncScopeRepository(
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        const val KIND_CONTRACT = "CONTRACT"
+        const val KIND_REGION = "REGION"
+        const val KIND_FLOOR = "FLOOR"
+        const val KIND_STEP_FROM = "STEP_FROM"
+        const val KIND_STEP_TO = "STEP_TO"
+    }
+
+    suspend fun loadScope(): SyncScope = withContext(Dispatchers.IO) {
+        try {
+            val filters = databaseManager.database.syncScopeFilterQueries
+                .selectAllFilters()
+                .executeAsList()
+                .groupBy({ it.kind }, { it.filter_value })
+            SyncScope(
+                contractNos = filters[KIND_CONTRACT].orEmpty().toSet(),
+                regions = filters[KIND_REGION].orEmpty().toSet(),
+                floors = filters[KIND_FLOOR].orEmpty().toSet(),
+                stepFrom = filters[KIND_STEP_FROM]?.mapNotNull { it.toIntOrNull() }?.minOrNull(),
+                stepTo = filters[KIND_STEP_TO]?.mapNotNull { it.toIntOrNull() }?.maxOrNull()
+            )
+        } catch (e: Exception) {
+            println("SyncScopeRepository: Error loading scope: ${e.message}")
+            SyncScope()
+        }
+    }
+
+    /**
+     * Replace the scope and drop local rows outside it, returns the number of evicted modules
+     */
+    suspend fun saveScope(scope: SyncScope): Long = withContext(Dispatchers.IO) {
+        val database = databaseManager.database
+        val queries = database.syncScopeFilterQueries
+        database.transactionWithResult {
+            queries.deleteAllFilters()
+            scope.contractNos.forEach { queries.insertFilter(KIND_CONTRACT, it) }
+            scope.regions.forEach { queries.insertFilter(KIND_REGION, it) }
+            scope.floors.forEach { queries.insertFilter(KIND_FLOOR, it) }
+            scope.stepFrom?.let { queries.insertFilter(KIND_STEP_FROM, it.toString()) }
+            scope.stepTo?.let { queries.insertFilter(KIND_STEP_TO, it.toString()) }
+
+            val evicted = queries.countOutOfScopeModules().executeAsOne()
+            if (evicted > 0) {
+                queries.evictOutOfScopeModules()
+            }
+            println("SyncScopeRepository: Scope saved (${scope.describe()}), evicted $evicted modules")
+            evicted
+        }
+    }
+
+    /**
+     * Workflow step portion per (BC type, step code), only loaded when the scope has a step range
+     */
+    suspend fun stepPortions(scope: SyncScope): Map<Pair<String, String>, Int> = withContext(Dispatchers.IO) {
+        if (!scope.hasStepRange) return@withContext emptyMap()
+        try {
+            databaseManager.database.masterWorkflowStepsQueries
+                .selectAllWorkflowSteps()
+                .executeAsList()
+                .associate { (it.bc_type to it.step) to it.portion.toInt() }
+        } catch (e: Exception) {
+            println("SyncScopeRepository: Error loading step portions: ${e.message}")
+            emptyMap()
+        }
+    }
+}
+
+/**
+ * Sync scope; empty sets / null bounds do not restrict
+ */
+data class SyncScope(
+    val contractNos: Set<String> = emptySet(),
+    val regions: Set<String> = emptySet(),
+    val floors: Set<String> = emptySet(),
+    val stepFrom: Int? = null,
+    val stepTo: Int? = null
+) {
+    val isUnrestricted: Boolean
+        get() = contractNos.isEmpty() && regions.isEmpty() && floors.isEmpty() && !hasStepRange
+
+    val hasStepRange: Boolean
+        get() = stepFrom != null || stepTo != null
+
+    /**
+     * Download request with the server-side filters (null fields are not sent)
+     */
+    fun toRequest(bcType: String): RfidModuleRequest = RfidModuleRequest(
+        bctype = listOf(bcType),
+        contractNo = contractNos.takeIf { it.isNotEmpty() }?.toList(),
+        region = regions.takeIf { it.isNotEmpty() }?.toList(),
+        floor = floors.takeIf { it.isNotEmpty() }?.toList()
+    )
+
+    /**
+     * Client-side filter, same rules as SyncScopeFilter.evictOutOfScopeModules
+     * (unknown step code counts as portion 0)
+     */
+    fun matches(dto: RfidModuleDto, stepPortions: Map<Pair<String, String>, Int>): Boolean {
+        if (contractNos.isNotEmpty() && (dto.contractNo ?: "") !in contractNos) return false
+        if (regions.isNotEmpty() && (dto.region ?: "") !in regions) return false
+        if (floors.isNotEmpty() && (dto.floor ?: "") !in floors) return false
+        if (hasStepRange) {
+            val portion = dto.stepCode?.let { stepPortions[dto.bcType to it] } ?: 0
+            if (portion < (stepFrom ?: 0) || portion > (stepTo ?: Int.MAX_VALUE)) return false
+        }
+        return true
+    }
+
+    fun describe(): String {
+        if (isUnrestricted) return "whole project"
+        val parts = mutableListOf<String>()
+        if (contractNos.isNotEmpty()) parts.add("contracts ${contractNos.joinToString()}")
+        if (regions.isNotEmpty()) parts.add("regions ${regions.joinToString()}")
+        if (floors.isNotEmpty()) parts.add("floors ${floors.joinToString()}")
+        if (hasStepRange) parts.add("steps ${stepFrom ?: 0}-${stepTo ?: "*"}")
+        return parts.joinToString("; ")
+    }
+}
@@ -50,7 +50,7 @@ class AuthManager private constructor(private val context: Context) {
             // Initialize database if not already done (lazy initialization)
             ensureDatabaseInitialized()
             
-            val user = databaseManager.database.userQueries
+            val user = databaseManager.appDatabase.userQueries
                 .selectByUsername(username)
                 .executeAsOneOrNull()
             
@@ -73,7 +73,7 @@ class AuthManager private constructor(private val context: Context) {
             println("AuthManager: Password valid: $isPasswordValid")
             
             if (isPasswordValid) {
-                currentUser = user
+                activateUser(user)
                 saveAuthenticationState(user)
                 AuthResult.Success(user)
             } else {
@@ -83,13 +83,13 @@ class AuthManager private constructor(private val context: Context) {
                     try {
                         databaseManager.recreateUsers()
                         // Try authentication again with fresh users
-                        val newUser = databaseManager.database.userQueries
+                        val newUser = databaseManager.appDatabase.userQueries
                             .selectByUsername(username)
                             .executeAsOneOrNull()
                         
                         if (newUser != null && databaseManager.verifyPassword(password, newUser.password_hash, newUser.salt)) {
                             println("AuthManager: Authentication successful after user recreation")
-                            currentUser = newUser
+                            activateUser(newUser)
                             saveAuthenticationState(newUser)
                             return@withContext AuthResult.Success(newUser)
                         }
@@ -132,10 +132,17 @@ class AuthManager private constructor(private val context: Context) {
     
     /**
      * Logout current user
+     * Also deletes project files no user on this device belongs to any more (kept while they hold pending edits)
      */
-    fun logout(): Unit {
+    suspend fun logout(): Unit = withContext(Dispatchers.IO) {
         currentUser = null
         clearAuthenticationState()
+        try {
+            val removed = databaseManager.removeUnusedProjects()
+            if (removed > 0) println("AuthManager: Removed $removed unused project database(s)")
+        } catch (e: Exception) {
+            println("AuthManager: Failed to remove unused projects: ${e.message}")
+        }
     }
     
     /**
@@ -143,7 +150,7 @@ class AuthManager private constructor(private val context: Context) {
      */
     suspend fun validateToken(token: String): Boolean = withContext(Dispatchers.IO) {
         try {
-            val user = databaseManager.database.userQueries
+            val user = databaseManager.appDatabase.userQueries
                 .selectByToken(token)
                 .executeAsOneOrNull()
             
@@ -166,7 +173,7 @@ class AuthManager private constructor(private val context: Context) {
     ): CreateUserResult = withContext(Dispatchers.IO) {
         try {
             // Check if username already exists
-            val existingUser = databaseManager.database.userQueries
+            val existingUser = databaseManager.appDatabase.userQueries
                 .selectByUsername(username)
                 .executeAsOneOrNull()
             
@@ -179,7 +186,7 @@ class AuthManager private constructor(private val context: Context) {
             val token = generateToken()
             
             // Insert new user
-            databaseManager.database.userQueries.insertUser(
+            databaseManager.appDatabase.userQueries.insertUser(
                 username = username,
                 password_hash = passwordHash,
                 salt = "",
@@ -207,7 +214,7 @@ class AuthManager private constructor(private val context: Context) {
             // Use plain text password for stability
             val passwordHash = newPassword
             
-            databaseManager.database.userQueries.updateUserPassword(
+            databaseManager.appDatabase.userQueries.updateUserPassword(
                 password_hash = passwordHash,
                 salt = "",
                 id = userId
@@ -240,6 +247,18 @@ class AuthManager private constructor(private val context: Context) {
         return tokenBytes.joinToString("") { "%02x".format(it) }
     }
     
+    /**
+     * Set the signed-in user and open their project's database file
+     */
+    private fun activateUser(user: User): Unit {
+        currentUser = user
+        try {
+            databaseManager.switchProject(user.project_id.ifBlank { BuildConfig.PROJECT_ID })
+        } catch (e: Exception) {
+            println("AuthManager: Failed to switch to project ${user.project_id}: ${e.message}")
+        }
+    }
+
     /**
      * Save authentication state to persistent storage
      */
@@ -280,12 +299,12 @@ class AuthManager private constructor(private val context: Context) {
             
             // Load specific user by ID from database
             println("AuthManager: Querying user by ID: $userId")
-            val user = databaseManager.database.userQueries
+            val user = databaseManager.appDatabase.userQueries
                 .selectById(userId)
                 .executeAsOneOrNull()
             
             if (user != null) {
-                currentUser = user
+                activateUser(user)
                 println("AuthManager: User loaded successfully: ${user.username} (ID: ${user.id})")
                 return true
             } else {
@@ -303,12 +322,12 @@ class AuthManager private constructor(private val context: Context) {
                 databaseManager.initializeDatabase()
                 
                 // Try loading user again after re-initialization
-                val user = databaseManager.database.userQueries
+                val user = databaseManager.appDatabase.userQueries
                     .selectById(userId)
                     .executeAsOneOrNull()
                 
                 if (user != null) {
-                    currentUser = user
+                    activateUser(user)
                     println("AuthManager: User loaded successfully after database re-init: ${user.username}")
                     return true
                 }
@@ -360,14 +379,14 @@ class AuthManager private constructor(private val context: Context) {
     private fun ensureDatabaseInitialized(): Unit {
         try {
             // Check if the demo user exists - this is a lightweight check
-            val demoUser = databaseManager.database.userQueries.selectByUsername("demo").executeAsOneOrNull()
+            val demoUser = databaseManager.appDatabase.userQueries.selectByUsername("demo").executeAsOneOrNull()
             
             if (demoUser == null) {
                 println("AuthManager: Demo user not found, initializing database...")
                 databaseManager.initializeDatabase()
                 
                 // Verify initialization worked
-                val userAfterInit = databaseManager.database.userQueries.selectByUsername("demo").executeAsOneOrNull()
+                val userAfterInit = databaseManager.appDatabase.userQueries.selectByUsername("demo").executeAsOneOrNull()
                 if (userAfterInit != null) {
                     println("AuthManager: Database initialization successful - demo user created")
                 } else {
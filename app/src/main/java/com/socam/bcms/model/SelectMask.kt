@@ -0,0 +1,37 @@
+package com.socam.bcms.model
+
+/**
+ * Gen2 select mask installed on the reader (vendor filterSet)
+ * Only tags whose [bank] bits [bitAddress]..[bitAddress]+[bitLength] equal [data] answer inventory
+ *
+ * - Addresses and lengths are in bits; EPC data starts at bit 32 of the EPC bank (after CRC + PC)
+ * - [data] is hex, one digit per 4 bits
+ * - The module holds one mask at a time; [NONE] lets every tag answer
+ */
+data class SelectMask(
+    val bank: MemoryBank,
+    val bitAddress: Int,
+    val bitLength: Int,
+    val data: String
+) {
+    val isNone: Boolean
+        get() = bitLength == 0
+
+    companion object {
+        const val EPC_BIT_OFFSET = 32
+
+        val NONE = SelectMask(MemoryBank.EPC, 0, 0, "")
+
+        /**
+         * Match EPCs starting with [hexPrefix]
+         * A full EPC gives the filter for single-tag access (readTag / writeTag filter arguments)
+         */
+        fun epcPrefix(hexPrefix: String): SelectMask =
+            SelectMask(MemoryBank.EPC, EPC_BIT_OFFSET, hexPrefix.length * 4, hexPrefix)
+
+        /**
+         * Match activated tag numbers (status byte 34, see TagEpc)
+         */
+        val ACTIVE_TAGS = epcPrefix("%02X".format(TagEpc.STATUS_ACTIVE))
+    }
+}
@@ -0,0 +1,190 @@
+package com.socam.bcms.model
+
+/**
+ * EPC codec for tag numbers written by Tag Activation (24 hex digits = 96 bits)
+ *
+ * Layout (digit offsets):
+ * - 0..4   Prefix (default 34180); digits 0..1 are the status byte (34 = active, 00 = removed)
+ * - 5..6   Main contract (03)
+ * - 7      Version (3)
+ * - 8      Reserved
+ * - 9..11  BC type code (BCTypeMapping.numeric_code, e.g. 107)
+ * - 12..17 Contract number (user's tag contract)
+ * - 18..19 Device ID
+ * - 20..23 Serial number (per BC type)
+ *
+ * Accessors read the digits in place and return Int values, so scan loops can filter reads
+ * without allocating; they return -1 when the field does not hold decimal digits
+ */
+object TagEpc {
+
+    const val LENGTH = 24
+
+    const val STATUS_ACTIVE = 0x34
+    const val STATUS_REMOVED = 0x00
+
+    /**
+     * BC type code used by Tag Activation when no BCTypeMapping row exists
+     */
+    const val UNMAPPED_BC_TYPE_CODE = 404
+
+    private const val STATUS_START = 0
+    private const val MAIN_CONTRACT_START = 5
+    private const val VERSION_START = 7
+    private const val RESERVED_START = 8
+    private const val BC_TYPE_CODE_START = 9
+    private const val CONTRACT_NO_START = 12
+    private const val DEVICE_ID_START = 18
+    private const val SERIAL_START = 20
+
+    /**
+     * Decoded fields (allocates; use the Int accessors in scan loops)
+     */
+    data class Fields(
+        val statusByte: Int,
+        val prefix: String,
+        val mainContract: String,
+        val version: String,
+        val reserved: String,
+        val bcTypeCode: Int,
+        val contractNo: String,
+        val deviceId: String,
+        val serial: Int
+    ) {
+        val isActive: Boolean
+            get() = statusByte == STATUS_ACTIVE
+    }
+
+    /**
+     * Build the tag number; field widths follow the layout above
+     */
+    fun encode(
+        prefix: String,
+        mainContract: String,
+        version: String,
+        reserved: String,
+        bcTypeCode: String,
+        contractNo: String,
+        deviceId: String,
+        serial: String
+    ): String {
+        return "$prefix$mainContract$version$reserved$bcTypeCode$contractNo$deviceId$serial"
+    }
+
+    /**
+     * True when [epc] has the tag-number length (fields can be decoded by position)
+     */
+    fun hasLayout(epc: CharSequence): Boolean = epc.length == LENGTH
+
+    /**
+     * Status byte (first two hex digits), or -1
+     */
+    fun statusByte(epc: CharSequence): Int {
+        if (epc.length < 2) return -1
+        val high = hexValue(epc[STATUS_START])
+        val low = hexValue(epc[STATUS_START + 1])
+        return if (high < 0 || low < 0) -1 else (high shl 4) or low
+    }
+
+    fun isActive(epc: CharSequence): Boolean = statusByte(epc) == STATUS_ACTIVE
+
+    fun bcTypeCode(epc: CharSequence): Int = decimalField(epc, BC_TYPE_CODE_START, 3)
+
+    fun contractNo(epc: CharSequence): Int = decimalField(epc, CONTRACT_NO_START, 6)
+
+    fun deviceId(epc: CharSequence): Int = decimalField(epc, DEVICE_ID_START, 2)
+
+    fun serial(epc: CharSequence): Int = decimalField(epc, SERIAL_START, 4)
+
+    /**
+     * All fields, or null when [epc] does not have the tag-number layout
+     */
+    fun decode(epc: String): Fields? {
+        if (!hasLayout(epc)) return null
+        return Fields(
+            statusByte = statusByte(epc),
+            prefix = epc.substring(STATUS_START, MAIN_CONTRACT_START),
+            mainContract = epc.substring(MAIN_CONTRACT_START, VERSION_START),
+            version = epc.substring(VERSION_START, RESERVED_START),
+            reserved = epc.substring(RESERVED_START, BC_TYPE_CODE_START),
+            bcTypeCode = bcTypeCode(epc),
+            contractNo = epc.substring(CONTRACT_NO_START, DEVICE_ID_START),
+            deviceId = epc.substring(DEVICE_ID_START, SERIAL_START),
+            serial = serial(epc)
+        )
+    }
+
+    private fun decimalField(epc: CharSequence, start: Int, width: Int): Int {
+        if (epc.length != LENGTH) return -1
+        var value = 0
+        for (i in start until start + width) {
+            val c = epc[i]
+            if (c < '0' || c > '9') return -1
+            value = value * 10 + (c - '0')
+        }
+        return value
+    }
+
+    private fun hexValue(c: Char): Int = when (c) {
+        in '0'..'9' -> c - '0'
+        in 'A'..'F' -> c - 'A' + 10
+        in 'a'..'f' -> c - 'a' + 10
+        else -> -1
+    }
+}
+
+/**
+ * Reverse lookup from the BC type code in an EPC to the BC type name (per project mapping)
+ * Backed by parallel arrays: a lookup is a short linear scan with no boxing
+ */
+class BcTypeCodes(mappings: Map<String, String>) {
+
+    private val codes: IntArray
+    private val bcTypes: Array<String>
+
+    init {
+        // BC type -> numeric code; codes that are not numbers cannot appear in an EPC
+        val valid = mappings.mapNotNull { (bcType, code) -> code.toIntOrNull()?.let { it to bcType } }
+        codes = IntArray(valid.size) { valid[it].first }
+        bcTypes = Array(valid.size) { valid[it].second }
+    }
+
+    val isEmpty: Boolean
+        get() = codes.isEmpty()
+
+    fun bcTypeOf(code: Int): String? {
+        for (i in codes.indices) {
+            if (codes[i] == code) return bcTypes[i]
+        }
+        return null
+    }
+
+    fun codeOf(bcType: String): Int {
+        for (i in bcTypes.indices) {
+            if (bcTypes[i] == bcType) return codes[i]
+        }
+        return -1
+    }
+
+    /**
+     * BC type encoded in [epc], or null when the EPC has no tag-number layout or an unknown code
+     */
+    fun bcTypeOf(epc: CharSequence): String? {
+        val code = TagEpc.bcTypeCode(epc)
+        return if (code < 0) null else bcTypeOf(code)
+    }
+
+    /**
+     * True when [epc] is a tag number whose BC type code this project does not know
+     * (another project's tag). Unmapped (404) codes and other EPC formats are left to the database
+     */
+    fun isForeign(epc: CharSequence): Boolean {
+        if (isEmpty) return false
+        val code = TagEpc.bcTypeCode(epc)
+        return code >= 0 && code != TagEpc.UNMAPPED_BC_TYPE_CODE && bcTypeOf(code) == null
+    }
+
+    companion object {
+        val EMPTY = BcTypeCodes(emptyMap())
+    }
+}
@@ -133,6 +133,7 @@ data class TagModificationUiState(
     
     // Multiple Scan mode data (independent)
     val multipleScanResults: List<TagModificationData> = emptyList(),
+    val bulkWriteResults: List<EpcWriteResult> = emptyList(), // Per-tag outcomes of the last bulk write
     
     // Shared state
     val errorMessage: String? = null,
@@ -142,3 +143,29 @@ data class TagModificationUiState(
     val showActiveFilter: Boolean = true, // Show Active tags (starts with 34)
     val showInactiveFilter: Boolean = true // Show Inactive tags (starts with 00 or neither 34/00)
 )
+
+/**
+ * One tag of a bulk status write
+ * targetEpc: EPC currently reported by inventory (used as write filter)
+ * newEpc: EPC to write (status prefix applied)
+ */
+data class EpcWriteRequest(
+    val targetEpc: String,
+    val newEpc: String
+)
+
+/**
+ * Per-tag outcome of a bulk status write
+ */
+enum class EpcWriteOutcome {
+    VERIFIED,   // Written and confirmed by reading the EPC bank back
+    UNVERIFIED, // Write command succeeded but the readback did not confirm it
+    FAILED      // Write command failed on every attempt
+}
+
+data class EpcWriteResult(
+    val targetEpc: String,
+    val newEpc: String,
+    val outcome: EpcWriteOutcome,
+    val attempts: Int
+)
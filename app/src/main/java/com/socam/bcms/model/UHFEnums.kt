@@ -21,6 +21,19 @@ enum class MemoryBank(val value: Int) {
     USER(3)         // 使用者資料 / User Data
 }
 
+/**
+ * 功率設定檔 / RF Power Profile (per operation)
+ *
+ * - INVENTORY: 讀取用高功率 / Full read power for scanning
+ * - WRITE: 寫入用較低功率，避免寫到鄰近標籤 / Reduced power for EPC/USER writes so neighbouring tags stay out of range
+ * - NEAR_FIELD: 啟用桌面用低功率 / Low read and write power for the single-tag activation desk
+ */
+enum class PowerProfile {
+    INVENTORY,
+    WRITE,
+    NEAR_FIELD
+}
+
 /**
  * 掃描設定 / Scanning Settings
  */
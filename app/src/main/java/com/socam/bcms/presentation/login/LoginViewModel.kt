@@ -111,7 +111,7 @@ class LoginViewModel(private val context: Context) : ViewModel() {
             try {
                 // Ensure database is ready before querying
                 val isDbReady = try {
-                    databaseManager.database.userQueries.selectByUsername("_test_").executeAsOneOrNull()
+                    databaseManager.appDatabase.userQueries.selectByUsername("_test_").executeAsOneOrNull()
                     true
                 } catch (e: Exception) {
                     false
@@ -125,7 +125,7 @@ class LoginViewModel(private val context: Context) : ViewModel() {
                 
                 // Get app version (with safe fallback)
                 val versionSetting = try {
-                    databaseManager.database.appSettingsQueries
+                    databaseManager.appDatabase.appSettingsQueries
                         .selectSettingByKey("app_version")
                         .executeAsOneOrNull()
                 } catch (e: Exception) {
@@ -134,7 +134,7 @@ class LoginViewModel(private val context: Context) : ViewModel() {
                 
                 // Get current environment (with safe fallback)
                 val currentEnv = try {
-                    databaseManager.database.environmentConfigQueries
+                    databaseManager.appDatabase.environmentConfigQueries
                         .selectActiveEnvironment()
                         .executeAsOneOrNull()
                 } catch (e: Exception) {
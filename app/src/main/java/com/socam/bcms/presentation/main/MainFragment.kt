@@ -97,6 +97,16 @@ class MainFragment : Fragment() {
             findNavController().navigate(R.id.action_main_to_settings)
         }
         
+        binding.componentSearchCard.setOnClickListener {
+            println("MainFragment: Component Search card clicked")
+            findNavController().navigate(R.id.action_main_to_component_search)
+        }
+        
+        binding.componentBrowserCard.setOnClickListener {
+            println("MainFragment: Component Browser card clicked")
+            findNavController().navigate(R.id.action_main_to_component_browser)
+        }
+        
         
         // Hidden modules - no click listeners
         // binding.tagModificationCard.setOnClickListener { ... } - REMOVED
@@ -7,6 +7,7 @@ import androidx.lifecycle.viewModelScope
 import androidx.lifecycle.asLiveData
 import com.socam.bcms.data.database.DatabaseManager
 import com.socam.bcms.data.repository.StatsRepository
+import com.socam.bcms.data.repository.SyncErrorRepository
 import com.socam.bcms.domain.AuthManager
 import com.socam.bcms.presentation.sync.SyncViewModel
 import kotlinx.coroutines.launch
@@ -32,6 +33,7 @@ class MainViewModel(
 
     // Initialize stats repository
     private val statsRepository = StatsRepository(databaseManager)
+    private val syncErrorRepository = SyncErrorRepository(databaseManager)
 
     // User information
     private val _userInfo = MutableLiveData<UserInfo>()
@@ -45,7 +47,7 @@ class MainViewModel(
     val realTimeStats: LiveData<StatsInfo> = statsRepository.getDashboardStats()
         .map { dashboardStats ->
             val notificationCount = try {
-                syncViewModel.getSyncErrors().size
+                syncErrorRepository.countErrors()
             } catch (e: Exception) {
                 0
             }
@@ -115,9 +117,9 @@ class MainViewModel(
                 // Get dashboard statistics from repository
                 val dashboardStats = statsRepository.getDashboardStatsSnapshot()
                 
-                // Get notification count from SyncViewModel
+                // Get notification count from the persisted sync errors
                 val notificationCount = try {
-                    syncViewModel.getSyncErrors().size
+                    syncErrorRepository.countErrors()
                 } catch (e: Exception) {
                     println("MainViewModel: Could not get notification count: ${e.message}")
                     0
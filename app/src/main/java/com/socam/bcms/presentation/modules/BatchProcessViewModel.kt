@@ -3,13 +3,20 @@ package com.socam.bcms.presentation.modules
 import android.content.Context
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.socam.bcms.BCMSApp
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.R
 import com.socam.bcms.data.database.DatabaseManager
 import com.socam.bcms.domain.AuthManager
+import com.socam.bcms.model.BcTypeCodes
+import com.socam.bcms.model.PowerProfile
+import com.socam.bcms.model.SelectMask
 import com.socam.bcms.model.TagData
-import com.socam.bcms.model.TagStatus
+import com.socam.bcms.model.TagEpc
+import com.socam.bcms.uhf.InventoryAutoTuner
+import com.socam.bcms.uhf.TuningScreen
 import com.socam.bcms.uhf.UHFManagerWrapper
+import com.socam.bcms.utils.AppLog
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
@@ -51,7 +58,21 @@ class BatchProcessViewModel(
     // Scanning state management
     private var isScanning = false
     private var scanningJob: Job? = null
-    private val scannedTags = mutableMapOf<String, BatchTagData>()
+
+    // Scanned tags (strongest first), published to the UI at a bounded frame rate
+    private val scannedTags = ScanStatePublisher<BatchTagData>(
+        scope = viewModelScope,
+        keyOf = { it.epc },
+        comparator = compareByDescending { it.rssiDbm },
+        onFrame = ::applyScannedTagsFrame
+    )
+
+    // BC type code -> BC type, to filter reads by the code encoded in the EPC
+    @Volatile
+    private var bcTypeCodes = BcTypeCodes.EMPTY
+
+    // Inventory settings learned from this screen's scans (stacks of panels)
+    private val inventoryTuner = InventoryAutoTuner(TuningScreen.BATCH_PROCESS, viewModelScope, databaseManager)
 
     // Available BC Types
     private val availableBcTypes = listOf("MIC", "ALW", "TID")
@@ -67,6 +88,9 @@ class BatchProcessViewModel(
     private fun loadInitialData() {
         viewModelScope.launch {
             try {
+                bcTypeCodes = withContext(Dispatchers.IO) { databaseManager.getBcTypeCodes() }
+                inventoryTuner.load()
+
                 // Set default BC type (first one)
                 val defaultBcType = availableBcTypes.first()
                 
@@ -136,7 +160,7 @@ class BatchProcessViewModel(
                 Log.d(TAG, "Current user role: $userRole")
 
                 // Get allowed steps for this role and BC type
-                val allowedSteps = databaseManager.database.masterRolesQueries
+                val allowedSteps = databaseManager.appDatabase.masterRolesQueries
                     .selectStepsByRoleAndBcTypeAndProject(userRole, bcType, BuildConfig.PROJECT_ID)
                     .executeAsList()
                 
@@ -195,17 +219,25 @@ class BatchProcessViewModel(
             try {
                 Log.d(TAG, "Starting batch scanning for BC Type: ${_uiState.value.selectedBcType}")
                 
-                // Ensure clean UHF state
-                uhfManager.stopInventory()
-                Thread.sleep(100)
+                // Ensure clean UHF state (settle pause on the UHF thread)
+                withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.stopInventory()
+                    Thread.sleep(100)
+                }
                 
                 _uiState.value = _uiState.value.copy(
                     isScanning = true,
                     statusMessage = "Scanning ${_uiState.value.selectedBcType} tags... (hold trigger)"
                 )
 
-                // Start UHF inventory
-                val started = uhfManager.startInventory()
+                // Start UHF inventory; only activated tags answer (BC type is still checked per read)
+                val tuning = inventoryTuner.begin(BCMSApp.powerSize)
+                val started = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.setSelectMask(SelectMask.ACTIVE_TAGS)
+                    uhfManager.applyInventoryTuning(tuning)
+                    uhfManager.applyPowerProfile(PowerProfile.INVENTORY, tuning.power)
+                    uhfManager.startInventory()
+                }
                 if (started) {
                     isScanning = true
                     startRealTimeScanningLoop()
@@ -234,10 +266,12 @@ class BatchProcessViewModel(
             try {
                 Log.d(TAG, "Stopping batch scanning")
                 
-                uhfManager.stopInventory()
                 isScanning = false
+                withContext(UHFManagerWrapper.dispatcher) { uhfManager.stopInventory() }
                 scanningJob?.cancel()
                 scanningJob = null
+                inventoryTuner.end()
+                scannedTags.flush()
                 
                 val tagCount = scannedTags.size
                 _uiState.value = _uiState.value.copy(
@@ -264,8 +298,9 @@ class BatchProcessViewModel(
         scanningJob = viewModelScope.launch {
             while (isScanning && _uiState.value.isScanning) {
                 try {
-                    val tagData = uhfManager.readTagFromBuffer()
-                    tagData?.let { tag ->
+                    val tags = withContext(UHFManagerWrapper.dispatcher) { uhfManager.drainTagBuffer() }
+                    inventoryTuner.recordPoll(tags)
+                    for (tag in tags) {
                         processScannedTag(tag)
                     }
                     
@@ -283,17 +318,31 @@ class BatchProcessViewModel(
      * Process scanned tag with BC type and activation filtering
      */
     private suspend fun processScannedTag(tagData: TagData) {
+        val epc = tagData.epc
+
+        // Repeated read of a listed tag without a stronger signal: nothing to update
+        val listed = scannedTags[epc]
+        if (listed != null && tagData.rssi <= listed.rssiDbm) {
+            return
+        }
+
+        // Decode-time filtering (no allocation, no database): status byte and BC type code from the EPC
+        if (!TagEpc.isActive(epc)) {
+            AppLog.v(TAG) { "Tag $epc is not activated - skipping" }
+            return
+        }
+        val encodedBcType = bcTypeCodes.bcTypeOf(epc)
+        if (encodedBcType != null && encodedBcType != _uiState.value.selectedBcType) {
+            AppLog.v(TAG) { "Tag $epc encodes BC type $encodedBcType - skipping" }
+            return
+        }
+        if (bcTypeCodes.isForeign(epc)) {
+            AppLog.v(TAG) { "Tag $epc is from another project - skipping" }
+            return
+        }
+
         withContext(Dispatchers.IO) {
             try {
-                val epc = tagData.epc
-                
-                // Check if tag is activated (following Single Scan pattern)
-                val tagStatus = getTagStatusFromEpc(epc)
-                if (tagStatus != TagStatus.ACTIVE) {
-                    Log.d(TAG, "Tag $epc is not activated - skipping")
-                    return@withContext
-                }
-
                 // Get tag details from database by RFIDTagNo (now contains scanned EPC)
                 val rfidRecords = databaseManager.database.rfidModuleQueries
                     .selectModulesByRFIDTagNo(epc)
@@ -332,21 +381,9 @@ class BatchProcessViewModel(
                     timestamp = System.currentTimeMillis()
                 )
 
-                // Add/update in scanned tags map
-                val existing = scannedTags[epc]
-                if (existing == null || batchTagData.isStrongerThan(existing)) {
-                    scannedTags[epc] = batchTagData
-                    Log.d(TAG, "Added non-disposed tag to batch: $epc")
-                    
-                    // Update UI with sorted tag list (strongest first)
-                    val sortedTags = scannedTags.values.sortedByDescending { it.rssiDbm }
-                    
-                    withContext(Dispatchers.Main) {
-                        _uiState.value = _uiState.value.copy(
-                            scannedTags = sortedTags,
-                            statusMessage = "Scanning... ${scannedTags.size} active $selectedBcType tags found"
-                        )
-                    }
+                // Add/update in scanned tags (UI picks it up with the next frame)
+                if (scannedTags.offer(batchTagData) { existing, candidate -> candidate.isStrongerThan(existing) }) {
+                    AppLog.d(TAG) { "Added non-disposed tag to batch: $epc" }
                 }
 
             } catch (e: Exception) {
@@ -356,15 +393,18 @@ class BatchProcessViewModel(
     }
 
     /**
-     * Get tag status from EPC (following Single Scan pattern)
+     * Apply a published tag list frame (main thread, at most ~12 times per second)
      */
-    private fun getTagStatusFromEpc(epc: String): TagStatus {
-        val epcToCheck = epc.uppercase().replace(" ", "")
-        return when {
-            epcToCheck.startsWith("34") -> TagStatus.ACTIVE   // Starts with "34"
-            epcToCheck.startsWith("00") -> TagStatus.INACTIVE // Starts with "00"
-            else -> TagStatus.INACTIVE                          // Unknown = Inactive
-        }
+    private fun applyScannedTagsFrame(frame: ScanFrame<BatchTagData>): Unit {
+        val state = _uiState.value
+        _uiState.value = state.copy(
+            scannedTags = frame.items,
+            statusMessage = if (state.isScanning) {
+                "Scanning... ${frame.items.size} active ${state.selectedBcType} tags found"
+            } else {
+                state.statusMessage
+            }
+        )
     }
 
     /**
@@ -372,9 +412,8 @@ class BatchProcessViewModel(
      */
     fun removeTag(epc: String) {
         scannedTags.remove(epc)
-        val sortedTags = scannedTags.values.sortedByDescending { it.rssiDbm }
         _uiState.value = _uiState.value.copy(
-            scannedTags = sortedTags,
+            scannedTags = scannedTags.snapshot(),
             statusMessage = "${scannedTags.size} ${_uiState.value.selectedBcType} tags in list"
         )
         Log.d(TAG, "Removed tag: $epc. Remaining tags: ${scannedTags.size}")
@@ -397,7 +436,7 @@ class BatchProcessViewModel(
         try {
             isScanning = false
             scanningJob?.cancel()
-            uhfManager.stopInventory()
+            uhfManager.post { stopInventory() }
             scannedTags.clear()
             Log.d(TAG, "ViewModel cleared - UHF ready for next use")
         } catch (e: Exception) {
@@ -5,6 +5,7 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.database.RfidModuleFieldWriter
 import com.socam.bcms.domain.AuthManager
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -25,11 +26,17 @@ class BatchStepFormViewModel(
 
     companion object {
         private const val TAG = "BatchStepFormViewModel"
+        private val STEP_FIELD_NAMES = setOf("Remark", "Is Completed")
+        // Stay below SQLite's 999 bound parameter limit for IN (...) lists
+        private const val MAX_IDS_PER_STATEMENT = 500
     }
 
     private val _uiState = MutableStateFlow(BatchStepFormUiState())
     val uiState: StateFlow<BatchStepFormUiState> = _uiState.asStateFlow()
 
+    // Dropdown options and step portions are served from the in-memory master data cache
+    private val masterDataCache = databaseManager.masterDataCache
+
     private lateinit var currentStepCode: String
     private lateinit var currentBcType: String
     private lateinit var currentTagEpcs: List<String>
@@ -146,9 +153,7 @@ class BatchStepFormViewModel(
             when (fieldName.lowercase()) {
                 "category", "subcategory" -> {
                     try {
-                        val categories = databaseManager.database.masterCategoriesQueries
-                            .selectCategoriesByBcType(bcType)
-                            .executeAsList()
+                        val categories = masterDataCache.categories().byBcType(bcType)
                         
                         categories.map { category ->
                             DropdownOption(
@@ -163,9 +168,7 @@ class BatchStepFormViewModel(
                 }
                 "supplierid", "manufacturerid" -> {
                     try {
-                        val companies = databaseManager.database.masterCompaniesQueries
-                            .selectCompaniesByTypeAndBcTypeWithWildcard("HingeSupplier", bcType)
-                            .executeAsList()
+                        val companies = masterDataCache.companies().byTypeAndBcType("HingeSupplier", bcType)
                         
                         companies.map { company ->
                             DropdownOption(
@@ -180,14 +183,9 @@ class BatchStepFormViewModel(
                 }
                 "region", "block" -> {
                     try {
-                        val locations = databaseManager.database.masterLocationsQueries
-                            .selectAllLocations()
-                            .executeAsList()
-                        
-                        Log.d(TAG, "Block dropdown: Found ${locations.size} total locations")
-                        val blockOptions = locations.map { location ->
-                            DropdownOption(value = location.region ?: "", label = location.region ?: "")
-                        }.distinctBy { it.value }.filter { it.value.isNotEmpty() }
+                        val blockOptions = masterDataCache.locations().regionNames.map { region ->
+                            DropdownOption(value = region, label = region)
+                        }
                         Log.d(TAG, "Block dropdown: Created ${blockOptions.size} block options: ${blockOptions.map { it.label }}")
                         blockOptions
                     } catch (e: Exception) {
@@ -197,12 +195,7 @@ class BatchStepFormViewModel(
                 }
                 "floor" -> {
                     try {
-                        val locations = databaseManager.database.masterLocationsQueries
-                            .selectAllLocations()
-                            .executeAsList()
-                        
-                        Log.d(TAG, "Floor dropdown: Found ${locations.size} total locations")
-                        val floorOptions = locations.mapNotNull { it.floor }.distinct().map { floor ->
+                        val floorOptions = masterDataCache.locations().floorNames.map { floor ->
                             DropdownOption(value = floor, label = floor)
                         }
                         Log.d(TAG, "Floor dropdown: Created ${floorOptions.size} floor options: ${floorOptions.map { it.label }}")
@@ -214,9 +207,7 @@ class BatchStepFormViewModel(
                 }
                 "room_id", "unit" -> {
                     try {
-                        val locations = databaseManager.database.masterLocationsQueries
-                            .selectAllLocations()
-                            .executeAsList()
+                        val locations = masterDataCache.locations().all
                         
                         Log.d(TAG, "Unit dropdown: Found ${locations.size} total locations")
                         val unitOptions = locations.map { location ->
@@ -234,9 +225,7 @@ class BatchStepFormViewModel(
                 }
                 "concrete grade" -> {
                     try {
-                        val grades = databaseManager.database.masterConcreteGradesQueries
-                            .selectAllConcreteGrades()
-                            .executeAsList()
+                        val grades = masterDataCache.concreteGrades()
                         
                         Log.d(TAG, "Concrete Grade dropdown: Found ${grades.size} grades")
                         val gradeOptions = grades.map { grade ->
@@ -254,9 +243,7 @@ class BatchStepFormViewModel(
                 }
                 "rs company", "rscompanyid", "rs_company_id" -> {
                     try {
-                        val companies = databaseManager.database.masterCompaniesQueries
-                            .selectCompaniesByTypeAndBcTypeWithWildcard("RSCompany", bcType)
-                            .executeAsList()
+                        val companies = masterDataCache.companies().byTypeAndBcType("RSCompany", bcType)
                         
                         Log.d(TAG, "RS Company dropdown: Found ${companies.size} companies")
                         val companyOptions = companies.map { company ->
@@ -335,53 +322,57 @@ class BatchStepFormViewModel(
 
     /**
      * Update all batch tags in database with enabled field values
+     * Step fields (Remark / Is Completed) are written with one set-based statement for all tags
      */
     private suspend fun updateBatchTagsInDatabase(enabledFieldNames: List<String>): Int = withContext(Dispatchers.IO) {
         try {
-            var updatedCount = 0
-            
-            // Get step portion for generic field mapping
+            // Get step portion for the step progress rows
             val stepPortion = currentStepPortion ?: throw Exception("Step portion not loaded for step: $currentStepCode")
             
             Log.d(TAG, "Updating batch tags using portion: $stepPortion")
             
-            for (epc in currentTagEpcs) {
-                // Query RfidModule record by RFIDTagNo (now contains scanned EPC)
-                val rfidRecords = databaseManager.database.rfidModuleQueries
+            // Resolve RfidModule IDs once (RFIDTagNo contains the scanned EPC)
+            val moduleIds = currentTagEpcs.mapNotNull { epc ->
+                val rfidRecord = databaseManager.database.rfidModuleQueries
                     .selectModulesByRFIDTagNo(epc)
                     .executeAsList()
-                
-                val rfidRecord = rfidRecords.firstOrNull()
+                    .firstOrNull()
                 if (rfidRecord == null) {
                     Log.w(TAG, "No RfidModule record found for EPC: $epc")
-                    continue
                 }
-                
-                val rfidModuleId = rfidRecord.Id
-                Log.d(TAG, "Updating tag $epc (ID: $rfidModuleId) with enabled fields: $enabledFieldNames")
-                
-                // Build update query based on enabled fields
-                var hasUpdates = false
-                
-                for (fieldName in enabledFieldNames) {
-                    val fieldValue = fieldValues[fieldName]
-                    if (fieldValue != null) {
-                        // Map generic field names to step-specific fields
-                        val mappedFieldName = mapGenericFieldName(fieldName, stepPortion)
-                        updateRfidModuleField(rfidModuleId, mappedFieldName, fieldValue)
-                        hasUpdates = true
-                        Log.d(TAG, "Updated field $fieldName (mapped to $mappedFieldName) = $fieldValue for tag $rfidModuleId")
-                    }
+                rfidRecord?.Id
+            }.distinct()
+            
+            val enabledValues = enabledFieldNames.mapNotNull { fieldName ->
+                fieldValues[fieldName]?.let { fieldName to it }
+            }
+            if (moduleIds.isEmpty() || enabledValues.isEmpty()) {
+                return@withContext 0
+            }
+            
+            val (stepValues, columnValues) = enabledValues.partition { (fieldName, _) -> fieldName in STEP_FIELD_NAMES }
+            
+            // Module columns - one update per tag and field
+            for (rfidModuleId in moduleIds) {
+                for ((fieldName, fieldValue) in columnValues) {
+                    updateRfidModuleField(rfidModuleId, fieldName, fieldValue)
                 }
-                
-                if (hasUpdates) {
-                    // Mark as pending sync
-                    databaseManager.database.rfidModuleQueries.updateSyncStatusById("PENDING", rfidModuleId)
-                    updatedCount++
+            }
+            
+            val database = databaseManager.database
+            database.transaction {
+                moduleIds.chunked(MAX_IDS_PER_STATEMENT).forEach { ids ->
+                    if (stepValues.isNotEmpty()) {
+                        updateStepProgress(ids, stepPortion, stepValues)
+                    }
+                    // Mark as pending sync; batch edits are uploaded as full records
+                    database.rfidModuleQueries.markModulesPending(ids)
+                    database.rfidModuleDirtyFieldQueries.markModulesFullyDirty(ids)
                 }
             }
             
-            updatedCount
+            Log.d(TAG, "Updated ${moduleIds.size} tags: ${enabledValues.map { it.first }}")
+            moduleIds.size
             
         } catch (e: Exception) {
             Log.e(TAG, "Database error updating batch tags: ${e.message}", e)
@@ -390,28 +381,39 @@ class BatchStepFormViewModel(
     }
 
     /**
-     * Map generic field names to step-specific field names based on step portion
-     * E.g., "Remark" -> "Remark60" for step with portion 60
+     * Write Remark / Is Completed of the step portion for a set of modules
      */
-    private fun mapGenericFieldName(fieldName: String, stepPortion: Int): String {
-        return when (fieldName) {
-            "Remark" -> "Remark$stepPortion"
-            "Is Completed" -> "IsCompleted$stepPortion"
-            else -> fieldName
+    private fun updateStepProgress(moduleIds: Collection<String>, stepPortion: Int, stepValues: List<Pair<String, String>>): Unit {
+        val portion = RfidModuleFieldWriter.progressPortion(stepPortion).toLong()
+        val queries = databaseManager.database.rfidModuleStepProgressQueries
+        queries.ensureProgressForModules(portion = portion, moduleIds = moduleIds)
+        
+        stepValues.forEach { (fieldName, fieldValue) ->
+            when (fieldName) {
+                "Remark" -> queries.updateRemarkForModules(
+                    remark = fieldValue,
+                    portion = portion,
+                    moduleIds = moduleIds
+                )
+                "Is Completed" -> {
+                    val isCompleted = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1L else 0L
+                    queries.updateCompletedForModules(
+                        isCompleted = isCompleted,
+                        portion = portion,
+                        moduleIds = moduleIds
+                    )
+                }
+            }
         }
     }
 
     /**
-     * Get step portion from MasterWorkflowSteps table
+     * Get step portion from MasterWorkflowSteps (cached)
      */
     private suspend fun getStepPortion(stepCode: String, bcType: String): Int? {
         return withContext(Dispatchers.IO) {
             try {
-                val workflowStep = databaseManager.database.masterWorkflowStepsQueries
-                    .selectWorkflowStepByKey(stepCode, bcType)
-                    .executeAsOneOrNull()
-                
-                workflowStep?.portion?.toInt()
+                masterDataCache.getStepPortion(stepCode, bcType)
             } catch (e: Exception) {
                 Log.e(TAG, "Error getting step portion: ${e.message}", e)
                 null
@@ -515,75 +517,9 @@ class BatchStepFormViewModel(
                     val timestampValue = convertDateStringToTimestamp(fieldValue)
                     databaseManager.database.rfidModuleQueries.updateSiteInstallationDateById(timestampValue, rfidModuleId)
                 }
-                // Step completion fields
-                "iscompleted10", "is_completed_10" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted10ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark10", "remark_10" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark10ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted20", "is_completed_20" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted20ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark20", "remark_20" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark20ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted30", "is_completed_30" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted30ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark30", "remark_30" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark30ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted35", "is_completed_35" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted55ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark35", "remark_35" -> {
-                    // MIC35 maps to Remark55
-                    databaseManager.database.rfidModuleQueries.updateRemark55ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted40", "is_completed_40" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted40ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark40", "remark_40" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark40ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted50", "is_completed_50" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted50ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark50", "remark_50" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark50ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted60", "is_completed_60" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted60ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark60", "remark_60" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark60ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted70", "is_completed_70" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted70ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark70", "remark_70" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark70ById(fieldValue, rfidModuleId)
-                }
-                "iscompleted80", "is_completed_80" -> {
-                    val intValue = if (fieldValue == "1" || fieldValue.lowercase() == "true") 1 else 0
-                    databaseManager.database.rfidModuleQueries.updateIsCompleted80ById(intValue.toLong(), rfidModuleId)
-                }
-                "remark80", "remark_80" -> {
-                    databaseManager.database.rfidModuleQueries.updateRemark80ById(fieldValue, rfidModuleId)
-                }
-                // Generic remark field (maps based on step code - handled by caller)
-                "remark" -> {
-                    // This should be handled by the caller to map to correct remarkXX field
-                    Log.w(TAG, "Generic 'remark' field should be mapped to specific remarkXX field by caller")
+                // Step fields are written to RfidModuleStepProgress by updateStepProgress
+                "remark", "is completed" -> {
+                    Log.w(TAG, "Step field '$fieldName' should be written through updateStepProgress")
                 }
                 else -> {
                     Log.w(TAG, "Unknown field name for update: $fieldName")
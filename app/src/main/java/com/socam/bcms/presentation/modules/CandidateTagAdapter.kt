@@ -2,6 +2,8 @@ package com.socam.bcms.presentation.modules
 
 import android.view.LayoutInflater
 import android.view.ViewGroup
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.socam.bcms.databinding.ItemCandidateTagBinding
 
@@ -13,12 +15,26 @@ import com.socam.bcms.databinding.ItemCandidateTagBinding
  * - ACTIVE (Green): Normal activated tag ready for processing
  * - DISPOSED (Gray): Tag marked as disposed in database (shows warning when selected)
  * - NO RECORD (Purple): Tag not found in database
+ *
+ * List updates are diffed on a background thread (stable ids keyed by EPC);
+ * RSSI-only changes and rank shifts rebind just those views
  */
 class CandidateTagAdapter(
     private val onTagSelected: (CandidateTag) -> Unit
-) : RecyclerView.Adapter<CandidateTagAdapter.CandidateTagViewHolder>() {
+) : ListAdapter<CandidateTag, CandidateTagAdapter.CandidateTagViewHolder>(DiffCallback()) {
 
-    private var candidateTags = emptyList<CandidateTag>()
+    companion object {
+        private const val PAYLOAD_RSSI = "rssi"
+        private const val PAYLOAD_RANK = "rank"
+    }
+
+    private val stableIds = StableIdMap()
+
+    init {
+        setHasStableIds(true)
+    }
+
+    override fun getItemId(position: Int): Long = stableIds.idOf(getItem(position).epc)
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): CandidateTagViewHolder {
         val binding = ItemCandidateTagBinding.inflate(
@@ -30,18 +46,28 @@ class CandidateTagAdapter(
     }
 
     override fun onBindViewHolder(holder: CandidateTagViewHolder, position: Int) {
-        holder.bind(candidateTags[position], position + 1) // 1-based ranking
+        holder.bind(getItem(position), position + 1) // 1-based ranking
     }
 
-    override fun getItemCount(): Int = candidateTags.size
+    override fun onBindViewHolder(holder: CandidateTagViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position)
+            return
+        }
+        if (PAYLOAD_RSSI in payloads) holder.bindRssi(getItem(position))
+        if (PAYLOAD_RANK in payloads) holder.bindRank(position + 1)
+    }
 
     /**
      * Update candidate tags list
      */
     fun updateCandidateTags(newTags: List<CandidateTag>): Unit {
-        candidateTags = newTags
-        notifyDataSetChanged()
-        android.util.Log.d("CandidateTagAdapter", "Updated adapter with ${candidateTags.size} tags")
+        val previous = currentList
+        submitList(newTags) {
+            // Moved rows are not rebound by the diff, refresh the rank badge of those rows only
+            movedPositions(previous, newTags) { it.epc }.forEach { notifyItemChanged(it, PAYLOAD_RANK) }
+        }
+        android.util.Log.d("CandidateTagAdapter", "Updated adapter with ${newTags.size} tags")
     }
 
     /**
@@ -51,25 +77,27 @@ class CandidateTagAdapter(
         private val binding: ItemCandidateTagBinding
     ) : RecyclerView.ViewHolder(binding.root) {
 
+        init {
+            // Resolve the item on click so partial binds never leave a stale tag in the listener
+            binding.root.setOnClickListener {
+                val position = adapterPosition
+                if (position != RecyclerView.NO_POSITION) {
+                    val candidateTag = getItem(position)
+                    if (candidateTag.isClickable) onTagSelected(candidateTag)
+                }
+            }
+        }
+
         fun bind(candidateTag: CandidateTag, rank: Int): Unit {
             // Rank badge (1st, 2nd, 3rd, etc.)
-            binding.rankBadge.text = when (rank) {
-                1 -> "1st"
-                2 -> "2nd" 
-                3 -> "3rd"
-                else -> "${rank}th"
-            }
+            bindRank(rank)
             
             // Enhanced status badge with colors
             binding.statusBadge.text = candidateTag.badgeType.displayName
             binding.statusBadge.setBackgroundColor(android.graphics.Color.parseColor(candidateTag.badgeType.colorHex))
             
             // RSSI value with color coding (green for strong, red for weak)
-            binding.rssiValue.text = "${candidateTag.rssiDbm} dBm"
-            binding.rssiValue.setTextColor(
-                if (candidateTag.rssiDbm > -50) android.graphics.Color.parseColor("#4CAF50") // Green
-                else android.graphics.Color.parseColor("#F44336") // Red
-            )
+            bindRssi(candidateTag)
             
             // BC Type and Tag Number (only show if database record exists)
             if (candidateTag.bcType.isNotEmpty() && candidateTag.tagNo.isNotEmpty()) {
@@ -92,14 +120,43 @@ class CandidateTagAdapter(
             if (candidateTag.isClickable) {
                 binding.root.alpha = 1.0f
                 binding.root.isEnabled = true
-                binding.root.setOnClickListener {
-                    onTagSelected(candidateTag)
-                }
             } else {
                 binding.root.alpha = 0.5f // Grayed out
                 binding.root.isEnabled = false
-                binding.root.setOnClickListener(null)
             }
         }
+
+        fun bindRank(rank: Int): Unit {
+            binding.rankBadge.text = when (rank) {
+                1 -> "1st"
+                2 -> "2nd" 
+                3 -> "3rd"
+                else -> "${rank}th"
+            }
+        }
+
+        fun bindRssi(candidateTag: CandidateTag): Unit {
+            binding.rssiValue.text = "${candidateTag.rssiDbm} dBm"
+            binding.rssiValue.setTextColor(
+                if (candidateTag.rssiDbm > -50) android.graphics.Color.parseColor("#4CAF50") // Green
+                else android.graphics.Color.parseColor("#F44336") // Red
+            )
+        }
+    }
+
+    private class DiffCallback : DiffUtil.ItemCallback<CandidateTag>() {
+        override fun areItemsTheSame(oldItem: CandidateTag, newItem: CandidateTag): Boolean {
+            return oldItem.epc == newItem.epc
+        }
+
+        override fun areContentsTheSame(oldItem: CandidateTag, newItem: CandidateTag): Boolean {
+            return oldItem == newItem
+        }
+
+        override fun getChangePayload(oldItem: CandidateTag, newItem: CandidateTag): Any? {
+            // Only the signal changed: rebind the RSSI view, keep the rest of the row
+            val rssiOnly = oldItem.copy(rssiDbm = newItem.rssiDbm, rssiRaw = newItem.rssiRaw) == newItem
+            return if (rssiOnly) PAYLOAD_RSSI else null
+        }
     }
 }
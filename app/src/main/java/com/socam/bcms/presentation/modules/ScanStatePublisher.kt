@@ -0,0 +1,134 @@
+package com.socam.bcms.presentation.modules
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Conflated, rate-limited publisher for live scan lists
+ *
+ * - Scan loops call [offer] for every read, from any thread; a read only touches an in-memory map
+ * - Changes are coalesced and published at most once per [frameIntervalMs] (default ~12 Hz)
+ * - Each frame carries the sorted list only; the list adapters (ListAdapter / DiffUtil) work out
+ *   the item changes, so no per-key change sets are tracked here
+ * - Sorting runs on Dispatchers.Default, [onFrame] runs on the main thread, frames are delivered in order
+ *
+ * UI cost therefore follows the frame rate, not the tag read rate
+ */
+class ScanStatePublisher<T : Any>(
+    scope: CoroutineScope,
+    private val keyOf: (T) -> String,
+    private val comparator: Comparator<in T>,
+    private val frameIntervalMs: Long = DEFAULT_FRAME_INTERVAL_MS,
+    private val onFrame: (ScanFrame<T>) -> Unit
+) {
+
+    companion object {
+        const val DEFAULT_FRAME_INTERVAL_MS = 80L
+    }
+
+    private val lock = Any()
+    private val items = HashMap<String, T>()
+    private var dirty = false
+    private var sequence = 0L
+
+    private val signal = Channel<Unit>(Channel.CONFLATED)
+    private val publishMutex = Mutex()
+
+    init {
+        scope.launch(Dispatchers.Default) {
+            for (ignored in signal) {
+                publish()
+                delay(frameIntervalMs)
+            }
+        }
+    }
+
+    /**
+     * Insert or replace an item
+     * [replace] decides whether a candidate supersedes the item already held for its key
+     * Returns true when the item was accepted
+     */
+    fun offer(item: T, replace: (existing: T, candidate: T) -> Boolean = { _, _ -> true }): Boolean {
+        val key = keyOf(item)
+        synchronized(lock) {
+            val existing = items[key]
+            if (existing != null && !replace(existing, item)) return false
+            items[key] = item
+            dirty = true
+        }
+        signal.trySend(Unit)
+        return true
+    }
+
+    fun remove(key: String): Unit {
+        synchronized(lock) {
+            if (items.remove(key) == null) return
+            dirty = true
+        }
+        signal.trySend(Unit)
+    }
+
+    fun clear(): Unit {
+        synchronized(lock) {
+            if (items.isEmpty()) return
+            items.clear()
+            dirty = true
+        }
+        signal.trySend(Unit)
+    }
+
+    operator fun get(key: String): T? = synchronized(lock) { items[key] }
+
+    val size: Int
+        get() = synchronized(lock) { items.size }
+
+    /**
+     * Current contents in display order, including changes not yet published
+     */
+    fun snapshot(): List<T> {
+        val values = synchronized(lock) { ArrayList(items.values) }
+        values.sortWith(comparator)
+        return values
+    }
+
+    /**
+     * Publish pending changes now (e.g. when the trigger is released) instead of waiting for the next frame
+     */
+    suspend fun flush(): Unit {
+        publish()
+    }
+
+    private suspend fun publish(): Unit {
+        publishMutex.withLock {
+            val frame = withContext(Dispatchers.Default) { takeFrame() } ?: return
+            withContext(Dispatchers.Main) { onFrame(frame) }
+        }
+    }
+
+    private fun takeFrame(): ScanFrame<T>? {
+        val values: ArrayList<T>
+        val frame: ScanFrame<T>
+        synchronized(lock) {
+            if (!dirty) return null
+            dirty = false
+            values = ArrayList(items.values)
+            frame = ScanFrame(sequence = ++sequence, items = values)
+        }
+        values.sortWith(comparator)
+        return frame
+    }
+}
+
+/**
+ * One published scan list snapshot (diffed against the previous list by the adapters)
+ */
+data class ScanFrame<T>(
+    val sequence: Long,
+    val items: List<T>
+)
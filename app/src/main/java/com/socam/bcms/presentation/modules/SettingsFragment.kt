@@ -1,11 +1,13 @@
 package com.socam.bcms.presentation.modules
 
 import android.app.Activity
+import android.content.Intent
 import android.os.Bundle
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.TextView
+import androidx.core.content.FileProvider
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
@@ -13,11 +15,15 @@ import androidx.navigation.fragment.findNavController
 import com.google.android.material.slider.Slider
 import com.google.android.material.snackbar.Snackbar
 import com.socam.bcms.R
+import com.socam.bcms.data.database.QueryMetrics
 import com.socam.bcms.databinding.FragmentSettingsBinding
+import com.socam.bcms.utils.AppLog
 import com.socam.bcms.utils.LocaleHelper
+import com.socam.bcms.utils.MainThreadWatchdog
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import java.io.File
 
 /**
  * SettingsFragment - PERFORMANCE OPTIMIZED settings screen
@@ -118,6 +124,8 @@ class SettingsFragment : Fragment() {
             val languageToggleGroup = binding.root.findViewById<com.google.android.material.button.MaterialButtonToggleGroup>(R.id.language_toggle_group)
             val powerSlider = binding.root.findViewById<com.google.android.material.slider.Slider>(R.id.power_slider)
             val powerValueText = binding.root.findViewById<TextView>(R.id.power_value_text)
+            val inventoryAutoTuneCheckbox = binding.root.findViewById<com.google.android.material.checkbox.MaterialCheckBox>(R.id.inventory_auto_tune_checkbox)
+            val inventoryTuningResetButton = binding.root.findViewById<com.google.android.material.button.MaterialButton>(R.id.inventory_tuning_reset_button)
             
             // Tag Number Configuration elements
             val prefixInput = binding.root.findViewById<com.google.android.material.textfield.TextInputEditText>(R.id.prefix_input)
@@ -133,6 +141,7 @@ class SettingsFragment : Fragment() {
             
             val appVersionField = binding.root.findViewById<TextView>(R.id.app_version_value)
             val apiEndpointField = binding.root.findViewById<TextView>(R.id.api_endpoint_value)
+            val databaseSizeField = binding.root.findViewById<TextView>(R.id.database_size_value)
             val updateAppButton = binding.root.findViewById<com.google.android.material.button.MaterialButton>(R.id.update_app_button)
             val logoutButton = binding.root.findViewById<com.google.android.material.button.MaterialButton>(R.id.logout_button)
             
@@ -179,6 +188,7 @@ class SettingsFragment : Fragment() {
                 appConfig?.let {
                     appVersionField?.text = it.appVersion
                     apiEndpointField?.text = formatApiEndpoint(it.apiEndpoint)
+                    databaseSizeField?.text = it.databaseSize
                 }
             }
             
@@ -212,6 +222,11 @@ class SettingsFragment : Fragment() {
                 }
             }
             
+            // Inventory auto-tune observer
+            vm.inventoryAutoTune.observe(viewLifecycleOwner) { enabled ->
+                inventoryAutoTuneCheckbox?.isChecked = enabled
+            }
+            
             // Tag Configuration observers
             vm.tagPrefix.observe(viewLifecycleOwner) { prefix ->
                 println("SettingsFragment: Tag prefix received: $prefix - ${System.currentTimeMillis()}")
@@ -342,6 +357,15 @@ class SettingsFragment : Fragment() {
                 }
             })
             
+            // Inventory auto-tune listeners (unchecked = manual override)
+            inventoryAutoTuneCheckbox?.setOnCheckedChangeListener { _, isChecked ->
+                vm.updateInventoryAutoTune(isChecked)
+            }
+            inventoryTuningResetButton?.setOnClickListener {
+                vm.resetInventoryTuning()
+                Snackbar.make(binding.root, getString(R.string.inventory_auto_tune_reset_done), Snackbar.LENGTH_SHORT).show()
+            }
+            
             // Tag Configuration listeners
             prefixInput?.addTextChangedListener(object : android.text.TextWatcher {
                 override fun beforeTextChanged(s: CharSequence?, start: Int, count: Int, after: Int) {}
@@ -384,6 +408,12 @@ class SettingsFragment : Fragment() {
                 showLogoutConfirmation()
             }
             
+            // Hidden debug view: SQL timing statistics
+            databaseSizeField?.setOnLongClickListener {
+                showQueryStatistics()
+                true
+            }
+            
             println("SettingsFragment: UI listeners setup complete - ${System.currentTimeMillis()}")
             
             // Initialize data (background)
@@ -457,6 +487,71 @@ class SettingsFragment : Fragment() {
         builder.show()
     }
     
+    /**
+     * Show main-thread stalls and SQL timing statistics (hottest statements, slow log) with export / reset
+     */
+    private fun showQueryStatistics(): Unit {
+        val padding = (16 * resources.displayMetrics.density).toInt()
+        val reportView = TextView(requireContext()).apply {
+            text = MainThreadWatchdog.summary() + "\n\n" + QueryMetrics.exportText(limit = 30)
+            textSize = 11f
+            typeface = android.graphics.Typeface.MONOSPACE
+            setTextIsSelectable(true)
+            setPadding(padding, padding, padding, padding)
+        }
+        val scrollView = android.widget.ScrollView(requireContext()).apply { addView(reportView) }
+
+        val builder = androidx.appcompat.app.AlertDialog.Builder(requireContext())
+        builder.setTitle(getString(R.string.query_statistics_title))
+        builder.setView(scrollView)
+        builder.setPositiveButton(getString(R.string.query_statistics_export)) { _, _ ->
+            exportQueryStatistics()
+        }
+        builder.setNeutralButton(getString(R.string.query_statistics_reset)) { _, _ ->
+            QueryMetrics.reset()
+            MainThreadWatchdog.reset()
+        }
+        builder.setNegativeButton(getString(R.string.cancel)) { dialog, _ ->
+            dialog.dismiss()
+        }
+        builder.show()
+    }
+
+    /**
+     * Write the full report and the in-memory log ring to the cache directory and open the share sheet
+     */
+    private fun exportQueryStatistics(): Unit {
+        val context = requireContext().applicationContext
+        lifecycleScope.launch {
+            try {
+                val (file, logFile) = withContext(Dispatchers.IO) {
+                    val directory = context.externalCacheDir ?: context.cacheDir
+                    val timestamp = System.currentTimeMillis()
+                    val report = File(directory, "query_stats_$timestamp.txt").apply {
+                        writeText(MainThreadWatchdog.summary() + "\n\n" + QueryMetrics.exportText())
+                    }
+                    report to AppLog.dump(File(directory, "app_log_$timestamp.txt"))
+                }
+                val uris = listOf(file, logFile).mapTo(ArrayList<android.net.Uri>()) {
+                    FileProvider.getUriForFile(context, "${context.packageName}.provider", it)
+                }
+                val intent = Intent(Intent.ACTION_SEND_MULTIPLE).apply {
+                    type = "text/plain"
+                    putParcelableArrayListExtra(Intent.EXTRA_STREAM, uris)
+                    addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                }
+                val root = _binding?.root ?: return@launch
+                startActivity(Intent.createChooser(intent, getString(R.string.query_statistics_title)))
+                Snackbar.make(root, getString(R.string.query_statistics_exported, file.name), Snackbar.LENGTH_SHORT).show()
+            } catch (e: Exception) {
+                println("SettingsFragment: Query statistics export failed: ${e.message}")
+                _binding?.root?.let { root ->
+                    Snackbar.make(root, getString(R.string.query_statistics_export_failed, e.message ?: ""), Snackbar.LENGTH_LONG).show()
+                }
+            }
+        }
+    }
+    
     /**
      * Show logout confirmation dialog
      */
@@ -880,6 +975,9 @@ class SettingsFragment : Fragment() {
             "UHF 傳輸功率" to localizedContext.getString(R.string.uhf_power_setting),
             "API 端點" to localizedContext.getString(R.string.api_endpoint),
             "應用程式版本" to localizedContext.getString(R.string.app_version),
+            "資料庫大小" to localizedContext.getString(R.string.database_size),
+            "自動調整清單掃描" to localizedContext.getString(R.string.inventory_auto_tune),
+            "為每個掃描畫面學習清單模式、會話及功率。取消勾選：使用固定設定及上方功率。" to localizedContext.getString(R.string.inventory_auto_tune_helper),
             
             // Simplified Chinese (CN) - ADD THESE!
             "应用程序配置" to localizedContext.getString(R.string.app_configuration),
@@ -887,6 +985,9 @@ class SettingsFragment : Fragment() {
             "UHF 传输功率" to localizedContext.getString(R.string.uhf_power_setting),
             "API 端点" to localizedContext.getString(R.string.api_endpoint),
             "应用程序版本" to localizedContext.getString(R.string.app_version),
+            "数据库大小" to localizedContext.getString(R.string.database_size),
+            "自动调整清单扫描" to localizedContext.getString(R.string.inventory_auto_tune),
+            "为每个扫描画面学习清单模式、会话及功率。取消勾选：使用固定设定及上方功率。" to localizedContext.getString(R.string.inventory_auto_tune_helper),
             
             // English
             "App Configuration" to localizedContext.getString(R.string.app_configuration),
@@ -894,6 +995,9 @@ class SettingsFragment : Fragment() {
             "UHF Transmission Power" to localizedContext.getString(R.string.uhf_power_setting),
             "API Endpoint" to localizedContext.getString(R.string.api_endpoint),
             "App Version" to localizedContext.getString(R.string.app_version),
+            "Database Size" to localizedContext.getString(R.string.database_size),
+            "Adaptive inventory tuning" to localizedContext.getString(R.string.inventory_auto_tune),
+            "Learns inventory mode, session and power for each scan screen. Unchecked: fixed settings with the power above." to localizedContext.getString(R.string.inventory_auto_tune_helper),
             
             // Tag Configuration Section - ALL LANGUAGE VARIATIONS
             // Traditional Chinese (TC)
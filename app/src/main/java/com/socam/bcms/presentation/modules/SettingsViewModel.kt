@@ -9,11 +9,15 @@ import com.socam.bcms.BCMSApp
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.data.auth.TokenManager
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.database.DatabaseStats
 import com.socam.bcms.domain.AuthManager
+import com.socam.bcms.uhf.TuningScreen
+import com.socam.bcms.uhf.UHFManagerWrapper
 import com.socam.bcms.utils.LocaleHelper
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import java.util.Locale
 
 /**
  * SettingsViewModel - Handles settings screen business logic
@@ -52,6 +56,10 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
     private val _uhfPowerLevel = MutableLiveData<Int>(30)
     val uhfPowerLevel: LiveData<Int> = _uhfPowerLevel
     
+    // Adaptive inventory tuning (unchecked = manual override: fixed settings)
+    private val _inventoryAutoTune = MutableLiveData<Boolean>(true)
+    val inventoryAutoTune: LiveData<Boolean> = _inventoryAutoTune
+    
     // Language change callback
     private val _languageChangeRequested = MutableLiveData<String?>()
     val languageChangeRequested: LiveData<String?> = _languageChangeRequested
@@ -126,6 +134,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                 
                 println("SettingsViewModel: Loading UHF power setting - ${System.currentTimeMillis()}")
                 val powerJob = launch { loadUHFPowerSetting() }
+                _inventoryAutoTune.value = BCMSApp.inventoryAutoTune
                 
                 println("SettingsViewModel: Loading tag configuration settings - ${System.currentTimeMillis()}")
                 val tagConfigJob = launch { loadTagConfigurationSettings() }
@@ -230,7 +239,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
             val currentUser = cachedCurrentUser
             if (currentUser != null) {
                 val project = try {
-                    databaseManager.database.masterProjectQueries
+                    databaseManager.appDatabase.masterProjectQueries
                         .selectProjectById(currentUser.project_id)
                         .executeAsOneOrNull()
                 } catch (e: Exception) {
@@ -294,7 +303,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
             val currentUser = cachedCurrentUser
             if (currentUser != null) {
                 val project = try {
-                    databaseManager.database.masterProjectQueries
+                    databaseManager.appDatabase.masterProjectQueries
                         .selectProjectById(currentUser.project_id)
                         .executeAsOneOrNull()
                 } catch (e: Exception) {
@@ -357,7 +366,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
         try {
             // Get app version with fallback
             val versionSetting = try {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("app_version")
                     .executeAsOneOrNull()
             } catch (e: Exception) {
@@ -366,17 +375,25 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
 
             // Get current environment with fallback
             val currentEnv = try {
-                databaseManager.database.environmentConfigQueries
+                databaseManager.appDatabase.environmentConfigQueries
                     .selectActiveEnvironment()
                     .executeAsOneOrNull()
             } catch (e: Exception) {
                 null
             }
 
+            // Database file sizes (app file + active project file)
+            val databaseSize = try {
+                formatDatabaseSize(databaseManager.storageStats())
+            } catch (e: Exception) {
+                ""
+            }
+
             val appConfig = AppConfiguration(
                 appVersion = versionSetting?.setting_value ?: "1.0.0",
                 apiEndpoint = currentEnv?.base_url ?: "https://micservice.shuion.com.hk/api",
-                environmentName = currentEnv?.environment_name ?: "prod"
+                environmentName = currentEnv?.environment_name ?: "prod",
+                databaseSize = databaseSize
             )
 
             withContext(Dispatchers.Main) {
@@ -395,13 +412,23 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
         }
     }
 
+    /**
+     * Total size with the reclaimable part, e.g. "12.4 MB (1.1 MB free)"
+     */
+    private fun formatDatabaseSize(stats: List<DatabaseStats>): String {
+        val total = stats.sumOf { it.sizeBytes }
+        val free = stats.sumOf { it.freeBytes }
+        val mb = 1024.0 * 1024.0
+        return String.format(Locale.US, "%.1f MB (%.1f MB free)", total / mb, free / mb)
+    }
+
     /**
      * Load current language setting - fast with fallback
      */
     private suspend fun loadLanguageSetting(): Unit = withContext(Dispatchers.IO) {
         try {
             val languageSetting = try {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("app_language")
                     .executeAsOneOrNull()
             } catch (e: Exception) {
@@ -425,7 +452,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
     private suspend fun loadUHFPowerSetting(): Unit = withContext(Dispatchers.IO) {
         try {
             val powerSetting = try {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("uhf_power_level")
                     .executeAsOneOrNull()
             } catch (e: Exception) {
@@ -466,7 +493,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                 // Save to both database and SharedPreferences for consistency
                 withContext(Dispatchers.IO) {
                     // Save to database
-                    databaseManager.database.appSettingsQueries.updateSetting(
+                    databaseManager.appDatabase.appSettingsQueries.updateSetting(
                         setting_value = newLanguage,
                         setting_key = "app_language"
                     )
@@ -532,7 +559,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
 
                 // Update database first
                 withContext(Dispatchers.IO) {
-                    databaseManager.database.appSettingsQueries.updateSetting(
+                    databaseManager.appDatabase.appSettingsQueries.updateSetting(
                         setting_value = newPowerLevel.toString(),
                         setting_key = "uhf_power_level"
                     )
@@ -545,7 +572,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
 
                 // Update UHF hardware immediately (following Tag Modification pattern)
                 try {
-                    withContext(Dispatchers.IO) {
+                    withContext(UHFManagerWrapper.dispatcher) {
                         val uhfManager = BCMSApp.instance.uhfManager
                         if (uhfManager.isReady()) {
                             val success = uhfManager.setPower(newPowerLevel)
@@ -576,6 +603,48 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
         }
     }
 
+    /**
+     * Turn adaptive inventory tuning on / off for all scan screens
+     * Off is the manual override: screens use fixed inventory settings and the power above
+     */
+    fun updateInventoryAutoTune(enabled: Boolean): Unit {
+        if (enabled == BCMSApp.inventoryAutoTune) return
+        BCMSApp.inventoryAutoTune = enabled
+        _inventoryAutoTune.value = enabled
+        viewModelScope.launch {
+            try {
+                withContext(Dispatchers.IO) {
+                    databaseManager.appDatabase.appSettingsQueries
+                        .insertOrReplaceSettingByKey("inventory_auto_tune", enabled.toString())
+                }
+                println("SettingsViewModel: Inventory auto-tune set to $enabled")
+            } catch (e: Exception) {
+                println("SettingsViewModel: ERROR in updateInventoryAutoTune: ${e.message}")
+                _errorMessage.value = "Failed to save inventory tuning setting: ${e.message}"
+            }
+        }
+    }
+
+    /**
+     * Forget the inventory settings learned per screen; tuning restarts from the defaults
+     * (screens already open keep their in-memory state until they are reopened)
+     */
+    fun resetInventoryTuning(): Unit {
+        viewModelScope.launch {
+            try {
+                withContext(Dispatchers.IO) {
+                    TuningScreen.values().forEach { screen ->
+                        databaseManager.appDatabase.appSettingsQueries.deleteSetting(screen.settingKey)
+                    }
+                }
+                println("SettingsViewModel: Learned inventory settings cleared")
+            } catch (e: Exception) {
+                println("SettingsViewModel: ERROR in resetInventoryTuning: ${e.message}")
+                _errorMessage.value = "Failed to reset inventory tuning: ${e.message}"
+            }
+        }
+    }
+
     /**
      * Load tag configuration settings - prefix, tag contract, and reserved number
      */
@@ -583,7 +652,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
         try {
             // Load tag prefix from AppSettings
             val prefixSetting = try {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("tag_prefix")
                     .executeAsOneOrNull()
             } catch (e: Exception) {
@@ -596,7 +665,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
 
             // Load tag reserved number from AppSettings
             val reservedSetting = try {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("tag_reserved")
                     .executeAsOneOrNull()
             } catch (e: Exception) {
@@ -647,7 +716,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                     withContext(Dispatchers.IO) {
                         // Save tag prefix with proper error handling
                         try {
-                            val updateCount = databaseManager.database.appSettingsQueries.updateSetting(
+                            val updateCount = databaseManager.appDatabase.appSettingsQueries.updateSetting(
                                 setting_value = prefix,
                                 setting_key = "tag_prefix"
                             )
@@ -655,7 +724,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                         } catch (e: Exception) {
                             println("SettingsViewModel: Tag prefix update failed, inserting new record: ${e.message}")
                             // Insert if update fails (first time)
-                            databaseManager.database.appSettingsQueries.insertSetting(
+                            databaseManager.appDatabase.appSettingsQueries.insertSetting(
                                 setting_key = "tag_prefix",
                                 setting_value = prefix,
                                 setting_type = "STRING",
@@ -669,7 +738,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                         val currentUser = cachedCurrentUser ?: authManager.getCurrentUser()
                         if (currentUser != null) {
                             try {
-                                databaseManager.database.userQueries.updateUser(
+                                databaseManager.appDatabase.userQueries.updateUser(
                                     full_name = currentUser.full_name,
                                     email = currentUser.email,
                                     department = currentUser.department,
@@ -688,7 +757,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
 
                         // Save tag reserved number with proper error handling
                         try {
-                            val updateCount = databaseManager.database.appSettingsQueries.updateSetting(
+                            val updateCount = databaseManager.appDatabase.appSettingsQueries.updateSetting(
                                 setting_value = reserved,
                                 setting_key = "tag_reserved"
                             )
@@ -696,7 +765,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                         } catch (e: Exception) {
                             println("SettingsViewModel: Tag reserved update failed, inserting new record: ${e.message}")
                             // Insert if update fails (first time)
-                            databaseManager.database.appSettingsQueries.insertSetting(
+                            databaseManager.appDatabase.appSettingsQueries.insertSetting(
                                 setting_key = "tag_reserved",
                                 setting_value = reserved,
                                 setting_type = "STRING",
@@ -707,9 +776,9 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                         }
 
                         // Verify the save by reading back from database
-                        val verifyPrefix = databaseManager.database.appSettingsQueries
+                        val verifyPrefix = databaseManager.appDatabase.appSettingsQueries
                             .selectSettingByKey("tag_prefix").executeAsOneOrNull()?.setting_value
-                        val verifyReserved = databaseManager.database.appSettingsQueries
+                        val verifyReserved = databaseManager.appDatabase.appSettingsQueries
                             .selectSettingByKey("tag_reserved").executeAsOneOrNull()?.setting_value
                         
                         println("SettingsViewModel: Tag configuration saved successfully!")
@@ -868,7 +937,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                 commonBcTypes.forEach { bcType ->
                     // Get BC type code from mapping table
                     val bcTypeCode = try {
-                        databaseManager.database.bCTypeMappingQueries
+                        databaseManager.appDatabase.bCTypeMappingQueries
                             .selectNumericCodeByBcTypeAndProject(bcType, BuildConfig.PROJECT_ID)
                             .executeAsOneOrNull() ?: "404"
                     } catch (e: Exception) {
@@ -876,7 +945,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
                     }
                     
                     // Initialize with "0001" for new installations
-                    databaseManager.database.bCTypeSerialNumbersQueries.insertOrReplace(
+                    databaseManager.appDatabase.bCTypeSerialNumbersQueries.insertOrReplace(
                         bc_type = bcType,
                         bc_type_code = bcTypeCode,
                         serial_number = "0001",
@@ -923,7 +992,7 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
      */
     private suspend fun getCurrentLanguageFromSettings(): String = withContext(Dispatchers.IO) {
         try {
-            val languageSetting = databaseManager.database.appSettingsQueries
+            val languageSetting = databaseManager.appDatabase.appSettingsQueries
                 .selectSettingByKey("app_language")
                 .executeAsOneOrNull()
             languageSetting?.setting_value ?: "en"
@@ -985,7 +1054,8 @@ class SettingsViewModel(private val context: Context) : ViewModel() {
     data class AppConfiguration(
         val appVersion: String,
         val apiEndpoint: String,
-        val environmentName: String
+        val environmentName: String,
+        val databaseSize: String = ""
     )
     
     /**
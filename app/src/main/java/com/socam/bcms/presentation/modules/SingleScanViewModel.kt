@@ -3,6 +3,7 @@ package com.socam.bcms.presentation.modules
 import android.content.Context
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.socam.bcms.BCMSApp
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.R
 import com.socam.bcms.data.database.DatabaseManager
@@ -11,8 +12,15 @@ import com.socam.bcms.database.RfidModule
 import com.socam.bcms.database.MasterWorkflowSteps
 import com.socam.bcms.database.MasterContracts
 import com.socam.bcms.database.MasterCompanies
+import com.socam.bcms.uhf.InventoryAutoTuner
+import com.socam.bcms.uhf.TuningScreen
 import com.socam.bcms.uhf.UHFManagerWrapper
+import com.socam.bcms.model.BcTypeCodes
+import com.socam.bcms.model.PowerProfile
+import com.socam.bcms.model.SelectMask
+import com.socam.bcms.model.TagEpc
 import com.socam.bcms.model.TagStatus
+import com.socam.bcms.utils.AppLog
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
@@ -49,6 +57,13 @@ class SingleScanViewModel(
     private val scannedTags = mutableMapOf<String, TagScanData>()
     private var scanningJob: kotlinx.coroutines.Job? = null
     
+    // BC type code -> BC type, to drop other projects' tags at decode time
+    @Volatile
+    private var bcTypeCodes = BcTypeCodes.EMPTY
+    
+    // Inventory settings learned from this screen's scans (one tag at a time)
+    private val inventoryTuner = InventoryAutoTuner(TuningScreen.SINGLE_SCAN, viewModelScope, databaseManager)
+    
     init {
         // UHF is now initialized centrally in BCMSApp (following vendor demo pattern)
         // No need to initialize or power on here - just set ready status
@@ -59,6 +74,11 @@ class SingleScanViewModel(
         )
         
         println("SingleScanViewModel: ViewModel initialized - using singleton UHF manager from Application")
+        
+        viewModelScope.launch {
+            bcTypeCodes = withContext(Dispatchers.IO) { databaseManager.getBcTypeCodes() }
+            inventoryTuner.load()
+        }
     }
     
     // Hold-to-scan state management (following Tag Activation pattern)
@@ -85,9 +105,11 @@ class SingleScanViewModel(
                 val hasExistingResults = _uiState.value.tagDetails != null || _uiState.value.candidateTags.isNotEmpty()
                 Log.d(TAG, "Starting hold-to-scan with vendor demo pattern${if (hasExistingResults) " (RESCANNING - clearing ${_uiState.value.candidateTags.size} previous candidates)" else ""}")
                 
-                // CRITICAL: Ensure clean UHF state before starting
-                uhfManager.stopInventory()
-                Thread.sleep(100)
+                // CRITICAL: Ensure clean UHF state before starting (settle pause on the UHF thread)
+                withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.stopInventory()
+                    Thread.sleep(100)
+                }
                 
                 // Clear previous scan results (supports rescanning at any time)
                 scannedTags.clear()
@@ -103,8 +125,14 @@ class SingleScanViewModel(
                     showTagSelection = false       // Hide tag selection UI
                 )
 
-                // Start inventory using vendor demo pattern
-                val started = uhfManager.startInventory()
+                // Start inventory using vendor demo pattern; only activated tags answer
+                val tuning = inventoryTuner.begin(BCMSApp.powerSize)
+                val started = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.setSelectMask(SelectMask.ACTIVE_TAGS)
+                    uhfManager.applyInventoryTuning(tuning)
+                    uhfManager.applyPowerProfile(PowerProfile.INVENTORY, tuning.power)
+                    uhfManager.startInventory()
+                }
                 if (started) {
                     isScanning = true
                     startRealTimeScanningLoop()
@@ -133,10 +161,11 @@ class SingleScanViewModel(
                 Log.d(TAG, "Stopping scan - Manual selection mode")
                 
                 // Stop inventory
-                uhfManager.stopInventory()
                 isScanning = false
+                withContext(UHFManagerWrapper.dispatcher) { uhfManager.stopInventory() }
                 scanningJob?.cancel()
                 scanningJob = null
+                inventoryTuner.end()
                 
                 // Filter for ACTIVATED tags only (tags starting with "34")
                 val activatedTags = scannedTags.values.filter { 
@@ -330,9 +359,10 @@ class SingleScanViewModel(
                 try {
                 while (isActive && _uiState.value.scanningStatus == ScanningStatus.SCANNING) {
                     
-                    // CRITICAL: Read tag from buffer at 1ms intervals (vendor demo pattern)
-                    val tagData = uhfManager.readTagFromBuffer()
-                    tagData?.let { tag ->
+                    // CRITICAL: Drain the tag buffer on the UHF thread at 1ms intervals (vendor demo pattern)
+                    val tags = withContext(UHFManagerWrapper.dispatcher) { uhfManager.drainTagBuffer() }
+                    inventoryTuner.recordPoll(tags)
+                    for (tag in tags) {
                         // Process TagData object directly - no EPC reading during scan
                         processTagData(tag)
                     }
@@ -363,9 +393,15 @@ class SingleScanViewModel(
             
             // Auto mode: Only process ACTIVATED tags (original behavior)
             val enhancedStatus = getEnhancedTagStatusFromEpc(epc)
-                if (enhancedStatus != EnhancedTagStatus.ACTIVATE) {
-                    Log.d(TAG, "Auto mode - Tag filtered out: EPC=$epc, Status=$enhancedStatus")
-                    return
+            if (enhancedStatus != EnhancedTagStatus.ACTIVATE) {
+                AppLog.v(TAG) { "Auto mode - Tag filtered out: EPC=$epc, Status=$enhancedStatus" }
+                return
+            }
+            
+            // Tag number with a BC type code unknown to this project: never in our database
+            if (bcTypeCodes.isForeign(epc)) {
+                AppLog.v(TAG) { "Auto mode - Foreign tag filtered out: EPC=$epc" }
+                return
             }
             
             val scanData = TagScanData(
@@ -461,7 +497,7 @@ class SingleScanViewModel(
                 // 2. Get workflow steps for the BC Type and current user role
                 val currentUser = authManager.getCurrentUser()
                 val workflowSteps = if (rfidModule.BCType != null && currentUser != null) {
-                    val roleSteps = databaseManager.database.masterRolesQueries
+                    val roleSteps = databaseManager.appDatabase.masterRolesQueries
                         .selectStepsByRoleAndBcTypeAndProject(currentUser.role, rfidModule.BCType, BuildConfig.PROJECT_ID)
                         .executeAsList()
                     
@@ -543,7 +579,7 @@ class SingleScanViewModel(
      */
     private fun getEnhancedTagStatusFromEpc(epc: String): EnhancedTagStatus {
         return when {
-            epc.startsWith("34", ignoreCase = true) -> EnhancedTagStatus.ACTIVATE
+            TagEpc.isActive(epc) -> EnhancedTagStatus.ACTIVATE // Status byte 34
             else -> EnhancedTagStatus.INACTIVE
         }
     }
@@ -552,7 +588,7 @@ class SingleScanViewModel(
         super.onCleared()
         isScanning = false
         scanningJob?.cancel()
-        uhfManager.stopInventory()
+        uhfManager.post { stopInventory() }
         // Don't power off - keep UHF ready for other modules
     }
 }
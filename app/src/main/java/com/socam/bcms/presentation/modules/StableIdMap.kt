@@ -0,0 +1,29 @@
+package com.socam.bcms.presentation.modules
+
+/**
+ * Stable RecyclerView item ids for string keys (EPC, step code)
+ * A key keeps its id for the adapter's lifetime, so rows survive list refreshes and re-sorting
+ * Main thread only (called from getItemId)
+ */
+class StableIdMap {
+
+    private val ids = HashMap<String, Long>()
+
+    fun idOf(key: String): Long = ids.getOrPut(key) { ids.size.toLong() }
+}
+
+/**
+ * Positions in [new] whose key sat at another index in [old] (rows the diff moved or shifted)
+ * New keys are left out, inserted rows get a full bind anyway
+ */
+fun <T> movedPositions(old: List<T>, new: List<T>, key: (T) -> String): List<Int> {
+    if (old.isEmpty()) return emptyList()
+    val oldIndex = HashMap<String, Int>(old.size * 2)
+    old.forEachIndexed { index, item -> oldIndex[key(item)] = index }
+    val moved = ArrayList<Int>()
+    new.forEachIndexed { index, item ->
+        val previous = oldIndex[key(item)]
+        if (previous != null && previous != index) moved.add(index)
+    }
+    return moved
+}
@@ -7,10 +7,12 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.*
 import androidx.fragment.app.DialogFragment
+import androidx.core.widget.doAfterTextChanged
 import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
 import com.google.android.material.textfield.TextInputEditText
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import com.google.android.material.textfield.TextInputLayout
@@ -39,6 +41,8 @@ class StepFormDialogFragment : DialogFragment() {
     private var tagData: com.socam.bcms.database.RfidModule? = null
     private val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
     private val datetimeFormat = SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault())
+    private var unitSearchJob: Job? = null
+    private var unitSearchResults: List<DropdownOption> = emptyList()
 
     companion object {
         fun newInstance(stepCode: String, tagBcType: String, tagData: com.socam.bcms.database.RfidModule? = null): StepFormDialogFragment {
@@ -111,6 +115,39 @@ class StepFormDialogFragment : DialogFragment() {
             captureAllTextFieldValues()
             viewModel.saveStepForm()
         }
+        
+        setupUnitSearch()
+    }
+
+    /**
+     * Typeahead search for Unit - results come from the in-memory location tree
+     */
+    private fun setupUnitSearch(): Unit {
+        val searchInput = binding.unitSearchInput
+        
+        searchInput.doAfterTextChanged { editable ->
+            val query = editable?.toString() ?: ""
+            unitSearchJob?.cancel()
+            if (query.isBlank()) {
+                unitSearchResults = emptyList()
+                return@doAfterTextChanged
+            }
+            unitSearchJob = viewLifecycleOwner.lifecycleScope.launch {
+                val results = viewModel.searchLocations(query)
+                unitSearchResults = results
+                searchInput.setAdapter(UnfilteredAdapter(requireContext(), results.map { it.label }))
+                if (results.isNotEmpty() && searchInput.hasFocus()) {
+                    searchInput.showDropDown()
+                }
+            }
+        }
+        
+        searchInput.setOnItemClickListener { _, _, position, _ ->
+            val selected = unitSearchResults.getOrNull(position) ?: return@setOnItemClickListener
+            viewModel.selectLocation(selected.value)
+            searchInput.setText("", false)
+            searchInput.clearFocus()
+        }
     }
 
     private fun setupObservers(): Unit {
@@ -136,6 +173,9 @@ class StepFormDialogFragment : DialogFragment() {
         binding.saveButton.isEnabled = !state.isSaving && !state.isLoading
         binding.saveButton.text = if (state.isSaving) "Saving..." else "Save"
         
+        // Unit typeahead is only useful when the step has a Unit field
+        binding.unitSearchLayout.visibility = if (state.stepFields.any { it.fieldName == "Unit" }) View.VISIBLE else View.GONE
+        
         // Create form fields
         if (state.stepFields.isNotEmpty()) {
             if (binding.formFieldsContainer.childCount == 0) {
@@ -409,6 +449,29 @@ class StepFormDialogFragment : DialogFragment() {
 
     override fun onDestroyView() {
         super.onDestroyView()
+        unitSearchJob?.cancel()
         _binding = null
     }
+
+    /**
+     * Adapter that shows search results as-is (results are already filtered by the location index)
+     */
+    private class UnfilteredAdapter(
+        context: android.content.Context,
+        private val items: List<String>
+    ) : ArrayAdapter<String>(context, android.R.layout.simple_dropdown_item_1line, items) {
+
+        override fun getFilter(): Filter = object : Filter() {
+            override fun performFiltering(constraint: CharSequence?): FilterResults {
+                return FilterResults().apply {
+                    values = items
+                    count = items.size
+                }
+            }
+
+            override fun publishResults(constraint: CharSequence?, results: FilterResults?) {
+                notifyDataSetChanged()
+            }
+        }
+    }
 }
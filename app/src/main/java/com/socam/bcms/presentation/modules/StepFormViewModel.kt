@@ -4,6 +4,8 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.database.RfidModuleFieldWriter
+import com.socam.bcms.database.RfidModuleStepProgress
 import com.socam.bcms.database.WorkflowStepFields
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -22,10 +24,16 @@ class StepFormViewModel(
     private val _uiState = MutableStateFlow(StepFormUiState())
     val uiState: StateFlow<StepFormUiState> = _uiState.asStateFlow()
 
+    // Dropdown options and step portions are served from the in-memory master data cache
+    private val masterDataCache = databaseManager.masterDataCache
+
     private var currentTagBcType: String = ""
     private var currentRfidModule: com.socam.bcms.database.RfidModule? = null
     private var currentStepPortion: Int? = null
 
+    // Field values as loaded into the form - a field is dirty when its current value differs
+    private var initialFieldValues: Map<String, String> = emptyMap()
+
     /**
      * Load step fields for the given step code and auto-fill with tag data
      */
@@ -58,6 +66,15 @@ class StepFormViewModel(
                         .executeAsList()
                 }
 
+                // Progress of this step for the tag (Remark / Is Completed auto-fill)
+                val stepProgress = if (tagData != null) {
+                    withContext(Dispatchers.IO) {
+                        databaseManager.database.rfidModuleStepProgressQueries
+                            .selectProgress(tagData.Id, RfidModuleFieldWriter.progressPortion(portion).toLong())
+                            .executeAsOneOrNull()
+                    }
+                } else null
+
                 println("StepFormViewModel: Found ${stepFields.size} fields for step $stepCode")
                 stepFields.forEach { field ->
                     println("StepFormViewModel: Field - ${field.field_name}: ${field.field_type}")
@@ -65,7 +82,7 @@ class StepFormViewModel(
 
                 val fieldData = stepFields.map { field ->
                     val autoFilledValue = if (tagData != null && currentStepPortion != null) {
-                        getAutoFilledValue(field.field_name, currentStepPortion!!, tagData)
+                        getAutoFilledValue(field.field_name, tagData, stepProgress)
                     } else {
                         field.default_value ?: ""
                     }
@@ -133,9 +150,7 @@ class StepFormViewModel(
                                     // Try to find the correct location by RoomId
                                     val correctLocation = try {
                                         withContext(Dispatchers.IO) {
-                                            databaseManager.database.masterLocationsQueries
-                                                .selectLocationById(roomId)
-                                                .executeAsOneOrNull()
+                                            masterDataCache.locations().findRoom(roomId)?.location
                                         }
                                     } catch (e: Exception) {
                                         null
@@ -178,6 +193,8 @@ class StepFormViewModel(
                     }
                 }
 
+                initialFieldValues = fieldData.associate { it.fieldName to it.currentValue }
+
                 _uiState.value = _uiState.value.copy(
                     stepCode = stepCode,
                     stepFields = fieldData,
@@ -233,107 +250,51 @@ class StepFormViewModel(
         }
     }
 
+    /**
+     * Fields whose value differs from the value loaded into the form
+     */
+    fun getDirtyFields(): List<StepFieldData> {
+        return _uiState.value.stepFields.filter { it.currentValue != initialFieldValues[it.fieldName] }
+    }
+
     /**
      * Save step form data to RfidModule database
+     * Only the columns behind changed fields are written (one partial UPDATE)
      */
     fun saveStepForm(): Unit {
         viewModelScope.launch {
             try {
                 val stepCode = _uiState.value.stepCode
-                val stepFields = _uiState.value.stepFields
                 val rfidModule = currentRfidModule
                 
-                println("StepFormViewModel: Saving step form for: $stepCode")
-                println("StepFormViewModel: Current field values:")
-                stepFields.forEach { field ->
-                    println("  - ${field.fieldName}: '${field.currentValue}'")
-                }
-                
                 if (rfidModule == null) {
                     throw Exception("No RfidModule data available to save")
                 }
                 
-                _uiState.value = _uiState.value.copy(isSaving = true)
+                val dirtyFields = getDirtyFields()
+                println("StepFormViewModel: Saving step form for: $stepCode, changed fields: ${dirtyFields.map { it.fieldName }}")
                 
-                // Map form field values back to RfidModule fields
-                val updatedModule = updateRfidModuleFromFields(rfidModule, stepCode, stepFields)
+                _uiState.value = _uiState.value.copy(isSaving = true)
                 
-                println("StepFormViewModel: Updated module Remark10='${updatedModule.Remark10}', Remark20='${updatedModule.Remark20}'")
-
+                // Map changed form fields to RfidModule columns
+                val columnChanges = collectColumnChanges(stepCode, dirtyFields)
                 
-                // Save to database
-                withContext(Dispatchers.IO) {
-                    databaseManager.database.rfidModuleQueries.updateModule(
-                        ProjId = updatedModule.ProjId,
-                        ContractNo = updatedModule.ContractNo,
-                        ManufacturerId = updatedModule.ManufacturerId,
-                        TagId = updatedModule.TagId,
-                        IsActivated = updatedModule.IsActivated,
-                        ActivatedDate = updatedModule.ActivatedDate,
-                        BCType = updatedModule.BCType,
-                        RFIDTagNo = updatedModule.RFIDTagNo,
-                        StepCode = updatedModule.StepCode,
-                        Category = updatedModule.Category,
-                        Subcategory = updatedModule.Subcategory,
-                        SupplierId = updatedModule.SupplierId,
-                        ConcreteGrade = updatedModule.ConcreteGrade,
-                        ASN = updatedModule.ASN,
-                        SerialNo = updatedModule.SerialNo,
-                        WorkingNo = updatedModule.WorkingNo,
-                        ManufacturingDate = updatedModule.ManufacturingDate,
-                        RSCompanyId = updatedModule.RSCompanyId,
-                        RSInspectionDate = updatedModule.RSInspectionDate,
-                        CastingDate = updatedModule.CastingDate,
-                        FirstCastingDate = updatedModule.FirstCastingDate,
-                        SecondCastingDate = updatedModule.SecondCastingDate,
-                        WaterproofingInstallationDate = updatedModule.WaterproofingInstallationDate,
-                        InternalFinishDate = updatedModule.InternalFinishDate,
-                        DeliveryDate = updatedModule.DeliveryDate,
-                        BatchNo = updatedModule.BatchNo,
-                        LicensePlateNo = updatedModule.LicensePlateNo,
-                        GpsDeviceId = updatedModule.GpsDeviceId,
-                        SiteArrivalDate = updatedModule.SiteArrivalDate,
-                        SiteInstallationDate = updatedModule.SiteInstallationDate,
-                        RoomInput = updatedModule.RoomInput,
-                        RoomId = updatedModule.RoomId,
-                        Floor = updatedModule.Floor,
-                        Region = updatedModule.Region,
-                        ChipFailureSA = updatedModule.ChipFailureSA,
-                        ChipFailureSI = updatedModule.ChipFailureSI,
-                        IsCompleted10 = updatedModule.IsCompleted10,
-                        Remark10 = updatedModule.Remark10,
-                        IsCompleted20 = updatedModule.IsCompleted20,
-                        Remark20 = updatedModule.Remark20,
-                        IsCompleted30 = updatedModule.IsCompleted30,
-                        Remark30 = updatedModule.Remark30,
-                        IsCompleted40 = updatedModule.IsCompleted40,
-                        Remark40 = updatedModule.Remark40,
-                        IsCompleted50 = updatedModule.IsCompleted50,
-                        Remark50 = updatedModule.Remark50,
-                        IsCompleted55 = updatedModule.IsCompleted55,
-                        Remark55 = updatedModule.Remark55,
-                        IsCompleted60 = updatedModule.IsCompleted60,
-                        Remark60 = updatedModule.Remark60,
-                        IsCompleted70 = updatedModule.IsCompleted70,
-                        Remark70 = updatedModule.Remark70,
-                        IsCompleted80 = updatedModule.IsCompleted80,
-                        Remark80 = updatedModule.Remark80,
-                        Dispose = updatedModule.Dispose,
-                        UpdatedBy = updatedModule.UpdatedBy,
-                        ProductNo = updatedModule.ProductNo,
-                        Id = updatedModule.Id // WHERE clause parameter comes last
-                    )
+                if (columnChanges.isEmpty()) {
+                    println("StepFormViewModel: No changes to save")
+                } else {
+                    withContext(Dispatchers.IO) {
+                        databaseManager.moduleFieldWriter.updateFields(rfidModule.Id, columnChanges)
+                    }
+                    initialFieldValues = _uiState.value.stepFields.associate { it.fieldName to it.currentValue }
                 }
                 
                 _uiState.value = _uiState.value.copy(
                     isSaving = false,
-                    isFormSaved = true
+                    isFormSaved = true,
+                    savedColumns = columnChanges.keys
                 )
                 
-                println("StepFormViewModel: Step form saved successfully")
-                stepFields.forEach { field ->
-                    println("StepFormViewModel: Saved ${field.fieldName} = ${field.currentValue}")
-                }
+                println("StepFormViewModel: Step form saved successfully (${columnChanges.size} column(s): ${columnChanges.keys})")
                 
             } catch (e: Exception) {
                 println("StepFormViewModel: Error saving step form: ${e.message}")
@@ -347,66 +308,55 @@ class StepFormViewModel(
     }
 
     /**
-     * Map form field values back to RfidModule fields
+     * Map changed form fields to RfidModule column values (column name → value)
      */
-    private fun updateRfidModuleFromFields(
-        originalModule: com.socam.bcms.database.RfidModule,
+    private fun collectColumnChanges(
         stepCode: String,
-        stepFields: List<StepFieldData>
-    ): com.socam.bcms.database.RfidModule {
+        dirtyFields: List<StepFieldData>
+    ): LinkedHashMap<String, Any?> {
+        
+        val changes = LinkedHashMap<String, Any?>()
+        if (dirtyFields.isEmpty()) return changes
         
-        // Create a mutable copy of the original module
-        var updatedModule = originalModule.copy()
         val stepPortion = currentStepPortion ?: throw Exception("Step portion not loaded for step: $stepCode")
         
-        println("StepFormViewModel: Updating module fields using portion: $stepPortion")
+        println("StepFormViewModel: Mapping changed fields using portion: $stepPortion")
         
-        // Update fields based on form input
-        stepFields.forEach { field ->
+        dirtyFields.forEach { field ->
+            val value = field.currentValue
             when (field.fieldName) {
                 // General RfidModule fields
-                "Category" -> updatedModule = updatedModule.copy(Category = field.currentValue)
-                "Subcategory" -> updatedModule = updatedModule.copy(Subcategory = field.currentValue)
-                "Serial No." -> updatedModule = updatedModule.copy(SerialNo = field.currentValue)
-                "Edit Serial No." -> updatedModule = updatedModule.copy(SerialNo = field.currentValue)
-                "Hinge Supplier" -> updatedModule = updatedModule.copy(SupplierId = field.currentValue)
-                "Manufacturing Date" -> {
-                    val timestamp = parseDateToTimestamp(field.currentValue)
-                    println("StepFormViewModel: DEBUG - Saving Manufacturing Date: '${field.currentValue}' -> timestamp: $timestamp")
-                    updatedModule = updatedModule.copy(ManufacturingDate = timestamp)
-                }
-                "Concrete Grade" -> updatedModule = updatedModule.copy(ConcreteGrade = field.currentValue)
-                "Product No." -> updatedModule = updatedModule.copy(ProductNo = field.currentValue)
-                "RS Company" -> updatedModule = updatedModule.copy(RSCompanyId = field.currentValue)
-                "RS Inspection Date" -> updatedModule = updatedModule.copy(RSInspectionDate = parseDateToTimestamp(field.currentValue))
-                "Casting Date" -> updatedModule = updatedModule.copy(CastingDate = parseDateToTimestamp(field.currentValue))
-                "Casting Date 2" -> updatedModule = updatedModule.copy(SecondCastingDate = parseDateToTimestamp(field.currentValue))
-                "Internal Finishes Date" -> updatedModule = updatedModule.copy(InternalFinishDate = parseDateToTimestamp(field.currentValue))
-                "Delivery Date" -> updatedModule = updatedModule.copy(DeliveryDate = parseDateToTimestamp(field.currentValue))
-                "Batch No." -> updatedModule = updatedModule.copy(BatchNo = field.currentValue)
-                "T Plate No." -> updatedModule = updatedModule.copy(BatchNo = field.currentValue) // T Plate No. updates BatchNo
+                "Category" -> changes["Category"] = value
+                "Subcategory" -> changes["Subcategory"] = value
+                "Serial No." -> changes["SerialNo"] = value
+                "Edit Serial No." -> changes["SerialNo"] = value
+                "Hinge Supplier" -> changes["SupplierId"] = value
+                "Manufacturing Date" -> changes["ManufacturingDate"] = parseDateToTimestamp(value)
+                "Concrete Grade" -> changes["ConcreteGrade"] = value
+                "Product No." -> changes["ProductNo"] = value
+                "RS Company" -> changes["RSCompanyId"] = value
+                "RS Inspection Date" -> changes["RSInspectionDate"] = parseDateToTimestamp(value)
+                "Casting Date" -> changes["CastingDate"] = parseDateToTimestamp(value)
+                "Casting Date 2" -> changes["SecondCastingDate"] = parseDateToTimestamp(value)
+                "Internal Finishes Date" -> changes["InternalFinishDate"] = parseDateToTimestamp(value)
+                "Delivery Date" -> changes["DeliveryDate"] = parseDateToTimestamp(value)
+                "Batch No." -> changes["BatchNo"] = value
+                "T Plate No." -> changes["BatchNo"] = value // T Plate No. updates BatchNo
                 "License Plate No." -> {
                     // Read-only field - do not update
                     println("StepFormViewModel: License Plate No. is read-only, skipping update")
                 }
-                "Site Arrival Date" -> updatedModule = updatedModule.copy(SiteArrivalDate = parseDateToTimestamp(field.currentValue))
-                "Installation Date" -> updatedModule = updatedModule.copy(SiteInstallationDate = parseDateToTimestamp(field.currentValue))
-                "Block" -> updatedModule = updatedModule.copy(Region = field.currentValue)
-                "Floor" -> updatedModule = updatedModule.copy(Floor = field.currentValue)
-                "Unit" -> updatedModule = updatedModule.copy(RoomId = field.currentValue)
-                "Chip Failure (SA)" -> updatedModule = updatedModule.copy(ChipFailureSA = if (field.currentValue.toBoolean()) 1 else 0)
-                "Chip Failure (SI)" -> updatedModule = updatedModule.copy(ChipFailureSI = if (field.currentValue.toBoolean()) 1 else 0)
+                "Site Arrival Date" -> changes["SiteArrivalDate"] = parseDateToTimestamp(value)
+                "Installation Date" -> changes["SiteInstallationDate"] = parseDateToTimestamp(value)
+                "Block" -> changes["Region"] = value
+                "Floor" -> changes["Floor"] = value
+                "Unit" -> changes["RoomId"] = value
+                "Chip Failure (SA)" -> changes["ChipFailureSA"] = if (value.toBoolean()) 1L else 0L
+                "Chip Failure (SI)" -> changes["ChipFailureSI"] = if (value.toBoolean()) 1L else 0L
                 
                 // Step-specific fields
-                "Remark" -> {
-                    println("StepFormViewModel: Updating Remark field - stepPortion='$stepPortion', value='${field.currentValue}'")
-                    updatedModule = updateRemarkField(updatedModule, stepPortion, field.currentValue)
-                }
-                "Is Completed" -> {
-                    val isCompleted = if (field.currentValue.toBoolean()) 1L else 0L
-                    println("StepFormViewModel: Updating IsCompleted field - stepPortion='$stepPortion', value=$isCompleted")
-                    updatedModule = updateIsCompletedField(updatedModule, stepPortion, isCompleted)
-                }
+                "Remark" -> changes[remarkColumn(stepPortion)] = value
+                "Is Completed" -> changes[isCompletedColumn(stepPortion)] = if (value.toBoolean()) 1L else 0L
                 
                 else -> {
                     println("StepFormViewModel: Unknown field: ${field.fieldName}")
@@ -414,43 +364,27 @@ class StepFormViewModel(
             }
         }
         
-        return updatedModule
+        return changes
     }
     
     /**
-     * Update remark field based on step portion from MasterWorkflowSteps
+     * Remark step field for a step portion from MasterWorkflowSteps
      */
-    private fun updateRemarkField(module: com.socam.bcms.database.RfidModule, stepPortion: Int, value: String): com.socam.bcms.database.RfidModule {
-        return when (stepPortion) {
-            10 -> module.copy(Remark10 = value)
-            20 -> module.copy(Remark20 = value)
-            30 -> module.copy(Remark30 = value)
-            40 -> module.copy(Remark40 = value)
-            50 -> module.copy(Remark50 = value)
-            55 -> module.copy(Remark55 = value)
-            60 -> module.copy(Remark60 = value)
-            70 -> module.copy(Remark70 = value)
-            80 -> module.copy(Remark80 = value)
-            else -> throw Exception("Invalid step portion: $stepPortion. No matching Remark field found.")
+    private fun remarkColumn(stepPortion: Int): String {
+        if (stepPortion <= 0) {
+            throw Exception("Invalid step portion: $stepPortion. No matching Remark field found.")
         }
+        return RfidModuleFieldWriter.remarkField(stepPortion)
     }
     
     /**
-     * Update IsCompleted field based on step portion from MasterWorkflowSteps
+     * IsCompleted step field for a step portion from MasterWorkflowSteps
      */
-    private fun updateIsCompletedField(module: com.socam.bcms.database.RfidModule, stepPortion: Int, value: Long): com.socam.bcms.database.RfidModule {
-        return when (stepPortion) {
-            10 -> module.copy(IsCompleted10 = value)
-            20 -> module.copy(IsCompleted20 = value)
-            30 -> module.copy(IsCompleted30 = value)
-            40 -> module.copy(IsCompleted40 = value)
-            50 -> module.copy(IsCompleted50 = value)
-            55 -> module.copy(IsCompleted55 = value)
-            60 -> module.copy(IsCompleted60 = value)
-            70 -> module.copy(IsCompleted70 = value)
-            80 -> module.copy(IsCompleted80 = value)
-            else -> throw Exception("Invalid step portion: $stepPortion. No matching IsCompleted field found.")
+    private fun isCompletedColumn(stepPortion: Int): String {
+        if (stepPortion <= 0) {
+            throw Exception("Invalid step portion: $stepPortion. No matching IsCompleted field found.")
         }
+        return RfidModuleFieldWriter.isCompletedField(stepPortion)
     }
     
     /**
@@ -472,6 +406,7 @@ class StepFormViewModel(
      * Reset form state
      */
     fun resetForm(): Unit {
+        initialFieldValues = emptyMap()
         _uiState.value = StepFormUiState()
     }
 
@@ -483,46 +418,35 @@ class StepFormViewModel(
             try {
                 when (fieldName) {
                     "Category" -> {
-                        databaseManager.database.masterCategoriesQueries
-                            .selectCategoriesByTypeAndFlag(bcType, 0)
-                            .executeAsList()
+                        masterDataCache.categories()
+                            .byBcType(bcType, isSubcategory = false)
                             .map { DropdownOption(it.category, it.category) }
                     }
                     "Subcategory" -> {
-                        databaseManager.database.masterCategoriesQueries
-                            .selectCategoriesByTypeAndFlag(bcType, 1)
-                            .executeAsList()
+                        masterDataCache.categories()
+                            .byBcType(bcType, isSubcategory = true)
                             .map { DropdownOption(it.category, it.category) }
                     }
                     "Hinge Supplier" -> {
-                        databaseManager.database.masterCompaniesQueries
-                            .selectCompaniesByTypeAndBcTypeWithWildcard("HingeSupplier", bcType)
-                            .executeAsList()
+                        masterDataCache.companies()
+                            .byTypeAndBcType("HingeSupplier", bcType)
                             .map { DropdownOption(it.name_en ?: it.id, it.id) }
                     }
                     "RS Company" -> {
-                        databaseManager.database.masterCompaniesQueries
-                            .selectCompaniesByTypeAndBcTypeWithWildcard("RSCompany", bcType)
-                            .executeAsList()
+                        masterDataCache.companies()
+                            .byTypeAndBcType("RSCompany", bcType)
                             .map { DropdownOption(it.name_en ?: it.id, it.id) }
                     }
                     "Concrete Grade" -> {
-                        databaseManager.database.masterConcreteGradesQueries
-                            .selectAllConcreteGrades()
-                            .executeAsList()
+                        masterDataCache.concreteGrades()
                             .map { DropdownOption(it.grade, it.grade) }
                     }
                     "Block" -> {
                         // Show distinct regions from MasterLocations
                         try {
-                            val locations = databaseManager.database.masterLocationsQueries
-                                .selectAllLocations()
-                                .executeAsList()
-                            
-                            println("StepFormViewModel: Block dropdown - Found ${locations.size} total locations")
-                            val blockOptions = locations.map { location ->
-                                DropdownOption(label = location.region ?: "", value = location.region ?: "")
-                            }.distinctBy { it.value }.filter { it.value.isNotEmpty() }
+                            val blockOptions = masterDataCache.locations().regionNames.map { region ->
+                                DropdownOption(label = region, value = region)
+                            }
                             println("StepFormViewModel: Block dropdown - Created ${blockOptions.size} block options: ${blockOptions.map { it.label }}")
                             blockOptions
                         } catch (e: Exception) {
@@ -559,13 +483,9 @@ class StepFormViewModel(
         return withContext(Dispatchers.IO) {
             try {
                 // Now using MasterLocations instead of MasterRegions
-                val locations = databaseManager.database.masterLocationsQueries
-                    .selectAllLocations()
-                    .executeAsList()
-                
-                locations.map { location ->
-                    DropdownOption(label = location.region ?: "", value = location.region ?: "")
-                }.distinctBy { it.value }.filter { it.value.isNotEmpty() }
+                masterDataCache.locations().regionNames.map { region ->
+                    DropdownOption(label = region, value = region)
+                }
             } catch (e: Exception) {
                 println("StepFormViewModel: Error getting block options: ${e.message}")
                 emptyList()
@@ -579,12 +499,10 @@ class StepFormViewModel(
     private suspend fun getFloorOptions(selectedBlock: String): List<DropdownOption> {
         return withContext(Dispatchers.IO) {
             try {
-                val locations = databaseManager.database.masterLocationsQueries
-                    .selectLocationsByRegion(selectedBlock)
-                    .executeAsList()
+                val floors = masterDataCache.locations().floorsOf(selectedBlock)
                 
-                println("StepFormViewModel: getFloorOptions - Found ${locations.size} locations for block '$selectedBlock'")
-                val floorOptions = locations.mapNotNull { it.floor }.distinct().map { floor ->
+                println("StepFormViewModel: getFloorOptions - Found ${floors.size} floors for block '$selectedBlock'")
+                val floorOptions = floors.map { floor ->
                     DropdownOption(label = floor, value = floor)
                 }
                 println("StepFormViewModel: getFloorOptions - Created ${floorOptions.size} floor options: ${floorOptions.map { it.label }}")
@@ -602,13 +520,11 @@ class StepFormViewModel(
     private suspend fun getUnitOptions(selectedBlock: String, selectedFloor: String): List<DropdownOption> {
         return withContext(Dispatchers.IO) {
             try {
-                val locations = databaseManager.database.masterLocationsQueries
-                    .selectLocationsByRegionAndFloor(selectedBlock, selectedFloor)
-                    .executeAsList()
+                val rooms = masterDataCache.locations().roomsOf(selectedBlock, selectedFloor)
                 
-                println("StepFormViewModel: getUnitOptions - Found ${locations.size} locations for block '$selectedBlock', floor '$selectedFloor'")
-                val unitOptions = locations.map { location ->
-                    DropdownOption(label = location.room ?: location.room_id, value = location.room_id)
+                println("StepFormViewModel: getUnitOptions - Found ${rooms.size} rooms for block '$selectedBlock', floor '$selectedFloor'")
+                val unitOptions = rooms.map { room ->
+                    DropdownOption(label = room.label, value = room.roomId)
                 }
                 println("StepFormViewModel: getUnitOptions - Created ${unitOptions.size} unit options: ${unitOptions.map { "${it.label} (${it.value})" }}")
                 unitOptions
@@ -619,6 +535,68 @@ class StepFormViewModel(
         }
     }
 
+    /**
+     * Typeahead search over all rooms by partial room, area group or floor name (in-memory)
+     * Option value is the room_id, label shows where the room is
+     */
+    suspend fun searchLocations(query: String): List<DropdownOption> {
+        if (query.isBlank()) return emptyList()
+        return withContext(Dispatchers.Default) {
+            try {
+                masterDataCache.locations().search(query).map { room ->
+                    val place = listOfNotNull(room.region, room.floor, room.areaGroup).joinToString(" / ")
+                    DropdownOption(label = "${room.label} ($place)", value = room.roomId)
+                }
+            } catch (e: Exception) {
+                println("StepFormViewModel: Error searching locations for '$query': ${e.message}")
+                emptyList()
+            }
+        }
+    }
+
+    /**
+     * Select a room from typeahead search - fills Block, Floor and Unit in one update
+     */
+    fun selectLocation(roomId: String): Unit {
+        viewModelScope.launch {
+            try {
+                val tree = withContext(Dispatchers.IO) { masterDataCache.locations() }
+                val room = tree.findRoom(roomId)
+                val region = room?.region
+                val floor = room?.floor
+                if (room == null || region.isNullOrEmpty() || floor == null) {
+                    println("StepFormViewModel: Location '$roomId' not found in location tree")
+                    return@launch
+                }
+                
+                val currentFields = _uiState.value.stepFields.toMutableList()
+                val blockIndex = currentFields.indexOfFirst { it.fieldName == "Block" }
+                if (blockIndex != -1) {
+                    currentFields[blockIndex] = currentFields[blockIndex].copy(currentValue = region)
+                }
+                val floorIndex = currentFields.indexOfFirst { it.fieldName == "Floor" }
+                if (floorIndex != -1) {
+                    currentFields[floorIndex] = currentFields[floorIndex].copy(
+                        currentValue = floor,
+                        dropdownOptions = tree.floorsOf(region).map { DropdownOption(label = it, value = it) }
+                    )
+                }
+                val unitIndex = currentFields.indexOfFirst { it.fieldName == "Unit" }
+                if (unitIndex != -1) {
+                    currentFields[unitIndex] = currentFields[unitIndex].copy(
+                        currentValue = room.roomId,
+                        dropdownOptions = tree.roomsOf(region, floor).map { DropdownOption(label = it.label, value = it.roomId) }
+                    )
+                }
+                
+                _uiState.value = _uiState.value.copy(stepFields = currentFields)
+                println("StepFormViewModel: Selected location '${room.label}' - Block='$region', Floor='$floor'")
+            } catch (e: Exception) {
+                println("StepFormViewModel: Error selecting location: ${e.message}")
+            }
+        }
+    }
+
     /**
      * Update cascading dropdowns for Block/Floor/Unit
      */
@@ -707,17 +685,16 @@ class StepFormViewModel(
     /**
      * Get auto-filled value for a field based on RfidModule data
      */
-    private fun getAutoFilledValue(fieldName: String, stepPortion: Int, tagData: com.socam.bcms.database.RfidModule): String {
+    private fun getAutoFilledValue(
+        fieldName: String,
+        tagData: com.socam.bcms.database.RfidModule,
+        stepProgress: RfidModuleStepProgress?
+    ): String {
         return try {
             when (fieldName) {
-                // Step-specific fields (based on step portion from MasterWorkflowSteps)
-                "Remark" -> {
-                    getRemarkField(tagData, stepPortion) ?: ""
-                }
-                "Is Completed" -> {
-                    val isCompleted = getIsCompletedField(tagData, stepPortion) ?: 0
-                    (isCompleted == 1L).toString()
-                }
+                // Step-specific fields (progress row of the current step portion)
+                "Remark" -> stepProgress?.remark ?: ""
+                "Is Completed" -> (stepProgress?.is_completed == 1L).toString()
                 
                 // Common fields by name matching
                 "Category" -> tagData.Category ?: ""
@@ -761,16 +738,12 @@ class StepFormViewModel(
     }
 
     /**
-     * Get step portion from MasterWorkflowSteps table
+     * Get step portion from MasterWorkflowSteps (cached)
      */
     private suspend fun getStepPortion(stepCode: String, bcType: String): Int? {
         return withContext(Dispatchers.IO) {
             try {
-                val workflowStep = databaseManager.database.masterWorkflowStepsQueries
-                    .selectWorkflowStepByKey(stepCode, bcType)
-                    .executeAsOneOrNull()
-                
-                workflowStep?.portion?.toInt()
+                masterDataCache.getStepPortion(stepCode, bcType)
             } catch (e: Exception) {
                 println("StepFormViewModel: Error getting step portion: ${e.message}")
                 null
@@ -778,42 +751,6 @@ class StepFormViewModel(
         }
     }
 
-    /**
-     * Get remark field based on step portion from MasterWorkflowSteps
-     */
-    private fun getRemarkField(tagData: com.socam.bcms.database.RfidModule, stepPortion: Int): String? {
-        return when (stepPortion) {
-            10 -> tagData.Remark10
-            20 -> tagData.Remark20
-            30 -> tagData.Remark30
-            40 -> tagData.Remark40
-            50 -> tagData.Remark50
-            55 -> tagData.Remark55
-            60 -> tagData.Remark60
-            70 -> tagData.Remark70
-            80 -> tagData.Remark80
-            else -> null
-        }
-    }
-
-    /**
-     * Get IsCompleted field based on step portion from MasterWorkflowSteps
-     */
-    private fun getIsCompletedField(tagData: com.socam.bcms.database.RfidModule, stepPortion: Int): Long? {
-        return when (stepPortion) {
-            10 -> tagData.IsCompleted10
-            20 -> tagData.IsCompleted20
-            30 -> tagData.IsCompleted30
-            40 -> tagData.IsCompleted40
-            50 -> tagData.IsCompleted50
-            55 -> tagData.IsCompleted55
-            60 -> tagData.IsCompleted60
-            70 -> tagData.IsCompleted70
-            80 -> tagData.IsCompleted80
-            else -> null
-        }
-    }
-
     /**
      * Format timestamp to date string
      */
@@ -837,6 +774,7 @@ data class StepFormUiState(
     val isLoading: Boolean = false,
     val isSaving: Boolean = false,
     val isFormSaved: Boolean = false,
+    val savedColumns: Set<String> = emptySet(),
     val error: String? = null
 )
 
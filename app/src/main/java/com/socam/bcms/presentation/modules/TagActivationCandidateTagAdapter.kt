@@ -2,6 +2,8 @@ package com.socam.bcms.presentation.modules
 
 import android.view.LayoutInflater
 import android.view.ViewGroup
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.socam.bcms.databinding.ItemTagActivationCandidateTagBinding
 import com.socam.bcms.model.TagStatus
@@ -9,12 +11,26 @@ import com.socam.bcms.model.TagStatus
 /**
  * RecyclerView adapter for displaying candidate tags in Tag Activation manual selection
  * Shows INACTIVE tags for activation selection
+ *
+ * List updates are diffed on a background thread (stable ids keyed by EPC);
+ * RSSI-only changes and rank shifts rebind just those views
  */
 class TagActivationCandidateTagAdapter(
     private val onTagSelected: (TagActivationCandidateTag) -> Unit
-) : RecyclerView.Adapter<TagActivationCandidateTagAdapter.TagActivationCandidateTagViewHolder>() {
+) : ListAdapter<TagActivationCandidateTag, TagActivationCandidateTagAdapter.TagActivationCandidateTagViewHolder>(DiffCallback()) {
 
-    private var candidateTags = emptyList<TagActivationCandidateTag>()
+    companion object {
+        private const val PAYLOAD_RSSI = "rssi"
+        private const val PAYLOAD_RANK = "rank"
+    }
+
+    private val stableIds = StableIdMap()
+
+    init {
+        setHasStableIds(true)
+    }
+
+    override fun getItemId(position: Int): Long = stableIds.idOf(getItem(position).epc)
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): TagActivationCandidateTagViewHolder {
         val binding = ItemTagActivationCandidateTagBinding.inflate(
@@ -26,17 +42,31 @@ class TagActivationCandidateTagAdapter(
     }
 
     override fun onBindViewHolder(holder: TagActivationCandidateTagViewHolder, position: Int) {
-        holder.bind(candidateTags[position], position + 1) // 1-based ranking
+        holder.bind(getItem(position), position + 1) // 1-based ranking
     }
 
-    override fun getItemCount(): Int = candidateTags.size
+    override fun onBindViewHolder(
+        holder: TagActivationCandidateTagViewHolder,
+        position: Int,
+        payloads: MutableList<Any>
+    ) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position)
+            return
+        }
+        if (PAYLOAD_RSSI in payloads) holder.bindRssi(getItem(position))
+        if (PAYLOAD_RANK in payloads) holder.bindRank(position + 1)
+    }
 
     /**
      * Update candidate tags list
      */
     fun updateCandidateTags(newTags: List<TagActivationCandidateTag>): Unit {
-        candidateTags = newTags
-        notifyDataSetChanged()
+        val previous = currentList
+        submitList(newTags) {
+            // Moved rows are not rebound by the diff, refresh the rank badge of those rows only
+            movedPositions(previous, newTags) { it.epc }.forEach { notifyItemChanged(it, PAYLOAD_RANK) }
+        }
     }
 
     /**
@@ -46,14 +76,19 @@ class TagActivationCandidateTagAdapter(
         private val binding: ItemTagActivationCandidateTagBinding
     ) : RecyclerView.ViewHolder(binding.root) {
 
+        init {
+            // Resolve the item on click so partial binds never leave a stale tag in the listener
+            binding.root.setOnClickListener {
+                val position = adapterPosition
+                if (position != RecyclerView.NO_POSITION) {
+                    onTagSelected(getItem(position))
+                }
+            }
+        }
+
         fun bind(candidateTag: TagActivationCandidateTag, rank: Int): Unit {
             
-            binding.rankBadge.text = when (rank) {
-                1 -> "1st"
-                2 -> "2nd" 
-                3 -> "3rd"
-                else -> "${rank}th"
-            }
+            bindRank(rank)
             
             // Status badge (all should be INACTIVE since pre-filtered for activation)
             binding.statusBadge.text = when (candidateTag.tagStatus) {
@@ -77,15 +112,7 @@ class TagActivationCandidateTagAdapter(
             }
             
             // RSSI value with color coding
-            binding.rssiValue.text = "${candidateTag.rssiDbm} dBm"
-            
-            // Set RSSI color based on signal strength
-            val rssiColor = when {
-                candidateTag.rssiDbm >= -40 -> context.getColor(com.socam.bcms.R.color.success)
-                candidateTag.rssiDbm >= -60 -> context.getColor(com.socam.bcms.R.color.warning) 
-                else -> context.getColor(com.socam.bcms.R.color.error)
-            }
-            binding.rssiValue.setTextColor(rssiColor)
+            bindRssi(candidateTag)
             
             // For Tag Activation, we show inactive status
             binding.bcType.text = "INACTIVE"
@@ -93,11 +120,44 @@ class TagActivationCandidateTagAdapter(
             
             // EPC value (formatted for readability)
             binding.epcValue.text = candidateTag.epc
+        }
+
+        fun bindRank(rank: Int): Unit {
+            binding.rankBadge.text = when (rank) {
+                1 -> "1st"
+                2 -> "2nd" 
+                3 -> "3rd"
+                else -> "${rank}th"
+            }
+        }
+
+        fun bindRssi(candidateTag: TagActivationCandidateTag): Unit {
+            val context = binding.root.context
+            binding.rssiValue.text = "${candidateTag.rssiDbm} dBm"
             
-            // Click handler
-            binding.root.setOnClickListener {
-                onTagSelected(candidateTag)
+            // Set RSSI color based on signal strength
+            val rssiColor = when {
+                candidateTag.rssiDbm >= -40 -> context.getColor(com.socam.bcms.R.color.success)
+                candidateTag.rssiDbm >= -60 -> context.getColor(com.socam.bcms.R.color.warning) 
+                else -> context.getColor(com.socam.bcms.R.color.error)
             }
+            binding.rssiValue.setTextColor(rssiColor)
+        }
+    }
+
+    private class DiffCallback : DiffUtil.ItemCallback<TagActivationCandidateTag>() {
+        override fun areItemsTheSame(oldItem: TagActivationCandidateTag, newItem: TagActivationCandidateTag): Boolean {
+            return oldItem.epc == newItem.epc
+        }
+
+        override fun areContentsTheSame(oldItem: TagActivationCandidateTag, newItem: TagActivationCandidateTag): Boolean {
+            return oldItem == newItem
+        }
+
+        override fun getChangePayload(oldItem: TagActivationCandidateTag, newItem: TagActivationCandidateTag): Any? {
+            // Only the signal changed: rebind the RSSI view, keep the rest of the row
+            val rssiOnly = oldItem.copy(rssiDbm = newItem.rssiDbm, rssiRaw = newItem.rssiRaw) == newItem
+            return if (rssiOnly) PAYLOAD_RSSI else null
         }
     }
 }
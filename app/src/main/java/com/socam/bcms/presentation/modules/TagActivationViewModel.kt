@@ -5,13 +5,20 @@ import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
+import com.socam.bcms.BCMSApp
 import com.socam.bcms.BuildConfig
 import com.socam.bcms.R
 import com.socam.bcms.data.database.DatabaseManager
 import com.socam.bcms.domain.AuthManager
+import com.socam.bcms.uhf.InventoryAutoTuner
+import com.socam.bcms.uhf.TuningScreen
 import com.socam.bcms.uhf.UHFManagerWrapper
+import com.socam.bcms.model.PowerProfile
+import com.socam.bcms.model.SelectMask
+import com.socam.bcms.model.TagEpc
 import com.socam.bcms.model.TagStatus
 import com.socam.bcms.model.TagStatusOptions
+import com.socam.bcms.utils.AppLog
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -58,10 +65,15 @@ class TagActivationViewModel(
     private var scanningJob: Job? = null
     private val scannedTags = mutableMapOf<String, TagActivationData>()
 
+    // Inventory settings learned at the activation desk; read power of the current scan (null = profile default)
+    private val inventoryTuner = InventoryAutoTuner(TuningScreen.TAG_ACTIVATION, viewModelScope, databaseManager)
+    private var readPower: Int? = null
+
     init {
         loadBcTypeOptions()
         initializeTagCounter()
         loadLastSelectedBcType()
+        viewModelScope.launch { inventoryTuner.load() }
         
         // CRITICAL: No UHF initialization here - use pre-initialized singleton from BCMSApp
         _uiState.value = _uiState.value.copy(
@@ -105,7 +117,7 @@ class TagActivationViewModel(
         viewModelScope.launch {
             try {
                 withContext(Dispatchers.IO) {
-                    val savedBcType = databaseManager.database.appSettingsQueries
+                    val savedBcType = databaseManager.appDatabase.appSettingsQueries
                         .selectSettingByKey("last_selected_bc_type").executeAsOneOrNull()
                     
                     savedBcType?.setting_value?.let { bcType ->
@@ -126,7 +138,7 @@ class TagActivationViewModel(
         
         try {
             val savedBcType = withContext(Dispatchers.IO) {
-                databaseManager.database.appSettingsQueries
+                databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("last_selected_bc_type").executeAsOneOrNull()?.setting_value
             }
             
@@ -162,7 +174,7 @@ class TagActivationViewModel(
         viewModelScope.launch {
             try {
                 withContext(Dispatchers.IO) {
-                    databaseManager.database.appSettingsQueries
+                    databaseManager.appDatabase.appSettingsQueries
                         .insertOrReplaceSettingByKey("last_selected_bc_type", bcType)
                     println("TagActivationViewModel: Saved BC Type preference: $bcType")
                 }
@@ -179,12 +191,12 @@ class TagActivationViewModel(
         viewModelScope.launch {
             try {
                 withContext(Dispatchers.IO) {
-                    val existing = databaseManager.database.appSettingsQueries
+                    val existing = databaseManager.appDatabase.appSettingsQueries
                         .getTagCounter().executeAsOneOrNull()
                     
                     if (existing == null) {
                         // Initialize counter to 1
-                        databaseManager.database.appSettingsQueries
+                        databaseManager.appDatabase.appSettingsQueries
                             .insertOrReplaceTagCounter("1")
                         println("TagActivationViewModel: Initialized tag counter to 1")
                     }
@@ -225,9 +237,11 @@ class TagActivationViewModel(
                 }
                 Log.d(TAG, "Starting scan: $scanContext")
                 
-                // CRITICAL: Ensure clean UHF state before starting
-                uhfManager.stopInventory()
-                Thread.sleep(100)
+                // CRITICAL: Ensure clean UHF state before starting (settle pause on the UHF thread)
+                withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.stopInventory()
+                    Thread.sleep(100)
+                }
                 
                 // Clear previous scan results and reset activation state for new scan
                 scannedTags.clear()
@@ -251,7 +265,15 @@ class TagActivationViewModel(
                 )
 
                 // Start inventory using vendor demo pattern
-                val started = uhfManager.startInventory()
+                // A select mask can only match "34", not exclude it: clear the mask left by other screens
+                val tuning = inventoryTuner.begin(BCMSApp.nearFieldPowerSize)
+                readPower = tuning.power
+                val started = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.setSelectMask(SelectMask.NONE)
+                    uhfManager.applyInventoryTuning(tuning)
+                    uhfManager.applyPowerProfile(PowerProfile.NEAR_FIELD, tuning.power) // Only the tag on the desk answers
+                    uhfManager.startInventory()
+                }
                 if (started) {
                     startRealTimeScanningLoop()
                 } else {
@@ -281,13 +303,16 @@ class TagActivationViewModel(
                 scanningJob = null
                 
                 // Stop inventory
-                uhfManager.stopInventory()
+                withContext(UHFManagerWrapper.dispatcher) { uhfManager.stopInventory() }
+                inventoryTuner.end()
                 
                 // Log all scanned tags for debugging
-                Log.d(TAG, "Total tags scanned: ${scannedTags.size}")
-                scannedTags.values.forEachIndexed { index, tag ->
-                    val status = if (tag.epc.startsWith("34", ignoreCase = true)) "ACTIVE" else "INACTIVE"
-                    Log.d(TAG, "  Tag ${index + 1}: EPC=${tag.epc}, Status=$status, RSSI=${tag.rssiDbm} dBm")
+                AppLog.d(TAG) { "Total tags scanned: ${scannedTags.size}" }
+                if (AppLog.isLoggable(Log.VERBOSE)) {
+                    scannedTags.values.forEachIndexed { index, tag ->
+                        val status = if (tag.epc.startsWith("34", ignoreCase = true)) "ACTIVE" else "INACTIVE"
+                        AppLog.v(TAG) { "  Tag ${index + 1}: EPC=${tag.epc}, Status=$status, RSSI=${tag.rssiDbm} dBm" }
+                    }
                 }
                 
                 // Filter for INACTIVE tags only (tags that don't start with "34")
@@ -327,9 +352,10 @@ class TagActivationViewModel(
             try {
                 while (isActive && _uiState.value.isScanning) {
                     
-                    // CRITICAL: Read tag from buffer at 1ms intervals (vendor demo pattern)
-                    val tagData = uhfManager.readTagFromBuffer()
-                    tagData?.let { tag ->
+                    // CRITICAL: Drain the tag buffer on the UHF thread at 1ms intervals (vendor demo pattern)
+                    val tags = withContext(UHFManagerWrapper.dispatcher) { uhfManager.drainTagBuffer() }
+                    inventoryTuner.recordPoll(tags)
+                    for (tag in tags) {
                         // Process TagData object directly - no EPC reading during scan
                         processTagData(tag)
                     }
@@ -373,11 +399,11 @@ class TagActivationViewModel(
             val existing = scannedTags[epc]
             if (existing == null || activationData.rssiDbm > existing.rssiDbm) {
                 scannedTags[epc] = activationData
-                Log.d(TAG, "Tag collected: EPC=$epc, RSSI=${rssiDbm} dBm")
+                AppLog.d(TAG) { "Tag collected: EPC=$epc, RSSI=${rssiDbm} dBm" }
             }
             
         } catch (e: Exception) {
-            Log.e(TAG, "Error processing tag data: ${e.message}", e)
+            AppLog.e(TAG, e) { "Error processing tag data: ${e.message}" }
         }
     }
     
@@ -620,8 +646,8 @@ class TagActivationViewModel(
                     return@launch
                 }
 
-                // Step 3: Get current user
-                val currentUser = authManager.getCurrentUser()
+                // Step 3: Get current user (may load the session from the database)
+                val currentUser = withContext(Dispatchers.IO) { authManager.getCurrentUser() }
                 if (currentUser == null) {
                     _uiState.value = _uiState.value.copy(
                         isProcessing = false,
@@ -685,24 +711,6 @@ class TagActivationViewModel(
                             Region = null,
                             ChipFailureSA = 0,
                             ChipFailureSI = 0,
-                            IsCompleted10 = 0,
-                            Remark10 = null,
-                            IsCompleted20 = 0,
-                            Remark20 = null,
-                            IsCompleted30 = 0,
-                            Remark30 = null,
-                            IsCompleted40 = 0,
-                            Remark40 = null,
-                            IsCompleted50 = 0,
-                            Remark50 = null,
-                            IsCompleted55 = 0,
-                            Remark55 = null,
-                            IsCompleted60 = 0,
-                            Remark60 = null,
-                            IsCompleted70 = 0,
-                            Remark70 = null,
-                            IsCompleted80 = 0,
-                            Remark80 = null,
                             Dispose = 0,
                             CreatedBy = currentUser.username,
                             UpdatedBy = currentUser.username,
@@ -723,7 +731,7 @@ class TagActivationViewModel(
                 if (success) {
                     // CRITICAL: Clear UHF buffer to prevent stale data in next scan
                     try {
-                        uhfManager.stopInventory()
+                        withContext(UHFManagerWrapper.dispatcher) { uhfManager.stopInventory() }
                         delay(300) // Give tag time to commit write and clear buffer
                     } catch (e: Exception) {
                         Log.w(TAG, "Buffer clear warning: ${e.message}")
@@ -791,7 +799,7 @@ class TagActivationViewModel(
         return try {
             withContext(Dispatchers.IO) {
                 // Get configurable prefix (default: 34180)
-                val prefixSetting = databaseManager.database.appSettingsQueries
+                val prefixSetting = databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("tag_prefix").executeAsOneOrNull()
                 val prefix = prefixSetting?.setting_value ?: "34180"
                 
@@ -802,12 +810,12 @@ class TagActivationViewModel(
                 val version = "3"
                 
                 // Get configurable reserved number (default: 0)
-                val reservedSetting = databaseManager.database.appSettingsQueries
+                val reservedSetting = databaseManager.appDatabase.appSettingsQueries
                     .selectSettingByKey("tag_reserved").executeAsOneOrNull()
                 val reserved = reservedSetting?.setting_value ?: "0"
 
                 // Get BC Type numeric code
-                val bcTypeCode = databaseManager.database.bCTypeMappingQueries
+                val bcTypeCode = databaseManager.appDatabase.bCTypeMappingQueries
                     .selectNumericCodeByBcTypeAndProject(bcType, BuildConfig.PROJECT_ID).executeAsOneOrNull() ?: "404"
 
                 // Get current user's contract number
@@ -820,7 +828,7 @@ class TagActivationViewModel(
                 if (serialNumber == null) {
                     Log.d(TAG, "⚠️ No serial number found for BC type $bcType, initializing with 0001")
                     val currentTime = System.currentTimeMillis() / 1000
-                    databaseManager.database.bCTypeSerialNumbersQueries.insertOrReplace(
+                    databaseManager.appDatabase.bCTypeSerialNumbersQueries.insertOrReplace(
                         bc_type = bcType,
                         bc_type_code = bcTypeCode,
                         serial_number = "0001",
@@ -839,7 +847,16 @@ class TagActivationViewModel(
                 databaseManager.incrementBcTypeSerialNumber(bcType)
 
                 // Build tag number: Prefix + MainContract + Version + Reserved + BCTypeCode + ContractNo + XXYYYY
-                val tagNumber = "$prefix$mainContract$version$reserved$bcTypeCode$contractNo$autoIncrement"
+                val tagNumber = TagEpc.encode(
+                    prefix = prefix,
+                    mainContract = mainContract,
+                    version = version,
+                    reserved = reserved,
+                    bcTypeCode = bcTypeCode,
+                    contractNo = contractNo,
+                    deviceId = deviceId,
+                    serial = serialNumber
+                )
                 
                 Log.d(TAG, "Generated tag number: $tagNumber (Prefix: $prefix, MainContract: $mainContract, Version: $version, Reserved: $reserved, BCType: $bcType -> $bcTypeCode, Contract: $contractNo, DeviceID: $deviceId, BCType-SerialNo: $serialNumber -> XXYYYY: $autoIncrement)")
                 tagNumber
@@ -855,12 +872,13 @@ class TagActivationViewModel(
      * CRITICAL: Uses EPC filtering for safe write operation
      */
     private suspend fun writeEpcStatus(targetEpc: String, tagNumber: String): Boolean {
-        return withContext(Dispatchers.IO) {
+        return withContext(UHFManagerWrapper.dispatcher) {
             try {
                 Log.d(TAG, "Writing generated tag number to EPC using vendor demo pattern...")
                 
                 // CRITICAL: Stop inventory before write (vendor demo pattern)
                 uhfManager.stopInventory()
+                uhfManager.applyPowerProfile(PowerProfile.NEAR_FIELD, readPower) // No-op unless another screen changed power
                 Thread.sleep(500)
                 
                 // Use Tag Modification EPC writing pattern - write full tag number
@@ -928,7 +946,7 @@ class TagActivationViewModel(
      * CRITICAL: Only used during activation write process
      */
     private suspend fun readEpcDataForWrite(epc: String): String? {
-        return withContext(Dispatchers.IO) {
+        return withContext(UHFManagerWrapper.dispatcher) {
             try {
                 Log.d(TAG, "Reading EPC data for write operation: $epc")
                 
@@ -1001,7 +1019,7 @@ class TagActivationViewModel(
         try {
             // Stop operations
             scanningJob?.cancel()
-            uhfManager.stopInventory()
+            uhfManager.post { stopInventory() }
             
             // Clear data to prevent leaks
             scannedTags.clear()
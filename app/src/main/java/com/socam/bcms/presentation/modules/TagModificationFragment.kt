@@ -162,6 +162,11 @@ class TagModificationFragment : Fragment() {
             viewModel.writeTagStatus()
         }
         
+        // Bulk write (Multiple Scan): one status for every listed tag
+        binding.bulkWriteButton.setOnClickListener {
+            viewModel.writeStatusToAllTags()
+        }
+        
         // Filter checkbox setup
         setupFilterCheckboxes()
     }
@@ -178,13 +183,19 @@ class TagModificationFragment : Fragment() {
         )
         
         binding.statusDropdown.setAdapter(adapter)
+        binding.bulkStatusDropdown.setAdapter(adapter)
         
-        // Handle selection
+        // Handle selection (both dropdowns share the selected status)
         binding.statusDropdown.setOnItemClickListener { _, _, position, _ ->
             val selectedOption = statusOptions[position]
             viewModel.setSelectedStatusOption(selectedOption)
             println("TagModificationFragment: Selected status: ${selectedOption.displayName}")
         }
+        binding.bulkStatusDropdown.setOnItemClickListener { _, _, position, _ ->
+            val selectedOption = statusOptions[position]
+            viewModel.setSelectedStatusOption(selectedOption)
+            println("TagModificationFragment: Selected bulk status: ${selectedOption.displayName}")
+        }
     }
     
     private fun setupFilterCheckboxes() {
@@ -295,6 +306,21 @@ class TagModificationFragment : Fragment() {
         
         // Update write button state
         binding.writeButton.isEnabled = state.canWrite
+        binding.bulkWriteButton.isEnabled = state.selectedStatusOption != null &&
+            state.multipleScanResults.isNotEmpty() &&
+            !state.isScanning &&
+            !state.isWriting
+        
+        // Keep both status dropdowns showing the shared selection
+        state.selectedStatusOption?.let { option ->
+            val displayName = "${option.displayName} (${option.hexValue})"
+            if (binding.statusDropdown.text.toString() != displayName) {
+                binding.statusDropdown.setText(displayName, false)
+            }
+            if (binding.bulkStatusDropdown.text.toString() != displayName) {
+                binding.bulkStatusDropdown.setText(displayName, false)
+            }
+        }
         
         // Update filter checkboxes (prevent listener triggers during update)
         binding.activeFilterCheckbox.setOnCheckedChangeListener(null)
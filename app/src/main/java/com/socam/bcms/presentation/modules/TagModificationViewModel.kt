@@ -1,15 +1,26 @@
 package com.socam.bcms.presentation.modules
 
+import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.socam.bcms.BCMSApp
+import com.socam.bcms.model.EpcWriteOutcome
+import com.socam.bcms.model.EpcWriteRequest
+import com.socam.bcms.model.EpcWriteResult
 import com.socam.bcms.model.MemoryBank
+import com.socam.bcms.model.PowerProfile
 import com.socam.bcms.model.ScanMode
+import com.socam.bcms.model.SelectMask
 import com.socam.bcms.model.TagModificationData
 import com.socam.bcms.model.TagModificationUiState
 import com.socam.bcms.model.TagStatus
 import com.socam.bcms.model.TagStatusOption
+import com.socam.bcms.uhf.InventoryAutoTuner
+import com.socam.bcms.uhf.InventoryTuning
+import com.socam.bcms.uhf.TagMemoryReadQueue
+import com.socam.bcms.uhf.TuningScreen
 import com.socam.bcms.uhf.UHFManagerWrapper
-import kotlinx.coroutines.Dispatchers
+import com.socam.bcms.utils.AppLog
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -42,7 +53,34 @@ class TagModificationViewModel : ViewModel() {
     val uiState: StateFlow<TagModificationUiState> = _uiState.asStateFlow()
     
     private var scanningJob: Job? = null
-    private val scannedTags = mutableListOf<TagModificationData>()
+
+    // Live scan lists (strongest first), published to the UI at a bounded frame rate
+    // Single Scan restarts on every trigger press, Multiple Scan keeps accumulating
+    private val scannedTags = ScanStatePublisher<TagModificationData>(
+        scope = viewModelScope,
+        keyOf = { it.epc },
+        comparator = compareByDescending { it.rssiDbm },
+        onFrame = ::applySingleScanFrame
+    )
+    private val multipleScanTags = ScanStatePublisher<TagModificationData>(
+        scope = viewModelScope,
+        keyOf = { it.epc },
+        comparator = compareByDescending { it.rssiDbm },
+        onFrame = ::applyMultipleScanFrame
+    )
+
+    // EPC bank reads are deferred until inventory stops (readTag restarts inventory per read)
+    private val epcReads = TagMemoryReadQueue()
+    private var epcReadJob: Job? = null
+
+    // Inventory power chosen on this screen's slider (null = auto-tuned / global Settings power)
+    private var inventoryPower: Int? = null
+    // Read power of the current scan, kept for writes so switching to WRITE changes only the write power
+    private var readPower: Int? = null
+
+    // Inventory settings learned from this screen's scans
+    private val inventoryTuner =
+        InventoryAutoTuner(TuningScreen.TAG_MODIFICATION, viewModelScope, BCMSApp.instance.databaseManager)
     
     init {
         // UHF is now initialized centrally in BCMSApp (following vendor demo pattern)
@@ -52,6 +90,8 @@ class TagModificationViewModel : ViewModel() {
         )
         
         println("$TAG: ViewModel initialized - using singleton UHF manager from Application")
+        
+        viewModelScope.launch { inventoryTuner.load() }
     }
     
     /**
@@ -60,8 +100,12 @@ class TagModificationViewModel : ViewModel() {
     fun setPowerLevel(power: Int) {
         viewModelScope.launch {
             try {
-                val success = uhfManager.setPower(power)
+                val success = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.applyPowerProfile(PowerProfile.INVENTORY, power)
+                }
                 if (success) {
+                    inventoryPower = power
+                    readPower = power
                     _uiState.value = _uiState.value.copy(powerLevel = power)
                     println("TagModificationViewModel: Power set to $power dBm")
                 } else {
@@ -85,6 +129,11 @@ class TagModificationViewModel : ViewModel() {
             return // Already scanning
         }
         
+        // Inventory takes priority over deferred reads; tags still in the field are queued again
+        epcReadJob?.cancel()
+        epcReadJob = null
+        epcReads.clearPending()
+        
         viewModelScope.launch {
             try {
                 if (!uhfManager.isReady()) {
@@ -95,13 +144,23 @@ class TagModificationViewModel : ViewModel() {
                     return@launch
                 }
                 
+                // The power slider is a manual override: fixed settings, no tuning trial
+                val tuning = inventoryPower?.let { InventoryTuning.BASELINE.copy(power = it) }
+                    ?: inventoryTuner.begin(BCMSApp.powerSize)
+                readPower = tuning.power
+                
                 // Ensure clean start - especially important after write operations
                 println("$TAG: Starting scan - ensuring clean UHF state...")
-                uhfManager.stopInventory() // Clean any previous state
-                Thread.sleep(100) // Brief pause
-                
-                // Start UHF inventory
-                val started = uhfManager.startInventory()
+                val started = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.stopInventory() // Clean any previous state
+                    Thread.sleep(100) // Brief pause (UHF thread, not the UI thread)
+                    
+                    // Start UHF inventory; this screen lists and rewrites tags of any status, so no select mask
+                    uhfManager.setSelectMask(SelectMask.NONE)
+                    uhfManager.applyInventoryTuning(tuning)
+                    uhfManager.applyPowerProfile(PowerProfile.INVENTORY, tuning.power)
+                    uhfManager.startInventory()
+                }
                 println("$TAG: UHF inventory start result: $started")
                 
                 if (started) {
@@ -156,8 +215,13 @@ class TagModificationViewModel : ViewModel() {
                 scanningJob = null
                 
                 // Stop UHF inventory (following vendor demo pattern for operation mode)
-                val stopped = uhfManager.stopInventory()
+                val stopped = withContext(UHFManagerWrapper.dispatcher) { uhfManager.stopInventory() }
                 println("$TAG: Inventory stopped for operation mode: $stopped")
+                inventoryTuner.end()
+                
+                // Publish the last reads before the completion state is built
+                scannedTags.flush()
+                multipleScanTags.flush()
                 
                 // Handle scan completion based on current mode
                 when (_uiState.value.currentScanMode) {
@@ -165,6 +229,9 @@ class TagModificationViewModel : ViewModel() {
                     ScanMode.MULTIPLE -> handleMultipleScanCompletion()
                 }
                 
+                // Inventory is down: now read EPC banks that were queued during the scan
+                startDeferredEpcReads()
+                
             } catch (e: Exception) {
                 _uiState.value = _uiState.value.copy(
                     isScanning = false,
@@ -184,11 +251,13 @@ class TagModificationViewModel : ViewModel() {
         scanningJob = viewModelScope.launch {
             while (isActive && _uiState.value.isScanning) {
                 try {
-                    // Read tag data from buffer
-                    val tagData = uhfManager.readTagFromBuffer()
-                    tagData?.let { tag ->
-                        // Read full EPC data
-                        val epcData = readEpcData(tag.epc)
+                    // Read buffered tags on the UHF thread, one hop per batch
+                    val tags = withContext(UHFManagerWrapper.dispatcher) { uhfManager.drainTagBuffer() }
+                    inventoryTuner.recordPoll(tags)
+                    for (tag in tags) {
+                        // EPC bank data only from cache here; uncached reads are deferred until inventory stops
+                        val epcRead = epcReadRequest(tag.epc)
+                        val epcData = epcReads.cached(epcRead)
                         
                         // Create TagModificationData
                         val modificationData = TagModificationData(
@@ -204,21 +273,21 @@ class TagModificationViewModel : ViewModel() {
                             // Handle based on current scan mode
                             when (_uiState.value.currentScanMode) {
                                 ScanMode.SINGLE -> handleSingleScanUpdate(modificationData)
-                                ScanMode.MULTIPLE -> handleMultipleScanUpdate(modificationData)
+                                ScanMode.MULTIPLE -> {
+                                    handleMultipleScanUpdate(modificationData)
+                                    if (epcData == null) epcReads.enqueue(epcRead)
+                                }
                             }
                         } else {
                             // Tag filtered out - log for debugging
-                            val statusInfo = modificationData.getStatusDisplayInfo()
-                            println("$TAG: Tag filtered out - ${statusInfo.displayName} EPC: ${modificationData.epc}")
+                            AppLog.d(TAG) { "Tag filtered out - ${modificationData.getStatusDisplayInfo().displayName} EPC: ${modificationData.epc}" }
                         }
-                        
-                        println("TagModificationViewModel: Real-time scan - EPC: ${tag.epc}, RSSI: ${tag.rssi} dBm")
                     }
                     
                     delay(SCAN_INTERVAL_MS)
                     
                 } catch (e: Exception) {
-                    println("TagModificationViewModel: Scanning loop error: ${e.message}")
+                    AppLog.w(TAG) { "Scanning loop error: ${e.message}" }
                     delay(100) // Brief delay on error
                 }
             }
@@ -229,58 +298,46 @@ class TagModificationViewModel : ViewModel() {
      * Handle real-time updates for Single Scan mode
      */
     private fun handleSingleScanUpdate(modificationData: TagModificationData) {
-        // Add/update scanned tags (avoid duplicates based on EPC)
-        val existingIndex = scannedTags.indexOfFirst { it.epc == modificationData.epc }
-        if (existingIndex >= 0) {
-            // Update existing tag if this one has stronger signal
-            if (modificationData.isStrongerThan(scannedTags[existingIndex])) {
-                scannedTags[existingIndex] = modificationData
-            }
-        } else {
-            scannedTags.add(modificationData)
-        }
-        
-        // Real-time update: Show strongest signal tag immediately
-        val currentStrongest = findStrongestSignalTag()
-        currentStrongest?.let { strongest ->
-            val statusInfo = strongest.getStatusDisplayInfo()
-            _uiState.value = _uiState.value.copy(
-                lastScanResult = strongest,
-                statusMessage = "Scanning... ${statusInfo.displayName} RSSI: ${strongest.rssiDbm} dBm (${scannedTags.size} tags)"
-            )
-        }
-        
-        println("$TAG: Single scan update - EPC: ${modificationData.epc}, RSSI: ${modificationData.rssiDbm} dBm")
+        // Add/update scanned tags (one entry per EPC, stronger signal wins)
+        scannedTags.offer(modificationData) { existing, candidate -> candidate.isStrongerThan(existing) }
+    }
+
+    /**
+     * Apply a published Single Scan frame: show the strongest tag so far
+     */
+    private fun applySingleScanFrame(frame: ScanFrame<TagModificationData>) {
+        val currentState = _uiState.value
+        if (!currentState.isScanning || currentState.currentScanMode != ScanMode.SINGLE) return
+        val strongest = frame.items.firstOrNull() ?: return
+        val statusInfo = strongest.getStatusDisplayInfo()
+        _uiState.value = currentState.copy(
+            lastScanResult = strongest,
+            statusMessage = "Scanning... ${statusInfo.displayName} RSSI: ${strongest.rssiDbm} dBm (${frame.items.size} tags)"
+        )
     }
 
     /**
      * Handle real-time updates for Multiple Scan mode
      */
     private fun handleMultipleScanUpdate(modificationData: TagModificationData) {
-        val currentState = _uiState.value
-        val currentList = currentState.multipleScanResults.toMutableList()
-        
-        // Add/update tag in multiple scan list
-        val existingIndex = currentList.indexOfFirst { it.epc == modificationData.epc }
-        if (existingIndex >= 0) {
-            // Update existing tag if this one has stronger signal
-            if (modificationData.isStrongerThan(currentList[existingIndex])) {
-                currentList[existingIndex] = modificationData
-                println("$TAG: Updated existing tag - EPC: ${modificationData.epc}, RSSI: ${modificationData.rssiDbm} dBm")
-            }
-        } else {
-            // Add new tag
-            currentList.add(modificationData)
-            println("$TAG: Added new tag - EPC: ${modificationData.epc}, RSSI: ${modificationData.rssiDbm} dBm")
+        // Add/update tag in multiple scan list (stronger signal wins); sorting happens per frame
+        if (multipleScanTags.offer(modificationData) { existing, candidate -> candidate.isStrongerThan(existing) }) {
+            AppLog.d(TAG) { "Tag listed - EPC: ${modificationData.epc}, RSSI: ${modificationData.rssiDbm} dBm" }
         }
-        
-        // Sort by RSSI (strongest signal first) for real-time highlighting/sorting
-        currentList.sortByDescending { it.rssiDbm }
-        
-        // Update UI state with new list
+    }
+
+    /**
+     * Apply a published Multiple Scan frame (list sorted by RSSI, strongest first)
+     */
+    private fun applyMultipleScanFrame(frame: ScanFrame<TagModificationData>) {
+        val currentState = _uiState.value
         _uiState.value = currentState.copy(
-            multipleScanResults = currentList,
-            statusMessage = "Scanning... ${currentList.size} tags found (real-time)"
+            multipleScanResults = frame.items,
+            statusMessage = if (currentState.isScanning && currentState.currentScanMode == ScanMode.MULTIPLE) {
+                "Scanning... ${frame.items.size} tags found (real-time)"
+            } else {
+                currentState.statusMessage
+            }
         )
     }
 
@@ -305,6 +362,11 @@ class TagModificationViewModel : ViewModel() {
         )
         
         println("$TAG: Single scan completed. Found ${scannedTags.size} tags, strongest: ${strongestTag?.rssiDbm} dBm")
+        
+        // Only the tag selected for writing needs its EPC bank read
+        if (strongestTag != null && strongestTag.epcData == null) {
+            epcReads.enqueue(epcReadRequest(strongestTag.epc))
+        }
     }
 
     /**
@@ -327,30 +389,65 @@ class TagModificationViewModel : ViewModel() {
         println("$TAG: Multiple scan completed. Found ${finalList.size} tags")
         
         // Log all found tags for debugging
-        finalList.forEachIndexed { index, tag ->
-            val statusInfo = tag.getStatusDisplayInfo()
-            println("$TAG: #${index + 1} - ${statusInfo.displayName} EPC: ${tag.epc} RSSI: ${tag.rssiDbm} dBm")
+        if (AppLog.isLoggable(Log.VERBOSE)) {
+            finalList.forEachIndexed { index, tag ->
+                AppLog.v(TAG) { "#${index + 1} - ${tag.getStatusDisplayInfo().displayName} EPC: ${tag.epc} RSSI: ${tag.rssiDbm} dBm" }
+            }
         }
     }
 
     /**
-     * Read EPC memory bank data for a specific tag
+     * EPC bank read used for status detection (6 words from word 2, filtered on the scanned EPC)
      */
-    private suspend fun readEpcData(epc: String): String? {
-        return try {
-            uhfManager.readTag(
-                password = "00000000",
-                filterBank = MemoryBank.EPC.value,
-                filterAddress = 2,
-                filterLength = epc.length / 4, // Convert hex string length to word count
-                filterData = epc,
-                memoryBank = MemoryBank.EPC.value, // Read from EPC bank
-                startAddress = 2,
-                length = 6 // Read 6 words (12 bytes) from EPC bank
-            )
-        } catch (e: Exception) {
-            println("TagModificationViewModel: Failed to read EPC data for EPC $epc: ${e.message}")
-            null
+    private fun epcReadRequest(epc: String): TagMemoryReadQueue.ReadRequest {
+        return TagMemoryReadQueue.ReadRequest(
+            epc = epc,
+            memoryBank = MemoryBank.EPC,
+            startAddress = 2,
+            length = 6 // Read 6 words (12 bytes) from EPC bank
+        )
+    }
+
+    /**
+     * Drain queued EPC reads on the UHF thread; each result updates the screen as it arrives
+     */
+    private fun startDeferredEpcReads() {
+        if (epcReads.pendingCount == 0) return
+        
+        epcReadJob = viewModelScope.launch {
+            try {
+                val completed = epcReads.drain(uhfManager) { request, epcData ->
+                    if (epcData != null) applyEpcData(request.epc, epcData)
+                }
+                println("$TAG: Deferred EPC reads completed: $completed")
+            } catch (e: Exception) {
+                if (e !is kotlinx.coroutines.CancellationException) {
+                    AppLog.w(TAG) { "Deferred EPC reads failed: ${e.message}" }
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply EPC bank data read after the scan to the listed / selected tag
+     */
+    private fun applyEpcData(epc: String, epcData: String) {
+        multipleScanTags[epc]?.let { tag ->
+            val updated = tag.copy(epcData = epcData)
+            // The bank content may change the status, so the filters are applied again
+            if (passesCurrentFilters(updated)) {
+                multipleScanTags.offer(updated)
+            } else {
+                multipleScanTags.remove(epc)
+            }
+        }
+        
+        scannedTags[epc]?.let { tag -> scannedTags.offer(tag.copy(epcData = epcData)) }
+        
+        val currentState = _uiState.value
+        val selected = currentState.lastScanResult
+        if (selected != null && selected.epc == epc && !currentState.isWriting) {
+            _uiState.value = currentState.copy(lastScanResult = selected.copy(epcData = epcData))
         }
     }
     
@@ -358,7 +455,7 @@ class TagModificationViewModel : ViewModel() {
      * Find the tag with the strongest signal (highest RSSI = closest distance)
      */
     private fun findStrongestSignalTag(): TagModificationData? {
-        return scannedTags.maxByOrNull { it.rssiDbm }
+        return scannedTags.snapshot().firstOrNull()
     }
     
     /**
@@ -396,6 +493,10 @@ class TagModificationViewModel : ViewModel() {
             return
         }
         
+        // The write takes the UHF thread next; reads of other tags can wait for the next scan
+        epcReadJob?.cancel()
+        epcReadJob = null
+        
         viewModelScope.launch {
             try {
                 // Set writing state
@@ -406,8 +507,9 @@ class TagModificationViewModel : ViewModel() {
                     errorMessage = null
                 )
                 
-                // Perform EPC write operation on IO thread
-                val success = withContext(Dispatchers.IO) {
+                // Perform EPC write operation on the UHF thread, at write power
+                val success = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.applyPowerProfile(PowerProfile.WRITE, readPower)
                     // Create new EPC with status suffix
                     val originalEpc = targetTag.epcData ?: targetTag.epc
                     val newEpcWithStatus = if (originalEpc.length >= 2) {
@@ -430,6 +532,8 @@ class TagModificationViewModel : ViewModel() {
                 }
                 
                 if (success) {
+                    epcReads.invalidate(targetTag.epc)
+                    
                     // Update the current tag's EPC data immediately
                     val updatedTag = targetTag.copy(
                         epcData = targetTag.epcData?.let { originalEpc ->
@@ -442,7 +546,7 @@ class TagModificationViewModel : ViewModel() {
                     )
                     
                     // CRITICAL: Prepare UHF for next scan after successful write
-                    withContext(Dispatchers.IO) {
+                    withContext(UHFManagerWrapper.dispatcher) {
                         try {
                             // Brief wait for hardware to settle after write
                             println("$TAG: Write successful - preparing UHF for next scan...")
@@ -481,7 +585,7 @@ class TagModificationViewModel : ViewModel() {
                     
                 } else {
                     // CRITICAL: Ensure clean state after failed write without corrupting hardware
-                    withContext(Dispatchers.IO) {
+                    withContext(UHFManagerWrapper.dispatcher) {
                         try {
                             println("$TAG: Write failed - ensuring clean UHF state...")
                             Thread.sleep(500)
@@ -505,7 +609,7 @@ class TagModificationViewModel : ViewModel() {
                 
             } catch (e: Exception) {
                 // CRITICAL: Clean UHF state after exception without corrupting hardware
-                withContext(Dispatchers.IO) {
+                withContext(UHFManagerWrapper.dispatcher) {
                     try {
                         println("$TAG: Write exception - ensuring clean UHF state...")
                         Thread.sleep(500)
@@ -536,6 +640,140 @@ class TagModificationViewModel : ViewModel() {
         _uiState.value = _uiState.value.copy(errorMessage = null)
     }
     
+    /**
+     * Write the selected status to every tag in the (filtered) Multiple Scan list
+     * One UHF session for the whole list: EPC-filtered writes, readback verification,
+     * retries for failed tags only, per-tag outcomes in bulkWriteResults
+     */
+    fun writeStatusToAllTags() {
+        val currentState = _uiState.value
+        val statusOption = currentState.selectedStatusOption
+        val targets = currentState.multipleScanResults
+        
+        if (statusOption == null || targets.isEmpty()) {
+            _uiState.value = currentState.copy(
+                errorMessage = "No tags scanned or status selected"
+            )
+            return
+        }
+        
+        if (currentState.isTriggerPressed || currentState.isScanning || currentState.isWriting) {
+            _uiState.value = currentState.copy(
+                errorMessage = "Cannot write while scanning. Please release trigger first."
+            )
+            return
+        }
+        
+        // Tags already carrying the selected status are left alone
+        val writes = targets.mapNotNull { tag ->
+            val currentEpc = tag.epcData ?: tag.epc
+            val newEpc = withStatusPrefix(currentEpc, statusOption)
+            if (newEpc.equals(currentEpc, ignoreCase = true)) null else EpcWriteRequest(tag.epc, newEpc)
+        }
+        val unchanged = targets.size - writes.size
+        
+        if (writes.isEmpty()) {
+            _uiState.value = currentState.copy(
+                statusMessage = "All ${targets.size} tags are already ${statusOption.displayName}."
+            )
+            return
+        }
+        
+        // The write session takes the UHF thread next
+        epcReadJob?.cancel()
+        epcReadJob = null
+        
+        viewModelScope.launch {
+            try {
+                _uiState.value = _uiState.value.copy(
+                    isWriting = true,
+                    canWrite = false,
+                    bulkWriteResults = emptyList(),
+                    statusMessage = "Writing ${statusOption.displayName} to ${writes.size} tags...",
+                    errorMessage = null
+                )
+                
+                var reported = 0
+                val results = withContext(UHFManagerWrapper.dispatcher) {
+                    uhfManager.applyPowerProfile(PowerProfile.WRITE, readPower)
+                    uhfManager.writeEpcBatch(writes) {
+                        // UHF thread: post progress to the main thread
+                        val progress = ++reported
+                        viewModelScope.launch {
+                            _uiState.value = _uiState.value.copy(
+                                statusMessage = "Writing ${statusOption.displayName}... $progress/${writes.size}"
+                            )
+                        }
+                    }
+                }
+                
+                applyBulkWriteResults(results)
+                
+                val verified = results.count { it.outcome == EpcWriteOutcome.VERIFIED }
+                val unverified = results.count { it.outcome == EpcWriteOutcome.UNVERIFIED }
+                val failed = results.count { it.outcome == EpcWriteOutcome.FAILED }
+                val summary = buildString {
+                    append("Wrote ${statusOption.displayName} to $verified/${writes.size} tags")
+                    if (unverified > 0) append(", $unverified unverified")
+                    if (failed > 0) append(", $failed failed")
+                    if (unchanged > 0) append(", $unchanged already ${statusOption.displayName}")
+                    results.filter { it.outcome != EpcWriteOutcome.VERIFIED }.take(5).forEach { result ->
+                        append("\n${result.outcome.name}: ${result.targetEpc}")
+                    }
+                }
+                println("$TAG: Bulk write completed - verified=$verified unverified=$unverified failed=$failed")
+                
+                _uiState.value = _uiState.value.copy(
+                    isWriting = false,
+                    bulkWriteResults = results,
+                    statusMessage = summary,
+                    errorMessage = if (verified == writes.size) {
+                        "WRITE_SUCCESS:Updated ${verified} tags to ${statusOption.displayName}"
+                    } else {
+                        "WRITE_ERROR:${writes.size - verified} of ${writes.size} tags not confirmed"
+                    },
+                    needsFocusRestore = true
+                )
+                
+            } catch (e: Exception) {
+                _uiState.value = _uiState.value.copy(
+                    isWriting = false,
+                    statusMessage = "Bulk write error: ${e.message}",
+                    errorMessage = "WRITE_ERROR:Bulk write exception: ${e.message}",
+                    needsFocusRestore = true
+                )
+            }
+        }
+    }
+    
+    /**
+     * Replace listed tags that were verified with their new EPC; others stay for another attempt
+     */
+    private fun applyBulkWriteResults(results: List<EpcWriteResult>) {
+        results.forEach { result ->
+            epcReads.invalidate(result.targetEpc)
+            if (result.outcome != EpcWriteOutcome.VERIFIED) return@forEach
+            
+            val tag = multipleScanTags[result.targetEpc] ?: return@forEach
+            multipleScanTags.remove(result.targetEpc)
+            val updated = tag.copy(epc = result.newEpc, epcData = result.newEpc)
+            if (passesCurrentFilters(updated)) {
+                multipleScanTags.offer(updated)
+            }
+        }
+    }
+    
+    /**
+     * EPC with its first byte replaced by the status prefix
+     */
+    private fun withStatusPrefix(epc: String, statusOption: TagStatusOption): String {
+        return if (epc.length >= 2) {
+            statusOption.hexValue + epc.drop(2)
+        } else {
+            statusOption.hexValue + epc
+        }
+    }
+    
     /**
      * Clear focus restore flag (called by Fragment after restoring focus)
      */
@@ -608,9 +846,11 @@ class TagModificationViewModel : ViewModel() {
             // Stop any ongoing operations
             scanningJob?.cancel()
             scanningJob = null
+            epcReadJob?.cancel()
+            epcReads.clear()
             
-            // Ensure inventory is stopped
-            uhfManager.stopInventory()
+            // Ensure inventory is stopped (queued on the UHF thread, onCleared cannot suspend)
+            uhfManager.post { stopInventory() }
             
             // Clear scan results to prevent memory leaks
             scannedTags.clear()
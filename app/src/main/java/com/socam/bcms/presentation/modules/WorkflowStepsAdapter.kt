@@ -4,6 +4,8 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.TextView
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import com.socam.bcms.R
 
@@ -11,21 +13,25 @@ import com.socam.bcms.R
  * Adapter for displaying workflow steps in a grid format
  * Each step shows: Icon (🔧), Step Code (e.g., ALW10), and Description
  * Aligned with Batch Process Module display format
+ *
+ * Steps are diffed on a background thread (stable ids keyed by step code),
+ * so re-submitting an unchanged list on every UI state emission rebinds nothing
  */
 class WorkflowStepsAdapter(
     private val onStepClick: (WorkflowStepDisplay) -> Unit
-) : RecyclerView.Adapter<WorkflowStepsAdapter.WorkflowStepViewHolder>() {
+) : ListAdapter<WorkflowStepDisplay, WorkflowStepsAdapter.WorkflowStepViewHolder>(DiffCallback()) {
 
-    private var workflowSteps: List<WorkflowStepDisplay> = emptyList()
+    private val stableIds = StableIdMap()
+
+    init {
+        setHasStableIds(true)
+    }
+
+    override fun getItemId(position: Int): Long = stableIds.idOf(getItem(position).stepCode)
 
     fun updateSteps(steps: List<WorkflowStepDisplay>) {
         println("WorkflowStepsAdapter: Updating with ${steps.size} steps")
-        steps.forEach { step ->
-            println("WorkflowStepsAdapter: Step - ${step.stepCode}: ${step.stepDescription}")
-        }
-        workflowSteps = steps
-        notifyDataSetChanged()
-        println("WorkflowStepsAdapter: Adapter notified of data change")
+        submitList(steps)
     }
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): WorkflowStepViewHolder {
@@ -35,11 +41,9 @@ class WorkflowStepsAdapter(
     }
 
     override fun onBindViewHolder(holder: WorkflowStepViewHolder, position: Int) {
-        holder.bind(workflowSteps[position], onStepClick)
+        holder.bind(getItem(position), onStepClick)
     }
 
-    override fun getItemCount(): Int = workflowSteps.size
-
     class WorkflowStepViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
         private val stepIcon: TextView = itemView.findViewById(R.id.step_icon)
         private val stepCode: TextView = itemView.findViewById(R.id.step_code)
@@ -80,4 +84,14 @@ class WorkflowStepsAdapter(
             }
         }
     }
+
+    private class DiffCallback : DiffUtil.ItemCallback<WorkflowStepDisplay>() {
+        override fun areItemsTheSame(oldItem: WorkflowStepDisplay, newItem: WorkflowStepDisplay): Boolean {
+            return oldItem.stepCode == newItem.stepCode
+        }
+
+        override fun areContentsTheSame(oldItem: WorkflowStepDisplay, newItem: WorkflowStepDisplay): Boolean {
+            return oldItem == newItem
+        }
+    }
 }
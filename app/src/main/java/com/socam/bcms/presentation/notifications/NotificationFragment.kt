@@ -9,6 +9,7 @@ import androidx.fragment.app.Fragment
 import androidx.lifecycle.ViewModelProvider
 import androidx.navigation.fragment.findNavController
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.socam.bcms.R
 import com.socam.bcms.databinding.FragmentNotificationsBinding
 import com.socam.bcms.presentation.sync.SyncViewModel
@@ -20,6 +21,10 @@ import com.socam.bcms.presentation.sync.SyncViewModelFactory
  */
 class NotificationFragment : Fragment() {
 
+    companion object {
+        private const val LOAD_MORE_THRESHOLD = 10
+    }
+
     private var _binding: FragmentNotificationsBinding? = null
     private val binding get() = _binding!!
 
@@ -69,10 +74,21 @@ class NotificationFragment : Fragment() {
             viewModel.clearError(recordId)
         }
 
+        val layoutManager = LinearLayoutManager(requireContext())
         binding.recyclerViewErrors.apply {
-            layoutManager = LinearLayoutManager(requireContext())
+            this.layoutManager = layoutManager
             adapter = this@NotificationFragment.adapter
         }
+
+        // Errors are paged from the database, load the next page near the end of the list
+        binding.recyclerViewErrors.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                if (dy <= 0) return
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.itemCount - LOAD_MORE_THRESHOLD) {
+                    viewModel.loadMoreErrors()
+                }
+            }
+        })
     }
 
     private fun setupObservers() {
@@ -96,6 +112,10 @@ class NotificationFragment : Fragment() {
     }
 
     private fun setupClickListeners() {
+        binding.buttonRetryFailed.setOnClickListener {
+            viewModel.retryFailed()
+        }
+
         binding.buttonClearAll.setOnClickListener {
             showClearAllConfirmation()
         }
@@ -116,11 +136,13 @@ class NotificationFragment : Fragment() {
             errorCount == 0 -> {
                 binding.layoutEmpty.visibility = View.VISIBLE
                 binding.recyclerViewErrors.visibility = View.GONE
+                binding.buttonRetryFailed.visibility = View.GONE
                 binding.buttonClearAll.visibility = View.GONE
             }
             else -> {
                 binding.layoutEmpty.visibility = View.GONE
                 binding.recyclerViewErrors.visibility = View.VISIBLE
+                binding.buttonRetryFailed.visibility = View.VISIBLE
                 binding.buttonClearAll.visibility = View.VISIBLE
             }
         }
@@ -7,6 +7,8 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.socam.bcms.data.dto.SyncError
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.repository.SyncErrorPageKey
+import com.socam.bcms.data.repository.SyncErrorRepository
 import com.socam.bcms.domain.AuthManager
 import com.socam.bcms.presentation.sync.SyncViewModel
 import kotlinx.coroutines.Dispatchers
@@ -26,6 +28,10 @@ class NotificationViewModel(
 
     private val databaseManager = DatabaseManager.getInstance(context)
     private val authManager = AuthManager.getInstance(context)
+    private val syncErrorRepository = SyncErrorRepository(databaseManager)
+    
+    // Keyset of the next page, null when everything is loaded
+    private var nextPageKey: SyncErrorPageKey? = null
 
     private val _syncErrors = MutableLiveData<List<SyncErrorDisplayItem>>()
     val syncErrors: LiveData<List<SyncErrorDisplayItem>> = _syncErrors
@@ -37,21 +43,19 @@ class NotificationViewModel(
     val errorMessage: LiveData<String?> = _errorMessage
 
     /**
-     * Load sync errors from SyncViewModel
+     * Load the first page of persisted sync errors (most recent first)
      */
     fun loadSyncErrors(): Unit {
         viewModelScope.launch {
             try {
                 _isLoading.value = true
                 
-                // Get errors from SyncViewModel
-                val errors = syncViewModel.getSyncErrors()
+                val page = syncErrorRepository.loadPage()
+                nextPageKey = page.nextKey
                 
                 // Convert to display items with formatted data
                 val displayItems = withContext(Dispatchers.IO) {
-                    errors.map { error ->
-                        convertToDisplayItem(error)
-                    }.sortedByDescending { it.timestamp } // Most recent first
+                    page.items.map { error -> convertToDisplayItem(error) }
                 }
                 
                 _syncErrors.value = displayItems
@@ -67,6 +71,56 @@ class NotificationViewModel(
         }
     }
 
+    /**
+     * Append the next page of sync errors (no-op on the last page)
+     */
+    fun loadMoreErrors(): Unit {
+        val after = nextPageKey ?: return
+        if (_isLoading.value == true) return
+        viewModelScope.launch {
+            try {
+                _isLoading.value = true
+                val page = syncErrorRepository.loadPage(after)
+                nextPageKey = page.nextKey
+                val displayItems = withContext(Dispatchers.IO) {
+                    page.items.map { error -> convertToDisplayItem(error) }
+                }
+                _syncErrors.value = (_syncErrors.value ?: emptyList()) + displayItems
+            } catch (e: Exception) {
+                _errorMessage.value = "Failed to load sync errors: ${e.message}"
+                println("NotificationViewModel: Error loading more sync errors: ${e.message}")
+            } finally {
+                _isLoading.value = false
+            }
+        }
+    }
+
+    /**
+     * Resubmit only the failed records (every BC type with errors), then reload the list
+     */
+    fun retryFailed(): Unit {
+        if (_isLoading.value == true) return
+        viewModelScope.launch {
+            try {
+                _isLoading.value = true
+                var remaining = 0
+                syncErrorRepository.failedBcTypes().forEach { bcType ->
+                    remaining += syncViewModel.retryFailed(bcType)
+                }
+                if (remaining > 0) {
+                    _errorMessage.value = "$remaining records still failing"
+                }
+                println("NotificationViewModel: Retry finished, $remaining records still failing")
+            } catch (e: Exception) {
+                _errorMessage.value = "Failed to retry sync errors: ${e.message}"
+                println("NotificationViewModel: Error retrying sync errors: ${e.message}")
+            } finally {
+                _isLoading.value = false
+            }
+            loadSyncErrors()
+        }
+    }
+
     /**
      * Clear all sync errors
      */
@@ -91,15 +145,21 @@ class NotificationViewModel(
         val updatedErrors = currentErrors.filter { it.recordId != recordId }
         _syncErrors.value = updatedErrors
         
-        // Also remove from SyncViewModel (we'd need to add this method)
-        println("NotificationViewModel: Cleared error for record: $recordId")
+        viewModelScope.launch {
+            try {
+                syncErrorRepository.clearError(recordId)
+                println("NotificationViewModel: Cleared error for record: $recordId")
+            } catch (e: Exception) {
+                println("NotificationViewModel: Error clearing record $recordId: ${e.message}")
+            }
+        }
     }
 
     /**
      * Get error count for dashboard display
      */
-    fun getErrorCount(): Int {
-        return syncViewModel.getSyncErrors().size
+    suspend fun getErrorCount(): Int {
+        return syncErrorRepository.countErrors()
     }
 
     /**
@@ -0,0 +1,69 @@
+package com.socam.bcms.presentation.search
+
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.TextView
+import androidx.core.content.ContextCompat
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.socam.bcms.R
+import com.socam.bcms.data.repository.ComponentListItem
+
+/**
+ * Adapter for keyset-paged component list
+ */
+class ComponentBrowserAdapter : ListAdapter<ComponentListItem, ComponentBrowserAdapter.ComponentViewHolder>(DiffCallback()) {
+
+    init {
+        setHasStableIds(true)
+    }
+
+    override fun getItemId(position: Int): Long = getItem(position).id.hashCode().toLong()
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ComponentViewHolder {
+        val view = LayoutInflater.from(parent.context)
+            .inflate(R.layout.item_component_browse, parent, false)
+        return ComponentViewHolder(view)
+    }
+
+    override fun onBindViewHolder(holder: ComponentViewHolder, position: Int) {
+        holder.bind(getItem(position))
+    }
+
+    class ComponentViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
+
+        private val textBcType: TextView = itemView.findViewById(R.id.text_bc_type)
+        private val textSerialNo: TextView = itemView.findViewById(R.id.text_serial_no)
+        private val textSyncStatus: TextView = itemView.findViewById(R.id.text_sync_status)
+        private val textLocation: TextView = itemView.findViewById(R.id.text_location)
+
+        fun bind(item: ComponentListItem) {
+            textBcType.text = item.bcType ?: "-"
+            textSerialNo.text = item.serialNo ?: item.rfidTagNo ?: item.id
+
+            textSyncStatus.text = if (item.dispose == 1L) "DISPOSED" else item.syncStatus
+            val statusColor = when {
+                item.dispose == 1L -> android.R.color.darker_gray
+                item.syncStatus == "PENDING" -> android.R.color.holo_orange_dark
+                else -> android.R.color.holo_green_dark
+            }
+            textSyncStatus.setTextColor(ContextCompat.getColor(itemView.context, statusColor))
+
+            textLocation.text = listOfNotNull(item.region, item.floor, item.roomId, item.stepCode?.let { "Step $it" })
+                .filter { it.isNotBlank() }
+                .joinToString(" / ")
+        }
+    }
+
+    private class DiffCallback : DiffUtil.ItemCallback<ComponentListItem>() {
+        override fun areItemsTheSame(oldItem: ComponentListItem, newItem: ComponentListItem): Boolean {
+            return oldItem.id == newItem.id
+        }
+
+        override fun areContentsTheSame(oldItem: ComponentListItem, newItem: ComponentListItem): Boolean {
+            return oldItem == newItem
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.socam.bcms.presentation.search
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.ArrayAdapter
+import android.widget.AutoCompleteTextView
+import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
+import androidx.navigation.fragment.findNavController
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.socam.bcms.R
+import com.socam.bcms.databinding.FragmentComponentBrowserBinding
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
+
+/**
+ * Component Browser - filterable list of all components, loaded page by page
+ * Next page is requested while the user is still PREFETCH_DISTANCE rows away from the end
+ */
+class ComponentBrowserFragment : Fragment() {
+
+    companion object {
+        private const val PREFETCH_DISTANCE = 30
+        private const val ANY_OPTION = "Any"
+    }
+
+    private var _binding: FragmentComponentBrowserBinding? = null
+    private val binding get() = _binding!!
+
+    private val viewModel: ComponentBrowserViewModel by viewModels {
+        ComponentBrowserViewModelFactory(requireContext())
+    }
+
+    private lateinit var adapter: ComponentBrowserAdapter
+
+    // Last option lists bound to dropdowns (avoid resetting adapters on every emission)
+    private var boundBcTypes: List<String>? = null
+    private var boundRegions: List<String>? = null
+    private var boundFloors: List<String>? = null
+    private var boundSteps: List<StepFilterOption>? = null
+
+    override fun onCreateView(
+        inflater: LayoutInflater,
+        container: ViewGroup?,
+        savedInstanceState: Bundle?
+    ): View {
+        _binding = FragmentComponentBrowserBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+
+        binding.toolbar.setNavigationOnClickListener {
+            findNavController().navigateUp()
+        }
+
+        setupRecyclerView()
+        setupFilters()
+        observeViewModel()
+    }
+
+    private fun setupRecyclerView(): Unit {
+        adapter = ComponentBrowserAdapter()
+        val layoutManager = LinearLayoutManager(requireContext())
+
+        binding.componentsRecyclerView.layoutManager = layoutManager
+        binding.componentsRecyclerView.adapter = adapter
+        binding.componentsRecyclerView.setHasFixedSize(true)
+        binding.componentsRecyclerView.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                if (dy <= 0) return
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.itemCount - PREFETCH_DISTANCE) {
+                    viewModel.loadNextPage()
+                }
+            }
+        })
+    }
+
+    private fun setupFilters(): Unit {
+        binding.bcTypeDropdown.setOnItemClickListener { _, _, position, _ ->
+            viewModel.setBcType(boundBcTypes?.getOrNull(position - 1))
+        }
+        binding.regionDropdown.setOnItemClickListener { _, _, position, _ ->
+            viewModel.setRegion(boundRegions?.getOrNull(position - 1))
+        }
+        binding.floorDropdown.setOnItemClickListener { _, _, position, _ ->
+            viewModel.setFloor(boundFloors?.getOrNull(position - 1))
+        }
+        binding.stepDropdown.setOnItemClickListener { _, _, position, _ ->
+            viewModel.setStep(boundSteps?.getOrNull(position - 1))
+        }
+        binding.pendingSyncChip.setOnCheckedChangeListener { _, isChecked ->
+            viewModel.setPendingSyncOnly(isChecked)
+        }
+        binding.showDisposedChip.setOnCheckedChangeListener { _, isChecked ->
+            viewModel.setShowDisposed(isChecked)
+        }
+    }
+
+    private fun observeViewModel(): Unit {
+        viewModel.uiState.onEach { state ->
+            updateUI(state)
+        }.launchIn(viewLifecycleOwner.lifecycleScope)
+    }
+
+    private fun updateUI(state: ComponentBrowserUiState): Unit {
+        adapter.submitList(state.items) {
+            // Short first page (most rows filtered out) - keep filling until the screen is full or no more rows
+            val layoutManager = binding.componentsRecyclerView.layoutManager as? LinearLayoutManager ?: return@submitList
+            if (state.hasMore && layoutManager.findLastVisibleItemPosition() >= adapter.itemCount - PREFETCH_DISTANCE) {
+                viewModel.loadNextPage()
+            }
+        }
+
+        if (state.bcTypeOptions != boundBcTypes) {
+            boundBcTypes = state.bcTypeOptions
+            bindOptions(binding.bcTypeDropdown, state.bcTypeOptions)
+        }
+        if (state.regionOptions != boundRegions) {
+            boundRegions = state.regionOptions
+            bindOptions(binding.regionDropdown, state.regionOptions)
+        }
+        if (state.floorOptions != boundFloors) {
+            boundFloors = state.floorOptions
+            bindOptions(binding.floorDropdown, state.floorOptions)
+        }
+        if (state.stepOptions != boundSteps) {
+            boundSteps = state.stepOptions
+            bindOptions(binding.stepDropdown, state.stepOptions.map { it.label })
+        }
+
+        binding.floorDropdown.setText(state.filter.floor ?: ANY_OPTION, false)
+        val step = state.stepOptions.firstOrNull { it.portion == state.filter.stepPortion && it.completed == state.filter.stepCompleted }
+        binding.stepDropdown.setText(step?.label ?: ANY_OPTION, false)
+
+        binding.loadingIndicator.visibility = if (state.isLoading) View.VISIBLE else View.GONE
+        binding.resultCountText.text = state.totalCount?.let { "$it components" } ?: ""
+        binding.emptyText.visibility = if (!state.isLoading && !state.hasMore && state.items.isEmpty()) View.VISIBLE else View.GONE
+    }
+
+    private fun bindOptions(dropdown: AutoCompleteTextView, options: List<String>): Unit {
+        val selected = dropdown.text?.toString()
+        val items = listOf(ANY_OPTION) + options
+        dropdown.setAdapter(ArrayAdapter(requireContext(), android.R.layout.simple_dropdown_item_1line, items))
+        dropdown.setText(if (selected.isNullOrEmpty() || selected !in items) ANY_OPTION else selected, false)
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        boundBcTypes = null
+        boundRegions = null
+        boundFloors = null
+        boundSteps = null
+        _binding = null
+    }
+}
@@ -0,0 +1,179 @@
+package com.socam.bcms.presentation.search
+
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewModelScope
+import com.socam.bcms.data.database.MasterDataCache
+import com.socam.bcms.data.repository.ComponentBrowseRepository
+import com.socam.bcms.data.repository.ComponentFilter
+import com.socam.bcms.data.repository.ComponentListItem
+import com.socam.bcms.data.repository.ComponentPageKey
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * ViewModel for Component Browser screen
+ * Loads keyset pages on demand; changing any filter restarts from the first page
+ */
+class ComponentBrowserViewModel(
+    private val browseRepository: ComponentBrowseRepository,
+    private val masterDataCache: MasterDataCache
+) : ViewModel() {
+
+    private val _uiState = MutableStateFlow(ComponentBrowserUiState())
+    val uiState: StateFlow<ComponentBrowserUiState> = _uiState.asStateFlow()
+
+    private var nextKey: ComponentPageKey? = null
+    private var pageJob: Job? = null
+    private var countJob: Job? = null
+
+    init {
+        loadFilterOptions()
+        reload()
+    }
+
+    /**
+     * Dropdown options from the master data cache (no SQL once warmed up)
+     */
+    private fun loadFilterOptions(): Unit {
+        viewModelScope.launch {
+            try {
+                val (bcTypes, locations) = withContext(Dispatchers.IO) {
+                    masterDataCache.workflowSteps().all.map { it.bc_type }.distinct() to masterDataCache.locations()
+                }
+                _uiState.value = _uiState.value.copy(
+                    bcTypeOptions = bcTypes,
+                    regionOptions = locations.regionNames,
+                    floorOptions = locations.floorNames
+                )
+                updateStepOptions(_uiState.value.filter.bcType)
+            } catch (e: Exception) {
+                println("ComponentBrowserViewModel: Error loading filter options: ${e.message}")
+            }
+        }
+    }
+
+    fun setBcType(bcType: String?): Unit {
+        updateStepOptions(bcType)
+        applyFilter(_uiState.value.filter.copy(bcType = bcType, stepPortion = null, stepCompleted = null))
+    }
+
+    fun setRegion(region: String?): Unit {
+        viewModelScope.launch {
+            val floors = withContext(Dispatchers.IO) {
+                val locations = masterDataCache.locations()
+                if (region == null) locations.floorNames else locations.floorsOf(region)
+            }
+            _uiState.value = _uiState.value.copy(floorOptions = floors)
+        }
+        applyFilter(_uiState.value.filter.copy(region = region, floor = null))
+    }
+
+    fun setFloor(floor: String?): Unit {
+        applyFilter(_uiState.value.filter.copy(floor = floor))
+    }
+
+    fun setStep(option: StepFilterOption?): Unit {
+        applyFilter(_uiState.value.filter.copy(stepPortion = option?.portion, stepCompleted = option?.completed))
+    }
+
+    fun setPendingSyncOnly(pendingOnly: Boolean): Unit {
+        applyFilter(_uiState.value.filter.copy(syncStatus = if (pendingOnly) "PENDING" else null))
+    }
+
+    fun setShowDisposed(showDisposed: Boolean): Unit {
+        applyFilter(_uiState.value.filter.copy(disposed = if (showDisposed) null else false))
+    }
+
+    private fun applyFilter(filter: ComponentFilter): Unit {
+        if (filter == _uiState.value.filter) return
+        _uiState.value = _uiState.value.copy(filter = filter)
+        reload()
+    }
+
+    /**
+     * Drop loaded pages and start again from the first page
+     */
+    fun reload(): Unit {
+        pageJob?.cancel()
+        countJob?.cancel()
+        nextKey = null
+        _uiState.value = _uiState.value.copy(items = emptyList(), hasMore = true, isLoading = false, totalCount = null)
+
+        val filter = _uiState.value.filter
+        countJob = viewModelScope.launch {
+            val count = browseRepository.count(filter)
+            if (_uiState.value.filter == filter) {
+                _uiState.value = _uiState.value.copy(totalCount = count)
+            }
+        }
+        loadNextPage()
+    }
+
+    /**
+     * Load the next page (called ahead of the scroll position)
+     */
+    fun loadNextPage(): Unit {
+        val state = _uiState.value
+        if (state.isLoading || !state.hasMore) return
+
+        val filter = state.filter
+        val after = nextKey
+        _uiState.value = state.copy(isLoading = true)
+        pageJob = viewModelScope.launch {
+            val page = browseRepository.loadPage(filter, after)
+            val current = _uiState.value
+            if (current.filter != filter) return@launch
+
+            nextKey = page.nextKey
+            _uiState.value = current.copy(
+                items = current.items + page.items,
+                hasMore = page.nextKey != null,
+                isLoading = false
+            )
+        }
+    }
+
+    private fun updateStepOptions(bcType: String?): Unit {
+        viewModelScope.launch {
+            val portions = withContext(Dispatchers.IO) {
+                val steps = masterDataCache.workflowSteps()
+                val source = if (bcType != null) steps.byBcType(bcType) else steps.all
+                source.map { it.portion.toInt() }.distinct().sorted()
+            }
+            val options = portions.flatMap { portion ->
+                listOf(StepFilterOption(portion, completed = true), StepFilterOption(portion, completed = false))
+            }
+            _uiState.value = _uiState.value.copy(stepOptions = options)
+        }
+    }
+}
+
+/**
+ * Step completion filter entry, e.g. "Step 20 completed"
+ */
+data class StepFilterOption(
+    val portion: Int,
+    val completed: Boolean
+) {
+    val label: String get() = "Step $portion ${if (completed) "completed" else "pending"}"
+}
+
+/**
+ * UI state for Component Browser screen
+ */
+data class ComponentBrowserUiState(
+    val filter: ComponentFilter = ComponentFilter(),
+    val items: List<ComponentListItem> = emptyList(),
+    val totalCount: Long? = null,
+    val hasMore: Boolean = true,
+    val isLoading: Boolean = false,
+    val bcTypeOptions: List<String> = emptyList(),
+    val regionOptions: List<String> = emptyList(),
+    val floorOptions: List<String> = emptyList(),
+    val stepOptions: List<StepFilterOption> = emptyList()
+)
@@ -0,0 +1,25 @@
+package com.socam.bcms.presentation.search
+
+import android.content.Context
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.ViewModelProvider
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.repository.ComponentBrowseRepository
+
+/**
+ * Factory for creating ComponentBrowserViewModel with required dependencies
+ */
+class ComponentBrowserViewModelFactory(private val context: Context) : ViewModelProvider.Factory {
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : ViewModel> create(modelClass: Class<T>): T {
+        if (modelClass.isAssignableFrom(ComponentBrowserViewModel::class.java)) {
+            val databaseManager = DatabaseManager.getInstance(context)
+            return ComponentBrowserViewModel(
+                ComponentBrowseRepository(databaseManager),
+                databaseManager.masterDataCache
+            ) as T
+        }
+        throw IllegalArgumentException("Unknown ViewModel class: ${modelClass.name}")
+    }
+}
@@ -0,0 +1,65 @@
+package com.socam.bcms.presentation.search
+
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.TextView
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.socam.bcms.R
+import com.socam.bcms.database.RfidModule
+
+/**
+ * Adapter for component search results
+ */
+class ComponentSearchAdapter : ListAdapter<RfidModule, ComponentSearchAdapter.ResultViewHolder>(DiffCallback()) {
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ResultViewHolder {
+        val view = LayoutInflater.from(parent.context)
+            .inflate(R.layout.item_component_search_result, parent, false)
+        return ResultViewHolder(view)
+    }
+
+    override fun onBindViewHolder(holder: ResultViewHolder, position: Int) {
+        holder.bind(getItem(position))
+    }
+
+    class ResultViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView) {
+
+        private val textBcType: TextView = itemView.findViewById(R.id.text_bc_type)
+        private val textSerialNo: TextView = itemView.findViewById(R.id.text_serial_no)
+        private val textTagNo: TextView = itemView.findViewById(R.id.text_tag_no)
+        private val textDetails: TextView = itemView.findViewById(R.id.text_details)
+        private val textLocation: TextView = itemView.findViewById(R.id.text_location)
+
+        fun bind(module: RfidModule) {
+            textBcType.text = module.BCType ?: "-"
+            textSerialNo.text = module.SerialNo ?: module.Id
+            textTagNo.text = "Tag: ${module.RFIDTagNo ?: "-"}"
+
+            textDetails.text = listOfNotNull(
+                module.ASN?.takeIf { it.isNotBlank() }?.let { "ASN: $it" },
+                module.ProductNo?.takeIf { it.isNotBlank() }?.let { "Product: $it" },
+                module.BatchNo?.takeIf { it.isNotBlank() }?.let { "Batch: $it" },
+                module.LicensePlateNo?.takeIf { it.isNotBlank() }?.let { "Plate: $it" }
+            ).joinToString(" • ")
+            textDetails.visibility = if (textDetails.text.isNullOrEmpty()) View.GONE else View.VISIBLE
+
+            textLocation.text = listOfNotNull(module.Region, module.Floor, module.RoomId)
+                .filter { it.isNotBlank() }
+                .joinToString(" / ")
+            textLocation.visibility = if (textLocation.text.isNullOrEmpty()) View.GONE else View.VISIBLE
+        }
+    }
+
+    private class DiffCallback : DiffUtil.ItemCallback<RfidModule>() {
+        override fun areItemsTheSame(oldItem: RfidModule, newItem: RfidModule): Boolean {
+            return oldItem.Id == newItem.Id
+        }
+
+        override fun areContentsTheSame(oldItem: RfidModule, newItem: RfidModule): Boolean {
+            return oldItem == newItem
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.socam.bcms.presentation.search
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.core.widget.doAfterTextChanged
+import androidx.fragment.app.Fragment
+import androidx.fragment.app.viewModels
+import androidx.lifecycle.lifecycleScope
+import androidx.navigation.fragment.findNavController
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.socam.bcms.R
+import com.socam.bcms.databinding.FragmentComponentSearchBinding
+import kotlinx.coroutines.flow.launchIn
+import kotlinx.coroutines.flow.onEach
+
+/**
+ * Component Search - look up panels by serial no, tag no, ASN, product no, batch no or license plate
+ * Backed by the RfidModuleFts full-text index (partial word matches, ranked, paged)
+ */
+class ComponentSearchFragment : Fragment() {
+
+    companion object {
+        private const val LOAD_MORE_THRESHOLD = 10
+    }
+
+    private var _binding: FragmentComponentSearchBinding? = null
+    private val binding get() = _binding!!
+
+    private val viewModel: ComponentSearchViewModel by viewModels {
+        ComponentSearchViewModelFactory(requireContext())
+    }
+
+    private lateinit var adapter: ComponentSearchAdapter
+
+    override fun onCreateView(
+        inflater: LayoutInflater,
+        container: ViewGroup?,
+        savedInstanceState: Bundle?
+    ): View {
+        _binding = FragmentComponentSearchBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+
+        setupToolbar()
+        setupRecyclerView()
+        setupSearchInput()
+        observeViewModel()
+    }
+
+    private fun setupToolbar(): Unit {
+        binding.toolbar.setNavigationOnClickListener {
+            findNavController().navigateUp()
+        }
+    }
+
+    private fun setupRecyclerView(): Unit {
+        adapter = ComponentSearchAdapter()
+        val layoutManager = LinearLayoutManager(requireContext())
+
+        binding.resultsRecyclerView.layoutManager = layoutManager
+        binding.resultsRecyclerView.adapter = adapter
+        binding.resultsRecyclerView.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                if (dy <= 0) return
+                val lastVisible = layoutManager.findLastVisibleItemPosition()
+                if (lastVisible >= adapter.itemCount - LOAD_MORE_THRESHOLD) {
+                    viewModel.loadMore()
+                }
+            }
+        })
+    }
+
+    private fun setupSearchInput(): Unit {
+        binding.searchInput.doAfterTextChanged { editable ->
+            viewModel.onQueryChanged(editable?.toString() ?: "")
+        }
+    }
+
+    private fun observeViewModel(): Unit {
+        viewModel.uiState.onEach { state ->
+            updateUI(state)
+        }.launchIn(viewLifecycleOwner.lifecycleScope)
+    }
+
+    private fun updateUI(state: ComponentSearchUiState): Unit {
+        adapter.submitList(state.results)
+
+        binding.loadingIndicator.visibility = if (state.isLoading) View.VISIBLE else View.GONE
+
+        val hasQuery = state.query.isNotBlank()
+        binding.resultCountText.visibility = if (hasQuery && !state.isLoading) View.VISIBLE else View.GONE
+        binding.resultCountText.text = getString(R.string.component_search_results_format, state.totalCount.toInt()) +
+            " (${state.lastSearchMs}ms)"
+
+        binding.emptyText.visibility = if (hasQuery && !state.isLoading && state.results.isEmpty()) View.VISIBLE else View.GONE
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        _binding = null
+    }
+}
@@ -0,0 +1,96 @@
+package com.socam.bcms.presentation.search
+
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewModelScope
+import com.socam.bcms.data.repository.ComponentSearchRepository
+import com.socam.bcms.database.RfidModule
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+
+/**
+ * ViewModel for Component Search screen
+ * Debounces typing, loads the first page on each query and appends further pages on scroll
+ */
+class ComponentSearchViewModel(
+    private val searchRepository: ComponentSearchRepository
+) : ViewModel() {
+
+    companion object {
+        private const val SEARCH_DEBOUNCE_MS = 200L
+    }
+
+    private val _uiState = MutableStateFlow(ComponentSearchUiState())
+    val uiState: StateFlow<ComponentSearchUiState> = _uiState.asStateFlow()
+
+    private var searchJob: Job? = null
+    private var loadMoreJob: Job? = null
+
+    /**
+     * Query text changed - restart search after debounce
+     */
+    fun onQueryChanged(query: String): Unit {
+        if (query == _uiState.value.query) return
+
+        searchJob?.cancel()
+        loadMoreJob?.cancel()
+
+        if (query.isBlank()) {
+            _uiState.value = ComponentSearchUiState()
+            return
+        }
+
+        _uiState.value = _uiState.value.copy(query = query, isLoading = true)
+        searchJob = viewModelScope.launch {
+            delay(SEARCH_DEBOUNCE_MS)
+            val start = System.currentTimeMillis()
+            val page = searchRepository.search(query, page = 0)
+            _uiState.value = _uiState.value.copy(
+                results = page.items,
+                totalCount = page.totalCount ?: page.items.size.toLong(),
+                nextPage = 1,
+                hasMore = page.hasMore,
+                isLoading = false,
+                lastSearchMs = System.currentTimeMillis() - start
+            )
+        }
+    }
+
+    /**
+     * Load the next page (called when the list is scrolled near its end)
+     */
+    fun loadMore(): Unit {
+        val state = _uiState.value
+        if (state.isLoading || !state.hasMore || loadMoreJob?.isActive == true) return
+
+        loadMoreJob = viewModelScope.launch {
+            _uiState.value = _uiState.value.copy(isLoading = true)
+            val page = searchRepository.search(state.query, page = state.nextPage)
+            val current = _uiState.value
+            if (current.query != state.query) return@launch
+
+            _uiState.value = current.copy(
+                results = current.results + page.items,
+                nextPage = state.nextPage + 1,
+                hasMore = page.hasMore,
+                isLoading = false
+            )
+        }
+    }
+}
+
+/**
+ * UI state for Component Search screen
+ */
+data class ComponentSearchUiState(
+    val query: String = "",
+    val results: List<RfidModule> = emptyList(),
+    val totalCount: Long = 0L,
+    val nextPage: Int = 0,
+    val hasMore: Boolean = false,
+    val isLoading: Boolean = false,
+    val lastSearchMs: Long = 0L
+)
@@ -0,0 +1,22 @@
+package com.socam.bcms.presentation.search
+
+import android.content.Context
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.ViewModelProvider
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.repository.ComponentSearchRepository
+
+/**
+ * Factory for creating ComponentSearchViewModel with required dependencies
+ */
+class ComponentSearchViewModelFactory(private val context: Context) : ViewModelProvider.Factory {
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T : ViewModel> create(modelClass: Class<T>): T {
+        if (modelClass.isAssignableFrom(ComponentSearchViewModel::class.java)) {
+            val databaseManager = DatabaseManager.getInstance(context)
+            return ComponentSearchViewModel(ComponentSearchRepository(databaseManager)) as T
+        }
+        throw IllegalArgumentException("Unknown ViewModel class: ${modelClass.name}")
+    }
+}
@@ -7,12 +7,15 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.TextView
+import androidx.appcompat.app.AlertDialog
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
 import androidx.navigation.fragment.findNavController
 import com.google.android.material.snackbar.Snackbar
 import com.socam.bcms.R
+import com.socam.bcms.data.repository.SyncScope
+import com.socam.bcms.databinding.DialogSyncScopeBinding
 import com.socam.bcms.databinding.FragmentSyncBinding
 import kotlinx.coroutines.launch
 import java.util.*
@@ -46,6 +49,7 @@ class SyncFragment : Fragment() {
         setupClickListeners()
         setupObservers()
         loadDataCounts()
+        viewModel.loadSyncScope()
     }
     
     private fun setupToolbar(): Unit {
@@ -90,6 +94,13 @@ class SyncFragment : Fragment() {
                 }
             }
         }
+        
+        // Sync Scope
+        binding.syncScopeCard.setOnClickListener {
+            if (viewModel.isSyncing.value != true) {
+                showSyncScopeDialog()
+            }
+        }
     }
     
     private fun setupObservers(): Unit {
@@ -127,6 +138,11 @@ class SyncFragment : Fragment() {
             binding.tidCountText.text = getString(R.string.records_count_format, counts.tidCount)
             binding.masterCountText.text = getString(R.string.datasets_records_format, counts.totalMasterRecords)
         }
+        
+        // Sync scope observer
+        viewModel.syncScope.observe(viewLifecycleOwner) { scope ->
+            binding.syncScopeText.text = scope.describe()
+        }
     }
     
     private fun loadDataCounts(): Unit {
@@ -158,12 +174,91 @@ class SyncFragment : Fragment() {
         binding.syncAlwCard.isClickable = enabled
         binding.syncTidCard.isClickable = enabled
         binding.syncMasterCard.isClickable = enabled
+        binding.syncScopeCard.isClickable = enabled
         
         val alpha = if (enabled) 1.0f else 0.6f
         binding.syncMicCard.alpha = alpha
         binding.syncAlwCard.alpha = alpha
         binding.syncTidCard.alpha = alpha
         binding.syncMasterCard.alpha = alpha
+        binding.syncScopeCard.alpha = alpha
+    }
+    
+    /**
+     * Edit the sync scope: contracts / blocks / floors from master data, step portion range
+     * Saving evicts local components outside the new scope
+     */
+    private fun showSyncScopeDialog(): Unit {
+        viewLifecycleOwner.lifecycleScope.launch {
+            val options = viewModel.loadScopeOptions()
+            val current = viewModel.syncScope.value ?: SyncScope()
+            val contracts = current.contractNos.toMutableSet()
+            val regions = current.regions.toMutableSet()
+            val floors = current.floors.toMutableSet()
+            
+            val dialogBinding = DialogSyncScopeBinding.inflate(layoutInflater)
+            fun refreshSelections(): Unit {
+                dialogBinding.scopeContractsButton.text = selectionLabel(contracts)
+                dialogBinding.scopeRegionsButton.text = selectionLabel(regions)
+                dialogBinding.scopeFloorsButton.text = selectionLabel(floors)
+            }
+            refreshSelections()
+            dialogBinding.scopeContractsButton.setOnClickListener {
+                pickScopeValues(R.string.sync_scope_contracts, options.contractNos, contracts) { refreshSelections() }
+            }
+            dialogBinding.scopeRegionsButton.setOnClickListener {
+                pickScopeValues(R.string.sync_scope_blocks, options.regions, regions) { refreshSelections() }
+            }
+            dialogBinding.scopeFloorsButton.setOnClickListener {
+                pickScopeValues(R.string.sync_scope_floors, options.floors, floors) { refreshSelections() }
+            }
+            dialogBinding.scopeStepFromInput.setText(current.stepFrom?.toString() ?: "")
+            dialogBinding.scopeStepToInput.setText(current.stepTo?.toString() ?: "")
+            
+            AlertDialog.Builder(requireContext())
+                .setTitle(R.string.sync_scope_title)
+                .setView(dialogBinding.root)
+                .setPositiveButton(R.string.sync_scope_save) { _, _ ->
+                    viewModel.updateSyncScope(
+                        SyncScope(
+                            contractNos = contracts.toSet(),
+                            regions = regions.toSet(),
+                            floors = floors.toSet(),
+                            stepFrom = dialogBinding.scopeStepFromInput.text?.toString()?.toIntOrNull(),
+                            stepTo = dialogBinding.scopeStepToInput.text?.toString()?.toIntOrNull()
+                        )
+                    )
+                }
+                .setNeutralButton(R.string.sync_scope_clear) { _, _ ->
+                    viewModel.updateSyncScope(SyncScope())
+                }
+                .setNegativeButton(R.string.cancel, null)
+                .show()
+        }
+    }
+    
+    /**
+     * Multi-choice picker; values saved earlier but missing from master data stay selectable
+     */
+    private fun pickScopeValues(titleRes: Int, options: List<String>, selected: MutableSet<String>, onChanged: () -> Unit): Unit {
+        val items = (options + selected.filterNot { it in options }).toTypedArray()
+        val checked = BooleanArray(items.size) { items[it] in selected }
+        AlertDialog.Builder(requireContext())
+            .setTitle(titleRes)
+            .setMultiChoiceItems(items, checked) { _, which, isChecked -> checked[which] = isChecked }
+            .setPositiveButton(android.R.string.ok) { _, _ ->
+                selected.clear()
+                items.forEachIndexed { index, value -> if (checked[index]) selected.add(value) }
+                onChanged()
+            }
+            .setNegativeButton(R.string.cancel, null)
+            .show()
+    }
+    
+    private fun selectionLabel(values: Set<String>): String = when {
+        values.isEmpty() -> getString(R.string.sync_scope_all)
+        values.size <= 2 -> values.joinToString()
+        else -> getString(R.string.sync_scope_selected_format, values.size)
     }
     
     private fun showSyncSuccess(message: String): Unit {
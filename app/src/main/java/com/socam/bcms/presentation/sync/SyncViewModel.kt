@@ -5,21 +5,28 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.google.gson.stream.JsonReader
 import com.socam.bcms.R
 import com.socam.bcms.data.api.ApiClient
 import com.socam.bcms.data.api.SyncApiService
 import com.socam.bcms.data.auth.TokenManager
 import com.socam.bcms.data.dto.RfidModuleDto
-import com.socam.bcms.data.dto.RfidModuleRequest
 import com.socam.bcms.data.dto.RfidModificationDto
 import com.socam.bcms.data.dto.BatchModificationResponse
-import com.socam.bcms.data.dto.SyncError
 import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.data.database.MasterDataCache
+import com.socam.bcms.data.repository.MasterDataVersionRepository
+import com.socam.bcms.data.repository.ModuleOutboxRepository
+import com.socam.bcms.data.repository.SyncErrorRepository
+import com.socam.bcms.data.repository.SyncScope
+import com.socam.bcms.data.repository.SyncScopeRepository
+import com.socam.bcms.database.RfidModuleStepColumns
 import com.socam.bcms.domain.AuthManager
+import com.socam.bcms.utils.AppLog
+import com.socam.bcms.utils.IsoDateTimeCodec
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import java.text.SimpleDateFormat
 import java.util.*
 
 /**
@@ -32,8 +39,18 @@ class SyncViewModel(
     private val context: Context
 ) : ViewModel() {
 
+    companion object {
+        // Downloaded modules written per transaction
+        private const val DOWNLOAD_CHUNK_SIZE = 500
+    }
+
     private val tokenManager = TokenManager.getInstance(context)
     private val apiClient = ApiClient.getInstance(context)
+    private val masterDataCache = databaseManager.masterDataCache
+    private val moduleOutbox = ModuleOutboxRepository(databaseManager)
+    private val masterDataVersions = MasterDataVersionRepository(databaseManager)
+    private val syncErrors = SyncErrorRepository(databaseManager)
+    private val syncScopes = SyncScopeRepository(databaseManager)
 
     // ✅ FIXED: Use centralized ApiClient instead of hardcoded URL
     private val apiService: SyncApiService by lazy {
@@ -49,9 +66,9 @@ class SyncViewModel(
 
     private val _dataCounts = MutableLiveData<DataCounts>()
     val dataCounts: LiveData<DataCounts> = _dataCounts
-    
-    // Error tracking for failed sync attempts (for future notification module)
-    private val syncErrors = mutableListOf<SyncError>()
+
+    private val _syncScope = MutableLiveData<SyncScope>()
+    val syncScope: LiveData<SyncScope> = _syncScope
     
     /**
      * Get current user's project ID for API calls
@@ -195,15 +212,59 @@ class SyncViewModel(
         }
     }
     
+    /**
+     * Retry only the records of a BC type that failed to upload (ignores their backoff)
+     * Runs in the caller's scope; returns the number of records still failing afterwards
+     */
+    suspend fun retryFailed(bcType: String): Int {
+        try {
+            _isSyncing.value = true
+            val failedIds = syncErrors.failedIds(bcType)
+            if (failedIds.isEmpty()) {
+                _syncState.value = SyncState.Success("No failed $bcType records to retry")
+                return 0
+            }
+            
+            println("SyncViewModel: Retrying ${failedIds.size} failed $bcType records")
+            val uploadSuccess = uploadPendingChanges(bcType, failedIds)
+            val remaining = syncErrors.failedIds(bcType).size
+            _syncState.value = if (uploadSuccess && remaining == 0) {
+                SyncState.Success("Retried ${failedIds.size} $bcType records successfully")
+            } else {
+                SyncState.Error("$remaining $bcType records still failing")
+            }
+            return remaining
+        } catch (e: Exception) {
+            val errorMsg = "Retry failed: ${e.javaClass.simpleName}: ${e.message}"
+            _syncState.value = SyncState.Error(errorMsg)
+            println("SyncViewModel: $errorMsg")
+            return syncErrors.failedIds(bcType).size
+        } finally {
+            _isSyncing.value = false
+        }
+    }
+    
     /**
      * Phase 1: Upload pending changes to server with retry logic
+     * onlyIds: upload just these records (failed-record retry); otherwise records still in
+     * their failure backoff are left out so one bad record does not block the rest
      */
-    private suspend fun uploadPendingChanges(bcType: String): Boolean {
+    private suspend fun uploadPendingChanges(bcType: String, onlyIds: Set<String>? = null): Boolean {
         try {
-            // Get pending records from database
-            val pendingRecords = withContext(Dispatchers.IO) {
-                databaseManager.database.rfidModuleQueries.selectPendingByBCType(bcType).executeAsList()
+            // Get pending records with their changed fields from the outbox
+            val uploadStartedAt = System.currentTimeMillis() / 1000
+            val allEntries = moduleOutbox.pendingEntries(bcType)
+            val outboxEntries = if (onlyIds != null) {
+                allEntries.filter { it.record.Id in onlyIds }
+            } else {
+                val backedOff = syncErrors.backedOffIds(bcType)
+                if (backedOff.isNotEmpty()) {
+                    println("SyncViewModel: Skipping ${backedOff.size} $bcType records in failure backoff")
+                }
+                allEntries.filter { it.record.Id !in backedOff }
             }
+            val pendingRecords = outboxEntries.map { it.record }
+            val uploadedIds = pendingRecords.map { it.Id }.toSet()
             
             val pendingCount = pendingRecords.size
             
@@ -215,18 +276,22 @@ class SyncViewModel(
             _syncState.value = SyncState.Loading("Uploading $pendingCount pending $bcType changes...")
             println("SyncViewModel: Found $pendingCount pending $bcType records to upload")
             
-            // Convert to DTOs
-            val modificationDtos = pendingRecords.map { record ->
-                convertToModificationDto(record)
+            // Convert to payload: identity + version + changed fields (full record when changes are unknown)
+            val stepColumns = withContext(Dispatchers.IO) {
+                databaseManager.database.rfidModuleStepProgressQueries
+                    .selectStepColumnsPendingByBCType(bcType)
+                    .executeAsList()
+                    .associateBy { it.module_id }
             }
+            val modificationPayload = moduleOutbox.buildPayload(outboxEntries) { record ->
+                convertToModificationDto(record, stepColumns[record.Id])
+            }
+            val fieldLevelCount = outboxEntries.count { it.changedFields != null }
             
-            // LOG POST BODY for debugging
-            val gson = com.google.gson.Gson()
-            val jsonBody = gson.toJson(modificationDtos)
-            println("SyncViewModel: === POST BODY FOR DEBUGGING ===")
-            println("SyncViewModel: URL: POST https://dev.socam.com/iot/api/Rfids/ModificationAppv2/Multi")
-            println("SyncViewModel: Body: $jsonBody")
-            println("SyncViewModel: === END POST BODY ===")
+            println("SyncViewModel: Upload payload $fieldLevelCount/$pendingCount records field-level")
+            // Full body only at verbose level in debug builds (serialising it is as costly as the upload)
+            AppLog.v("SyncViewModel") { "POST ModificationAppv2/Multi body: $modificationPayload" }
+            val requestBody = moduleOutbox.toRequestBody(modificationPayload)
             
             // Upload with retry logic
             var uploadSuccess = false
@@ -237,21 +302,35 @@ class SyncViewModel(
                 try {
                     _syncState.value = SyncState.Loading("Uploading $pendingCount $bcType changes... (attempt ${retryCount + 1})")
                     
-                    val response = apiService.batchModifyRfidModules(modificationDtos)
+                    val response = apiService.batchModifyRfidModulesPartial(requestBody)
                     
                     if (response.isSuccessful) {
                         val responseBody = response.body()
+                        // Per-record failures listed by the server (empty when it gives none)
+                        val recordErrors = if (responseBody != null) {
+                            SyncErrorRepository.parseRecordErrors(responseBody.data, responseBody.message, uploadedIds)
+                        } else {
+                            emptyMap()
+                        }
+                        
                         if (responseBody != null && responseBody.status == 200) {
-                            // Success - mark all records as synced
-                            withContext(Dispatchers.IO) {
-                                pendingRecords.forEach { record ->
-                                    databaseManager.database.rfidModuleQueries.updateSyncStatusById("SYNCED", record.Id)
-                                }
-                            }
+                            // Success - clear uploaded fields and mark records as synced (except rejected ones)
+                            val accepted = outboxEntries.filter { it.record.Id !in recordErrors }
+                            moduleOutbox.acknowledge(accepted, uploadStartedAt)
+                            syncErrors.clearErrors(accepted.map { it.record.Id })
+                            syncErrors.recordFailures(bcType, recordErrors)
+                            
+                            _syncState.value = SyncState.Loading("✅ Uploaded ${accepted.size} $bcType changes successfully. Downloading server data...")
+                            println("SyncViewModel: Successfully uploaded ${accepted.size} $bcType changes, ${recordErrors.size} rejected")
+                            uploadSuccess = recordErrors.isEmpty()
+                            break
                             
-                            _syncState.value = SyncState.Loading("✅ Uploaded $pendingCount $bcType changes successfully. Downloading server data...")
-                            println("SyncViewModel: Successfully uploaded $pendingCount $bcType changes")
-                            uploadSuccess = true
+                        } else if (recordErrors.isNotEmpty()) {
+                            // Server named the bad records - resending the same batch would fail again
+                            syncErrors.recordFailures(bcType, recordErrors)
+                            _syncState.value = SyncState.Loading("⚠️ ${recordErrors.size} $bcType records rejected. Continuing with download...")
+                            println("SyncViewModel: ${recordErrors.size} $bcType records rejected, they wait for retry")
+                            break
                             
                         } else {
                             // API returned error response
@@ -309,150 +388,261 @@ class SyncViewModel(
     }
     
     /**
-     * Phase 2: Download server data (existing logic)
+     * Phase 2: Download server data within the sync scope
+     * The response is streamed: records are decoded one at a time, filtered by the scope and
+     * written in chunks of [DOWNLOAD_CHUNK_SIZE], one short transaction per chunk, so the full
+     * list is never held in memory and other writers are not blocked for the whole download
+     * - Each chunk replaces its synced rows; received IDs are staged in RfidModuleDownload
+     * - Only a completed download sweeps the synced rows it did not return, so a broken
+     *   download leaves the previous rows in place (some already refreshed)
+     * - Local PENDING rows (not uploaded, rejected or in failure backoff) are kept as they are,
+     *   so their edits and sync errors survive until they are uploaded
      */
     private suspend fun downloadServerData(bcType: String) {
         try {
             _syncState.value = SyncState.Loading("Downloading latest $bcType data from server...")
             println("SyncViewModel: Starting download phase for $bcType components")
-                
-                // Call API with POST request
-                val projectId = getCurrentProjectId()
-            val request = RfidModuleRequest(listOf(bcType))
-            val response = apiService.getRfidModules(projectId, request)
-                
-                if (response.isSuccessful) {
-                    val components = response.body()
-                    if (components != null) {
-                    println("SyncViewModel: Received ${components.size} $bcType components from server")
-                        
-                        // Clear existing data for this BC type
-                        withContext(Dispatchers.IO) {
-                        databaseManager.database.rfidModuleQueries.deleteAllByBCType(bcType)
-                        }
-                        
-                        // Insert new data
-                    _syncState.value = SyncState.Loading("Saving ${components.size} $bcType components to local database...")
-                        
-                        withContext(Dispatchers.IO) {
-                            components.forEach { dto ->
-                                try {
-                                databaseManager.database.rfidModuleQueries.insertModule(
-                                    Id = dto.id,
-                                    ProjId = dto.projId,
-                                    ContractNo = dto.contractNo,
-                                    ManufacturerId = dto.manufacturerId,
-                                    TagId = dto.tagId,
-                                    IsActivated = dto.isActivated.toLong(),
-                                    ActivatedDate = parseDateTime(dto.activatedDate),
-                                    BCType = dto.bcType,
-                                    RFIDTagNo = dto.rfidTagNo,
-                                    StepCode = dto.stepCode,
-                                    Category = dto.category,
-                                    Subcategory = dto.subcategory,
-                                    SupplierId = dto.supplierId,
-                                    ConcreteGrade = dto.concreteGrade,
-                                    ASN = dto.asn,
-                                    SerialNo = dto.serialNo,
-                                    WorkingNo = dto.workingNo?.toLong(),
-                                    ManufacturingDate = parseDateTime(dto.manufacturingDate),
-                                    RSCompanyId = dto.rsCompanyId,
-                                    RSInspectionDate = parseDateTime(dto.rsInspectionDate),
-                                    CastingDate = parseDateTime(dto.castingDate),
-                                    FirstCastingDate = parseDateTime(dto.firstCastingDate),
-                                    SecondCastingDate = parseDateTime(dto.secondCastingDate),
-                                    WaterproofingInstallationDate = parseDateTime(dto.waterproofingInstallationDate),
-                                    InternalFinishDate = parseDateTime(dto.internalFinishDate),
-                                    DeliveryDate = parseDateTime(dto.deliveryDate),
-                                    BatchNo = dto.batchNo,
-                                    LicensePlateNo = dto.licensePlateNo,
-                                    GpsDeviceId = dto.gpsDeviceId,
-                                    SiteArrivalDate = parseDateTime(dto.siteArrivalDate),
-                                    SiteInstallationDate = parseDateTime(dto.siteInstallationDate),
-                                    RoomInput = dto.roomInput,
-                                    RoomId = dto.roomId,
-                                    Floor = dto.floor,
-                                    Region = dto.region,
-                                    ChipFailureSA = dto.chipFailureSa.toLong(),
-                                    ChipFailureSI = dto.chipFailureSi.toLong(),
-                                    IsCompleted10 = dto.isCompleted10.toLong(),
-                                    Remark10 = dto.remark10,
-                                    IsCompleted20 = dto.isCompleted20.toLong(),
-                                    Remark20 = dto.remark20,
-                                    IsCompleted30 = dto.isCompleted30.toLong(),
-                                    Remark30 = dto.remark30,
-                                    IsCompleted40 = dto.isCompleted40.toLong(),
-                                    Remark40 = dto.remark40,
-                                    IsCompleted50 = dto.isCompleted50.toLong(),
-                                    Remark50 = dto.remark50,
-                                    IsCompleted55 = dto.isCompleted55.toLong(),
-                                    Remark55 = dto.remark55,
-                                    IsCompleted60 = dto.isCompleted60.toLong(),
-                                    Remark60 = dto.remark60,
-                                    IsCompleted70 = dto.isCompleted70.toLong(),
-                                    Remark70 = dto.remark70,
-                                    IsCompleted80 = dto.isCompleted80.toLong(),
-                                    Remark80 = dto.remark80,
-                                    Dispose = dto.dispose.toLong(),
-                                    CreatedBy = dto.createdBy,
-                                    UpdatedBy = dto.updatedBy,
-                                    ProductNo = dto.productNo,
-                                    CreatedDate = parseDateTime(dto.createdDate) ?: System.currentTimeMillis() / 1000,
-                                    UpdatedDate = parseDateTime(dto.updatedDate) ?: System.currentTimeMillis() / 1000,
-                                    sync_status = "SYNCED"
-                                    )
-                                } catch (e: Exception) {
-                                println("SyncViewModel: Error inserting RfidModule ${dto.id}: ${e.message}")
-                            }
+            
+            val scope = syncScopes.loadScope()
+            val stepPortions = syncScopes.stepPortions(scope)
+            println("SyncViewModel: Sync scope: ${scope.describe()}")
+            
+            // Call API with POST request (scope filters sent along, applied again below)
+            val projectId = getCurrentProjectId()
+            val response = apiService.streamRfidModules(projectId, scope.toRequest(bcType))
+            
+            if (response.isSuccessful) {
+                val body = response.body()
+                if (body != null) {
+                    _syncState.value = SyncState.Loading("Saving $bcType components to local database...")
+                    
+                    val (received, saved) = withContext(Dispatchers.IO) {
+                        val dtoAdapter = ApiClient.gson.getAdapter(RfidModuleDto::class.java)
+                        val database = databaseManager.database
+                        val downloadQueries = database.rfidModuleDownloadQueries
+                        var receivedCount = 0
+                        var savedCount = 0
+                        downloadQueries.clearDownloadedIds()
+                        body.use {
+                            JsonReader(body.charStream()).use { reader ->
+                                val chunk = ArrayList<RfidModuleDto>(DOWNLOAD_CHUNK_SIZE)
+                                reader.beginArray()
+                                while (reader.hasNext()) {
+                                    val dto = dtoAdapter.read(reader) ?: continue
+                                    receivedCount++
+                                    if (!scope.matches(dto, stepPortions)) continue
+                                    chunk.add(dto)
+                                    if (chunk.size == DOWNLOAD_CHUNK_SIZE) {
+                                        savedCount += saveDownloadedChunk(bcType, chunk)
+                                        chunk.clear()
+                                    }
+                                }
+                                reader.endArray()
+                                savedCount += saveDownloadedChunk(bcType, chunk)
                             }
                         }
-                        
-                        val message = "$bcType sync completed! ${components.size} components synchronized."
-                        _syncState.value = SyncState.Success(message)
-                        println("SyncViewModel: $message")
-                    
-                    } else {
-                        _syncState.value = SyncState.Error("No data received from server")
+                        // Download complete - drop synced rows the server no longer returns
+                        database.transaction {
+                            downloadQueries.deleteNotDownloadedByBCType(bcType)
+                            downloadQueries.clearDownloadedIds()
+                        }
+                        receivedCount to savedCount
                     }
+                    // Planner statistics are stale after replacing a whole BC type
+                    withContext(Dispatchers.IO) { databaseManager.analyzeAfterBulkLoad() }
+                    println("SyncViewModel: Received $received $bcType components from server, $saved within scope")
+                    
+                    // Pending rows were kept, so only errors of records uploaded meanwhile are dropped
+                    syncErrors.purgeResolved()
+                    
+                    val message = "$bcType sync completed! $saved components synchronized."
+                    _syncState.value = SyncState.Success(message)
+                    println("SyncViewModel: $message")
+                    
                 } else {
+                    _syncState.value = SyncState.Error("No data received from server")
+                }
+            } else {
                 val errorMsg = "Download failed: HTTP ${response.code()} ${response.message()}"
-                    _syncState.value = SyncState.Error(errorMsg)
-                    println("SyncViewModel: $errorMsg")
+                _syncState.value = SyncState.Error(errorMsg)
+                println("SyncViewModel: $errorMsg")
+            }
+            
+        } catch (e: Exception) {
+            val errorMsg = "Download failed: ${e.javaClass.simpleName}: ${e.message}"
+            _syncState.value = SyncState.Error(errorMsg)
+            println("SyncViewModel: $errorMsg")
+            e.printStackTrace()
+        }
+    }
+    
+    /**
+     * Write one chunk of downloaded modules in its own transaction, returns the number saved
+     * Synced rows are replaced, IDs still PENDING locally are skipped
+     */
+    private fun saveDownloadedChunk(bcType: String, chunk: List<RfidModuleDto>): Int {
+        if (chunk.isEmpty()) return 0
+        val database = databaseManager.database
+        return database.transactionWithResult {
+            val pendingIds = database.rfidModuleQueries.selectPendingIdsByBCType(bcType).executeAsList().toHashSet()
+            val ids = chunk.map { it.id }
+            database.rfidModuleDownloadQueries.deleteSyncedModulesById(ids)
+            var saved = 0
+            chunk.forEach { dto ->
+                database.rfidModuleDownloadQueries.insertDownloadedId(dto.id)
+                if (dto.id in pendingIds) return@forEach
+                try {
+                    saveDownloadedModule(dto)
+                    saved++
+                } catch (e: Exception) {
+                    println("SyncViewModel: Error inserting RfidModule ${dto.id}: ${e.message}")
                 }
-                
+            }
+            saved
+        }
+    }
+    
+    /**
+     * Insert one downloaded module with its step progress (caller holds the transaction)
+     */
+    private fun saveDownloadedModule(dto: RfidModuleDto): Unit {
+        databaseManager.database.rfidModuleQueries.insertModule(
+            Id = dto.id,
+            ProjId = dto.projId,
+            ContractNo = dto.contractNo,
+            ManufacturerId = dto.manufacturerId,
+            TagId = dto.tagId,
+            IsActivated = dto.isActivated.toLong(),
+            ActivatedDate = parseDateTime(dto.activatedDate),
+            BCType = dto.bcType,
+            RFIDTagNo = dto.rfidTagNo,
+            StepCode = dto.stepCode,
+            Category = dto.category,
+            Subcategory = dto.subcategory,
+            SupplierId = dto.supplierId,
+            ConcreteGrade = dto.concreteGrade,
+            ASN = dto.asn,
+            SerialNo = dto.serialNo,
+            WorkingNo = dto.workingNo?.toLong(),
+            ManufacturingDate = parseDateTime(dto.manufacturingDate),
+            RSCompanyId = dto.rsCompanyId,
+            RSInspectionDate = parseDateTime(dto.rsInspectionDate),
+            CastingDate = parseDateTime(dto.castingDate),
+            FirstCastingDate = parseDateTime(dto.firstCastingDate),
+            SecondCastingDate = parseDateTime(dto.secondCastingDate),
+            WaterproofingInstallationDate = parseDateTime(dto.waterproofingInstallationDate),
+            InternalFinishDate = parseDateTime(dto.internalFinishDate),
+            DeliveryDate = parseDateTime(dto.deliveryDate),
+            BatchNo = dto.batchNo,
+            LicensePlateNo = dto.licensePlateNo,
+            GpsDeviceId = dto.gpsDeviceId,
+            SiteArrivalDate = parseDateTime(dto.siteArrivalDate),
+            SiteInstallationDate = parseDateTime(dto.siteInstallationDate),
+            RoomInput = dto.roomInput,
+            RoomId = dto.roomId,
+            Floor = dto.floor,
+            Region = dto.region,
+            ChipFailureSA = dto.chipFailureSa.toLong(),
+            ChipFailureSI = dto.chipFailureSi.toLong(),
+            Dispose = dto.dispose.toLong(),
+            CreatedBy = dto.createdBy,
+            UpdatedBy = dto.updatedBy,
+            ProductNo = dto.productNo,
+            CreatedDate = parseDateTime(dto.createdDate) ?: System.currentTimeMillis() / 1000,
+            UpdatedDate = parseDateTime(dto.updatedDate) ?: System.currentTimeMillis() / 1000,
+            sync_status = "SYNCED"
+        )
+        saveStepProgress(dto)
+    }
+    
+    /**
+     * Load the saved sync scope into [syncScope]
+     */
+    fun loadSyncScope(): Unit {
+        viewModelScope.launch {
+            _syncScope.value = syncScopes.loadScope()
+        }
+    }
+    
+    /**
+     * Values the sync scope can be limited to (from the master data cache)
+     */
+    suspend fun loadScopeOptions(): SyncScopeOptions = withContext(Dispatchers.IO) {
+        try {
+            val locations = masterDataCache.locations()
+            SyncScopeOptions(
+                contractNos = masterDataCache.contracts().map { it.contract_no }.distinct().sorted(),
+                regions = locations.regionNames,
+                floors = locations.floorNames
+            )
+        } catch (e: Exception) {
+            println("SyncViewModel: Error loading sync scope options: ${e.message}")
+            SyncScopeOptions(emptyList(), emptyList(), emptyList())
+        }
+    }
+    
+    /**
+     * Replace the sync scope and evict local data outside it
+     */
+    fun updateSyncScope(scope: SyncScope): Unit {
+        viewModelScope.launch {
+            try {
+                val evicted = syncScopes.saveScope(scope)
+                _syncScope.value = scope
+                syncErrors.purgeResolved()
+                _syncState.value = SyncState.Success("Sync scope updated (${scope.describe()}), $evicted components removed")
+                loadDataCounts()
             } catch (e: Exception) {
-            val errorMsg = "Download failed: ${e.javaClass.simpleName}: ${e.message}"
+                val errorMsg = "Failed to update sync scope: ${e.message}"
                 _syncState.value = SyncState.Error(errorMsg)
                 println("SyncViewModel: $errorMsg")
-                e.printStackTrace()
+            }
         }
     }
     
     /**
-     * Log sync errors for future notification module
+     * Store the downloaded step progress (only steps that are completed or have a remark)
      */
-    private fun logSyncErrors(failedRecords: List<com.socam.bcms.database.RfidModule>, bcType: String, errorMessage: String) {
-        failedRecords.forEach { record ->
-            val syncError = SyncError(
-                recordId = record.Id,
-                bcType = bcType,
-                errorMessage = errorMessage,
-                timestamp = System.currentTimeMillis(),
-                retryCount = 2 // Max retries attempted
-            )
-            syncErrors.add(syncError)
+    private fun saveStepProgress(dto: RfidModuleDto): Unit {
+        val steps = listOf(
+            10 to (dto.isCompleted10 to dto.remark10),
+            20 to (dto.isCompleted20 to dto.remark20),
+            30 to (dto.isCompleted30 to dto.remark30),
+            40 to (dto.isCompleted40 to dto.remark40),
+            50 to (dto.isCompleted50 to dto.remark50),
+            55 to (dto.isCompleted55 to dto.remark55),
+            60 to (dto.isCompleted60 to dto.remark60),
+            70 to (dto.isCompleted70 to dto.remark70),
+            80 to (dto.isCompleted80 to dto.remark80)
+        )
+        val queries = databaseManager.database.rfidModuleStepProgressQueries
+        steps.forEach { (portion, step) ->
+            val (isCompleted, remark) = step
+            if (isCompleted != 0 || remark != null) {
+                queries.insertOrReplaceProgress(dto.id, portion.toLong(), isCompleted.toLong(), remark)
+            }
         }
+    }
+    
+    /**
+     * Persist a whole-batch failure (no per-record detail) for the notification module
+     */
+    private suspend fun logSyncErrors(failedRecords: List<com.socam.bcms.database.RfidModule>, bcType: String, errorMessage: String) {
+        syncErrors.recordFailures(bcType, failedRecords.associate { it.Id to errorMessage })
         println("SyncViewModel: Logged ${failedRecords.size} sync errors for future notification")
     }
     
     /**
      * Convert RfidModule database record to RfidModificationDto for API
+     * Step fields come from RfidModuleStepProgress through the RfidModuleStepColumns view
      */
-    private fun convertToModificationDto(record: com.socam.bcms.database.RfidModule): RfidModificationDto {
-        // Debug: Log ManufacturingDate value from database
-        println("SyncViewModel: DEBUG - Record ID: ${record.Id}")
-        println("SyncViewModel: DEBUG - ManufacturingDate from DB: ${record.ManufacturingDate}")
-        println("SyncViewModel: DEBUG - Formatted ManufacturingDate: ${formatDateOnlyForApi(record.ManufacturingDate)}")
+    private fun convertToModificationDto(
+        record: com.socam.bcms.database.RfidModule,
+        steps: RfidModuleStepColumns?
+    ): RfidModificationDto {
+        AppLog.v("SyncViewModel") {
+            "Record ${record.Id}: ManufacturingDate ${record.ManufacturingDate} -> ${formatDateOnlyForApi(record.ManufacturingDate)}"
+        }
         
         return RfidModificationDto(
             id = record.Id,
@@ -497,24 +687,24 @@ class SyncViewModel(
             region = record.Region,
             chipFailureSa = record.ChipFailureSA.toInt(),
             chipFailureSi = record.ChipFailureSI.toInt(),
-            isCompleted10 = record.IsCompleted10.toInt(),
-            remark10 = record.Remark10,
-            isCompleted20 = record.IsCompleted20.toInt(),
-            remark20 = record.Remark20,
-            isCompleted30 = record.IsCompleted30.toInt(),
-            remark30 = record.Remark30,
-            isCompleted40 = record.IsCompleted40.toInt(),
-            remark40 = record.Remark40,
-            isCompleted50 = record.IsCompleted50.toInt(),
-            remark50 = record.Remark50,
-            isCompleted55 = record.IsCompleted55.toInt(),
-            remark55 = record.Remark55,
-            isCompleted60 = record.IsCompleted60.toInt(),
-            remark60 = record.Remark60,
-            isCompleted70 = record.IsCompleted70.toInt(),
-            remark70 = record.Remark70,
-            isCompleted80 = record.IsCompleted80.toInt(),
-            remark80 = record.Remark80,
+            isCompleted10 = steps?.IsCompleted10?.toInt() ?: 0,
+            remark10 = steps?.Remark10,
+            isCompleted20 = steps?.IsCompleted20?.toInt() ?: 0,
+            remark20 = steps?.Remark20,
+            isCompleted30 = steps?.IsCompleted30?.toInt() ?: 0,
+            remark30 = steps?.Remark30,
+            isCompleted40 = steps?.IsCompleted40?.toInt() ?: 0,
+            remark40 = steps?.Remark40,
+            isCompleted50 = steps?.IsCompleted50?.toInt() ?: 0,
+            remark50 = steps?.Remark50,
+            isCompleted55 = steps?.IsCompleted55?.toInt() ?: 0,
+            remark55 = steps?.Remark55,
+            isCompleted60 = steps?.IsCompleted60?.toInt() ?: 0,
+            remark60 = steps?.Remark60,
+            isCompleted70 = steps?.IsCompleted70?.toInt() ?: 0,
+            remark70 = steps?.Remark70,
+            isCompleted80 = steps?.IsCompleted80?.toInt() ?: 0,
+            remark80 = steps?.Remark80,
             dispose = record.Dispose.toInt(),
             createdDate = formatDateTimeForApi(record.CreatedDate),
             createdBy = record.CreatedBy,
@@ -526,32 +716,12 @@ class SyncViewModel(
     /**
      * Format datetime for API (with time) - handles null safely
      */
-    private fun formatDateTimeForApi(timestamp: Long?): String? {
-        if (timestamp == null) return null
-        return try {
-            val date = java.util.Date(timestamp * 1000) // Convert from seconds to milliseconds
-            val format = java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", java.util.Locale.getDefault())
-            format.format(date)
-        } catch (e: Exception) {
-            println("SyncViewModel: Error formatting datetime $timestamp: ${e.message}")
-            null
-        }
-    }
+    private fun formatDateTimeForApi(timestamp: Long?): String? = IsoDateTimeCodec.formatDateTime(timestamp)
     
     /**
      * Format date only for API (no time) - handles null safely
      */
-    private fun formatDateOnlyForApi(timestamp: Long?): String? {
-        if (timestamp == null) return null
-        return try {
-            val date = java.util.Date(timestamp * 1000) // Convert from seconds to milliseconds
-            val format = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault())
-            format.format(date)
-        } catch (e: Exception) {
-            println("SyncViewModel: Error formatting date $timestamp: ${e.message}")
-            null
-        }
-    }
+    private fun formatDateOnlyForApi(timestamp: Long?): String? = IsoDateTimeCodec.formatDate(timestamp)
 
     /**
      * Sync all master data (7 endpoints)
@@ -591,6 +761,12 @@ class SyncViewModel(
                 _syncState.value = SyncState.Loading(context.getString(R.string.syncing_contracts_progress))
                 if (syncContracts()) successCount++
                 
+                // Eagerly reload invalidated tables so step dialogs open without SQL
+                val projectId = getCurrentProjectId()
+                withContext(Dispatchers.IO) {
+                    masterDataCache.warmUp(projectId)
+                }
+                
                 if (successCount == totalEndpoints) {
                     _syncState.value = SyncState.Success(context.getString(R.string.master_data_sync_completed))
                 } else {
@@ -616,6 +792,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterRegions(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Regions not modified, keeping local data")
+                    return@withContext true
+                }
                 val regions = response.body()
                 println("SyncViewModel: API response successful, regions count: ${regions?.size}")
                 
@@ -635,6 +816,8 @@ class SyncViewModel(
                         }
                         databaseManager.database.masterRegionsQueries.insertRegion(dto.key, dto.value)
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.REGIONS)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: ✅ Synced ${regions.size} regions successfully")
                     return@withContext true
                 } else {
@@ -657,6 +840,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterConcreteGrades(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Concrete grades not modified, keeping local data")
+                    return@withContext true
+                }
                 val grades = response.body()
                 if (grades != null) {
                     databaseManager.database.masterConcreteGradesQueries.deleteAllConcreteGrades()
@@ -665,6 +853,8 @@ class SyncViewModel(
                             dto.id.toLong(), dto.grade, dto.isDefault.toLong()
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.CONCRETE_GRADES)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${grades.size} concrete grades")
                     return@withContext true
                 }
@@ -681,6 +871,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterLocations(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Locations not modified, keeping local data")
+                    return@withContext true
+                }
                 val locations = response.body()
                 if (locations != null) {
                     databaseManager.database.masterLocationsQueries.deleteAllLocations()
@@ -703,6 +898,8 @@ class SyncViewModel(
                             floor_plan_file_guid = dto.floorPlanFileGuid
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.LOCATIONS)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${locations.size} locations")
                     return@withContext true
                 }
@@ -719,6 +916,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterCategories(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Categories not modified, keeping local data")
+                    return@withContext true
+                }
                 val categories = response.body()
                 if (categories != null) {
                     databaseManager.database.masterCategoriesQueries.deleteAllCategories()
@@ -733,6 +935,8 @@ class SyncViewModel(
                             is_default = dto.isDefault.toLong()
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.CATEGORIES)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${categories.size} categories")
                     return@withContext true
                 }
@@ -749,6 +953,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterCompanies(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Companies not modified, keeping local data")
+                    return@withContext true
+                }
                 val companies = response.body()
                 if (companies != null) {
                     databaseManager.database.masterCompaniesQueries.deleteAllCompanies()
@@ -769,6 +978,8 @@ class SyncViewModel(
                             is_default = dto.isDefault.toLong()
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.COMPANIES)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${companies.size} companies")
                     return@withContext true
                 }
@@ -785,6 +996,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterWorkflowSteps(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Workflow steps not modified, keeping local data")
+                    return@withContext true
+                }
                 val workflowSteps = response.body()
                 if (workflowSteps != null) {
                     databaseManager.database.masterWorkflowStepsQueries.deleteAllWorkflowSteps()
@@ -807,6 +1023,8 @@ class SyncViewModel(
                             allow_field = allowFieldArray
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.WORKFLOW_STEPS)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${workflowSteps.size} workflow steps")
                     return@withContext true
                 }
@@ -823,6 +1041,11 @@ class SyncViewModel(
             val projectId = getCurrentProjectId()
             val response = apiService.getMasterContracts(projectId)
             if (response.isSuccessful) {
+                // 304 with the version already in the local table - nothing to rewrite
+                if (masterDataVersions.isUnchanged(response)) {
+                    println("SyncViewModel: Contracts not modified, keeping local data")
+                    return@withContext true
+                }
                 val contracts = response.body()
                 if (contracts != null) {
                     databaseManager.database.masterContractsQueries.deleteAllContracts()
@@ -840,6 +1063,8 @@ class SyncViewModel(
                             contract_end_date = parseDateTime(dto.contractEndDate)
                         )
                     }
+                    masterDataCache.invalidate(MasterDataCache.Table.CONTRACTS)
+                    masterDataVersions.markApplied(response)
                     println("SyncViewModel: Synced ${contracts.size} contracts")
                     return@withContext true
                 }
@@ -851,33 +1076,24 @@ class SyncViewModel(
         }
     }
 
-    /**
-     * Get sync errors for future notification module
-     */
-    fun getSyncErrors(): List<SyncError> {
-        return syncErrors.toList() // Return a copy to prevent external modification
-    }
-    
     /**
      * Clear sync errors (for when user acknowledges them in notification module)
      */
-    fun clearSyncErrors(): Unit {
-        syncErrors.clear()
+    suspend fun clearSyncErrors(): Unit {
+        syncErrors.clearAll()
         println("SyncViewModel: Sync errors cleared")
     }
 
     /**
-     * Parse datetime string to Unix timestamp
+     * Parse datetime string to Unix timestamp (called per date field of every downloaded record)
      */
     private fun parseDateTime(dateTime: String?): Long? {
         if (dateTime.isNullOrBlank()) return null
-        return try {
-            val format = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault())
-            format.parse(dateTime)?.time?.div(1000)
-        } catch (e: Exception) {
-            println("SyncViewModel: Error parsing datetime '$dateTime': ${e.message}")
-            null
+        val seconds = IsoDateTimeCodec.parse(dateTime)
+        if (seconds == null) {
+            println("SyncViewModel: Error parsing datetime '$dateTime'")
         }
+        return seconds
     }
 }
 
@@ -891,6 +1107,15 @@ sealed class SyncState {
     data class Error(val error: String) : SyncState()
 }
 
+/**
+ * Choices offered by the sync scope dialog
+ */
+data class SyncScopeOptions(
+    val contractNos: List<String>,
+    val regions: List<String>,
+    val floors: List<String>
+)
+
 data class DataCounts(
     val micCount: Int,
     val alwCount: Int,
@@ -0,0 +1,78 @@
+package com.socam.bcms.service
+
+import android.app.job.JobInfo
+import android.app.job.JobParameters
+import android.app.job.JobScheduler
+import android.app.job.JobService
+import android.content.ComponentName
+import android.content.Context
+import android.util.Log
+import com.socam.bcms.data.database.DatabaseManager
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+
+/**
+ * Daily database housekeeping (purge, ANALYZE, incremental vacuum)
+ *
+ * - Scheduled with JobScheduler for an idle, charging device so VACUUM never competes with scanning
+ * - Work runs on Dispatchers.IO; the job is rescheduled by the system when stopped early
+ */
+class DatabaseMaintenanceJobService : JobService() {
+
+    companion object {
+        private const val TAG = "DatabaseMaintenanceJob"
+        private const val JOB_ID = 3901
+        private const val INTERVAL_MS = 24L * 60 * 60 * 1000
+
+        /**
+         * Schedule the periodic job once (no-op when already scheduled)
+         */
+        fun schedule(context: Context): Unit {
+            try {
+                val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+                if (scheduler.allPendingJobs.any { it.id == JOB_ID }) return
+
+                val job = JobInfo.Builder(JOB_ID, ComponentName(context, DatabaseMaintenanceJobService::class.java))
+                    .setRequiresDeviceIdle(true)
+                    .setRequiresCharging(true)
+                    .setPeriodic(INTERVAL_MS)
+                    .build()
+                val result = scheduler.schedule(job)
+                Log.d(TAG, "Maintenance job scheduled: ${result == JobScheduler.RESULT_SUCCESS}")
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to schedule maintenance job: ${e.message}")
+            }
+        }
+    }
+
+    private val jobScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private var maintenanceJob: Job? = null
+
+    override fun onStartJob(params: JobParameters): Boolean {
+        maintenanceJob = jobScope.launch {
+            try {
+                DatabaseManager.getInstance(applicationContext).runMaintenance()
+                jobFinished(params, false)
+            } catch (e: Exception) {
+                Log.e(TAG, "Maintenance failed: ${e.message}")
+                jobFinished(params, true)
+            }
+        }
+        return true
+    }
+
+    override fun onStopJob(params: JobParameters): Boolean {
+        // Constraints no longer met (device in use / unplugged), try again later
+        maintenanceJob?.cancel()
+        return true
+    }
+
+    override fun onDestroy() {
+        jobScope.cancel()
+        super.onDestroy()
+    }
+}
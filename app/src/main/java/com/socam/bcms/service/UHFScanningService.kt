@@ -11,7 +11,9 @@ import android.util.Log
 import androidx.core.app.NotificationCompat
 import com.socam.bcms.BCMSApp
 import com.socam.bcms.R
+import com.socam.bcms.model.SelectMask
 import com.socam.bcms.model.TagData
+import com.socam.bcms.uhf.UHFManagerWrapper
 import kotlinx.coroutines.*
 import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.flow.*
@@ -209,28 +211,33 @@ class UHFScanningService : Service() {
     /**
      * 開始掃描 / Start Scanning
      */
-    private suspend fun startScanning() = withContext(Dispatchers.IO) {
+    private suspend fun startScanning(): Unit {
         if (_scanningState.value) {
             Log.w(TAG, "掃描已在進行中 / Scanning already in progress")
-            return@withContext
+            return
         }
         
         Log.d(TAG, "開始背景掃描 / Starting background scanning")
         
-        val uhfManager = BCMSApp.instance.uhfManager
-        val powerOnResult = uhfManager.powerOn()
-        
-        if (!powerOnResult) {
-            Log.e(TAG, "UHF 電源啟動失敗 / UHF power on failed")
-            return@withContext
-        }
-        
-        val startResult = uhfManager.startInventory()
-        if (!startResult) {
-            Log.e(TAG, "清單掃描啟動失敗 / Inventory scan start failed") 
-            uhfManager.powerOff()
-            return@withContext
+        // UHF 呼叫在 UHF 執行緒上 / UHF calls run on the UHF thread, like the screens' scans
+        val started = withContext(UHFManagerWrapper.dispatcher) {
+            val uhfManager = BCMSApp.instance.uhfManager
+            val powerOnResult = uhfManager.powerOn()
+            
+            if (!powerOnResult) {
+                Log.e(TAG, "UHF 電源啟動失敗 / UHF power on failed")
+                return@withContext false
+            }
+            
+            uhfManager.setSelectMask(SelectMask.NONE) // Report every tag, whatever mask a screen left installed
+            val startResult = uhfManager.startInventory()
+            if (!startResult) {
+                Log.e(TAG, "清單掃描啟動失敗 / Inventory scan start failed") 
+                uhfManager.powerOff()
+            }
+            startResult
         }
+        if (!started) return
         
         _scanningState.value = true
         scanStartTime = System.currentTimeMillis()
@@ -247,19 +254,21 @@ class UHFScanningService : Service() {
     /**
      * 停止掃描 / Stop Scanning
      */
-    private suspend fun stopScanning() = withContext(Dispatchers.IO) {
+    private suspend fun stopScanning(): Unit {
         if (!_scanningState.value) {
             Log.w(TAG, "掃描未在進行 / Scanning not in progress")
-            return@withContext
+            return
         }
         
         Log.d(TAG, "停止背景掃描 / Stopping background scanning")
         
         _scanningState.value = false
         
-        val uhfManager = BCMSApp.instance.uhfManager
-        uhfManager.stopInventory()
-        uhfManager.powerOff()
+        withContext(UHFManagerWrapper.dispatcher) {
+            val uhfManager = BCMSApp.instance.uhfManager
+            uhfManager.stopInventory()
+            uhfManager.powerOff()
+        }
         
         // 回到閒置通知 / Return to idle notification
         updateNotification(createIdleNotification())
@@ -283,7 +292,7 @@ class UHFScanningService : Service() {
             val scanFlow = flow {
                 while (_scanningState.value && currentCoroutineContext().isActive) {
                     try {
-                        val tagData = withContext(Dispatchers.IO) {
+                        val tagData = withContext(UHFManagerWrapper.dispatcher) {
                             BCMSApp.instance.uhfManager.readTagFromBuffer()
                         }
                         
@@ -367,7 +376,7 @@ class UHFScanningService : Service() {
     /**
      * 更新功率 / Update Power
      */
-    private suspend fun updatePower(power: Int) = withContext(Dispatchers.IO) {
+    private suspend fun updatePower(power: Int) = withContext(UHFManagerWrapper.dispatcher) {
         try {
             val result = BCMSApp.instance.uhfManager.setPower(power)
             Log.d(TAG, "功率更新 / Power updated: $power, result: $result")
@@ -441,8 +450,10 @@ class UHFScanningService : Service() {
         
         // 確保 UHF 關閉 / Ensure UHF is off
         try {
-            BCMSApp.instance.uhfManager.stopInventory()
-            BCMSApp.instance.uhfManager.powerOff()
+            runBlocking(UHFManagerWrapper.dispatcher) {
+                BCMSApp.instance.uhfManager.stopInventory()
+                BCMSApp.instance.uhfManager.powerOff()
+            }
         } catch (e: Exception) {
             Log.e(TAG, "服務銷毀時 UHF 關閉錯誤 / UHF shutdown error during service destroy", e)
         }
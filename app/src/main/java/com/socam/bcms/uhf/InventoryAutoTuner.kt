@@ -0,0 +1,292 @@
+package com.socam.bcms.uhf
+
+import android.os.SystemClock
+import com.socam.bcms.BCMSApp
+import com.socam.bcms.data.database.DatabaseManager
+import com.socam.bcms.model.TagData
+import com.socam.bcms.utils.AppLog
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/**
+ * Inventory settings the auto-tuner can change
+ * [power] is the inventory (read) power; null = the screen's power profile default
+ */
+data class InventoryTuning(
+    val slrMode: Int,
+    val session: Int,
+    val target: Int,
+    val power: Int?
+) {
+    fun encode(): String = "$slrMode,$session,$target,${power ?: ""}"
+
+    companion object {
+        /**
+         * Fixed settings used when auto-tuning is off (configureOptimalSettings defaults, Gen2 S0 / target A)
+         */
+        val BASELINE = InventoryTuning(slrMode = 3, session = 0, target = 0, power = null)
+
+        fun decode(value: String): InventoryTuning? {
+            val parts = value.split(',')
+            if (parts.size != 4) return null
+            return InventoryTuning(
+                slrMode = parts[0].toIntOrNull() ?: return null,
+                session = parts[1].toIntOrNull() ?: return null,
+                target = parts[2].toIntOrNull() ?: return null,
+                power = parts[3].toIntOrNull()
+            )
+        }
+    }
+}
+
+/**
+ * What a screen's scans are for
+ * - MANY_TAGS: read as many distinct tags per second as possible (stacks of panels)
+ * - SINGLE_TAG: read the one tag in front of the reader quickly, without neighbours
+ */
+enum class TuningGoal {
+    MANY_TAGS,
+    SINGLE_TAG
+}
+
+/**
+ * Per-screen goal and tuning bounds; [settingKey] stores the learned profile in AppSettings
+ * Power bounds come from the operator's Settings power (see [InventoryAutoTuner.begin]):
+ * the tuner never goes above it and at most [powerSpan] dBm below it
+ */
+enum class TuningScreen(
+    val settingKey: String,
+    val goal: TuningGoal,
+    val powerSpan: Int,
+    val sessions: IntArray,
+    val slrModes: IntArray
+) {
+    BATCH_PROCESS("inventory_tuning_batch_process", TuningGoal.MANY_TAGS, 9, intArrayOf(0, 1), intArrayOf(3, 4)),
+    SINGLE_SCAN("inventory_tuning_single_scan", TuningGoal.SINGLE_TAG, 15, intArrayOf(0), intArrayOf(3, 4)),
+    TAG_ACTIVATION("inventory_tuning_tag_activation", TuningGoal.SINGLE_TAG, 9, intArrayOf(0), intArrayOf(3, 4)),
+    TAG_MODIFICATION("inventory_tuning_tag_modification", TuningGoal.MANY_TAGS, 9, intArrayOf(0, 1), intArrayOf(3, 4))
+}
+
+/**
+ * 清單掃描自動調整 / Adaptive inventory tuning for one screen
+ *
+ * Each trigger press is one trial:
+ * - [begin] returns the settings to apply before startInventory
+ * - [recordPoll] counts every buffer drain (empty polls, reads, unique EPCs, 100 ms slots with reads)
+ * - [end] scores the trial, keeps a decaying score per tried setting and picks the next one
+ *
+ * Score (independent of how long the trigger is held once everything was read):
+ * - MANY_TAGS: unique EPCs per second until the last new EPC (time to plateau)
+ * - SINGLE_TAG: inverse of the time to the first read, divided by the tags that answered
+ *
+ * Next setting, from the trial's statistics (within the screen's bounds):
+ * - SINGLE_TAG: neighbours read -> power down; nothing read -> power up
+ * - MANY_TAGS: mostly idle (no reads in most slots) -> power up; the same tags over and over in S0 -> S1
+ * - otherwise every few trials try another inventory mode, else go back to the best setting
+ *
+ * The best setting is persisted per screen. With auto-tuning off in Settings, [begin] returns
+ * [InventoryTuning.BASELINE] and nothing is learned
+ *
+ * Not thread-safe: owned by one ViewModel and used from the main thread
+ */
+class InventoryAutoTuner(
+    private val screen: TuningScreen,
+    private val scope: CoroutineScope,
+    private val databaseManager: DatabaseManager
+) {
+
+    companion object {
+        private const val TAG = "InventoryAutoTuner"
+        private const val POWER_STEP = 3
+        private const val MIN_POWER = 5
+        private const val MIN_TRIAL_MS = 500L
+        private const val MIN_TRIAL_POLLS = 5
+        private const val EXPLORE_EVERY = 5
+        private const val SCORE_WEIGHT = 0.5   // Weight of a new trial in a setting's score
+        private const val SCORE_DECAY = 0.9    // Ageing of other settings' scores per trial
+        private const val SLOT_MS = 100L      // Scan loops poll every ~1 ms, so idleness is measured per slot
+        private const val IDLE_RATIO_HIGH = 0.5
+        private const val DUPLICATE_RATIO_HIGH = 0.9
+    }
+
+    private val scores = HashMap<InventoryTuning, Double>()
+    private var best: InventoryTuning? = null
+    private var current: InventoryTuning? = null
+    private var trials = 0
+
+    // Power bounds, from the configured power passed to begin()
+    private var configuredPower: Int? = null
+    private var minPower = MIN_POWER
+    private var maxPower = MIN_POWER
+
+    // Current trial
+    private var active = false
+    private var startedAt = 0L
+    private var firstReadAt = 0L
+    private var lastNewAt = 0L
+    private var polls = 0
+    private var emptyPolls = 0
+    private var reads = 0
+    private var readSlots = 0
+    private var lastReadSlot = -1L
+    private val uniqueEpcs = HashSet<String>()
+
+    /**
+     * Load the persisted best setting for this screen
+     */
+    suspend fun load(): Unit {
+        val stored = withContext(Dispatchers.IO) {
+            try {
+                databaseManager.appDatabase.appSettingsQueries
+                    .selectSettingByKey(screen.settingKey)
+                    .executeAsOneOrNull()
+                    ?.setting_value
+            } catch (e: Exception) {
+                AppLog.w(TAG) { "Failed to load ${screen.settingKey}: ${e.message}" }
+                null
+            }
+        }
+        // Clamped against the configured power in begin()
+        val tuning = stored?.let { InventoryTuning.decode(it) } ?: return
+        best = tuning
+        current = tuning
+        AppLog.d(TAG) { "${screen.name}: loaded $tuning" }
+    }
+
+    /**
+     * Settings for the next inventory; starts a trial when auto-tuning is on
+     * [defaultPower] is the operator's configured power for this screen: the tuner's ceiling
+     * (a new value resets the scores, they were measured within other bounds)
+     */
+    fun begin(defaultPower: Int): InventoryTuning {
+        if (!BCMSApp.inventoryAutoTune) {
+            active = false
+            return InventoryTuning.BASELINE
+        }
+        if (defaultPower != configuredPower) {
+            configuredPower = defaultPower
+            maxPower = defaultPower
+            minPower = (defaultPower - screen.powerSpan).coerceAtLeast(MIN_POWER).coerceAtMost(defaultPower)
+            scores.clear()
+            trials = 0
+            AppLog.d(TAG) { "${screen.name}: power bounds $minPower..$maxPower dBm" }
+        }
+        val tuning = clamp(current ?: InventoryTuning.BASELINE.copy(power = defaultPower))
+        current = tuning
+        active = true
+        startedAt = SystemClock.elapsedRealtime()
+        firstReadAt = 0L
+        lastNewAt = 0L
+        polls = 0
+        emptyPolls = 0
+        reads = 0
+        readSlots = 0
+        lastReadSlot = -1L
+        uniqueEpcs.clear()
+        return tuning
+    }
+
+    fun recordPoll(tags: List<TagData>): Unit {
+        if (!active) return
+        polls++
+        if (tags.isEmpty()) {
+            emptyPolls++
+            return
+        }
+        val now = SystemClock.elapsedRealtime()
+        if (firstReadAt == 0L) firstReadAt = now
+        val slot = (now - startedAt) / SLOT_MS
+        if (slot != lastReadSlot) {
+            lastReadSlot = slot
+            readSlots++
+        }
+        reads += tags.size
+        for (tag in tags) {
+            if (uniqueEpcs.add(tag.epc)) lastNewAt = now
+        }
+    }
+
+    /**
+     * Finish the trial (after stopInventory); short taps are ignored
+     */
+    fun end(): Unit {
+        if (!active) return
+        active = false
+        val tuning = current ?: return
+        val durationMs = SystemClock.elapsedRealtime() - startedAt
+        if (durationMs < MIN_TRIAL_MS || polls < MIN_TRIAL_POLLS) return
+
+        val unique = uniqueEpcs.size
+        val score = when (screen.goal) {
+            TuningGoal.MANY_TAGS -> if (unique == 0) 0.0 else unique * 1000.0 / ((lastNewAt - startedAt) + SLOT_MS)
+            TuningGoal.SINGLE_TAG -> if (unique == 0) 0.0 else 1000.0 / ((firstReadAt - startedAt) + 100) / unique
+        }
+        for (key in scores.keys.toList()) {
+            if (key != tuning) scores[key] = scores.getValue(key) * SCORE_DECAY
+        }
+        scores[tuning] = scores[tuning]?.let { it + (score - it) * SCORE_WEIGHT } ?: score
+        trials++
+
+        val leader = scores.maxByOrNull { it.value }?.key ?: tuning
+        if (leader != best) {
+            best = leader
+            persist(leader)
+        }
+        current = next(tuning, leader, unique, durationMs)
+
+        AppLog.d(TAG) {
+            "${screen.name}: $tuning -> score ${"%.2f".format(score)} " +
+                "(polls $polls, empty $emptyPolls, reads $reads, unique $unique, " +
+                "plateau ${if (unique == 0) 0 else lastNewAt - startedAt}ms of ${durationMs}ms); next $current"
+        }
+    }
+
+    private fun next(tuning: InventoryTuning, leader: InventoryTuning, unique: Int, durationMs: Long): InventoryTuning {
+        val power = tuning.power ?: maxPower
+        val idleRatio = 1.0 - readSlots.toDouble() / (durationMs / SLOT_MS).coerceAtLeast(1)
+        val duplicateRatio = if (reads == 0) 0.0 else 1.0 - unique.toDouble() / reads
+
+        val adjusted = when (screen.goal) {
+            TuningGoal.SINGLE_TAG -> when {
+                unique > 1 && power > minPower -> tuning.copy(power = power - POWER_STEP)
+                unique == 0 && power < maxPower -> tuning.copy(power = power + POWER_STEP)
+                else -> null
+            }
+            TuningGoal.MANY_TAGS -> when {
+                idleRatio > IDLE_RATIO_HIGH && power < maxPower -> tuning.copy(power = power + POWER_STEP)
+                duplicateRatio > DUPLICATE_RATIO_HIGH && tuning.session == 0 && 1 in screen.sessions -> tuning.copy(session = 1)
+                else -> null
+            }
+        }
+        if (adjusted != null) return clamp(adjusted)
+
+        if (trials % EXPLORE_EVERY == 0 && screen.slrModes.size > 1) {
+            val index = screen.slrModes.indexOf(leader.slrMode)
+            return clamp(leader.copy(slrMode = screen.slrModes[(index + 1) % screen.slrModes.size]))
+        }
+        return clamp(leader)
+    }
+
+    private fun clamp(tuning: InventoryTuning): InventoryTuning {
+        return tuning.copy(
+            slrMode = if (tuning.slrMode in screen.slrModes) tuning.slrMode else screen.slrModes[0],
+            session = if (tuning.session in screen.sessions) tuning.session else screen.sessions[0],
+            target = InventoryTuning.BASELINE.target,
+            power = (tuning.power ?: maxPower).coerceIn(minPower, maxPower)
+        )
+    }
+
+    private fun persist(tuning: InventoryTuning): Unit {
+        scope.launch(Dispatchers.IO) {
+            try {
+                databaseManager.appDatabase.appSettingsQueries
+                    .insertOrReplaceSettingByKey(screen.settingKey, tuning.encode())
+                AppLog.d(TAG) { "${screen.name}: best setting saved $tuning" }
+            } catch (e: Exception) {
+                AppLog.w(TAG) { "Failed to save ${screen.settingKey}: ${e.message}" }
+            }
+        }
+    }
+}
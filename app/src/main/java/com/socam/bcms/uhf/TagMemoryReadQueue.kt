@@ -0,0 +1,123 @@
+package com.socam.bcms.uhf
+
+import android.os.SystemClock
+import com.socam.bcms.model.MemoryBank
+import com.socam.bcms.utils.AppLog
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.withContext
+
+/**
+ * Deferred memory-bank reads for tags seen during inventory
+ *
+ * UHFManagerWrapper.readTag() stops and restarts inventory around every read, so reading while
+ * scanning destroys the inventory round. Screens therefore:
+ * - [enqueue] reads while scanning (deduplicated per request, skipped when a fresh cached value exists)
+ * - [drain] the queue once inventory has stopped, one read at a time on the UHF thread
+ * - use [cached] values straight away (TTL cache keyed by EPC + bank + offset + length)
+ *
+ * Not thread-safe: owned by one ViewModel and used from the main thread
+ */
+class TagMemoryReadQueue(
+    private val cacheTtlMs: Long = DEFAULT_CACHE_TTL_MS
+) {
+
+    companion object {
+        private const val TAG = "TagMemoryReadQueue"
+        const val DEFAULT_CACHE_TTL_MS = 30_000L
+    }
+
+    /**
+     * One memory-bank read, filtered on the tag's EPC
+     */
+    data class ReadRequest(
+        val epc: String,
+        val memoryBank: MemoryBank,
+        val startAddress: Int,
+        val length: Int
+    )
+
+    private class CachedRead(val data: String, val readAt: Long)
+
+    private val pending = LinkedHashSet<ReadRequest>()
+    private val cache = HashMap<ReadRequest, CachedRead>()
+
+    /**
+     * Fresh cached data for [request], or null
+     */
+    fun cached(request: ReadRequest): String? {
+        val entry = cache[request] ?: return null
+        if (SystemClock.elapsedRealtime() - entry.readAt > cacheTtlMs) {
+            cache.remove(request)
+            return null
+        }
+        return entry.data
+    }
+
+    /**
+     * Queue [request] unless it is already queued or cached; returns true when queued
+     */
+    fun enqueue(request: ReadRequest): Boolean {
+        if (cached(request) != null) return false
+        return pending.add(request)
+    }
+
+    val pendingCount: Int
+        get() = pending.size
+
+    /**
+     * Forget everything cached for [epc] (after a write changed the tag)
+     */
+    fun invalidate(epc: String): Unit {
+        cache.keys.removeAll { it.epc == epc }
+        pending.removeAll { it.epc == epc }
+    }
+
+    fun clearPending(): Unit {
+        pending.clear()
+    }
+
+    fun clear(): Unit {
+        pending.clear()
+        cache.clear()
+    }
+
+    /**
+     * Perform queued reads in order, reporting each result (null = read failed) on the caller's context
+     * Stops early when the calling coroutine is cancelled (e.g. the trigger is pressed again);
+     * unread requests stay queued - a request leaves the queue only once its result is in hand,
+     * so a read interrupted by cancellation is repeated by the next drain
+     */
+    suspend fun drain(
+        uhfManager: UHFManagerWrapper,
+        onResult: (ReadRequest, String?) -> Unit
+    ): Int {
+        var completed = 0
+        while (currentCoroutineContext().isActive) {
+            val request = pending.firstOrNull() ?: break
+
+            val data = cached(request) ?: withContext(UHFManagerWrapper.dispatcher) {
+                uhfManager.readTag(
+                    password = "00000000",
+                    filterBank = MemoryBank.EPC.value,
+                    filterAddress = 2,
+                    filterLength = request.epc.length / 4, // Convert hex string length to word count
+                    filterData = request.epc,
+                    memoryBank = request.memoryBank.value,
+                    startAddress = request.startAddress,
+                    length = request.length
+                )
+            }
+            // Invalidated or cleared while reading: the tag may have changed, drop the result
+            if (!pending.remove(request)) continue
+            if (data != null) {
+                cache[request] = CachedRead(data, SystemClock.elapsedRealtime())
+            } else {
+                AppLog.d(TAG) { "Read failed for EPC ${request.epc} bank ${request.memoryBank}" }
+            }
+            completed++
+            onResult(request, data)
+        }
+        return completed
+    }
+}
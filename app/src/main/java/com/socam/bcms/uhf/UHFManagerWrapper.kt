@@ -1,10 +1,14 @@
 package com.socam.bcms.uhf
 
 import android.os.Build
-import android.util.Log
+import com.socam.bcms.BCMSApp
 import com.socam.bcms.model.*
+import com.socam.bcms.utils.AppLog
 import com.uhf.base.UHFManager
 import com.uhf.base.UHFModuleType
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import java.util.concurrent.Executors
 
 /**
  * UHF 管理器包裝器 / UHF Manager Wrapper
@@ -18,20 +22,30 @@ class UHFManagerWrapper {
     private var isInitialized = false
     private val isEmulator = isRunningOnEmulator()
     private var mockPowerLevel = 30 // Mock power level for emulator
+    private var selectMask: SelectMask? = null // Last mask installed (null = unknown)
+    private var appliedPower: Pair<Int, Int>? = null // Last read/write power applied by a profile (null = unknown)
+    private var readWritePowerSupported = false // Set once by probeReadWritePower() after init
+    private var appliedTuning: InventoryTuning? = null // Last inventory mode / session / target applied
     
     init {
         // Log initial detection results for debugging
-        Log.d(TAG, "=== UHF Manager Wrapper Initialization ===")
-        Log.d(TAG, "Device detection result: isEmulator = $isEmulator")
-        Log.d(TAG, "Build info - BRAND: ${Build.BRAND}, MODEL: ${Build.MODEL}")
-        Log.d(TAG, "Build info - PRODUCT: ${Build.PRODUCT}, HARDWARE: ${Build.HARDWARE}")
-        Log.d(TAG, "Build info - FINGERPRINT: ${Build.FINGERPRINT}")
-        Log.d(TAG, "==========================================")
+        AppLog.d(TAG) { "Device detection result: isEmulator = $isEmulator" }
+        AppLog.d(TAG) { "Build info - BRAND: ${Build.BRAND}, MODEL: ${Build.MODEL}" }
+        AppLog.d(TAG) { "Build info - PRODUCT: ${Build.PRODUCT}, HARDWARE: ${Build.HARDWARE}" }
+        AppLog.d(TAG) { "Build info - FINGERPRINT: ${Build.FINGERPRINT}" }
     }
     
     companion object {
         private const val TAG = "UHFManagerWrapper"  // Log 標籤 / Log tag
         
+        private val uhfExecutor = Executors.newSingleThreadExecutor { runnable -> Thread(runnable, "uhf-io") }
+        
+        /**
+         * Single thread for vendor SDK calls: JNI and the SDK settle sleeps stay off the main thread,
+         * and calls from different screens never interleave
+         */
+        val dispatcher: CoroutineDispatcher = uhfExecutor.asCoroutineDispatcher()
+        
     /**
      * Detect if running on Android emulator (simplified approach like vendor demo)
      */
@@ -56,8 +70,8 @@ class UHFManagerWrapper {
         // Check for UHF service availability (simplified check)
         val hasUHFService = checkForUHFService()
         
-        Log.d(TAG, "Device detection - isEmulator: $isEmulator, hasUHFService: $hasUHFService")
-        Log.d(TAG, "Device info - Brand: ${Build.BRAND}, Model: ${Build.MODEL}, Product: ${Build.PRODUCT}")
+        AppLog.d(TAG) { "Device detection - isEmulator: $isEmulator, hasUHFService: $hasUHFService" }
+        AppLog.d(TAG) { "Device info - Brand: ${Build.BRAND}, Model: ${Build.MODEL}, Product: ${Build.PRODUCT}" }
         
         // Only use mock mode for actual emulators OR when UHF service is completely unavailable
         return isEmulator || !hasUHFService
@@ -71,13 +85,13 @@ class UHFManagerWrapper {
             // Try to access UHF service classes
             Class.forName("com.idata.UHFManager")
             Class.forName("com.uhf.base.UHFManager")
-            Log.d(TAG, "UHF service classes found - device has UHF capability")
+            AppLog.d(TAG) { "UHF service classes found - device has UHF capability" }
             true
         } catch (e: ClassNotFoundException) {
-            Log.d(TAG, "UHF service classes not found - using mock mode")
+            AppLog.d(TAG) { "UHF service classes not found - using mock mode" }
             false
         } catch (e: Exception) {
-            Log.w(TAG, "Error checking UHF service availability", e)
+            AppLog.w(TAG, e) { "Error checking UHF service availability" }
             false
         }
     }
@@ -90,44 +104,37 @@ class UHFManagerWrapper {
      */
     fun initialize(moduleType: com.uhf.base.UHFModuleType): Boolean {
         return try {
-            Log.d(TAG, "=== UHF Hardware Initialization ===")
-            Log.d(TAG, "正在初始化 UHF 模組: $moduleType / Initializing UHF module: $moduleType")
-            Log.d(TAG, "Current isEmulator status: $isEmulator")
+            AppLog.d(TAG) { "正在初始化 UHF 模組: $moduleType / Initializing UHF module: $moduleType" }
+            AppLog.d(TAG) { "Current isEmulator status: $isEmulator" }
             
             if (isEmulator) {
-                Log.d(TAG, "Emulator/Non-UHF device detected - using mock UHF manager")
+                AppLog.d(TAG) { "Emulator/Non-UHF device detected - using mock UHF manager" }
                 isInitialized = true
-                Log.d(TAG, "Mock UHF 管理器初始化成功 / Mock UHF Manager initialized successfully")
-                Log.d(TAG, "======================================")
+                AppLog.d(TAG) { "Mock UHF 管理器初始化成功 / Mock UHF Manager initialized successfully" }
                 return true
             }
             
             // 呼叫廠商 API / Call vendor API (following vendor demo approach)
-            Log.d(TAG, "Attempting to initialize real UHF hardware like vendor demo...")
+            AppLog.d(TAG) { "Attempting to initialize real UHF hardware like vendor demo..." }
             uhfManager = UHFManager.getUHFImplSigleInstance(moduleType)
             
             // Verify the manager was created successfully
             if (uhfManager == null) {
-                Log.w(TAG, "UHF manager creation returned null, falling back to mock mode")
+                AppLog.w(TAG) { "UHF manager creation returned null, falling back to mock mode" }
                 isInitialized = true
-                Log.d(TAG, "======================================")
                 return true
             }
             
             isInitialized = true
-            Log.d(TAG, "✅ UHF 管理器初始化成功 / UHF Manager initialized successfully")
-            Log.d(TAG, "Real UHF hardware is now available for scanning")
-            Log.d(TAG, "======================================")
+            AppLog.d(TAG) { "✅ UHF 管理器初始化成功 / UHF Manager initialized successfully" }
+            AppLog.d(TAG) { "Real UHF hardware is now available for scanning" }
             true
         } catch (e: Exception) {
-            Log.e(TAG, "UHF 初始化失敗 / UHF initialization failed", e)
-            Log.e(TAG, "Exception details: ${e.message}")
-            Log.e(TAG, "Exception type: ${e.javaClass.simpleName}")
+            AppLog.e(TAG, e) { "UHF 初始化失敗 / UHF initialization failed" }
             
             // Fall back to mock mode when initialization fails
-            Log.d(TAG, "Falling back to mock UHF manager due to initialization failure")
+            AppLog.d(TAG) { "Falling back to mock UHF manager due to initialization failure" }
             isInitialized = true
-            Log.d(TAG, "======================================")
             return true
         }
     }
@@ -139,33 +146,26 @@ class UHFManagerWrapper {
      * Simplified implementation following vendor demo pattern
      */
     fun powerOn(): Boolean {
-        Log.d(TAG, "=== UHF Power On Request ===")
-        Log.d(TAG, "開啟 UHF 電源 / Powering on UHF")
-        Log.d(TAG, "isEmulator: $isEmulator, isInitialized: $isInitialized, uhfManager: ${uhfManager != null}")
+        AppLog.d(TAG) { "開啟 UHF 電源 / Powering on UHF" }
+        AppLog.d(TAG) { "isEmulator: $isEmulator, isInitialized: $isInitialized, uhfManager: ${uhfManager != null}" }
         
         return try {
             if (isEmulator) {
-                Log.d(TAG, "Mock: UHF power on successful")
-                Log.d(TAG, "==============================")
+                AppLog.d(TAG) { "Mock: UHF power on successful" }
                 true
             } else {
                 if (uhfManager == null) {
-                    Log.w(TAG, "UHF manager is null - initialization may have failed")
-                    Log.d(TAG, "==============================")
+                    AppLog.w(TAG) { "UHF manager is null - initialization may have failed" }
                     return false
                 }
                 
-                Log.d(TAG, "Calling real UHF hardware powerOn()...")
+                AppLog.d(TAG) { "Calling real UHF hardware powerOn()..." }
                 val result = uhfManager!!.powerOn()
-                Log.d(TAG, "✅ UHF power on result: $result")
-                Log.d(TAG, "==============================")
+                AppLog.d(TAG) { "✅ UHF power on result: $result" }
                 result
             }
         } catch (e: Exception) {
-            Log.e(TAG, "Exception during UHF power on", e)
-            Log.e(TAG, "Exception type: ${e.javaClass.simpleName}")
-            Log.e(TAG, "Exception message: ${e.message}")
-            Log.d(TAG, "==============================")
+            AppLog.e(TAG, e) { "Exception during UHF power on" }
             
             // Return false for real hardware exceptions to indicate failure
             false
@@ -176,9 +176,12 @@ class UHFManagerWrapper {
      * 關閉 UHF 電源 / Power Off UHF
      */
     fun powerOff(): Boolean {
-        Log.d(TAG, "關閉 UHF 電源 / Powering off UHF")
+        AppLog.d(TAG) { "關閉 UHF 電源 / Powering off UHF" }
+        selectMask = null // Unsaved module settings do not survive a power cycle
+        appliedPower = null
+        appliedTuning = null
         return if (isEmulator) {
-            Log.d(TAG, "Mock: UHF power off successful")
+            AppLog.d(TAG) { "Mock: UHF power off successful" }
             true
         } else {
             uhfManager?.powerOff() ?: false
@@ -189,30 +192,24 @@ class UHFManagerWrapper {
      * 開始清單掃描 / Start Inventory Scanning
      */
     fun startInventory(): Boolean {
-        Log.d(TAG, "=== Starting RFID Inventory ===")
-        Log.d(TAG, "開始 RFID 清單掃描 / Starting RFID inventory")
+        AppLog.d(TAG) { "開始 RFID 清單掃描 / Starting RFID inventory" }
         return try {
             if (isEmulator) {
-                Log.d(TAG, "Mock: RFID inventory started")
-                Log.d(TAG, "==============================")
+                AppLog.d(TAG) { "Mock: RFID inventory started" }
                 true
             } else {
                 if (uhfManager == null) {
-                    Log.w(TAG, "UHF manager is null - cannot start inventory")
-                    Log.d(TAG, "==============================")
+                    AppLog.w(TAG) { "UHF manager is null - cannot start inventory" }
                     return false
                 }
                 
-                Log.d(TAG, "Calling real UHF hardware startInventoryTag()...")
+                AppLog.d(TAG) { "Calling real UHF hardware startInventoryTag()..." }
                 val result = uhfManager!!.startInventoryTag()
-                Log.d(TAG, "✅ Start inventory result: $result")
-                Log.d(TAG, "==============================")
+                AppLog.d(TAG) { "✅ Start inventory result: $result" }
                 result
             }
         } catch (e: Exception) {
-            Log.e(TAG, "Exception during start inventory", e)
-            Log.e(TAG, "Exception details: ${e.message}")
-            Log.d(TAG, "==============================")
+            AppLog.e(TAG, e) { "Exception during start inventory" }
             false
         }
     }
@@ -222,9 +219,9 @@ class UHFManagerWrapper {
      * 停止掃描 / Stop Scanning
      */
     fun stopInventory(): Boolean {
-        Log.d(TAG, "停止 RFID 掃描 / Stopping RFID scanning")
+        AppLog.d(TAG) { "停止 RFID 掃描 / Stopping RFID scanning" }
         return if (isEmulator) {
-            Log.d(TAG, "Mock: RFID scanning stopped")
+            AppLog.d(TAG) { "Mock: RFID scanning stopped" }
             true
         } else {
             uhfManager?.stopInventory() ?: false
@@ -270,13 +267,40 @@ class UHFManagerWrapper {
                         rssi = parseRssi(data[2])
                     )
                 } else {
-                    Log.w(TAG, "標籤資料不完整 / Incomplete tag data: ${data.size} elements")
+                    AppLog.w(TAG) { "標籤資料不完整 / Incomplete tag data: ${data.size} elements" }
                     null
                 }
             }
         }
     }
     
+    /**
+     * Read up to [maxTags] buffered tags in one call, so a scan loop hops threads once per batch
+     */
+    fun drainTagBuffer(maxTags: Int = 32): List<TagData> {
+        var tag = readTagFromBuffer() ?: return emptyList()
+        val tags = ArrayList<TagData>(4)
+        while (true) {
+            tags.add(tag)
+            if (tags.size >= maxTags) break
+            tag = readTagFromBuffer() ?: break
+        }
+        return tags
+    }
+    
+    /**
+     * Run [block] on the UHF thread without waiting (onCleared / onDestroy cannot suspend)
+     */
+    fun post(block: UHFManagerWrapper.() -> Unit): Unit {
+        uhfExecutor.execute {
+            try {
+                block()
+            } catch (e: Exception) {
+                AppLog.e(TAG, e) { "Posted UHF call failed" }
+            }
+        }
+    }
+    
     /**
      * 解析 RSSI 值 / Parse RSSI Value
      * 
@@ -305,7 +329,7 @@ class UHFManagerWrapper {
                 }
             }
         } catch (e: Exception) {
-            Log.w(TAG, "RSSI 解析失敗 / RSSI parsing failed: $rssiHex", e)
+            AppLog.w(TAG, e) { "RSSI 解析失敗 / RSSI parsing failed: $rssiHex" }
             -99  // 預設錯誤值 / Default error value
         }
     }
@@ -316,15 +340,96 @@ class UHFManagerWrapper {
      * Mock implementation for emulator
      */
     fun setPower(power: Int): Boolean {
+        appliedPower = null // Profiles must be re-applied after a direct power change
         return if (isEmulator) {
             mockPowerLevel = power
-            Log.d(TAG, "Mock: Power set to $power dBm")
+            AppLog.d(TAG) { "Mock: Power set to $power dBm" }
             true
         } else {
             uhfManager?.powerSet(power) ?: false
         }
     }
     
+    /**
+     * 設定讀寫功率 / Set separate read and write power
+     * Following vendor demo pattern: uhfmanager.setReadWritePower(read, write)
+     */
+    fun setReadWritePower(readPower: Int, writePower: Int): Boolean {
+        appliedPower = null
+        return if (isEmulator) {
+            mockPowerLevel = readPower
+            AppLog.d(TAG) { "Mock: Read/write power set to $readPower/$writePower dBm" }
+            true
+        } else {
+            try {
+                uhfManager?.setReadWritePower(readPower, writePower) ?: false
+            } catch (e: Exception) {
+                AppLog.e(TAG) { "Failed to set read/write power: ${e.message}" }
+                false
+            }
+        }
+    }
+    
+    /**
+     * 檢測讀寫功率支援 / Probe once whether the module takes separate read and write power
+     *
+     * - Reads the module's read/write power and writes the same levels back
+     * - Decides [applyPowerProfile]'s mode for the rest of the session
+     * Call on [dispatcher], after initialize() and powerOn()
+     */
+    fun probeReadWritePower(): Boolean {
+        readWritePowerSupported = if (isEmulator) {
+            true
+        } else {
+            try {
+                val levels = uhfManager?.getReadWritePower()
+                levels != null && levels.size >= 2 && setReadWritePower(levels[0], levels[1])
+            } catch (e: Exception) {
+                AppLog.w(TAG) { "Read/write power probe failed: ${e.message}" }
+                false
+            }
+        }
+        AppLog.i(TAG) { "Separate read/write power supported: $readWritePowerSupported" }
+        return readWritePowerSupported
+    }
+    
+    /**
+     * 切換功率設定檔 / Switch RF power to a profile before an operation
+     *
+     * - INVENTORY / WRITE: read power BCMSApp.powerSize, write power BCMSApp.writePowerSize
+     * - NEAR_FIELD: BCMSApp.nearFieldPowerSize for both
+     * - [readPower] overrides the profile's read power (screen slider, auto-tuner)
+     * - Write power never exceeds the read power, so a lowered read power also lowers writes
+     * - Modules without separate read/write power (see [probeReadWritePower]) fall back to one power
+     *   per operation (WRITE then drops the single power to the write level); so does a failed call
+     * - The applied levels are cached, so switching to the current profile costs no vendor call
+     * Call on [dispatcher]
+     */
+    fun applyPowerProfile(profile: PowerProfile, readPower: Int? = null): Boolean {
+        val nearField = profile == PowerProfile.NEAR_FIELD
+        val readPower = readPower ?: if (nearField) BCMSApp.nearFieldPowerSize else BCMSApp.powerSize
+        val writePower = minOf(if (nearField) BCMSApp.nearFieldPowerSize else BCMSApp.writePowerSize, readPower)
+        
+        if (readWritePowerSupported) {
+            val levels = readPower to writePower
+            if (levels == appliedPower) return true
+            if (setReadWritePower(readPower, writePower)) {
+                appliedPower = levels
+                AppLog.d(TAG) { "Power profile $profile: read $readPower / write $writePower dBm" }
+                return true
+            }
+            AppLog.w(TAG) { "Read/write power not applied - using single power for this operation" }
+        }
+        
+        val power = if (profile == PowerProfile.WRITE) writePower else readPower
+        val levels = power to power
+        if (levels == appliedPower) return true
+        val result = setPower(power)
+        appliedPower = if (result) levels else null
+        AppLog.d(TAG) { "Power profile $profile: $power dBm, result: $result" }
+        return result
+    }
+    
     /**
      * 取得目前功率 / Get Current Power
      */
@@ -341,7 +446,7 @@ class UHFManagerWrapper {
      * Used by Settings and other modules to verify UHF availability
      */
     fun isReady(): Boolean {
-        Log.d(TAG, "Checking UHF ready state - isInitialized: $isInitialized, isEmulator: $isEmulator, uhfManager: ${uhfManager != null}")
+        AppLog.d(TAG) { "Checking UHF ready state - isInitialized: $isInitialized, isEmulator: $isEmulator, uhfManager: ${uhfManager != null}" }
         return if (isEmulator) {
             // In emulator mode, always ready if initialized
             isInitialized
@@ -356,7 +461,7 @@ class UHFManagerWrapper {
      */
     fun setFrequency(region: Int): Boolean {
         return if (isEmulator) {
-            Log.d(TAG, "Mock: Frequency region set to $region")
+            AppLog.d(TAG) { "Mock: Frequency region set to $region" }
             true
         } else {
             uhfManager?.frequencyModeSet(region) ?: false
@@ -387,19 +492,19 @@ class UHFManagerWrapper {
             }
         } else {
             try {
-                Log.d(TAG, "Reading tag memory bank: $memoryBank, address: $startAddress, length: $length")
+                AppLog.d(TAG) { "Reading tag memory bank: $memoryBank, address: $startAddress, length: $length" }
                 
                 // Stop any ongoing inventory first
-                Log.d(TAG, "Stopping any ongoing inventory...")
+                AppLog.d(TAG) { "Stopping any ongoing inventory..." }
                 uhfManager?.stopInventory()
                 Thread.sleep(100)
                 
                 // Start inventory briefly for tag detection
                 val inventoryStarted = uhfManager?.startInventoryTag() ?: false
-                Log.d(TAG, "Inventory started for read: $inventoryStarted")
+                AppLog.d(TAG) { "Inventory started for read: $inventoryStarted" }
                 
                 if (!inventoryStarted) {
-                    Log.w(TAG, "❌ Failed to start inventory for read operation")
+                    AppLog.w(TAG) { "❌ Failed to start inventory for read operation" }
                     return null
                 }
                 
@@ -407,7 +512,7 @@ class UHFManagerWrapper {
                 Thread.sleep(200)
                 
                 // Keep inventory running for read operation - tag needs RF field to be detectable
-                Log.d(TAG, "Keeping inventory active for read operation...")
+                AppLog.d(TAG) { "Keeping inventory active for read operation..." }
                 
                 val result = uhfManager?.readTag(
                     password,
@@ -421,18 +526,18 @@ class UHFManagerWrapper {
                 )
                 
                 if (result != null) {
-                    Log.d(TAG, "✅ Read operation successful: $result")
+                    AppLog.d(TAG) { "✅ Read operation successful: $result" }
                 } else {
-                    Log.w(TAG, "❌ Read operation failed")
+                    AppLog.w(TAG) { "❌ Read operation failed" }
                 }
                 
                 // Stop inventory after read operation
                 val stopped = uhfManager?.stopInventory() ?: false
-                Log.d(TAG, "Inventory stopped after read: $stopped")
+                AppLog.d(TAG) { "Inventory stopped after read: $stopped" }
                 
                 result
             } catch (e: Exception) {
-                Log.e(TAG, "讀取標籤記憶體庫失敗 / Failed to read tag memory bank: ${e.message}")
+                AppLog.e(TAG) { "讀取標籤記憶體庫失敗 / Failed to read tag memory bank: ${e.message}" }
                 // Stop inventory on error
                 uhfManager?.stopInventory()
                 null
@@ -453,28 +558,28 @@ class UHFManagerWrapper {
     ): Boolean {
         return if (isEmulator) {
             // Mock write success for emulator testing
-            Log.d(TAG, "Mock: Writing EPC data '$data' at address $startAddress")
+            AppLog.d(TAG) { "Mock: Writing EPC data '$data' at address $startAddress" }
             Thread.sleep(500)
             true
         } else {
             try {
-                Log.d(TAG, "Writing EPC data...")
-                Log.d(TAG, "Target EPC: $targetEpc")
-                Log.d(TAG, "New EPC data: $data")
-                Log.d(TAG, "Start address: $startAddress (word address)")
-                Log.d(TAG, "Length: $length (words)")
+                AppLog.d(TAG) { "Writing EPC data..." }
+                AppLog.d(TAG) { "Target EPC: $targetEpc" }
+                AppLog.d(TAG) { "New EPC data: $data" }
+                AppLog.d(TAG) { "Start address: $startAddress (word address)" }
+                AppLog.d(TAG) { "Length: $length (words)" }
                 
                 // CRITICAL: Following Tag Modification working pattern
                 // Stop inventory and wait (DO NOT restart inventory)
-                Log.d(TAG, "Stopping inventory before write (Tag Modification pattern)...")
+                AppLog.d(TAG) { "Stopping inventory before write (Tag Modification pattern)..." }
                 val inventoryStopped = uhfManager?.stopInventory() ?: false
-                Log.d(TAG, "Inventory stopped: $inventoryStopped")
+                AppLog.d(TAG) { "Inventory stopped: $inventoryStopped" }
                 
                 // Wait for hardware to settle (same as Tag Modification: 500ms)
                 Thread.sleep(500)
                 
                 // Use EPC filtering approach that works in Tag Modification
-                Log.d(TAG, "Performing EPC write with filtering (working Tag Modification pattern)...")
+                AppLog.d(TAG) { "Performing EPC write with filtering (working Tag Modification pattern)..." }
                 val result = uhfManager?.writeTag(
                     password,               // Access password
                     1,                      // Filter bank: EPC bank (1)
@@ -488,20 +593,124 @@ class UHFManagerWrapper {
                 )
                 
                 if (result == true) {
-                    Log.d(TAG, "✅ EPC write successful using Tag Modification pattern")
+                    AppLog.d(TAG) { "✅ EPC write successful using Tag Modification pattern" }
                 } else {
-                    Log.w(TAG, "❌ EPC write failed")
+                    AppLog.w(TAG) { "❌ EPC write failed" }
                 }
                 
                 result ?: false
                 
             } catch (e: Exception) {
-                Log.e(TAG, "寫入EPC資料失敗 / Failed to write EPC data: ${e.message}")
+                AppLog.e(TAG) { "寫入EPC資料失敗 / Failed to write EPC data: ${e.message}" }
                 false
             }
         }
     }
     
+    /**
+     * 批量寫入EPC / Bulk EPC write in one hardware access session
+     * - Inventory is stopped and the module settles once for the whole batch, not once per tag
+     * - Each write is filtered on the tag's current EPC and verified by reading the EPC bank back
+     *   (filtered on the new EPC)
+     * - Only tags that did not verify are retried, for up to [maxAttempts] rounds
+     * - [onResult] reports each tag's final outcome as soon as it is known (on the UHF thread)
+     * Must run on [dispatcher]
+     */
+    fun writeEpcBatch(
+        writes: List<EpcWriteRequest>,
+        password: String = "00000000",
+        maxAttempts: Int = 3,
+        onResult: (EpcWriteResult) -> Unit = {}
+    ): List<EpcWriteResult> {
+        if (writes.isEmpty()) return emptyList()
+        
+        if (!isEmulator) {
+            AppLog.d(TAG) { "Bulk EPC write: ${writes.size} tags, stopping inventory once for the session" }
+            uhfManager?.stopInventory()
+            Thread.sleep(500) // Same settle time as a single write, paid once per batch
+        }
+        
+        val results = HashMap<String, EpcWriteResult>()
+        var pending = writes
+        for (attempt in 1..maxAttempts) {
+            val retry = ArrayList<EpcWriteRequest>()
+            for (write in pending) {
+                val outcome = writeAndVerifyEpc(write, password, isRetry = attempt > 1)
+                if (outcome == EpcWriteOutcome.VERIFIED || attempt == maxAttempts) {
+                    val result = EpcWriteResult(write.targetEpc, write.newEpc, outcome, attempt)
+                    results[write.targetEpc] = result
+                    onResult(result)
+                } else {
+                    retry.add(write)
+                }
+            }
+            if (retry.isEmpty()) break
+            
+            AppLog.d(TAG) { "Bulk EPC write: retrying ${retry.size} tags (round ${attempt + 1})" }
+            pending = retry
+            Thread.sleep(100)
+        }
+        
+        return writes.map { results.getValue(it.targetEpc) }
+    }
+    
+    /**
+     * One filtered EPC write plus readback, inside a bulk write session (inventory already stopped)
+     */
+    private fun writeAndVerifyEpc(write: EpcWriteRequest, password: String, isRetry: Boolean): EpcWriteOutcome {
+        if (isEmulator) {
+            Thread.sleep(50)
+            return EpcWriteOutcome.VERIFIED
+        }
+        return try {
+            // A retried tag may already carry the new EPC (write landed, readback was lost)
+            if (isRetry && readBackMatches(write.newEpc, password)) {
+                return EpcWriteOutcome.VERIFIED
+            }
+            
+            val filter = SelectMask.epcPrefix(write.targetEpc) // Tag's current EPC, bit-addressed
+            val written = uhfManager?.writeTag(
+                password,                       // Access password
+                filter.bank.value,              // Filter bank: EPC bank (1)
+                filter.bitAddress,              // Filter address: EPC start (32 bits)
+                filter.bitLength,               // Filter length: EPC length in bits
+                filter.data,                    // Filter data: tag's current EPC
+                1,                              // Memory bank: EPC bank (1)
+                2,                              // Start address: EPC word 2
+                write.newEpc.length / 4,        // Data length in words
+                write.newEpc                    // New EPC data
+            ) == true
+            
+            when {
+                !written -> EpcWriteOutcome.FAILED
+                readBackMatches(write.newEpc, password) -> EpcWriteOutcome.VERIFIED
+                else -> EpcWriteOutcome.UNVERIFIED
+            }
+        } catch (e: Exception) {
+            AppLog.w(TAG) { "Bulk EPC write failed for ${write.targetEpc}: ${e.message}" }
+            EpcWriteOutcome.FAILED
+        }
+    }
+    
+    /**
+     * Read the EPC bank of the tag now answering to [expectedEpc] and compare it
+     * Filtered the same way as the write (bit-addressed EPC filter)
+     */
+    private fun readBackMatches(expectedEpc: String, password: String): Boolean {
+        val filter = SelectMask.epcPrefix(expectedEpc)
+        val readBack = uhfManager?.readTag(
+            password,
+            filter.bank.value,      // Filter bank: EPC
+            filter.bitAddress,      // Filter address: EPC start (32 bits)
+            filter.bitLength,       // Filter length in bits
+            filter.data,
+            MemoryBank.EPC.value,   // Read EPC bank
+            2,                      // From EPC word 2
+            expectedEpc.length / 4
+        ) ?: return false
+        return readBack.replace(" ", "").equals(expectedEpc, ignoreCase = true)
+    }
+    
     /**
      * 寫入特定記憶體庫資料 / Write Specific Memory Bank Data
      * Used for writing USER memory bank data for tag modification
@@ -514,7 +723,7 @@ class UHFManagerWrapper {
     ): Boolean {
         return if (isEmulator) {
             // Mock write success for emulator testing
-            Log.d(TAG, "Mock: Writing USER data '$userData' to tag EPC: $targetEpc")
+            AppLog.d(TAG) { "Mock: Writing USER data '$userData' to tag EPC: $targetEpc" }
             // Simulate write delay
             Thread.sleep(500)
             true
@@ -522,28 +731,28 @@ class UHFManagerWrapper {
             try {
                 val dataLength = userData.length / 4 // Convert hex string to word count
                 
-                Log.d(TAG, "Writing USER data to tag...")
-                Log.d(TAG, "Target EPC: $targetEpc (reference only - using non-filtering)")
-                Log.d(TAG, "USER data: $userData")
-                Log.d(TAG, "Data length: $dataLength words")
-                Log.d(TAG, "Start address: $startAddress (word address - following demo pattern)")
-                Log.d(TAG, "Using non-filtering approach like UHF demo")
+                AppLog.d(TAG) { "Writing USER data to tag..." }
+                AppLog.d(TAG) { "Target EPC: $targetEpc (reference only - using non-filtering)" }
+                AppLog.d(TAG) { "USER data: $userData" }
+                AppLog.d(TAG) { "Data length: $dataLength words" }
+                AppLog.d(TAG) { "Start address: $startAddress (word address - following demo pattern)" }
+                AppLog.d(TAG) { "Using non-filtering approach like UHF demo" }
                 
                 // Stop any ongoing inventory first to avoid MT_OP_EXECING error
-                Log.d(TAG, "Stopping any ongoing inventory...")
+                AppLog.d(TAG) { "Stopping any ongoing inventory..." }
                 val inventoryStopped = uhfManager?.stopInventory() ?: false
-                Log.d(TAG, "Inventory stopped: $inventoryStopped")
+                AppLog.d(TAG) { "Inventory stopped: $inventoryStopped" }
                 
                 // Wait for operations to complete
                 Thread.sleep(200)
                 
                 // Start inventory briefly to activate RF field for tag detection
-                Log.d(TAG, "Starting inventory for tag operations...")
+                AppLog.d(TAG) { "Starting inventory for tag operations..." }
                 val inventoryStarted = uhfManager?.startInventoryTag() ?: false
-                Log.d(TAG, "Inventory started: $inventoryStarted")
+                AppLog.d(TAG) { "Inventory started: $inventoryStarted" }
                 
                 if (!inventoryStarted) {
-                    Log.w(TAG, "❌ Failed to start inventory for write operation")
+                    AppLog.w(TAG) { "❌ Failed to start inventory for write operation" }
                     return false
                 }
                 
@@ -551,7 +760,7 @@ class UHFManagerWrapper {
                 Thread.sleep(200)
                 
                 // Keep inventory running for write operation - tag needs RF field to be detectable
-                Log.d(TAG, "Keeping inventory active for write operation...")
+                AppLog.d(TAG) { "Keeping inventory active for write operation..." }
                 
                 // Try non-filtering approach (like demo line 404)
                 val result = uhfManager?.writeTag(
@@ -567,19 +776,19 @@ class UHFManagerWrapper {
                 )
                 
                 if (result == true) {
-                    Log.d(TAG, "✅ Write operation successful")
+                    AppLog.d(TAG) { "✅ Write operation successful" }
                 } else {
-                    Log.w(TAG, "❌ Write operation failed")
+                    AppLog.w(TAG) { "❌ Write operation failed" }
                 }
                 
                 // Stop inventory after write operation
                 val stopped = uhfManager?.stopInventory() ?: false
-                Log.d(TAG, "Inventory stopped after write: $stopped")
+                AppLog.d(TAG) { "Inventory stopped after write: $stopped" }
                 
                 result ?: false
                 
             } catch (e: Exception) {
-                Log.e(TAG, "寫入標籤記憶體庫失敗 / Failed to write tag memory bank: ${e.message}")
+                AppLog.e(TAG) { "寫入標籤記憶體庫失敗 / Failed to write tag memory bank: ${e.message}" }
                 // Stop inventory on error
                 uhfManager?.stopInventory()
                 false
@@ -594,47 +803,131 @@ class UHFManagerWrapper {
      */
     fun checkAndRestoreUHFHealth(): Boolean {
         return if (isEmulator) {
-            Log.d(TAG, "Emulator mode - UHF health check not needed")
+            AppLog.d(TAG) { "Emulator mode - UHF health check not needed" }
             true
         } else {
             try {
-                Log.d(TAG, "=== UHF Health Check & Restoration ===")
                 
                 // Test current UHF manager state
                 val currentPowerStatus = uhfManager?.powerOn() ?: false
-                Log.d(TAG, "Current UHF power status: $currentPowerStatus")
+                AppLog.d(TAG) { "Current UHF power status: $currentPowerStatus" }
                 
                 if (!currentPowerStatus) {
-                    Log.d(TAG, "UHF hardware appears corrupted - attempting restoration...")
+                    AppLog.d(TAG) { "UHF hardware appears corrupted - attempting restoration..." }
                     
                     // Stop any ongoing operations
                     uhfManager?.stopInventory()
                     Thread.sleep(500)
                     
                     // Try to reinitialize the UHF manager
-                    Log.d(TAG, "Reinitializing UHF manager...")
+                    AppLog.d(TAG) { "Reinitializing UHF manager..." }
                     uhfManager = UHFManager.getUHFImplSigleInstance(UHFModuleType.SLR_MODULE)
                     Thread.sleep(1000)
                     
                     // Test power on again
                     val restoredPowerStatus = uhfManager?.powerOn() ?: false
-                    Log.d(TAG, "UHF restoration result: $restoredPowerStatus")
+                    AppLog.d(TAG) { "UHF restoration result: $restoredPowerStatus" }
                     
                     if (restoredPowerStatus) {
-                        Log.d(TAG, "✅ UHF hardware successfully restored")
+                        AppLog.d(TAG) { "✅ UHF hardware successfully restored" }
                         isInitialized = true
                         return true
                     } else {
-                        Log.w(TAG, "❌ UHF hardware restoration failed")
+                        AppLog.w(TAG) { "❌ UHF hardware restoration failed" }
                         return false
                     }
                 } else {
-                    Log.d(TAG, "✅ UHF hardware is healthy")
+                    AppLog.d(TAG) { "✅ UHF hardware is healthy" }
                     return true
                 }
                 
             } catch (e: Exception) {
-                Log.e(TAG, "UHF health check failed: ${e.message}")
+                AppLog.e(TAG) { "UHF health check failed: ${e.message}" }
+                false
+            }
+        }
+    }
+
+    /**
+     * Install a Gen2 select mask so the module only inventories matching tags
+     * Following vendor demo pattern: uhfmanager.filterSet(bank, address, length, data, flag)
+     *
+     * - The mask stays in the module until replaced, so every screen installs its own before inventory
+     * - Not saved to the module (flag 0); the last installed mask is cached to skip redundant calls
+     * - Call on [dispatcher]
+     */
+    fun setSelectMask(mask: SelectMask): Boolean {
+        if (mask == selectMask) return true
+        return if (isEmulator) {
+            AppLog.d(TAG) { "Mock: Setting select mask $mask" }
+            selectMask = mask
+            true
+        } else {
+            try {
+                val result = uhfManager?.filterSet(mask.bank.value, mask.bitAddress, mask.bitLength, mask.data, 0) ?: false
+                AppLog.d(TAG) { "Set select mask $mask: $result" }
+                // Unknown module state after a failure: force the next call through
+                selectMask = if (result) mask else null
+                result
+            } catch (e: Exception) {
+                AppLog.e(TAG) { "Failed to set select mask: ${e.message}" }
+                selectMask = null
+                false
+            }
+        }
+    }
+
+    /**
+     * 套用清單掃描參數 / Apply inventory mode, Gen2 session and target
+     * Each setting is cached and only sent when it changes; power is applied through [applyPowerProfile]
+     * Call on [dispatcher]
+     */
+    fun applyInventoryTuning(tuning: InventoryTuning): Boolean {
+        val current = appliedTuning
+        var result = true
+        if (current?.slrMode != tuning.slrMode) result = setSlrInventoryMode(tuning.slrMode) && result
+        if (current?.session != tuning.session) result = setSessionMode(tuning.session) && result
+        if (current?.target != tuning.target) result = setGen2Target(tuning.target) && result
+        // Unknown module state after a failure: resend everything next time
+        appliedTuning = if (result) tuning else null
+        return result
+    }
+
+    /**
+     * Set Gen2 session (0-3); S1+ keeps tags that were read quiet so the rest of a dense population answers
+     * Following vendor demo pattern: uhfmanager.sessionModeSet(session)
+     */
+    fun setSessionMode(session: Int): Boolean {
+        return if (isEmulator) {
+            AppLog.d(TAG) { "Mock: Setting session mode to $session" }
+            true
+        } else {
+            try {
+                val result = uhfManager?.sessionModeSet(session) ?: false
+                AppLog.d(TAG) { "Set session mode $session: $result" }
+                result
+            } catch (e: Exception) {
+                AppLog.e(TAG) { "Failed to set session mode: ${e.message}" }
+                false
+            }
+        }
+    }
+
+    /**
+     * Set Gen2 inventory target (0 = A, 1 = B)
+     * Following vendor demo pattern: uhfmanager.setGen2Target(target)
+     */
+    fun setGen2Target(target: Int): Boolean {
+        return if (isEmulator) {
+            AppLog.d(TAG) { "Mock: Setting Gen2 target to $target" }
+            true
+        } else {
+            try {
+                val result = uhfManager?.setGen2Target(target) ?: false
+                AppLog.d(TAG) { "Set Gen2 target $target: $result" }
+                result
+            } catch (e: Exception) {
+                AppLog.e(TAG) { "Failed to set Gen2 target: ${e.message}" }
                 false
             }
         }
@@ -646,15 +939,15 @@ class UHFManagerWrapper {
      */
     fun setSlrInventoryMode(mode: Int): Boolean {
         return if (isEmulator) {
-            Log.d(TAG, "Mock: Setting SLR inventory mode to $mode")
+            AppLog.d(TAG) { "Mock: Setting SLR inventory mode to $mode" }
             true
         } else {
             try {
                 val result = uhfManager?.slrInventoryModeSet(mode) ?: false
-                Log.d(TAG, "Set SLR inventory mode $mode: $result")
+                AppLog.d(TAG) { "Set SLR inventory mode $mode: $result" }
                 result
             } catch (e: Exception) {
-                Log.e(TAG, "Failed to set SLR inventory mode: ${e.message}")
+                AppLog.e(TAG) { "Failed to set SLR inventory mode: ${e.message}" }
                 false
             }
         }
@@ -666,15 +959,15 @@ class UHFManagerWrapper {
      */
     fun setReadTagMode(mode: Int, startAddress: Int, length: Int, option: Int): Boolean {
         return if (isEmulator) {
-            Log.d(TAG, "Mock: Setting read tag mode to $mode,$startAddress,$length,$option")
+            AppLog.d(TAG) { "Mock: Setting read tag mode to $mode,$startAddress,$length,$option" }
             true
         } else {
             try {
                 val result = uhfManager?.readTagModeSet(mode, startAddress, length, option) ?: false
-                Log.d(TAG, "Set read tag mode $mode,$startAddress,$length,$option: $result")
+                AppLog.d(TAG) { "Set read tag mode $mode,$startAddress,$length,$option: $result" }
                 result
             } catch (e: Exception) {
-                Log.e(TAG, "Failed to set read tag mode: ${e.message}")
+                AppLog.e(TAG) { "Failed to set read tag mode: ${e.message}" }
                 false
             }
         }
@@ -686,15 +979,15 @@ class UHFManagerWrapper {
      */
     fun setFrequencyModeSet(mode: Int): Boolean {
         return if (isEmulator) {
-            Log.d(TAG, "Mock: Setting frequency mode to $mode")
+            AppLog.d(TAG) { "Mock: Setting frequency mode to $mode" }
             true
         } else {
             try {
                 val result = uhfManager?.frequencyModeSet(mode) ?: false
-                Log.d(TAG, "Set frequency mode $mode: $result")
+                AppLog.d(TAG) { "Set frequency mode $mode: $result" }
                 result
             } catch (e: Exception) {
-                Log.e(TAG, "Failed to set frequency mode: ${e.message}")
+                AppLog.e(TAG) { "Failed to set frequency mode: ${e.message}" }
                 false
             }
         }
@@ -0,0 +1,120 @@
+package com.socam.bcms.utils
+
+import android.util.Log
+import com.socam.bcms.BuildConfig
+import java.io.File
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Logging facade for hot paths (scan loops, UHF calls, sync)
+ *
+ * - Compile-time gate: v()/d() compile to nothing useful unless BuildConfig.HOT_PATH_LOGS (debug builds)
+ * - Runtime gate: [minLevel], checked before the message lambda runs
+ * - Messages are inline lambdas, so a disabled call allocates nothing and formats nothing
+ * - Every emitted line also lands in a lock-free ring buffer that [dump] writes to a file
+ */
+object AppLog {
+
+    const val RING_CAPACITY = 1024
+
+    /**
+     * Lowest level emitted (android.util.Log constants)
+     */
+    @Volatile
+    var minLevel: Int = if (BuildConfig.HOT_PATH_LOGS) Log.DEBUG else Log.INFO
+
+    /**
+     * One ring buffer line
+     */
+    class Entry(
+        val sequence: Long,
+        val timestamp: Long,
+        val level: Int,
+        val tag: String,
+        val message: String,
+        val threadName: String
+    )
+
+    private val ring = AtomicReferenceArray<Entry?>(RING_CAPACITY)
+    private val sequence = AtomicLong()
+
+    inline fun v(tag: String, message: () -> String): Unit {
+        if (BuildConfig.HOT_PATH_LOGS && minLevel <= Log.VERBOSE) write(Log.VERBOSE, tag, message(), null)
+    }
+
+    inline fun d(tag: String, message: () -> String): Unit {
+        if (BuildConfig.HOT_PATH_LOGS && minLevel <= Log.DEBUG) write(Log.DEBUG, tag, message(), null)
+    }
+
+    inline fun i(tag: String, message: () -> String): Unit {
+        if (minLevel <= Log.INFO) write(Log.INFO, tag, message(), null)
+    }
+
+    inline fun w(tag: String, throwable: Throwable? = null, message: () -> String): Unit {
+        if (minLevel <= Log.WARN) write(Log.WARN, tag, message(), throwable)
+    }
+
+    inline fun e(tag: String, throwable: Throwable? = null, message: () -> String): Unit {
+        write(Log.ERROR, tag, message(), throwable)
+    }
+
+    fun isLoggable(level: Int): Boolean {
+        return level >= minLevel && (level > Log.DEBUG || BuildConfig.HOT_PATH_LOGS)
+    }
+
+    @PublishedApi
+    internal fun write(level: Int, tag: String, message: String, throwable: Throwable?): Unit {
+        val text = if (throwable != null) "$message\n${Log.getStackTraceString(throwable)}" else message
+        Log.println(level, tag, text)
+
+        val seq = sequence.getAndIncrement()
+        val entry = Entry(seq, System.currentTimeMillis(), level, tag, text, Thread.currentThread().name)
+        ring.set((seq % RING_CAPACITY).toInt(), entry)
+    }
+
+    /**
+     * Ring buffer contents, oldest first
+     */
+    fun snapshot(): List<Entry> {
+        val entries = ArrayList<Entry>(RING_CAPACITY)
+        for (i in 0 until RING_CAPACITY) {
+            ring.get(i)?.let { entries.add(it) }
+        }
+        entries.sortBy { it.sequence }
+        return entries
+    }
+
+    /**
+     * Write the ring buffer to [file] for field diagnostics
+     */
+    fun dump(file: File): File {
+        val dateFormat = SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US)
+        file.bufferedWriter().use { writer ->
+            snapshot().forEach { entry ->
+                writer.append(dateFormat.format(Date(entry.timestamp)))
+                    .append(' ').append(levelChar(entry.level))
+                    .append(' ').append(entry.tag)
+                    .append(" [").append(entry.threadName).append("] ")
+                    .append(entry.message)
+                    .append('\n')
+            }
+        }
+        return file
+    }
+
+    fun clear(): Unit {
+        for (i in 0 until RING_CAPACITY) ring.set(i, null)
+    }
+
+    private fun levelChar(level: Int): Char = when (level) {
+        Log.VERBOSE -> 'V'
+        Log.DEBUG -> 'D'
+        Log.INFO -> 'I'
+        Log.WARN -> 'W'
+        else -> 'E'
+    }
+}
@@ -0,0 +1,159 @@
+package com.socam.bcms.utils
+
+import java.util.TimeZone
+
+/**
+ * IsoDateTimeCodec - ISO-8601 timestamps ↔ epoch seconds without SimpleDateFormat
+ *
+ * - Parse: "yyyy-MM-dd", "yyyy-MM-dd'T'HH:mm[:ss[.fffffff]]" ('T' or ' ' separator)
+ * - Format: "yyyy-MM-dd'T'HH:mm:ss" (API datetime) and "yyyy-MM-dd" (API date only)
+ * - Wall-clock values are device local time, as with the SimpleDateFormat code it replaces;
+ *   a trailing zone ("Z", "+08:00") is ignored for the same reason
+ * - Thread-safe: no shared mutable state except a per-thread char buffer for formatting
+ */
+object IsoDateTimeCodec {
+
+    private const val SECONDS_PER_DAY = 86_400L
+
+    // Read once per process; the device zone (Asia/Hong_Kong) does not change at runtime
+    private val zone: TimeZone = TimeZone.getDefault()
+
+    private val formatBuffer = object : ThreadLocal<CharArray>() {
+        override fun initialValue(): CharArray = CharArray(19)
+    }
+
+    /**
+     * Parse an ISO-8601 date or datetime to epoch seconds, null if blank or malformed
+     */
+    fun parse(text: CharSequence?): Long? {
+        if (text == null) return null
+        var start = 0
+        var end = text.length
+        while (start < end && text[start] <= ' ') start++
+        while (end > start && text[end - 1] <= ' ') end--
+        if (end - start < 10) return null
+
+        val year = digits(text, start, 4)
+        val month = digits(text, start + 5, 2)
+        val day = digits(text, start + 8, 2)
+        if (year < 0 || month !in 1..12 || day !in 1..31) return null
+        if (text[start + 4] != '-' || text[start + 7] != '-') return null
+
+        var hour = 0
+        var minute = 0
+        var second = 0
+        var pos = start + 10
+        if (pos < end && (text[pos] == 'T' || text[pos] == ' ')) {
+            if (end - pos < 6 || text[pos + 3] != ':') return null
+            hour = digits(text, pos + 1, 2)
+            minute = digits(text, pos + 4, 2)
+            pos += 6
+            if (pos + 2 < end && text[pos] == ':') {
+                second = digits(text, pos + 1, 2)
+                pos += 3
+            }
+            if (hour !in 0..23 || minute !in 0..59 || second !in 0..59) return null
+            // Fraction and zone suffix are not significant at second resolution in local time
+        } else if (pos < end && text[pos] != 'Z' && text[pos] != '+' && text[pos] != '-') {
+            return null
+        }
+
+        val localSeconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second
+        return localToUtcSeconds(localSeconds)
+    }
+
+    /**
+     * Format epoch seconds as "yyyy-MM-dd'T'HH:mm:ss" (local time), null for null input
+     */
+    fun formatDateTime(epochSeconds: Long?): String? {
+        if (epochSeconds == null) return null
+        return format(epochSeconds, withTime = true)
+    }
+
+    /**
+     * Format epoch seconds as "yyyy-MM-dd" (local date), null for null input
+     */
+    fun formatDate(epochSeconds: Long?): String? {
+        if (epochSeconds == null) return null
+        return format(epochSeconds, withTime = false)
+    }
+
+    private fun format(epochSeconds: Long, withTime: Boolean): String {
+        val utcMillis = epochSeconds * 1000
+        val localSeconds = (utcMillis + zone.getOffset(utcMillis)).floorDiv(1000L)
+        val days = localSeconds.floorDiv(SECONDS_PER_DAY)
+        val secondOfDay = (localSeconds - days * SECONDS_PER_DAY).toInt()
+
+        // Civil date from days since epoch (H. Hinnant's algorithm)
+        val z = days + 719_468
+        val era = z.floorDiv(146_097L)
+        val doe = (z - era * 146_097).toInt()
+        val yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365
+        val doy = doe - (365 * yoe + yoe / 4 - yoe / 100)
+        val mp = (5 * doy + 2) / 153
+        val day = doy - (153 * mp + 2) / 5 + 1
+        val month = if (mp < 10) mp + 3 else mp - 9
+        val year = (yoe + era * 400 + if (month <= 2) 1 else 0).toInt()
+
+        val buffer = formatBuffer.get()!!
+        put(buffer, 0, year, 4)
+        buffer[4] = '-'
+        put(buffer, 5, month, 2)
+        buffer[7] = '-'
+        put(buffer, 8, day, 2)
+        if (!withTime) return String(buffer, 0, 10)
+
+        buffer[10] = 'T'
+        put(buffer, 11, secondOfDay / 3600, 2)
+        buffer[13] = ':'
+        put(buffer, 14, secondOfDay / 60 % 60, 2)
+        buffer[16] = ':'
+        put(buffer, 17, secondOfDay % 60, 2)
+        return String(buffer, 0, 19)
+    }
+
+    /**
+     * Local wall-clock seconds → UTC seconds (second pass handles DST transitions)
+     */
+    private fun localToUtcSeconds(localSeconds: Long): Long {
+        val localMillis = localSeconds * 1000
+        val offset = zone.getOffset(localMillis - zone.rawOffset)
+        var utcMillis = localMillis - offset
+        val actualOffset = zone.getOffset(utcMillis)
+        if (actualOffset != offset) {
+            utcMillis = localMillis - actualOffset
+        }
+        return utcMillis.floorDiv(1000L)
+    }
+
+    private fun daysFromCivil(year: Int, month: Int, day: Int): Long {
+        val y = (if (month <= 2) year - 1 else year).toLong()
+        val era = y.floorDiv(400L)
+        val yoe = y - era * 400
+        val doy = (153 * (if (month > 2) month - 3 else month + 9) + 2) / 5 + day - 1
+        val doe = yoe * 365 + yoe / 4 - yoe / 100 + doy
+        return era * 146_097 + doe - 719_468
+    }
+
+    /**
+     * Parse [count] ASCII digits at [offset], -1 if any is missing or not a digit
+     */
+    private fun digits(text: CharSequence, offset: Int, count: Int): Int {
+        if (offset + count > text.length) return -1
+        var value = 0
+        for (i in offset until offset + count) {
+            val c = text[i]
+            if (c !in '0'..'9') return -1
+            value = value * 10 + (c - '0')
+        }
+        return value
+    }
+
+    private fun put(buffer: CharArray, offset: Int, value: Int, width: Int): Unit {
+        var remaining = value
+        for (i in offset + width - 1 downTo offset) {
+            buffer[i] = '0' + remaining % 10
+            remaining /= 10
+        }
+    }
+}
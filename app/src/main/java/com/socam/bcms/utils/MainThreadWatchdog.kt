@@ -0,0 +1,109 @@
+package com.socam.bcms.utils
+
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Detects main-thread stalls (blocked looper) in the field
+ *
+ * - A daemon thread posts a tick to the main looper and checks it ran within [STALL_THRESHOLD_MS]
+ * - On a stall the main thread's stack is captured into AppLog (diagnostic ring) at WARN level
+ * - Counts, total and longest stall are kept for the Settings debug report
+ *
+ * Cost: one posted Runnable per threshold period, nothing on the main thread besides the tick
+ */
+object MainThreadWatchdog {
+
+    private const val TAG = "MainThreadWatchdog"
+
+    const val STALL_THRESHOLD_MS = 200L
+    private const val RELEASE_POLL_MS = 20L
+    private const val MAX_STACK_FRAMES = 25
+
+    private val stallCount = AtomicLong()
+    private val totalStallMs = AtomicLong()
+    private val longestStallMs = AtomicLong()
+
+    @Volatile
+    private var handledTick = 0L
+
+    @Volatile
+    private var lastStallSummary: String? = null
+
+    private var watchdogThread: Thread? = null
+
+    @Synchronized
+    fun start(): Unit {
+        if (watchdogThread != null) return
+        watchdogThread = Thread(::watch, "main-watchdog").apply {
+            isDaemon = true
+            priority = Thread.MIN_PRIORITY
+            start()
+        }
+    }
+
+    private fun watch(): Unit {
+        val mainLooper = Looper.getMainLooper()
+        val mainHandler = Handler(mainLooper)
+        var tick = 0L
+        try {
+            while (true) {
+                tick++
+                val currentTick = tick
+                val postedAt = SystemClock.uptimeMillis()
+                mainHandler.post { handledTick = currentTick }
+                Thread.sleep(STALL_THRESHOLD_MS)
+                if (handledTick == currentTick) continue
+
+                // Stalled: capture where the main thread is stuck, then wait for it to recover
+                val stack = mainLooper.thread.stackTrace
+                AppLog.w(TAG) {
+                    "Main thread blocked for more than ${STALL_THRESHOLD_MS}ms\n" +
+                        stack.take(MAX_STACK_FRAMES).joinToString("\n") { "    at $it" }
+                }
+                while (handledTick != currentTick) {
+                    Thread.sleep(RELEASE_POLL_MS)
+                }
+                recordStall(SystemClock.uptimeMillis() - postedAt, stack.firstOrNull()?.toString())
+            }
+        } catch (e: InterruptedException) {
+            AppLog.i(TAG) { "Watchdog stopped" }
+        }
+    }
+
+    private fun recordStall(durationMs: Long, topFrame: String?): Unit {
+        stallCount.incrementAndGet()
+        totalStallMs.addAndGet(durationMs)
+        var longest = longestStallMs.get()
+        while (durationMs > longest && !longestStallMs.compareAndSet(longest, durationMs)) {
+            longest = longestStallMs.get()
+        }
+        lastStallSummary = "${durationMs}ms at ${topFrame ?: "?"}"
+        AppLog.w(TAG) { "Main thread stall ended after ${durationMs}ms" }
+    }
+
+    /**
+     * One-line report for the debug dialog / export
+     */
+    fun summary(): String {
+        return String.format(
+            Locale.US,
+            "Main thread stalls (>= %dms): %d, total %dms, longest %dms%s",
+            STALL_THRESHOLD_MS,
+            stallCount.get(),
+            totalStallMs.get(),
+            longestStallMs.get(),
+            lastStallSummary?.let { ", last $it" } ?: ""
+        )
+    }
+
+    fun reset(): Unit {
+        stallCount.set(0)
+        totalStallMs.set(0)
+        longestStallMs.set(0)
+        lastStallSummary = null
+    }
+}
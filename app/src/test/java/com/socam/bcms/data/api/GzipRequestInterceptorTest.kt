@@ -0,0 +1,80 @@
+package com.socam.bcms.data.api
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.GzipSource
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * GzipRequestInterceptor against a local mock server
+ */
+class GzipRequestInterceptorTest {
+
+    private lateinit var server: MockWebServer
+
+    // Above the interceptor's 1 KB threshold
+    private val json = "[" + (1..200).joinToString(",") { "{\"id\":$it}" } + "]"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        server.enqueue(MockResponse().setBody("{}"))
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun markedRequest_isGzippedWhenEnabled() {
+        post(enabled = true, marked = true)
+
+        val recorded = server.takeRequest()
+        assertEquals("gzip", recorded.getHeader("Content-Encoding"))
+        assertNull(recorded.getHeader(GzipRequestInterceptor.COMPRESS_HEADER))
+        val body = GzipSource(recorded.body).buffer().readUtf8()
+        assertEquals(json, body)
+    }
+
+    @Test
+    fun markedRequest_isSentPlainWhenDisabled() {
+        post(enabled = false, marked = true)
+
+        val recorded = server.takeRequest()
+        assertNull(recorded.getHeader("Content-Encoding"))
+        assertNull(recorded.getHeader(GzipRequestInterceptor.COMPRESS_HEADER))
+        assertEquals(json, recorded.body.readUtf8())
+    }
+
+    @Test
+    fun unmarkedRequest_isSentPlain() {
+        post(enabled = true, marked = false)
+
+        val recorded = server.takeRequest()
+        assertNull(recorded.getHeader("Content-Encoding"))
+        assertEquals(json, recorded.body.readUtf8())
+    }
+
+    private fun post(enabled: Boolean, marked: Boolean): Unit {
+        val client = OkHttpClient.Builder()
+            .addInterceptor(GzipRequestInterceptor(enabled))
+            .build()
+        val request = Request.Builder()
+            .url(server.url("/api/upload"))
+            .post(json.toRequestBody("application/json".toMediaType()))
+            .apply { if (marked) header(GzipRequestInterceptor.COMPRESS_HEADER, "gzip") }
+            .build()
+        client.newCall(request).execute().close()
+    }
+}
@@ -0,0 +1,97 @@
+package com.socam.bcms.data.api
+
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.Buffer
+import okio.DeflaterSink
+import okio.GzipSink
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import java.util.zip.Deflater
+
+/**
+ * ResponseDecodingInterceptor against a local mock server
+ */
+class ResponseDecodingInterceptorTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var client: OkHttpClient
+
+    private val json = "{\"items\":[" + (1..50).joinToString(",") { "{\"id\":$it}" } + "]}"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        client = OkHttpClient.Builder()
+            .addInterceptor(ResponseDecodingInterceptor())
+            .build()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun gzipResponse_isDecoded() {
+        val body = Buffer()
+        GzipSink(body).buffer().use { it.writeUtf8(json) }
+        server.enqueue(MockResponse().setHeader("Content-Encoding", "gzip").setBody(body))
+
+        assertDecoded()
+        assertEquals("gzip, deflate", server.takeRequest().getHeader("Accept-Encoding"))
+    }
+
+    @Test
+    fun zlibDeflateResponse_isDecoded() {
+        server.enqueue(MockResponse().setHeader("Content-Encoding", "deflate").setBody(deflate(nowrap = false)))
+
+        assertDecoded()
+    }
+
+    @Test
+    fun rawDeflateResponse_isDecoded() {
+        server.enqueue(MockResponse().setHeader("Content-Encoding", "deflate").setBody(deflate(nowrap = true)))
+
+        assertDecoded()
+    }
+
+    @Test
+    fun identityResponse_isPassedThrough() {
+        server.enqueue(MockResponse().setHeader("Content-Encoding", "identity").setBody(json))
+
+        client.newCall(request()).execute().use { response ->
+            assertEquals("identity", response.header("Content-Encoding"))
+            assertEquals(json, response.body!!.string())
+        }
+    }
+
+    @Test
+    fun plainResponse_isPassedThrough() {
+        server.enqueue(MockResponse().setBody(json))
+
+        assertDecoded()
+    }
+
+    private fun assertDecoded(): Unit {
+        client.newCall(request()).execute().use { response ->
+            assertNull(response.header("Content-Encoding"))
+            assertEquals(json, response.body!!.string())
+        }
+    }
+
+    private fun deflate(nowrap: Boolean): Buffer {
+        val body = Buffer()
+        DeflaterSink(body, Deflater(Deflater.DEFAULT_COMPRESSION, nowrap)).buffer().use { it.writeUtf8(json) }
+        return body
+    }
+
+    private fun request(): Request = Request.Builder().url(server.url("/api/list")).build()
+}
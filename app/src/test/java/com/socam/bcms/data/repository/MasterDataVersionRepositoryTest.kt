@@ -0,0 +1,108 @@
+package com.socam.bcms.data.repository
+
+import com.socam.bcms.data.api.SyncApiService
+import com.socam.bcms.database.Database
+import com.squareup.sqldelight.sqlite.driver.JdbcSqliteDriver
+import kotlinx.coroutines.runBlocking
+import okhttp3.Cache
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+/**
+ * Master data revalidation against a local mock server: a 304 keeps the local table as is
+ */
+class MasterDataVersionRepositoryTest {
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+    private lateinit var cache: Cache
+    private lateinit var api: SyncApiService
+    private lateinit var driver: JdbcSqliteDriver
+    private lateinit var database: Database
+    private lateinit var versions: MasterDataVersionRepository
+    private var rewrites = 0
+
+    private val regionsJson = """[{"Key":"A","Value":"Block A"},{"Key":"B","Value":"Block B"}]"""
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        cache = Cache(tempFolder.newFolder("http_cache"), 1024L * 1024)
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/iot/api/"))
+            .client(OkHttpClient.Builder().cache(cache).build())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(SyncApiService::class.java)
+
+        driver = JdbcSqliteDriver(JdbcSqliteDriver.IN_MEMORY)
+        Database.Schema.create(driver)
+        database = Database(driver)
+        versions = MasterDataVersionRepository { database.masterDataVersionQueries }
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        cache.close()
+        driver.close()
+    }
+
+    @Test
+    fun notModified_skipsRewrite() = runBlocking {
+        server.enqueue(MockResponse().setHeader("ETag", "\"v1\"").setBody(regionsJson))
+        server.enqueue(MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""))
+
+        val first = api.getMasterRegions("p1")
+        assertFalse(versions.isUnchanged(first))
+        writeRegions(first.body()!!.map { it.key to it.value })
+        versions.markApplied(first)
+
+        val second = api.getMasterRegions("p1")
+        assertEquals(304, second.raw().networkResponse?.code)
+        assertTrue(versions.isUnchanged(second))
+        if (!versions.isUnchanged(second)) writeRegions(emptyList())
+
+        server.takeRequest()
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"))
+        assertEquals(1, rewrites)
+        assertEquals(2L, database.masterRegionsQueries.countRegions().executeAsOne())
+    }
+
+    @Test
+    fun newVersion_isRewritten() = runBlocking {
+        server.enqueue(MockResponse().setHeader("ETag", "\"v1\"").setBody(regionsJson))
+        server.enqueue(MockResponse().setHeader("ETag", "\"v2\"").setBody("""[{"Key":"C","Value":"Block C"}]"""))
+
+        val first = api.getMasterRegions("p1")
+        writeRegions(first.body()!!.map { it.key to it.value })
+        versions.markApplied(first)
+
+        val second = api.getMasterRegions("p1")
+        assertFalse(versions.isUnchanged(second))
+        assertEquals("\"v2\"", second.headers()["ETag"])
+    }
+
+    /**
+     * Same rewrite as SyncViewModel.syncRegions
+     */
+    private fun writeRegions(regions: List<Pair<String, String>>): Unit {
+        rewrites++
+        database.masterRegionsQueries.deleteAllRegions()
+        regions.forEach { (key, value) -> database.masterRegionsQueries.insertRegion(key, value) }
+    }
+}